@@ -0,0 +1,117 @@
+package org.example.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.example.spec.JsonRpcMessageDecoder;
+import org.example.spec.LazyParams;
+import org.example.spec.McpCodecRegistry;
+import org.example.spec.McpMethod;
+import org.example.spec.McpSchema;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * tools/call 的完整编解码往返：发送方编码整条 JSON-RPC 消息，接收方解码消息并把 params/result 绑定到记录类型
+ *
+ * <p>
+ * 不带后缀的方法每次通过 {@link ObjectMapper#convertValue} 绑定；{@code Registry} 后缀的方法通过
+ * {@link McpCodecRegistry#unmarshalParams} / {@link McpCodecRegistry#unmarshalResult} 按方法查找缓存的 reader 绑定，
+ * 与传输层 {@code sendMessage} 加 {@code unmarshalParams} / {@code unmarshalResult} 的路径一致。
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CallToolRoundTripBenchmark {
+
+    private static final TypeReference<McpSchema.CallToolRequest> CALL_TOOL_REQUEST = new TypeReference<>() {
+    };
+
+    private static final TypeReference<McpSchema.CallToolResult> CALL_TOOL_RESULT = new TypeReference<>() {
+    };
+
+    @Param
+    public PayloadSize size;
+
+    private ObjectMapper objectMapper;
+
+    private JsonRpcMessageDecoder decoder;
+
+    private JsonRpcMessageDecoder lazyDecoder;
+
+    private McpCodecRegistry codecs;
+
+    private McpSchema.JSONRPCRequest request;
+
+    private McpSchema.JSONRPCResponse response;
+
+    @Setup
+    public void setup() {
+        objectMapper = new ObjectMapper();
+        decoder = new JsonRpcMessageDecoder(objectMapper);
+        lazyDecoder = new JsonRpcMessageDecoder(objectMapper, true);
+        codecs = new McpCodecRegistry(objectMapper);
+        Fixtures fixtures = new Fixtures(size);
+        request = fixtures.request;
+        response = fixtures.response;
+    }
+
+    @Benchmark
+    public McpSchema.CallToolRequest request() throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(request);
+        var decoded = (McpSchema.JSONRPCRequest) decoder.decode(json, 0, json.length);
+        return objectMapper.convertValue(decoded.params(), CALL_TOOL_REQUEST);
+    }
+
+    @Benchmark
+    public McpSchema.CallToolRequest requestLazyParams() throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(request);
+        var decoded = (McpSchema.JSONRPCRequest) lazyDecoder.decode(json, 0, json.length);
+        return ((LazyParams) decoded.params()).bind(objectMapper, CALL_TOOL_REQUEST);
+    }
+
+    @Benchmark
+    public McpSchema.CallToolResult result() throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(response);
+        var decoded = (McpSchema.JSONRPCResponse) decoder.decode(json, 0, json.length);
+        return objectMapper.convertValue(decoded.result(), CALL_TOOL_RESULT);
+    }
+
+    @Benchmark
+    public McpSchema.CallToolRequest requestRegistry() throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(request);
+        var decoded = (McpSchema.JSONRPCRequest) decoder.decode(json, 0, json.length);
+        return codecs.unmarshalParams(decoded.mcpMethod(), decoded.params(), CALL_TOOL_REQUEST);
+    }
+
+    @Benchmark
+    public McpSchema.CallToolRequest requestLazyParamsRegistry() throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(request);
+        var decoded = (McpSchema.JSONRPCRequest) lazyDecoder.decode(json, 0, json.length);
+        return codecs.unmarshalParams(decoded.mcpMethod(), decoded.params(), CALL_TOOL_REQUEST);
+    }
+
+    @Benchmark
+    public McpSchema.CallToolResult resultRegistry() throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(response);
+        var decoded = (McpSchema.JSONRPCResponse) decoder.decode(json, 0, json.length);
+        return codecs.unmarshalResult(McpMethod.TOOLS_CALL, decoded.result(), CALL_TOOL_RESULT);
+    }
+
+}
@@ -0,0 +1,153 @@
+package org.example.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.example.spec.McpSchema;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * 基准测试使用的固定负载
+ *
+ * <p>
+ * 内容由固定种子的伪随机数生成，每次运行完全相同；文本中混有引号、换行和非 ASCII 字符，
+ * 使 JSON 转义和 UTF-8 编码的开销接近真实负载。
+ * </p>
+ */
+final class Fixtures {
+
+    private static final String[] WORDS = { "model", "context", "protocol", "resource", "tool", "prompt", "server",
+            "client", "stream", "session", "数据", "请求", "响应", "\"quoted\"", "line\nbreak", "tab\tseparated",
+            "émoji-✓", "path/to/file.txt" };
+
+    final PayloadSize size;
+
+    final McpSchema.CallToolRequest callToolRequest;
+
+    final McpSchema.CallToolResult callToolResult;
+
+    final McpSchema.ReadResourceResult readResourceResult;
+
+    final McpSchema.JSONRPCRequest request;
+
+    final McpSchema.JSONRPCNotification notification;
+
+    final McpSchema.JSONRPCResponse response;
+
+    final McpSchema.JSONRPCResponse errorResponse;
+
+    final McpSchema.JSONRPCResponse readResourceResponse;
+
+    Fixtures(PayloadSize size) {
+        this.size = size;
+        Random random = new Random(42);
+        int scale = size.scale;
+
+        this.callToolRequest = new McpSchema.CallToolRequest("search_documents", arguments(random, scale),
+                Map.of("progressToken", "token-1"));
+
+        McpSchema.CallToolResult.Builder result = McpSchema.CallToolResult.builder()
+            .addTextContent(text(random, 1024 * scale))
+            .structuredContent(structured(random, scale));
+        if (size != PayloadSize.SMALL) {
+            result.addContent(new McpSchema.ImageContent(null, base64(random, 512 * scale), "image/png"));
+        }
+        this.callToolResult = result.build();
+
+        List<McpSchema.ResourceContents> contents = new ArrayList<>();
+        int files = Math.min(scale, 16);
+        for (int i = 0; i < files; i++) {
+            contents.add(new McpSchema.TextResourceContents("file:///project/src/File" + i + ".java", "text/x-java",
+                    text(random, 1024 * scale / files)));
+        }
+        if (size != PayloadSize.SMALL) {
+            contents.add(new McpSchema.BlobResourceContents("file:///project/assets/logo.png", "image/png",
+                    base64(random, 1024 * scale)));
+        }
+        this.readResourceResult = new McpSchema.ReadResourceResult(contents);
+
+        this.request = new McpSchema.JSONRPCRequest(McpSchema.JSONRPC_VERSION, McpSchema.METHOD_TOOLS_CALL, 42,
+                callToolRequest);
+        this.notification = new McpSchema.JSONRPCNotification(McpSchema.JSONRPC_VERSION,
+                McpSchema.METHOD_NOTIFICATION_MESSAGE,
+                Map.of("level", "info", "logger", "indexer", "data", structured(random, scale)));
+        this.response = new McpSchema.JSONRPCResponse(McpSchema.JSONRPC_VERSION, 42, callToolResult, null);
+        this.errorResponse = new McpSchema.JSONRPCResponse(McpSchema.JSONRPC_VERSION, 42, null,
+                new McpSchema.JSONRPCResponse.JSONRPCError(McpSchema.ErrorCodes.INTERNAL_ERROR,
+                        "Tool execution failed", Map.of("detail", text(random, 256 * scale))));
+        this.readResourceResponse = new McpSchema.JSONRPCResponse(McpSchema.JSONRPC_VERSION, 43, readResourceResult,
+                null);
+    }
+
+    /**
+     * @param kind 消息类型
+     * @return 对应的消息
+     */
+    McpSchema.JSONRPCMessage message(MessageKind kind) {
+        return switch (kind) {
+            case REQUEST -> request;
+            case NOTIFICATION -> notification;
+            case RESPONSE -> response;
+            case ERROR -> errorResponse;
+        };
+    }
+
+    static byte[] toJson(ObjectMapper objectMapper, Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        }
+        catch (IOException e) {
+            throw new IllegalStateException("Failed to serialize fixture", e);
+        }
+    }
+
+    private static Map<String, Object> arguments(Random random, int scale) {
+        Map<String, Object> arguments = new LinkedHashMap<>();
+        arguments.put("query", text(random, 64));
+        arguments.put("limit", 20);
+        arguments.put("includeArchived", false);
+        List<Map<String, Object>> filters = new ArrayList<>();
+        for (int i = 0; i < 8 * scale; i++) {
+            filters.add(Map.of("field", WORDS[random.nextInt(WORDS.length)], "op", "eq", "value", random.nextInt()));
+        }
+        arguments.put("filters", filters);
+        if (scale > 1) {
+            arguments.put("document", text(random, 512 * scale));
+        }
+        return arguments;
+    }
+
+    private static Map<String, Object> structured(Random random, int scale) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int i = 0; i < 4 * scale; i++) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("id", "doc-" + i);
+            row.put("score", random.nextDouble());
+            row.put("title", text(random, 48));
+            row.put("tags", List.of(WORDS[random.nextInt(WORDS.length)], WORDS[random.nextInt(WORDS.length)]));
+            rows.add(row);
+        }
+        return Map.of("total", rows.size(), "rows", rows);
+    }
+
+    private static String text(Random random, int length) {
+        StringBuilder text = new StringBuilder(length + 32);
+        while (text.length() < length) {
+            text.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+        }
+        return text.substring(0, length);
+    }
+
+    private static String base64(Random random, int length) {
+        byte[] data = new byte[length];
+        random.nextBytes(data);
+        return Base64.getEncoder().encodeToString(data);
+    }
+
+}
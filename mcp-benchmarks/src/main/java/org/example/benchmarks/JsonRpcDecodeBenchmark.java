@@ -0,0 +1,76 @@
+package org.example.benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.example.spec.JsonRpcMessageDecoder;
+import org.example.spec.McpSchema;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * {@link McpSchema#deserializeJsonRpcMessage} 的解码开销
+ *
+ * <p>
+ * 分别测量从 {@link String} 和从 UTF-8 字节解码，以及开启延迟绑定 params 时的解码，
+ * 输入覆盖四种消息类型和三种负载规模。
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonRpcDecodeBenchmark {
+
+    @Param
+    public PayloadSize size;
+
+    @Param
+    public MessageKind kind;
+
+    private ObjectMapper objectMapper;
+
+    private JsonRpcMessageDecoder lazyDecoder;
+
+    private String json;
+
+    private byte[] jsonBytes;
+
+    @Setup
+    public void setup() {
+        objectMapper = new ObjectMapper();
+        lazyDecoder = new JsonRpcMessageDecoder(objectMapper, true);
+        jsonBytes = Fixtures.toJson(objectMapper, new Fixtures(size).message(kind));
+        json = new String(jsonBytes, StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public McpSchema.JSONRPCMessage decodeString() throws IOException {
+        return McpSchema.deserializeJsonRpcMessage(objectMapper, json);
+    }
+
+    @Benchmark
+    public McpSchema.JSONRPCMessage decodeBytes() throws IOException {
+        return McpSchema.deserializeJsonRpcMessage(objectMapper, jsonBytes);
+    }
+
+    @Benchmark
+    public McpSchema.JSONRPCMessage decodeBytesLazyParams() throws IOException {
+        return lazyDecoder.decode(jsonBytes, 0, jsonBytes.length);
+    }
+
+}
@@ -0,0 +1,64 @@
+package org.example.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.example.spec.McpSchema;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * 各类 {@link McpSchema.JSONRPCMessage} 的编码开销
+ *
+ * <p>
+ * {@code writeValueAsString} 是传输层当前使用的路径，{@code writeValueAsBytes} 作为直接输出 UTF-8 的对照。
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonRpcEncodeBenchmark {
+
+    @Param
+    public PayloadSize size;
+
+    @Param
+    public MessageKind kind;
+
+    private ObjectMapper objectMapper;
+
+    private McpSchema.JSONRPCMessage message;
+
+    @Setup
+    public void setup() {
+        objectMapper = new ObjectMapper();
+        message = new Fixtures(size).message(kind);
+        // 预热序列化器缓存，使测量不包含第一次的反射开销
+        Fixtures.toJson(objectMapper, message);
+    }
+
+    @Benchmark
+    public String writeValueAsString() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(message);
+    }
+
+    @Benchmark
+    public byte[] writeValueAsBytes() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(message);
+    }
+
+}
@@ -0,0 +1,28 @@
+package org.example.benchmarks;
+
+/**
+ * 基准测试覆盖的 JSON-RPC 消息类型
+ */
+public enum MessageKind {
+
+    /**
+     * 带有 CallToolRequest 参数的 tools/call 请求
+     */
+    REQUEST,
+
+    /**
+     * 带有结构化数据的 notifications/message 通知
+     */
+    NOTIFICATION,
+
+    /**
+     * 带有 CallToolResult 的成功响应
+     */
+    RESPONSE,
+
+    /**
+     * 带有错误详情的错误响应
+     */
+    ERROR
+
+}
@@ -0,0 +1,32 @@
+package org.example.benchmarks;
+
+/**
+ * 基准测试的负载规模
+ */
+public enum PayloadSize {
+
+    /**
+     * 几百字节，如 ping、简单的工具调用
+     */
+    SMALL(1),
+
+    /**
+     * 几十 KB，如带有结构化结果的工具调用、一页资源列表
+     */
+    MEDIUM(32),
+
+    /**
+     * 数 MB，如读取大文件资源、返回图片的工具调用
+     */
+    HUGE(2048);
+
+    /**
+     * 负载中重复单元的倍数，单元约为 1 KB
+     */
+    final int scale;
+
+    PayloadSize(int scale) {
+        this.scale = scale;
+    }
+
+}
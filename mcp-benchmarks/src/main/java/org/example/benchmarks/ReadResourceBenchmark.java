@@ -0,0 +1,78 @@
+package org.example.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.example.spec.JsonRpcMessageDecoder;
+import org.example.spec.McpCodecRegistry;
+import org.example.spec.McpMethod;
+import org.example.spec.McpSchema;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * resources/read 大响应的编解码开销，HUGE 规模下包含数 MB 的文本和 Base64 二进制内容
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadResourceBenchmark {
+
+    private static final TypeReference<McpSchema.ReadResourceResult> READ_RESOURCE_RESULT = new TypeReference<>() {
+    };
+
+    @Param
+    public PayloadSize size;
+
+    private ObjectMapper objectMapper;
+
+    private JsonRpcMessageDecoder decoder;
+
+    private McpCodecRegistry codecs;
+
+    private McpSchema.JSONRPCResponse response;
+
+    private byte[] json;
+
+    @Setup
+    public void setup() {
+        objectMapper = new ObjectMapper();
+        decoder = new JsonRpcMessageDecoder(objectMapper);
+        codecs = new McpCodecRegistry(objectMapper);
+        response = new Fixtures(size).readResourceResponse;
+        json = Fixtures.toJson(objectMapper, response);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public McpSchema.ReadResourceResult decode() throws IOException {
+        var decoded = (McpSchema.JSONRPCResponse) decoder.decode(json, 0, json.length);
+        return objectMapper.convertValue(decoded.result(), READ_RESOURCE_RESULT);
+    }
+
+    @Benchmark
+    public McpSchema.ReadResourceResult decodeRegistry() throws IOException {
+        var decoded = (McpSchema.JSONRPCResponse) decoder.decode(json, 0, json.length);
+        return codecs.unmarshalResult(McpMethod.RESOURCES_READ, decoded.result(), READ_RESOURCE_RESULT);
+    }
+
+}
@@ -0,0 +1,47 @@
+package org.example.client;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+
+import org.reactivestreams.Publisher;
+
+import reactor.core.publisher.Mono;
+import reactor.util.annotation.Nullable;
+
+/**
+ * 在 HTTP 请求发出之前对其进行定制，例如添加认证头、追踪头等
+ *
+ * <p>
+ * 定制操作是异步的，可以在其中完成获取令牌等耗时操作
+ * </p>
+ */
+public interface AsyncHttpRequestCustomizer {
+
+    /**
+     * 定制 HTTP 请求
+     *
+     * @param builder 待定制的请求构造器
+     * @param method HTTP 方法，如 GET、POST
+     * @param endpoint 请求的目标地址
+     * @param body 请求体，GET 请求时为 {@code null}
+     * @return 发出定制后请求构造器的 {@link Publisher}
+     */
+    Publisher<HttpRequest.Builder> customize(HttpRequest.Builder builder, String method, URI endpoint,
+        @Nullable String body);
+
+    /**
+     * 不做任何定制的默认实现
+     */
+    AsyncHttpRequestCustomizer NOOP = new Noop();
+
+    class Noop implements AsyncHttpRequestCustomizer {
+
+        @Override
+        public Publisher<HttpRequest.Builder> customize(HttpRequest.Builder builder, String method, URI endpoint,
+            String body) {
+            return Mono.just(builder);
+        }
+
+    }
+
+}
@@ -0,0 +1,25 @@
+package org.example.client;
+
+/**
+ * 在途请求数达到上限时，传输层对新消息采取的策略
+ *
+ * @see HttpClientSseClientTransport.Builder#backpressurePolicy(BackpressurePolicy)
+ */
+public enum BackpressurePolicy {
+
+    /**
+     * 排队等待，直到有在途请求完成
+     */
+    QUEUE,
+
+    /**
+     * 立即以 {@link org.example.spec.McpTransportException} 失败
+     */
+    FAIL_FAST,
+
+    /**
+     * 直接丢弃通知（发送的 {@link reactor.core.publisher.Mono} 正常完成），请求和响应仍然排队等待
+     */
+    DROP_NOTIFICATIONS
+
+}
@@ -13,10 +13,16 @@ import java.util.function.Consumer;
 import java.util.function.Function;
 
 import org.example.enums.HttpResponseStatusCode;
+import org.example.spec.JsonRpcMessageDecoder;
+import org.example.spec.LazyParams;
+import org.example.spec.McpCodecRegistry;
 import org.example.spec.McpClientTransport;
+import org.example.spec.McpMethod;
 import org.example.spec.McpSchema;
 import org.example.spec.McpTransportException;
 import org.example.spec.ProtocolVersions;
+import org.example.util.Assert;
+import org.example.util.Utils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -26,6 +32,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
 import reactor.core.publisher.Sinks;
 
 /**
@@ -57,6 +64,21 @@ public class HttpClientSseClientTransport implements McpClientTransport {
 
     private static final Logger logger = LoggerFactory.getLogger(HttpClientSseClientTransport.class);
 
+    /**
+     * 默认的 SSE 端点路径
+     */
+    private static final String DEFAULT_SSE_ENDPOINT = "/sse";
+
+    /**
+     * 下发消息端点的 SSE 事件类型
+     */
+    private static final byte[] ENDPOINT_EVENT_TYPE = SseEventParser.ascii("endpoint");
+
+    /**
+     * 默认的在途 POST 请求数上限，低于常见 HTTP/2 服务器的 SETTINGS_MAX_CONCURRENT_STREAMS（100）
+     */
+    private static final int DEFAULT_MAX_IN_FLIGHT_REQUESTS = 64;
+
     /**
      * TODO: add annotation
      */
@@ -82,6 +104,32 @@ public class HttpClientSseClientTransport implements McpClientTransport {
      */
     protected ObjectMapper objectMapper;
 
+    /**
+     * 入站消息解码器
+     */
+    private final JsonRpcMessageDecoder messageDecoder;
+
+    /**
+     * 预先创建好的 reader / writer，{@link #unmarshalFrom} 不再每次调用 {@code convertValue}
+     */
+    private final McpCodecRegistry codecs;
+
+    /**
+     * 限制同时在途的 POST 请求数
+     */
+    private final InFlightLimiter postLimiter;
+
+    /**
+     * 出站消息批处理阶段，未开启批处理时为 {@code null}
+     */
+    private final MessageBatcher messageBatcher;
+
+    /**
+     * 传输层异常处理器
+     */
+    private volatile Consumer<Throwable> exceptionHandler = error -> {
+    };
+
     /**
      * TODO: add annotation
      */
@@ -103,15 +151,355 @@ public class HttpClientSseClientTransport implements McpClientTransport {
      */
     private final AtomicReference<Disposable> sseSubscription = new AtomicReference<>();
 
+    /**
+     * 创建一个新的传输实例
+     *
+     * @param httpClient 用于发送请求的 HTTP 客户端
+     * @param requestBuilder 请求构造器模板，每次请求时都会复制一份
+     * @param baseUri MCP 服务器的基础 URI
+     * @param sseEndpoint SSE 端点路径
+     * @param objectMapper 用于 JSON 序列化/反序列化的 ObjectMapper
+     * @param httpRequestCustomizer 请求发出前的定制器
+     * @param lazyParams 是否将入站请求和通知的 params 延迟到 {@link #unmarshalFrom} 时再绑定
+     * @param maxInFlightRequests 同时在途的 POST 请求数上限
+     * @param backpressurePolicy 在途请求数达到上限时的策略
+     * @param batchWindow 批处理的时间窗口，为 {@code null} 时不开启批处理
+     * @param maxBatchSize 单个批次的最大消息数
+     * @throws IllegalArgumentException 如果任一必需参数为 null 或为空
+     */
+    HttpClientSseClientTransport(HttpClient httpClient, HttpRequest.Builder requestBuilder, String baseUri,
+        String sseEndpoint, ObjectMapper objectMapper, AsyncHttpRequestCustomizer httpRequestCustomizer,
+        boolean lazyParams, int maxInFlightRequests, BackpressurePolicy backpressurePolicy, Duration batchWindow,
+        int maxBatchSize) {
+        Assert.notNull(objectMapper, "ObjectMapper must not be null");
+        Assert.hasText(baseUri, "baseUri must not be empty");
+        Assert.hasText(sseEndpoint, "sseEndpoint must not be empty");
+        Assert.notNull(httpClient, "httpClient must not be null");
+        Assert.notNull(requestBuilder, "requestBuilder must not be null");
+        Assert.notNull(httpRequestCustomizer, "httpRequestCustomizer must not be null");
+        this.baseUri = URI.create(baseUri);
+        this.sseEndpoint = sseEndpoint;
+        this.objectMapper = objectMapper;
+        this.httpClient = httpClient;
+        this.requestBuilder = requestBuilder;
+        this.httpRequestCustomizer = httpRequestCustomizer;
+        this.messageDecoder = new JsonRpcMessageDecoder(objectMapper, lazyParams);
+        this.codecs = new McpCodecRegistry(objectMapper);
+        this.postLimiter = new InFlightLimiter(maxInFlightRequests, backpressurePolicy);
+        this.messageBatcher = batchWindow != null ? new MessageBatcher(batchWindow, maxBatchSize, this::sendBatch)
+            : null;
+    }
+
+    /**
+     * 创建一个新的构造器
+     *
+     * @param baseUri MCP 服务器的基础 URI
+     * @return 新的构造器实例
+     */
+    public static Builder builder(String baseUri) {
+        return new Builder().baseUri(baseUri);
+    }
+
+    /**
+     * {@link HttpClientSseClientTransport} 的构造器
+     */
+    public static class Builder {
+
+        private String baseUri;
+
+        private String sseEndpoint = DEFAULT_SSE_ENDPOINT;
+
+        private HttpClient.Builder clientBuilder = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(Duration.ofSeconds(10));
+
+        private ObjectMapper objectMapper = new ObjectMapper();
+
+        private HttpRequest.Builder requestBuilder = HttpRequest.newBuilder();
+
+        private AsyncHttpRequestCustomizer httpRequestCustomizer = AsyncHttpRequestCustomizer.NOOP;
+
+        private boolean lazyParams = false;
+
+        private int maxInFlightRequests = DEFAULT_MAX_IN_FLIGHT_REQUESTS;
+
+        private BackpressurePolicy backpressurePolicy = BackpressurePolicy.QUEUE;
+
+        private Duration batchWindow;
+
+        private int maxBatchSize;
 
+        Builder() {
+        }
+
+        public Builder baseUri(String baseUri) {
+            Assert.hasText(baseUri, "baseUri must not be empty");
+            this.baseUri = baseUri;
+            return this;
+        }
+
+        public Builder sseEndpoint(String sseEndpoint) {
+            Assert.hasText(sseEndpoint, "sseEndpoint must not be empty");
+            this.sseEndpoint = sseEndpoint;
+            return this;
+        }
+
+        public Builder clientBuilder(HttpClient.Builder clientBuilder) {
+            Assert.notNull(clientBuilder, "clientBuilder must not be null");
+            this.clientBuilder = clientBuilder;
+            return this;
+        }
+
+        public Builder customizeClient(final Consumer<HttpClient.Builder> clientCustomizer) {
+            Assert.notNull(clientCustomizer, "clientCustomizer must not be null");
+            clientCustomizer.accept(clientBuilder);
+            return this;
+        }
+
+        public Builder requestBuilder(HttpRequest.Builder requestBuilder) {
+            Assert.notNull(requestBuilder, "requestBuilder must not be null");
+            this.requestBuilder = requestBuilder;
+            return this;
+        }
+
+        public Builder customizeRequest(final Consumer<HttpRequest.Builder> requestCustomizer) {
+            Assert.notNull(requestCustomizer, "requestCustomizer must not be null");
+            requestCustomizer.accept(requestBuilder);
+            return this;
+        }
+
+        public Builder objectMapper(ObjectMapper objectMapper) {
+            Assert.notNull(objectMapper, "objectMapper must not be null");
+            this.objectMapper = objectMapper;
+            return this;
+        }
+
+        public Builder httpRequestCustomizer(AsyncHttpRequestCustomizer httpRequestCustomizer) {
+            Assert.notNull(httpRequestCustomizer, "httpRequestCustomizer must not be null");
+            this.httpRequestCustomizer = httpRequestCustomizer;
+            return this;
+        }
+
+        /**
+         * 设置是否延迟绑定入站请求和通知的 params，参见 {@link LazyParams}
+         *
+         * @param lazyParams 为 {@code true} 时 params 保留为原始 token，直到 {@link #unmarshalFrom} 时才绑定
+         * @return 当前构造器
+         */
+        public Builder lazyParams(boolean lazyParams) {
+            this.lazyParams = lazyParams;
+            return this;
+        }
+
+        /**
+         * 设置同时在途的 POST 请求数上限，HTTP/2 下即同一连接上的并发流数
+         *
+         * @param maxInFlightRequests 上限，必须大于 0
+         * @return 当前构造器
+         */
+        public Builder maxInFlightRequests(int maxInFlightRequests) {
+            Assert.isTrue(maxInFlightRequests > 0, "maxInFlightRequests must be greater than 0");
+            this.maxInFlightRequests = maxInFlightRequests;
+            return this;
+        }
+
+        /**
+         * 设置在途请求数达到上限时的策略，默认为 {@link BackpressurePolicy#QUEUE}
+         *
+         * @param backpressurePolicy 背压策略
+         * @return 当前构造器
+         */
+        public Builder backpressurePolicy(BackpressurePolicy backpressurePolicy) {
+            Assert.notNull(backpressurePolicy, "backpressurePolicy must not be null");
+            this.backpressurePolicy = backpressurePolicy;
+            return this;
+        }
+
+        /**
+         * 开启出站消息批处理：在时间窗口内收集消息，合并为一个 JSON-RPC 批量数组 POST 发送
+         *
+         * <p>
+         * 适合进度、日志等突发的通知。JSON-RPC 批量数组在 2024-11-05 与 2025-03-26 版本的协议中受支持，
+         * 对端必须能够处理批量请求
+         * </p>
+         *
+         * @param window 收集消息的时间窗口，从批次中第一条消息到达时开始计时
+         * @param maxBatchSize 单个批次的最大消息数，达到后立即发送
+         * @return 当前构造器
+         */
+        public Builder batching(Duration window, int maxBatchSize) {
+            Assert.notNull(window, "window must not be null");
+            Assert.isTrue(!window.isNegative() && !window.isZero(), "window must be positive");
+            Assert.isTrue(maxBatchSize > 1, "maxBatchSize must be greater than 1");
+            this.batchWindow = window;
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        public HttpClientSseClientTransport build() {
+            return new HttpClientSseClientTransport(clientBuilder.build(), requestBuilder, baseUri, sseEndpoint,
+                objectMapper, httpRequestCustomizer, lazyParams, maxInFlightRequests, backpressurePolicy, batchWindow,
+                maxBatchSize);
+        }
+
+    }
+
+
+    /**
+     * 建立 SSE 连接并注册入站消息处理器
+     *
+     * <p>
+     * SSE 响应体按分块交给 {@link SseEventParser} 增量解析，不会为每一行创建字符串：
+     * <ul>
+     * <li>'endpoint' 事件：将消息端点写入 {@link #messageEndpointSink}，此时连接建立完成</li>
+     * <li>'message' 事件：直接从事件数据的字节区间解码 JSON-RPC 消息并交给处理器，
+     * 处理器返回的消息（如对服务器请求的响应）会通过 {@link #sendMessage} 发回服务器</li>
+     * </ul>
+     * 其他类型的事件会被忽略。
+     * </p>
+     *
+     * @param handler 入站消息的处理器
+     * @return 收到 'endpoint' 事件后完成的 {@link Mono}；若连接失败或在此之前流已结束则以错误结束
+     */
     @Override
     public Mono<Void> connect(Function<Mono<McpSchema.JSONRPCMessage>, Mono<McpSchema.JSONRPCMessage>> handler) {
-        return null;
+        final URI uri = Utils.resolveUri(this.baseUri, this.sseEndpoint);
+
+        return Mono.defer(() -> {
+            var builder = this.requestBuilder.copy()
+                .uri(uri)
+                .header("Accept", "text/event-stream")
+                .header("Cache-Control", "no-cache")
+                .GET();
+            return Mono.from(this.httpRequestCustomizer.customize(builder, "GET", uri, null));
+        }).flatMap(customizedBuilder -> Mono.<Void>create(sink -> {
+            SseEventParser parser = new SseEventParser(event -> handleSseEvent(event, handler, sink));
+            SseBodySubscriber subscriber = new SseBodySubscriber(parser, error -> {
+                if (!isClosing) {
+                    logger.error("SSE stream error: {}", error.getMessage());
+                    sink.error(new McpTransportException("SSE stream error", error));
+                    exceptionHandler.accept(error);
+                }
+            }, () -> {
+                if (!isClosing) {
+                    logger.debug("SSE stream completed by server");
+                    sink.error(new McpTransportException("SSE stream closed before endpoint event was received"));
+                }
+            });
+
+            CompletableFuture<HttpResponse<Void>> future = httpClient.sendAsync(customizedBuilder.build(),
+                responseInfo -> {
+                    if (responseInfo.statusCode() != HttpResponseStatusCode.SUCCESS_200_OK) {
+                        sink.error(new McpTransportException(
+                            "Failed to connect to SSE stream, unexpected status code: " + responseInfo.statusCode()));
+                        return HttpResponse.BodySubscribers.replacing(null);
+                    }
+                    return HttpResponse.BodySubscribers.fromSubscriber(subscriber);
+                });
+            future.whenComplete((response, error) -> {
+                if (error != null && !isClosing) {
+                    sink.error(new McpTransportException("Failed to connect to SSE stream", error));
+                }
+            });
+
+            Disposable connection = () -> {
+                subscriber.cancel();
+                future.cancel(true);
+            };
+            Disposable previous = sseSubscription.getAndSet(connection);
+            if (previous != null && !previous.isDisposed()) {
+                previous.dispose();
+            }
+            // 收到 endpoint 事件之前被取消（例如超时）时中止请求并取消响应体的订阅；
+            // 不能用 onDispose，连接成功后 SSE 流仍要继续
+            sink.onCancel(() -> {
+                sseSubscription.compareAndSet(connection, null);
+                connection.dispose();
+            });
+        }));
     }
 
+    /**
+     * 处理一个完整的 SSE 事件，在 HttpClient 的回调线程上同步执行
+     *
+     * @param event 当前事件，回调返回后其数据缓冲区会被复用
+     * @param handler 入站消息的处理器
+     * @param connectSink {@link #connect} 返回的 {@link Mono} 的 sink
+     */
+    private void handleSseEvent(SseEventParser.Event event,
+        Function<Mono<McpSchema.JSONRPCMessage>, Mono<McpSchema.JSONRPCMessage>> handler, MonoSink<Void> connectSink) {
+
+        if (event.isType(ENDPOINT_EVENT_TYPE)) {
+            String messageEndpointUri = event.dataAsString();
+            if (messageEndpointSink.tryEmitValue(messageEndpointUri).isSuccess()) {
+                connectSink.success();
+                return;
+            }
+            connectSink.error(new McpTransportException("Failed to handle SSE endpoint event"));
+        }
+        else if (event.isType(SseEventParser.MESSAGE_EVENT_TYPE)) {
+            if (isBatch(event.data(), event.dataLength())) {
+                // 批量数组逐个元素解析并立即分发，Flux 在本回调内同步消费完，不会在数据缓冲区被复用后读取
+                messageDecoder.decodeAll(event.data(), 0, event.dataLength())
+                    .subscribe(message -> dispatchMessage(message, handler), error -> {
+                        logger.error("Error processing SSE batch message event", error);
+                        exceptionHandler.accept(error);
+                    });
+                return;
+            }
+            McpSchema.JSONRPCMessage message;
+            try {
+                message = messageDecoder.decode(event.data(), 0, event.dataLength());
+            }
+            catch (IOException | IllegalArgumentException e) {
+                logger.error("Error processing SSE message event", e);
+                exceptionHandler.accept(e);
+                return;
+            }
+            dispatchMessage(message, handler);
+        }
+        else if (logger.isDebugEnabled()) {
+            logger.debug("Received unrecognized SSE event type: {}", event.type());
+        }
+    }
+
+    /**
+     * 将一条入站消息交给处理器，并把处理器返回的响应发回服务器
+     */
+    private void dispatchMessage(McpSchema.JSONRPCMessage message,
+        Function<Mono<McpSchema.JSONRPCMessage>, Mono<McpSchema.JSONRPCMessage>> handler) {
+        handler.apply(Mono.just(message))
+            .flatMap(this::sendMessage)
+            .subscribe(null, error -> {
+                if (!isClosing) {
+                    logger.error("Error handling inbound message: {}", error.getMessage());
+                    exceptionHandler.accept(error);
+                }
+            });
+    }
+
+    /**
+     * 判断事件数据是否为 JSON-RPC 批量数组，即第一个非空白字节是否为 {@code [}
+     */
+    private static boolean isBatch(byte[] data, int length) {
+        for (int i = 0; i < length; i++) {
+            byte b = data[i];
+            if (b != ' ' && b != '\t' && b != '\n' && b != '\r') {
+                return b == '[';
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 为传输层上抛出的异常设置异常处理器
+     *
+     * @param handler 异常处理器
+     */
     @Override
     public void setExceptionHandler(Consumer<Throwable> handler) {
-        McpClientTransport.super.setExceptionHandler(handler);
+        Assert.notNull(handler, "handler must not be null");
+        this.exceptionHandler = handler;
     }
 
     @Override
@@ -130,7 +518,8 @@ public class HttpClientSseClientTransport implements McpClientTransport {
     @Override
     public Mono<Void> closeGracefully() {
 
-        return Mono.fromRunnable(() -> {
+        Mono<Void> flushBatch = messageBatcher != null ? messageBatcher.flush() : Mono.empty();
+        return flushBatch.then(Mono.fromRunnable(() -> {
             // 设置关闭标志，阻止新的操作
             isClosing = true;
             // 从原子引用中获取sse订阅对象
@@ -139,10 +528,17 @@ public class HttpClientSseClientTransport implements McpClientTransport {
                 // 取消订阅以关闭SSE连接
                 subscription.dispose();
             }
-        });
+        }));
     }
 
     /**
+     * 通过 HTTP POST 将消息发送到服务器下发的消息端点
+     *
+     * <p>
+     * 所有 POST 共享同一个 HttpClient，在 HTTP/2 下复用同一连接上的多路复用流；
+     * 同时在途的请求数受 {@link InFlightLimiter} 限制，达到上限后按 {@link BackpressurePolicy} 处理。
+     * 开启批处理后，消息先进入 {@link MessageBatcher}，与同一窗口内的其他消息合并为一个 JSON 数组发送
+     * </p>
      *
      * @param message JSON-RPC 格式的消息
      * @return 当消息成功发送时，返回一个正常完成状态的 {@link Mono<Void>}
@@ -150,12 +546,46 @@ public class HttpClientSseClientTransport implements McpClientTransport {
      */
     @Override
     public Mono<Void> sendMessage(McpSchema.JSONRPCMessage message) {
+        if (messageBatcher != null) {
+            return messageBatcher.submit(message);
+        }
+        return postMessage(message, message instanceof McpSchema.JSONRPCNotification);
+    }
+
+    /**
+     * 发送一个批次；只有一条消息时按单条消息发送，否则作为 JSON-RPC 批量数组发送
+     *
+     * @param messages 批次中的消息
+     * @return 批次发送完成时完成的 {@link Mono}
+     */
+    private Mono<Void> sendBatch(List<McpSchema.JSONRPCMessage> messages) {
+        if (messages.size() == 1) {
+            McpSchema.JSONRPCMessage message = messages.get(0);
+            return postMessage(message, message instanceof McpSchema.JSONRPCNotification);
+        }
+        boolean onlyNotifications = messages.stream().allMatch(McpSchema.JSONRPCNotification.class::isInstance);
+        return postMessage(messages, onlyNotifications);
+    }
+
+    /**
+     * @param payload 单条消息或消息列表
+     * @param droppable 是否可以在 {@link BackpressurePolicy#DROP_NOTIFICATIONS} 策略下被丢弃
+     * @return 发送完成时完成的 {@link Mono}
+     */
+    private Mono<Void> postMessage(Object payload, boolean droppable) {
         return messageEndpointSink.asMono().flatMap(messageEndpointUri -> {
             if (isClosing) {
                 return Mono.empty();
             }
-            return serializeMessage(message)
-                .flatMap(body -> sendHttpPost(messageEndpointUri, body).handle(((httpResponse, sink) -> {
+            // 在获得许可之后才序列化，排队中的消息不会占用缓冲区；
+            // 请求正常结束后归还请求体的缓冲区，出错（超时、提前的错误响应、流被重置）或取消时
+            // HttpClient 可能仍在读取，只能丢弃
+            return postLimiter.submit(droppable, () -> Mono.usingWhen(serializeMessage(payload),
+                    body -> sendHttpPost(messageEndpointUri, body),
+                    body -> Mono.fromRunnable(body::release),
+                    (body, error) -> Mono.fromRunnable(body::discard),
+                    body -> Mono.fromRunnable(body::discard)))
+                .handle(((httpResponse, sink) -> {
                     if (httpResponse.statusCode() != HttpResponseStatusCode.SUCCESS_200_OK &&
                         httpResponse.statusCode() != HttpResponseStatusCode.SUCCESS_201_CREATED &&
                         httpResponse.statusCode() != HttpResponseStatusCode.SUCCESS_202_ACCEPTED &&
@@ -169,33 +599,55 @@ public class HttpClientSseClientTransport implements McpClientTransport {
                     if (!isClosing) {
                         logger.error("Error sending message: {}", error.getMessage());
                     }
-                }));
+                });
         }).then();
     }
 
     /**
-     * 将Java对象序列化为JSON字符串
+     * 将Java对象直接序列化为池化缓冲区中的 UTF-8 JSON，不经过中间的字符串
      *
-     * @param message 要序列化的消息对象
-     * @return 一个包含序列化结果的 {@link Mono<String>}，如果序列化失败则返回错误
+     * @param message 要序列化的消息对象，单条消息或消息列表
+     * @return 一个包含序列化结果的 {@link Mono<PooledJsonBody>}，如果序列化失败则返回错误
      */
-    private Mono<String> serializeMessage(final McpSchema.JSONRPCMessage message) {
+    private Mono<PooledJsonBody> serializeMessage(final Object message) {
         return Mono.defer(() -> {
             try {
-                return Mono.just(objectMapper.writeValueAsString(message));
+                return Mono.just(PooledJsonBody.write(objectMapper, message, PooledJsonBody.POOL));
             }catch (IOException e) {
                 return Mono.error(new McpTransportException("Failed to serialize message", e));
             }
         });
     }
 
-    private Mono<HttpResponse<String>> sendHttpPost(final String endpoint, final String body) {
-
+    /**
+     * 向消息端点发送 HTTP POST 请求
+     *
+     * @param endpoint 服务器通过 'endpoint' 事件下发的消息端点，可为相对路径
+     * @param body 请求体，在返回的 {@link Mono} 结束之前不能归还
+     * @return 包含 HTTP 响应的 {@link Mono}
+     */
+    private Mono<HttpResponse<String>> sendHttpPost(final String endpoint, final PooledJsonBody body) {
+        final URI requestUri = Utils.resolveUri(baseUri, endpoint);
+        return Mono.defer(() -> {
+            var builder = this.requestBuilder.copy()
+                .uri(requestUri)
+                .header("Content-Type", "application/json")
+                .POST(body.publisher());
+            // 只有真正的定制器才需要看到请求体字符串，默认的 NOOP 不会为此付出解码的开销
+            String customizerBody = this.httpRequestCustomizer == AsyncHttpRequestCustomizer.NOOP ? null
+                    : body.asString();
+            return Mono.from(this.httpRequestCustomizer.customize(builder, "POST", requestUri, customizerBody));
+        }).flatMap(customizedBuilder -> Mono.fromFuture(
+            () -> httpClient.sendAsync(customizedBuilder.build(), HttpResponse.BodyHandlers.ofString())));
     }
 
     /**
      * 反序列化，将原始数据（如 JSON 字符串、字节流）转换为指定类型的 Java 对象
      *
+     * <p>
+     * 对于 {@link LazyParams}，直接从保存的 token 绑定，同一类型只绑定一次
+     * </p>
+     *
      * @param data 原始数据
      * @param typeRef 指定的类型引用，用于指示目标类型
      * @param <T> 目标类型
@@ -203,7 +655,17 @@ public class HttpClientSseClientTransport implements McpClientTransport {
      */
     @Override
     public <T> T unmarshalFrom(Object data, TypeReference<T> typeRef) {
-        return objectMapper.convertValue(data, typeRef);
+        return codecs.unmarshal(data, typeRef);
+    }
+
+    @Override
+    public <T> T unmarshalParams(McpMethod method, Object params, TypeReference<T> typeRef) {
+        return codecs.unmarshalParams(method, params, typeRef);
+    }
+
+    @Override
+    public <T> T unmarshalResult(McpMethod method, Object result, TypeReference<T> typeRef) {
+        return codecs.unmarshalResult(method, result, typeRef);
     }
 
     @Override
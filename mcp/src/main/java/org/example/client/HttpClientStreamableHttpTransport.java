@@ -0,0 +1,859 @@
+package org.example.client;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.example.enums.HttpResponseStatusCode;
+import org.example.spec.JsonRpcMessageDecoder;
+import org.example.spec.LazyParams;
+import org.example.spec.McpCodecRegistry;
+import org.example.spec.McpMethod;
+import org.example.spec.McpClientTransport;
+import org.example.spec.McpSchema;
+import org.example.spec.McpTransportException;
+import org.example.spec.ProtocolVersions;
+import org.example.util.Assert;
+import org.example.util.Utils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+/**
+ * 基于 Streamable HTTP 的 {@link org.example.spec.McpTransport} 实现，
+ * 遵循 MCP 2025-03-26 与 2025-06-18 版本的传输规范，使用 Java 的 HttpClient。
+ *
+ * <p>
+ * 每条客户端消息都 POST 到同一个 MCP 端点，服务器可以在同一个响应中：
+ * <ul>
+ * <li>返回 202，表示通知或响应已被接受</li>
+ * <li>返回 {@code application/json}，响应体为单条消息或批量数组</li>
+ * <li>升级为 {@code text/event-stream}，在流上发送零到多条服务器请求/通知，最后发送响应</li>
+ * </ul>
+ *
+ * <p>
+ * 与 {@link HttpClientSseClientTransport} 不同，不需要始终保持一条额外的 SSE 连接：
+ * 只有在 {@link Builder#openStream(boolean)} 开启时，才会在初始化完成后通过 GET 打开一条接收服务器主动消息的流。
+ * 服务器在初始化响应中下发的 {@code Mcp-Session-Id} 会附加到之后的每个请求上；
+ * 带有事件 ID 的 SSE 流意外断开时，使用 {@code Last-Event-ID} 通过 GET 恢复，由服务器重放断开后的事件。
+ * </p>
+ *
+ * @see org.example.spec.McpTransport
+ * @see org.example.spec.McpClientTransport
+ */
+public class HttpClientStreamableHttpTransport implements McpClientTransport {
+
+    private static final Logger logger = LoggerFactory.getLogger(HttpClientStreamableHttpTransport.class);
+
+    /**
+     * 默认的 MCP 端点路径
+     */
+    private static final String DEFAULT_ENDPOINT = "/mcp";
+
+    private static final String HEADER_SESSION_ID = "Mcp-Session-Id";
+
+    private static final String HEADER_PROTOCOL_VERSION = "MCP-Protocol-Version";
+
+    private static final String HEADER_LAST_EVENT_ID = "Last-Event-ID";
+
+    private static final String APPLICATION_JSON = "application/json";
+
+    private static final String TEXT_EVENT_STREAM = "text/event-stream";
+
+    /**
+     * 服务器未通过 {@code retry:} 字段指定时的重连等待时间
+     */
+    private static final Duration DEFAULT_RECONNECT_DELAY = Duration.ofSeconds(1);
+
+    private static final int DEFAULT_MAX_RESUME_ATTEMPTS = 3;
+
+    private static final int DEFAULT_MAX_IN_FLIGHT_REQUESTS = 64;
+
+    /**
+     * MCP 端点
+     */
+    private final URI endpoint;
+
+    private final HttpClient httpClient;
+
+    /**
+     * 请求构造器模板，每次请求时都会复制一份
+     */
+    private final HttpRequest.Builder requestBuilder;
+
+    protected ObjectMapper objectMapper;
+
+    /**
+     * 入站消息解码器
+     */
+    private final JsonRpcMessageDecoder messageDecoder;
+
+    /**
+     * 预先创建好的 reader / writer，{@link #unmarshalFrom} 不再每次调用 {@code convertValue}
+     */
+    private final McpCodecRegistry codecs;
+
+    private final AsyncHttpRequestCustomizer httpRequestCustomizer;
+
+    /**
+     * 限制同时在途的 POST 请求数
+     */
+    private final InFlightLimiter postLimiter;
+
+    /**
+     * 初始化完成后是否通过 GET 打开接收服务器主动消息的流
+     */
+    private final boolean openStream;
+
+    /**
+     * 一条 SSE 流连续恢复失败的最大次数
+     */
+    private final int maxResumeAttempts;
+
+    /**
+     * 当前打开的 SSE 流，关闭传输时全部取消
+     */
+    private final Set<SseStream> activeStreams = ConcurrentHashMap.newKeySet();
+
+    private volatile Function<Mono<McpSchema.JSONRPCMessage>, Mono<McpSchema.JSONRPCMessage>> handler;
+
+    /**
+     * 传输层异常处理器
+     */
+    private volatile Consumer<Throwable> exceptionHandler = error -> {
+    };
+
+    private volatile boolean isClosing = false;
+
+    /**
+     * 服务器下发的会话 ID，尚未建立会话时为 {@code null}
+     */
+    private volatile String sessionId;
+
+    /**
+     * 从初始化响应中得到的协商协议版本，之后的请求通过 {@code MCP-Protocol-Version} 头携带
+     */
+    private volatile String protocolVersion;
+
+    /**
+     * 正在等待响应的 initialize 请求的 ID
+     */
+    private volatile Object initializeRequestId;
+
+    /**
+     * 创建一个新的传输实例
+     *
+     * @param httpClient 用于发送请求的 HTTP 客户端
+     * @param requestBuilder 请求构造器模板，每次请求时都会复制一份
+     * @param baseUri MCP 服务器的基础 URI
+     * @param endpoint MCP 端点路径
+     * @param objectMapper 用于 JSON 序列化/反序列化的 ObjectMapper
+     * @param httpRequestCustomizer 请求发出前的定制器
+     * @param lazyParams 是否将入站请求和通知的 params 延迟到 {@link #unmarshalFrom} 时再绑定
+     * @param maxInFlightRequests 同时在途的 POST 请求数上限
+     * @param backpressurePolicy 在途请求数达到上限时的策略
+     * @param openStream 初始化完成后是否通过 GET 打开接收服务器主动消息的流
+     * @param maxResumeAttempts 一条 SSE 流连续恢复失败的最大次数
+     * @throws IllegalArgumentException 如果任一必需参数为 null 或为空
+     */
+    HttpClientStreamableHttpTransport(HttpClient httpClient, HttpRequest.Builder requestBuilder, String baseUri,
+        String endpoint, ObjectMapper objectMapper, AsyncHttpRequestCustomizer httpRequestCustomizer,
+        boolean lazyParams, int maxInFlightRequests, BackpressurePolicy backpressurePolicy, boolean openStream,
+        int maxResumeAttempts) {
+        Assert.notNull(objectMapper, "ObjectMapper must not be null");
+        Assert.hasText(baseUri, "baseUri must not be empty");
+        Assert.hasText(endpoint, "endpoint must not be empty");
+        Assert.notNull(httpClient, "httpClient must not be null");
+        Assert.notNull(requestBuilder, "requestBuilder must not be null");
+        Assert.notNull(httpRequestCustomizer, "httpRequestCustomizer must not be null");
+        this.endpoint = Utils.resolveUri(URI.create(baseUri), endpoint);
+        this.objectMapper = objectMapper;
+        this.httpClient = httpClient;
+        this.requestBuilder = requestBuilder;
+        this.httpRequestCustomizer = httpRequestCustomizer;
+        this.messageDecoder = new JsonRpcMessageDecoder(objectMapper, lazyParams);
+        this.codecs = new McpCodecRegistry(objectMapper);
+        this.postLimiter = new InFlightLimiter(maxInFlightRequests, backpressurePolicy);
+        this.openStream = openStream;
+        this.maxResumeAttempts = maxResumeAttempts;
+    }
+
+    /**
+     * 创建一个新的构造器
+     *
+     * @param baseUri MCP 服务器的基础 URI
+     * @return 新的构造器实例
+     */
+    public static Builder builder(String baseUri) {
+        return new Builder().baseUri(baseUri);
+    }
+
+    /**
+     * {@link HttpClientStreamableHttpTransport} 的构造器
+     */
+    public static class Builder {
+
+        private String baseUri;
+
+        private String endpoint = DEFAULT_ENDPOINT;
+
+        private HttpClient.Builder clientBuilder = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(Duration.ofSeconds(10));
+
+        private ObjectMapper objectMapper = new ObjectMapper();
+
+        private HttpRequest.Builder requestBuilder = HttpRequest.newBuilder();
+
+        private AsyncHttpRequestCustomizer httpRequestCustomizer = AsyncHttpRequestCustomizer.NOOP;
+
+        private boolean lazyParams = false;
+
+        private int maxInFlightRequests = DEFAULT_MAX_IN_FLIGHT_REQUESTS;
+
+        private BackpressurePolicy backpressurePolicy = BackpressurePolicy.QUEUE;
+
+        private boolean openStream = false;
+
+        private int maxResumeAttempts = DEFAULT_MAX_RESUME_ATTEMPTS;
+
+        Builder() {
+        }
+
+        public Builder baseUri(String baseUri) {
+            Assert.hasText(baseUri, "baseUri must not be empty");
+            this.baseUri = baseUri;
+            return this;
+        }
+
+        public Builder endpoint(String endpoint) {
+            Assert.hasText(endpoint, "endpoint must not be empty");
+            this.endpoint = endpoint;
+            return this;
+        }
+
+        public Builder clientBuilder(HttpClient.Builder clientBuilder) {
+            Assert.notNull(clientBuilder, "clientBuilder must not be null");
+            this.clientBuilder = clientBuilder;
+            return this;
+        }
+
+        public Builder customizeClient(final Consumer<HttpClient.Builder> clientCustomizer) {
+            Assert.notNull(clientCustomizer, "clientCustomizer must not be null");
+            clientCustomizer.accept(clientBuilder);
+            return this;
+        }
+
+        public Builder requestBuilder(HttpRequest.Builder requestBuilder) {
+            Assert.notNull(requestBuilder, "requestBuilder must not be null");
+            this.requestBuilder = requestBuilder;
+            return this;
+        }
+
+        public Builder customizeRequest(final Consumer<HttpRequest.Builder> requestCustomizer) {
+            Assert.notNull(requestCustomizer, "requestCustomizer must not be null");
+            requestCustomizer.accept(requestBuilder);
+            return this;
+        }
+
+        public Builder objectMapper(ObjectMapper objectMapper) {
+            Assert.notNull(objectMapper, "objectMapper must not be null");
+            this.objectMapper = objectMapper;
+            return this;
+        }
+
+        public Builder httpRequestCustomizer(AsyncHttpRequestCustomizer httpRequestCustomizer) {
+            Assert.notNull(httpRequestCustomizer, "httpRequestCustomizer must not be null");
+            this.httpRequestCustomizer = httpRequestCustomizer;
+            return this;
+        }
+
+        /**
+         * 设置是否延迟绑定入站请求和通知的 params，参见 {@link LazyParams}
+         *
+         * @param lazyParams 为 {@code true} 时 params 保留为原始 token，直到 {@link #unmarshalFrom} 时才绑定
+         * @return 当前构造器
+         */
+        public Builder lazyParams(boolean lazyParams) {
+            this.lazyParams = lazyParams;
+            return this;
+        }
+
+        /**
+         * 设置同时在途的 POST 请求数上限，HTTP/2 下即同一连接上的并发流数
+         *
+         * @param maxInFlightRequests 上限，必须大于 0
+         * @return 当前构造器
+         */
+        public Builder maxInFlightRequests(int maxInFlightRequests) {
+            Assert.isTrue(maxInFlightRequests > 0, "maxInFlightRequests must be greater than 0");
+            this.maxInFlightRequests = maxInFlightRequests;
+            return this;
+        }
+
+        /**
+         * 设置在途请求数达到上限时的策略，默认为 {@link BackpressurePolicy#QUEUE}
+         *
+         * @param backpressurePolicy 背压策略
+         * @return 当前构造器
+         */
+        public Builder backpressurePolicy(BackpressurePolicy backpressurePolicy) {
+            Assert.notNull(backpressurePolicy, "backpressurePolicy must not be null");
+            this.backpressurePolicy = backpressurePolicy;
+            return this;
+        }
+
+        /**
+         * 设置是否在发送 {@code notifications/initialized} 之后通过 GET 打开一条接收服务器主动消息的流，默认不打开
+         *
+         * <p>
+         * 只有需要接收与任何请求都无关的服务器通知（如 list_changed）时才需要开启；
+         * 服务器以 405 拒绝时静默放弃
+         * </p>
+         *
+         * @param openStream 是否打开
+         * @return 当前构造器
+         */
+        public Builder openStream(boolean openStream) {
+            this.openStream = openStream;
+            return this;
+        }
+
+        /**
+         * 设置一条 SSE 流连续恢复失败的最大次数，收到新事件后重新计数
+         *
+         * @param maxResumeAttempts 最大次数，为 0 时不恢复
+         * @return 当前构造器
+         */
+        public Builder maxResumeAttempts(int maxResumeAttempts) {
+            Assert.isTrue(maxResumeAttempts >= 0, "maxResumeAttempts must not be negative");
+            this.maxResumeAttempts = maxResumeAttempts;
+            return this;
+        }
+
+        public HttpClientStreamableHttpTransport build() {
+            return new HttpClientStreamableHttpTransport(clientBuilder.build(), requestBuilder, baseUri, endpoint,
+                objectMapper, httpRequestCustomizer, lazyParams, maxInFlightRequests, backpressurePolicy, openStream,
+                maxResumeAttempts);
+        }
+
+    }
+
+    /**
+     * 注册入站消息处理器
+     *
+     * <p>
+     * Streamable HTTP 不需要预先建立连接，服务器消息随着各个 POST 的响应到达
+     * </p>
+     *
+     * @param handler 入站消息的处理器
+     * @return 立即完成的 {@link Mono}
+     */
+    @Override
+    public Mono<Void> connect(Function<Mono<McpSchema.JSONRPCMessage>, Mono<McpSchema.JSONRPCMessage>> handler) {
+        return Mono.fromRunnable(() -> {
+            Assert.notNull(handler, "handler must not be null");
+            this.handler = handler;
+        });
+    }
+
+    /**
+     * 为传输层上抛出的异常设置异常处理器
+     *
+     * @param handler 异常处理器
+     */
+    @Override
+    public void setExceptionHandler(Consumer<Throwable> handler) {
+        Assert.notNull(handler, "handler must not be null");
+        this.exceptionHandler = handler;
+    }
+
+    /**
+     * 将消息 POST 到 MCP 端点
+     *
+     * <p>
+     * 返回的 {@link Mono} 在服务器接受消息（收到 2xx 响应头）时完成，
+     * 响应体中的消息随后异步交给入站消息处理器
+     * </p>
+     *
+     * @param message 要发送的 JSON-RPC 消息
+     * @return 服务器接受消息时完成的 {@link Mono}
+     */
+    @Override
+    public Mono<Void> sendMessage(McpSchema.JSONRPCMessage message) {
+        return Mono.defer(() -> {
+            if (isClosing) {
+                return Mono.empty();
+            }
+            if (message instanceof McpSchema.JSONRPCRequest request
+                    && request.mcpMethod() == McpMethod.INITIALIZE) {
+                initializeRequestId = request.id();
+            }
+            boolean initialized = message instanceof McpSchema.JSONRPCNotification notification
+                    && notification.mcpMethod() == McpMethod.NOTIFICATION_INITIALIZED;
+
+            // 在获得许可之后才序列化，排队中的消息不会占用缓冲区
+            return postLimiter.submit(message instanceof McpSchema.JSONRPCNotification,
+                    () -> sendHttpPost(message))
+                .doOnSuccess(ignored -> {
+                    if (initialized && openStream) {
+                        new SseStream(true).open();
+                    }
+                })
+                .doOnError(error -> {
+                    if (!isClosing) {
+                        logger.error("Error sending message: {}", error.getMessage());
+                    }
+                });
+        });
+    }
+
+    private Mono<PooledJsonBody> serializeMessage(final Object message) {
+        return Mono.defer(() -> {
+            try {
+                return Mono.just(PooledJsonBody.write(objectMapper, message, PooledJsonBody.POOL));
+            }
+            catch (IOException e) {
+                return Mono.error(new McpTransportException("Failed to serialize message", e));
+            }
+        });
+    }
+
+    /**
+     * 序列化消息并发送 POST 请求，根据响应状态码和内容类型选择响应体的处理方式
+     *
+     * <p>
+     * 返回的 {@link Mono} 在收到响应头时就会结束，此时 HttpClient 未必已经读完请求体，
+     * 所以请求体的缓冲区要等整个交换正常完成后才归还，交换失败或请求被取消时则直接丢弃。
+     * </p>
+     *
+     * @param message 要发送的消息
+     * @return 服务器接受消息时完成的 {@link Mono}
+     */
+    private Mono<Void> sendHttpPost(final Object message) {
+        String sentSessionId = this.sessionId;
+        return serializeMessage(message).flatMap(body -> Mono.defer(() -> {
+            var builder = withSessionHeaders(this.requestBuilder.copy(), sentSessionId)
+                .uri(endpoint)
+                .header("Content-Type", APPLICATION_JSON)
+                .header("Accept", APPLICATION_JSON + ", " + TEXT_EVENT_STREAM)
+                .POST(body.publisher());
+            // 只有真正的定制器才需要看到请求体字符串，默认的 NOOP 不会为此付出解码的开销
+            String customizerBody = this.httpRequestCustomizer == AsyncHttpRequestCustomizer.NOOP ? null
+                    : body.asString();
+            return Mono.from(this.httpRequestCustomizer.customize(builder, "POST", endpoint, customizerBody));
+        }).doOnError(error -> body.release()).flatMap(customizedBuilder -> Mono.<Void>create(sink -> {
+            CompletableFuture<HttpResponse<Void>> future = httpClient.sendAsync(customizedBuilder.build(),
+                responseInfo -> handlePostResponse(responseInfo, sentSessionId, sink));
+            future.whenComplete((response, error) -> {
+                if (error != null) {
+                    // 交换失败时 HttpClient 可能仍在读取请求体，缓冲区不能再被复用
+                    body.discard();
+                    sink.error(new McpTransportException("Failed to send message", error));
+                }
+                else {
+                    body.release();
+                }
+            });
+            sink.onCancel(() -> {
+                body.discard();
+                future.cancel(true);
+            });
+        })));
+    }
+
+    private HttpResponse.BodySubscriber<Void> handlePostResponse(HttpResponse.ResponseInfo responseInfo,
+        String sentSessionId, MonoSink<Void> sink) {
+
+        captureSessionId(responseInfo);
+        int statusCode = responseInfo.statusCode();
+        if (statusCode == HttpResponseStatusCode.SUCCESS_202_ACCEPTED
+                || statusCode == HttpResponseStatusCode.SUCCESS_204_NO_CONTENT) {
+            sink.success();
+            return HttpResponse.BodySubscribers.discarding();
+        }
+        if (statusCode == HttpResponseStatusCode.CLIENT_ERROR_404_NOT_FOUND && sentSessionId != null) {
+            // 服务器已经结束了该会话，调用方需要重新初始化
+            if (sentSessionId.equals(this.sessionId)) {
+                this.sessionId = null;
+            }
+            sink.error(new McpTransportException("MCP session " + sentSessionId + " was terminated by the server"));
+            return HttpResponse.BodySubscribers.discarding();
+        }
+        if (statusCode < HttpResponseStatusCode.SUCCESS_200_OK
+                || statusCode >= HttpResponseStatusCode.REDIRECT_300_MULTIPLE_CHOICES) {
+            return HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofString(StandardCharsets.UTF_8),
+                text -> {
+                    sink.error(new McpTransportException(
+                        "Sending message failed with a non-OK HTTP code: " + statusCode + " - " + text));
+                    return null;
+                });
+        }
+
+        String contentType = contentType(responseInfo);
+        if (contentType.startsWith(TEXT_EVENT_STREAM)) {
+            sink.success();
+            return new SseStream(false).subscriber();
+        }
+        if (contentType.startsWith(APPLICATION_JSON)) {
+            sink.success();
+            return HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofByteArray(), bytes -> {
+                dispatchJson(bytes);
+                return null;
+            });
+        }
+        if (contentType.isEmpty()) {
+            sink.success();
+            return HttpResponse.BodySubscribers.discarding();
+        }
+        sink.error(new McpTransportException("Unexpected response content type: " + contentType));
+        return HttpResponse.BodySubscribers.discarding();
+    }
+
+    private HttpRequest.Builder withSessionHeaders(HttpRequest.Builder builder, String sessionId) {
+        if (sessionId != null) {
+            builder.header(HEADER_SESSION_ID, sessionId);
+        }
+        String version = this.protocolVersion;
+        if (version != null) {
+            builder.header(HEADER_PROTOCOL_VERSION, version);
+        }
+        return builder;
+    }
+
+    private void captureSessionId(HttpResponse.ResponseInfo responseInfo) {
+        responseInfo.headers().firstValue(HEADER_SESSION_ID).ifPresent(id -> this.sessionId = id);
+    }
+
+    private static String contentType(HttpResponse.ResponseInfo responseInfo) {
+        return responseInfo.headers().firstValue("Content-Type").orElse("").trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 解码 JSON 响应体中的单条消息或批量数组并逐条分发
+     */
+    private void dispatchJson(byte[] data) {
+        if (data.length == 0) {
+            return;
+        }
+        messageDecoder.decodeAll(data, 0, data.length).subscribe(this::dispatchMessage, error -> {
+            logger.error("Error processing JSON response", error);
+            exceptionHandler.accept(error);
+        });
+    }
+
+    /**
+     * 将一条入站消息交给处理器，并把处理器返回的响应发回服务器
+     */
+    private void dispatchMessage(McpSchema.JSONRPCMessage message) {
+        if (message instanceof McpSchema.JSONRPCResponse response) {
+            captureProtocolVersion(response);
+        }
+        var currentHandler = this.handler;
+        if (currentHandler == null) {
+            logger.warn("Dropping inbound message received before connect: {}", message);
+            return;
+        }
+        currentHandler.apply(Mono.just(message))
+            .flatMap(this::sendMessage)
+            .subscribe(null, error -> {
+                if (!isClosing) {
+                    logger.error("Error handling inbound message: {}", error.getMessage());
+                    exceptionHandler.accept(error);
+                }
+            });
+    }
+
+    private void captureProtocolVersion(McpSchema.JSONRPCResponse response) {
+        Object requestId = this.initializeRequestId;
+        if (requestId == null || response.id() == null
+                || !Objects.equals(requestId.toString(), response.id().toString())) {
+            return;
+        }
+        initializeRequestId = null;
+        if (response.result() instanceof Map<?, ?> result && result.get("protocolVersion") instanceof String version) {
+            this.protocolVersion = version;
+        }
+    }
+
+    /**
+     * 结束所有 SSE 流，并通过 DELETE 通知服务器结束会话
+     */
+    @Override
+    public Mono<Void> closeGracefully() {
+        return Mono.defer(() -> {
+            isClosing = true;
+            activeStreams.forEach(SseStream::cancel);
+            activeStreams.clear();
+            String id = this.sessionId;
+            this.sessionId = null;
+            if (id == null) {
+                return Mono.empty();
+            }
+            var builder = withSessionHeaders(this.requestBuilder.copy(), id).uri(endpoint).DELETE();
+            return Mono.from(this.httpRequestCustomizer.customize(builder, "DELETE", endpoint, null))
+                .flatMap(customizedBuilder -> Mono.fromFuture(() -> httpClient.sendAsync(customizedBuilder.build(),
+                    HttpResponse.BodyHandlers.discarding())))
+                .doOnNext(response -> logger.debug("Session {} terminated with HTTP {}", id, response.statusCode()))
+                .onErrorResume(error -> {
+                    logger.debug("Failed to terminate session {}: {}", id, error.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+        });
+    }
+
+    @Override
+    public <T> T unmarshalFrom(Object data, TypeReference<T> typeRef) {
+        return codecs.unmarshal(data, typeRef);
+    }
+
+    @Override
+    public <T> T unmarshalParams(McpMethod method, Object params, TypeReference<T> typeRef) {
+        return codecs.unmarshalParams(method, params, typeRef);
+    }
+
+    @Override
+    public <T> T unmarshalResult(McpMethod method, Object result, TypeReference<T> typeRef) {
+        return codecs.unmarshalResult(method, result, typeRef);
+    }
+
+    @Override
+    public List<String> protocolVersions() {
+        return List.of(ProtocolVersions.MCP_2025_03_26, ProtocolVersions.MCP_2025_06_18);
+    }
+
+    /**
+     * 一条 SSE 流，可以是 POST 的升级响应，也可以是 GET 打开的服务器消息流
+     *
+     * <p>
+     * 流意外断开时，若已经收到过带 ID 的事件，则用 {@code Last-Event-ID} 通过 GET 恢复。
+     * 每次 HTTP 连接的解析器、事件 ID 和失败次数都保存在各自的 {@link Connection} 中，
+     * 恢复时由断开的连接把事件 ID 和失败次数交给唯一的后继连接；一个连接无论从响应体还是从
+     * {@link CompletableFuture} 收到多少次失败信号都只处理一次，因此同一条流上不会出现并行的恢复请求。
+     * </p>
+     */
+    private final class SseStream {
+
+        /**
+         * 是否为 GET 打开的服务器消息流，此类流在服务器正常结束后也会重新连接
+         */
+        private final boolean standalone;
+
+        /**
+         * 当前的连接，关闭传输时取消
+         */
+        private volatile Connection current;
+
+        SseStream(boolean standalone) {
+            this.standalone = standalone;
+        }
+
+        /**
+         * 创建接收 POST 升级响应体的订阅者
+         */
+        HttpResponse.BodySubscriber<Void> subscriber() {
+            Connection connection = new Connection(null, -1, 0);
+            this.current = connection;
+            return subscriber(connection);
+        }
+
+        /**
+         * 通过 GET 打开流
+         */
+        void open() {
+            open(new Connection(null, -1, 0));
+        }
+
+        /**
+         * 创建接收指定连接响应体的订阅者，每个 HTTP 响应使用新的解析器
+         */
+        private HttpResponse.BodySubscriber<Void> subscriber(Connection connection) {
+            SseEventParser parser = new SseEventParser(event -> onEvent(connection, event));
+            SseBodySubscriber subscriber = new SseBodySubscriber(parser,
+                error -> onDisconnect(connection, error), () -> onDisconnect(connection, null));
+            connection.parser = parser;
+            connection.bodySubscriber = subscriber;
+            activeStreams.add(this);
+            if (isClosing) {
+                cancel();
+            }
+            return HttpResponse.BodySubscribers.fromSubscriber(subscriber);
+        }
+
+        /**
+         * 通过 GET 打开或恢复流
+         */
+        private void open(Connection connection) {
+            if (isClosing) {
+                return;
+            }
+            this.current = connection;
+            var builder = withSessionHeaders(requestBuilder.copy(), sessionId)
+                .uri(endpoint)
+                .header("Accept", TEXT_EVENT_STREAM)
+                .GET();
+            if (connection.lastEventId != null) {
+                builder.header(HEADER_LAST_EVENT_ID, connection.lastEventId);
+            }
+            Mono.from(httpRequestCustomizer.customize(builder, "GET", endpoint, null)).subscribe(customizedBuilder -> {
+                CompletableFuture<HttpResponse<Void>> responseFuture = httpClient.sendAsync(customizedBuilder.build(),
+                    responseInfo -> handleGetResponse(connection, responseInfo));
+                connection.future = responseFuture;
+                // 响应体出错时 sendAsync 同样以失败结束，两个信号由 onDisconnect 去重
+                responseFuture.whenComplete((response, error) -> {
+                    if (error != null) {
+                        onDisconnect(connection, error);
+                    }
+                });
+            }, error -> onDisconnect(connection, error));
+        }
+
+        private HttpResponse.BodySubscriber<Void> handleGetResponse(Connection connection,
+            HttpResponse.ResponseInfo responseInfo) {
+            int statusCode = responseInfo.statusCode();
+            if (statusCode == HttpResponseStatusCode.SUCCESS_200_OK
+                    && contentType(responseInfo).startsWith(TEXT_EVENT_STREAM)) {
+                return subscriber(connection);
+            }
+            if (statusCode == HttpResponseStatusCode.CLIENT_ERROR_405_METHOD_NOT_ALLOWED) {
+                logger.debug("Server does not offer an SSE stream at {}", endpoint);
+            }
+            else if (!isClosing) {
+                exceptionHandler.accept(new McpTransportException(
+                    "Failed to open SSE stream, unexpected status code: " + statusCode));
+            }
+            return HttpResponse.BodySubscribers.discarding();
+        }
+
+        private void onEvent(Connection connection, SseEventParser.Event event) {
+            connection.attempts = 0;
+            if (event.lastEventId() != null) {
+                connection.lastEventId = event.lastEventId();
+            }
+            // 只带 ID 的空事件用于为恢复提供起点
+            if (event.isType(SseEventParser.MESSAGE_EVENT_TYPE) && event.dataLength() > 0) {
+                byte[] data = event.data();
+                messageDecoder.decodeAll(data, 0, event.dataLength()).subscribe(
+                    HttpClientStreamableHttpTransport.this::dispatchMessage, error -> {
+                        logger.error("Error processing SSE message event", error);
+                        exceptionHandler.accept(error);
+                    });
+            }
+        }
+
+        /**
+         * 连接结束或断开，每个连接只处理第一次
+         *
+         * @param connection 结束的连接
+         * @param error 断开原因，服务器正常结束流时为 {@code null}
+         */
+        private void onDisconnect(Connection connection, Throwable error) {
+            if (!connection.ended.compareAndSet(false, true)) {
+                return;
+            }
+            activeStreams.remove(this);
+            SseEventParser parser = connection.parser;
+            if (parser != null) {
+                if (parser.lastEventId() != null) {
+                    connection.lastEventId = parser.lastEventId();
+                }
+                if (parser.reconnectionTime() > 0) {
+                    connection.reconnectionTime = parser.reconnectionTime();
+                }
+            }
+            if (isClosing || (error == null && !standalone)) {
+                return;
+            }
+            if (!standalone && connection.lastEventId == null) {
+                exceptionHandler.accept(new McpTransportException("SSE stream dropped and cannot be resumed", error));
+                return;
+            }
+            int attempts = connection.attempts + 1;
+            if (attempts > maxResumeAttempts) {
+                exceptionHandler.accept(new McpTransportException(
+                    "Failed to resume SSE stream after " + maxResumeAttempts + " attempts", error));
+                return;
+            }
+            Connection next = new Connection(connection.lastEventId, connection.reconnectionTime, attempts);
+            Duration delay = next.reconnectionTime > 0 ? Duration.ofMillis(next.reconnectionTime)
+                    : DEFAULT_RECONNECT_DELAY;
+            logger.debug("SSE stream disconnected, resuming from event {} in {}", next.lastEventId, delay);
+            Mono.delay(delay).subscribe(ignored -> open(next));
+        }
+
+        void cancel() {
+            Connection connection = this.current;
+            if (connection == null) {
+                return;
+            }
+            SseBodySubscriber subscriber = connection.bodySubscriber;
+            if (subscriber != null) {
+                subscriber.cancel();
+            }
+            CompletableFuture<?> responseFuture = connection.future;
+            if (responseFuture != null) {
+                responseFuture.cancel(true);
+            }
+        }
+
+    }
+
+    /**
+     * SSE 流的一次 HTTP 连接
+     */
+    private static final class Connection {
+
+        /**
+         * 连接是否已经结束，保证断开只处理一次
+         */
+        final AtomicBoolean ended = new AtomicBoolean();
+
+        volatile String lastEventId;
+
+        volatile long reconnectionTime;
+
+        /**
+         * 建立该连接之前连续恢复失败的次数，收到事件后清零
+         */
+        volatile int attempts;
+
+        volatile SseEventParser parser;
+
+        volatile SseBodySubscriber bodySubscriber;
+
+        volatile CompletableFuture<?> future;
+
+        /**
+         * @param lastEventId 恢复起点的事件 ID，首次打开时为 {@code null}
+         * @param reconnectionTime 服务器指定的重连等待时间，单位毫秒，未指定时为负数
+         * @param attempts 之前连续恢复失败的次数
+         */
+        Connection(String lastEventId, long reconnectionTime, int attempts) {
+            this.lastEventId = lastEventId;
+            this.reconnectionTime = reconnectionTime;
+            this.attempts = attempts;
+        }
+
+    }
+
+}
@@ -0,0 +1,96 @@
+package org.example.client;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import org.example.spec.McpTransportException;
+import org.example.util.Assert;
+import org.example.util.AsyncSemaphore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * 限制同时在途的 HTTP 请求数
+ *
+ * <p>
+ * 配合 HTTP/2 使用时，所有请求复用同一个连接上的多路复用流；上限应不高于服务器的
+ * {@code SETTINGS_MAX_CONCURRENT_STREAMS}，避免 HttpClient 为超出的请求另开连接。
+ * 达到上限后的行为由 {@link BackpressurePolicy} 决定。
+ * </p>
+ */
+final class InFlightLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(InFlightLimiter.class);
+
+    private final AsyncSemaphore permits;
+
+    private final BackpressurePolicy policy;
+
+    /**
+     * @param maxInFlight 最大在途请求数
+     * @param policy 达到上限时的策略
+     */
+    InFlightLimiter(int maxInFlight, BackpressurePolicy policy) {
+        Assert.notNull(policy, "policy must not be null");
+        this.permits = new AsyncSemaphore(maxInFlight);
+        this.policy = policy;
+    }
+
+    /**
+     * 在获得在途名额后执行请求，请求结束（成功、失败或取消）时归还名额
+     *
+     * @param droppable 该请求是否可以在 {@link BackpressurePolicy#DROP_NOTIFICATIONS} 策略下被丢弃
+     * @param request 实际发出请求的操作，获得名额后才会被调用
+     * @return 请求的结果；被丢弃时为空的 {@link Mono}
+     * @param <T> 请求结果类型
+     */
+    <T> Mono<T> submit(boolean droppable, Supplier<Mono<T>> request) {
+        return Mono.defer(() -> {
+            if (permits.tryAcquire()) {
+                return Mono.defer(request).doFinally(signal -> permits.release());
+            }
+            return switch (policy) {
+                case FAIL_FAST -> Mono.error(new McpTransportException(
+                    "Too many in-flight requests, limit is " + permits.permits()));
+                case DROP_NOTIFICATIONS -> droppable ? dropped() : queued(request);
+                default -> queued(request);
+            };
+        });
+    }
+
+    /**
+     * @return 当前在途的请求数
+     */
+    int inFlight() {
+        return permits.inUse();
+    }
+
+    /**
+     * @return 正在排队的请求数
+     */
+    int queued() {
+        return permits.queueLength();
+    }
+
+    private <T> Mono<T> queued(Supplier<Mono<T>> request) {
+        return Mono.defer(() -> {
+            AtomicBoolean acquired = new AtomicBoolean();
+            return permits.acquire()
+                .doOnSuccess(ignored -> acquired.set(true))
+                .then(Mono.defer(request))
+                .doFinally(signal -> {
+                    if (acquired.getAndSet(false)) {
+                        permits.release();
+                    }
+                });
+        });
+    }
+
+    private <T> Mono<T> dropped() {
+        logger.debug("Dropping notification, {} requests in flight", permits.inUse());
+        return Mono.empty();
+    }
+
+}
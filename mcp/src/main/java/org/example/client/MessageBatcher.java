@@ -0,0 +1,184 @@
+package org.example.client;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.example.spec.McpSchema;
+import org.example.util.Assert;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * 出站消息的批处理阶段
+ *
+ * <p>
+ * 在一个很短的时间窗口内收集消息，窗口到期或消息数达到上限时一次性交给发送函数，
+ * 由传输层作为一个 JSON-RPC 批量数组发出。每个调用方拿到的 {@link Mono} 在其所在批次发送完成时单独完成，
+ * 发送失败时同一批次的所有调用方都会收到该错误；在批次发出之前取消的消息不会被发送。
+ * </p>
+ */
+final class MessageBatcher {
+
+    /**
+     * 收集消息的时间窗口，从批次中第一条消息到达时开始计时
+     */
+    private final Duration window;
+
+    /**
+     * 单个批次的最大消息数
+     */
+    private final int maxBatchSize;
+
+    /**
+     * 实际发送一个批次的函数
+     */
+    private final Function<List<McpSchema.JSONRPCMessage>, Mono<Void>> sender;
+
+    private final Scheduler scheduler;
+
+    /**
+     * 当前正在收集的批次，只在持有 {@code this} 锁时访问
+     */
+    private List<Pending> pending = new ArrayList<>();
+
+    /**
+     * 当前批次的到期定时器
+     */
+    private Disposable flushTimer;
+
+    /**
+     * 当前批次的序号，每取出一个批次加一；定时器记下安排时的序号，
+     * 到期时序号已经变化说明它的批次已被取走，不能再发送之后的批次
+     */
+    private long batchSequence;
+
+    /**
+     * @param window 收集消息的时间窗口
+     * @param maxBatchSize 单个批次的最大消息数
+     * @param sender 发送一个批次的函数
+     */
+    MessageBatcher(Duration window, int maxBatchSize, Function<List<McpSchema.JSONRPCMessage>, Mono<Void>> sender) {
+        Assert.notNull(window, "window must not be null");
+        Assert.isTrue(!window.isNegative() && !window.isZero(), "window must be positive");
+        Assert.isTrue(maxBatchSize > 1, "maxBatchSize must be greater than 1");
+        Assert.notNull(sender, "sender must not be null");
+        this.window = window;
+        this.maxBatchSize = maxBatchSize;
+        this.sender = sender;
+        this.scheduler = Schedulers.parallel();
+    }
+
+    /**
+     * 将消息加入当前批次
+     *
+     * @param message 要发送的消息
+     * @return 消息所在批次发送完成时完成的 {@link Mono}
+     */
+    Mono<Void> submit(McpSchema.JSONRPCMessage message) {
+        return Mono.create(sink -> {
+            Pending entry = new Pending(message, sink);
+            sink.onCancel(() -> entry.cancelled = true);
+            List<Pending> full = null;
+            synchronized (this) {
+                pending.add(entry);
+                if (pending.size() >= maxBatchSize) {
+                    full = takePending();
+                }
+                else if (pending.size() == 1) {
+                    long sequence = batchSequence;
+                    flushTimer = scheduler.schedule(() -> flushOnTimer(sequence), window.toNanos(),
+                            TimeUnit.NANOSECONDS);
+                }
+            }
+            if (full != null) {
+                send(full).subscribe();
+            }
+        });
+    }
+
+    /**
+     * 立即发送当前批次，用于关闭传输前清空缓冲
+     *
+     * @return 当前批次发送结束时完成的 {@link Mono}，发送失败只通知各调用方而不会以错误结束
+     */
+    Mono<Void> flush() {
+        return Mono.defer(() -> {
+            List<Pending> batch;
+            synchronized (this) {
+                batch = takePending();
+            }
+            return send(batch);
+        });
+    }
+
+    /**
+     * @param sequence 安排定时器时的批次序号
+     */
+    private void flushOnTimer(long sequence) {
+        List<Pending> batch;
+        synchronized (this) {
+            if (sequence != batchSequence) {
+                // 到期时恰好有别的线程取走了该批次，新批次有自己的定时器
+                return;
+            }
+            flushTimer = null;
+            batch = takePending();
+        }
+        send(batch).subscribe();
+    }
+
+    /**
+     * 取出当前批次并取消其定时器，调用方必须持有 {@code this} 锁
+     */
+    private List<Pending> takePending() {
+        List<Pending> batch = pending;
+        pending = new ArrayList<>();
+        batchSequence++;
+        if (flushTimer != null) {
+            flushTimer.dispose();
+            flushTimer = null;
+        }
+        return batch;
+    }
+
+    private Mono<Void> send(List<Pending> batch) {
+        List<Pending> live = new ArrayList<>(batch.size());
+        List<McpSchema.JSONRPCMessage> messages = new ArrayList<>(batch.size());
+        for (Pending entry : batch) {
+            if (!entry.cancelled) {
+                live.add(entry);
+                messages.add(entry.message);
+            }
+        }
+        if (live.isEmpty()) {
+            return Mono.empty();
+        }
+        return Mono.defer(() -> sender.apply(messages))
+            .doOnSuccess(ignored -> live.forEach(entry -> entry.sink.success()))
+            .doOnError(error -> live.forEach(entry -> entry.sink.error(error)))
+            .onErrorResume(error -> Mono.empty());
+    }
+
+    private static final class Pending {
+
+        final McpSchema.JSONRPCMessage message;
+
+        final MonoSink<Void> sink;
+
+        volatile boolean cancelled;
+
+        Pending(McpSchema.JSONRPCMessage message, MonoSink<Void> sink) {
+            this.message = message;
+            this.sink = sink;
+        }
+
+    }
+
+}
@@ -0,0 +1,176 @@
+package org.example.client;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.example.util.ByteBufferPool;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import reactor.adapter.JdkFlowAdapter;
+import reactor.core.publisher.Flux;
+
+/**
+ * 直接序列化到池化字节缓冲区中的 JSON 请求体
+ *
+ * <p>
+ * Jackson 以 UTF-8 字节的形式写入一串固定大小的缓冲区，再以只读视图交给
+ * {@link HttpRequest.BodyPublishers#fromPublisher}，整个过程不产生中间的 {@link String} 或完整的 {@code byte[]}。
+ * HttpClient 因重定向或认证重试而重新订阅时，每次订阅都会得到新的视图。
+ * </p>
+ *
+ * <p>
+ * 请求正常结束后必须调用 {@link #release()} 把缓冲区还给池；请求失败或被取消、HttpClient 可能仍在读取时应调用
+ * {@link #discard()}，让缓冲区交给 GC 而不是被复用。
+ * </p>
+ */
+final class PooledJsonBody {
+
+    /**
+     * 缓冲区大小与 HTTP/2 默认的最大帧大小（16 KB）一致
+     */
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    /**
+     * 所有传输共享的池，最多保留 4 MB 的空闲缓冲区
+     */
+    static final ByteBufferPool POOL = new ByteBufferPool(BUFFER_SIZE, 256);
+
+    private final ByteBufferPool pool;
+
+    private final List<ByteBuffer> buffers;
+
+    private final long contentLength;
+
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    private PooledJsonBody(ByteBufferPool pool, List<ByteBuffer> buffers, long contentLength) {
+        this.pool = pool;
+        this.buffers = buffers;
+        this.contentLength = contentLength;
+    }
+
+    /**
+     * 将对象序列化为 JSON 请求体
+     *
+     * @param objectMapper 序列化使用的 ObjectMapper
+     * @param value 要序列化的对象
+     * @param pool 提供缓冲区的池
+     * @return 请求体
+     * @throws IOException 如果序列化失败，此时已经占用的缓冲区会被归还
+     */
+    static PooledJsonBody write(ObjectMapper objectMapper, Object value, ByteBufferPool pool) throws IOException {
+        BufferOutputStream out = new BufferOutputStream(pool);
+        try {
+            objectMapper.writeValue(out, value);
+        }
+        catch (IOException | RuntimeException e) {
+            out.buffers.forEach(pool::release);
+            throw e;
+        }
+        for (ByteBuffer buffer : out.buffers) {
+            buffer.flip();
+        }
+        return new PooledJsonBody(pool, out.buffers, out.length);
+    }
+
+    /**
+     * @return 请求体的字节数
+     */
+    long contentLength() {
+        return contentLength;
+    }
+
+    /**
+     * @return 发布请求体的 {@link HttpRequest.BodyPublisher}，带有确定的 Content-Length
+     */
+    HttpRequest.BodyPublisher publisher() {
+        Flux<ByteBuffer> views = Flux.defer(() -> Flux.fromIterable(buffers).map(ByteBuffer::asReadOnlyBuffer));
+        return HttpRequest.BodyPublishers.fromPublisher(JdkFlowAdapter.publisherToFlowPublisher(views),
+            contentLength);
+    }
+
+    /**
+     * 将请求体解码为字符串，只在请求定制器需要查看请求体时使用
+     *
+     * @return 请求体字符串
+     */
+    String asString() {
+        byte[] bytes = new byte[(int) contentLength];
+        int position = 0;
+        for (ByteBuffer buffer : buffers) {
+            int length = buffer.remaining();
+            buffer.get(buffer.position(), bytes, position, length);
+            position += length;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 把缓冲区还给池，重复调用无效果
+     */
+    void release() {
+        if (released.compareAndSet(false, true)) {
+            buffers.forEach(pool::release);
+        }
+    }
+
+    /**
+     * 放弃缓冲区而不归还，之后的 {@link #release()} 无效果
+     */
+    void discard() {
+        released.set(true);
+    }
+
+    /**
+     * 写入池化缓冲区链的输出流
+     */
+    private static final class BufferOutputStream extends OutputStream {
+
+        private final ByteBufferPool pool;
+
+        private final List<ByteBuffer> buffers = new ArrayList<>();
+
+        private ByteBuffer current;
+
+        private long length;
+
+        BufferOutputStream(ByteBufferPool pool) {
+            this.pool = pool;
+        }
+
+        @Override
+        public void write(int b) {
+            ensureWritable();
+            current.put((byte) b);
+            length++;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int count) {
+            while (count > 0) {
+                ensureWritable();
+                int n = Math.min(count, current.remaining());
+                current.put(bytes, offset, n);
+                offset += n;
+                count -= n;
+                length += n;
+            }
+        }
+
+        private void ensureWritable() {
+            if (current == null || !current.hasRemaining()) {
+                current = pool.acquire();
+                buffers.add(current);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,92 @@
+package org.example.client;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * 将 {@link java.net.http.HttpClient} 的响应体分块逐个交给 {@link SseEventParser} 的订阅者
+ *
+ * <p>
+ * 每处理完一批分块才请求下一批，解析速度跟不上时由 HttpClient 负责对网络施加背压。
+ * 通过 {@link java.net.http.HttpResponse.BodySubscribers#fromSubscriber} 使用。
+ * </p>
+ */
+final class SseBodySubscriber implements Flow.Subscriber<List<ByteBuffer>> {
+
+    private final SseEventParser parser;
+
+    private final Consumer<Throwable> errorHandler;
+
+    private final Runnable completionHandler;
+
+    private final AtomicReference<Flow.Subscription> subscription = new AtomicReference<>();
+
+    private volatile boolean cancelled;
+
+    /**
+     * @param parser 接收分块的解析器
+     * @param errorHandler 读取或解析出错时的回调
+     * @param completionHandler 服务器正常结束流时的回调
+     */
+    SseBodySubscriber(SseEventParser parser, Consumer<Throwable> errorHandler, Runnable completionHandler) {
+        this.parser = parser;
+        this.errorHandler = errorHandler;
+        this.completionHandler = completionHandler;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        if (!this.subscription.compareAndSet(null, subscription) || cancelled) {
+            subscription.cancel();
+            return;
+        }
+        subscription.request(1);
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> chunks) {
+        if (cancelled) {
+            return;
+        }
+        try {
+            for (ByteBuffer chunk : chunks) {
+                parser.parse(chunk);
+            }
+        }
+        catch (RuntimeException e) {
+            cancel();
+            errorHandler.accept(e);
+            return;
+        }
+        subscription.get().request(1);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        if (!cancelled) {
+            errorHandler.accept(throwable);
+        }
+    }
+
+    @Override
+    public void onComplete() {
+        if (!cancelled) {
+            completionHandler.run();
+        }
+    }
+
+    /**
+     * 取消订阅，之后收到的分块和完成信号都会被忽略
+     */
+    void cancel() {
+        cancelled = true;
+        Flow.Subscription current = subscription.get();
+        if (current != null) {
+            current.cancel();
+        }
+    }
+
+}
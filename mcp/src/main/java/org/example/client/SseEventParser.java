@@ -0,0 +1,449 @@
+package org.example.client;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * 增量式 SSE（Server-Sent Events）解析器
+ *
+ * <p>
+ * 直接在网络传来的 {@link ByteBuffer} 分块上按字节识别 {@code event:}/{@code data:}/{@code id:}/{@code retry:}
+ * 字段，字段值被整块复制到可复用的字节缓冲区中，不会把流切分成 {@link String} 行。
+ * 一个事件的数据在分发时以 UTF-8 字节区间的形式交给处理器，可以直接交给 Jackson 解析；
+ * 只有在调用方确实需要时（如 {@link Event#dataAsString()}）才会创建字符串。
+ * </p>
+ *
+ * <p>
+ * 行尾可以是 CR、LF 或 CRLF，且允许跨分块；以冒号开头的注释行和未知字段会被忽略。
+ * 该类不是线程安全的，同一个 SSE 流的分块必须按顺序依次传入。
+ * </p>
+ *
+ * @see <a href="https://html.spec.whatwg.org/multipage/server-sent-events.html#event-stream-interpretation">Event stream interpretation</a>
+ */
+final class SseEventParser {
+
+    /**
+     * 默认事件类型
+     */
+    static final byte[] MESSAGE_EVENT_TYPE = ascii("message");
+
+    private static final byte[] FIELD_DATA = ascii("data");
+
+    private static final byte[] FIELD_EVENT = ascii("event");
+
+    private static final byte[] FIELD_ID = ascii("id");
+
+    private static final byte[] FIELD_RETRY = ascii("retry");
+
+    /**
+     * 已知字段名的最大长度，超过该长度的字段一定是未知字段
+     */
+    private static final int MAX_FIELD_NAME_LENGTH = 5;
+
+    private static final byte[] UTF8_BOM = { (byte) 0xEF, (byte) 0xBB, (byte) 0xBF };
+
+    // 行内解析状态
+    private static final int STATE_FIELD = 0;
+
+    private static final int STATE_VALUE_START = 1;
+
+    private static final int STATE_VALUE = 2;
+
+    // 字段值的写入目标
+    private static final int TARGET_NONE = 0;
+
+    private static final int TARGET_DATA = 1;
+
+    private static final int TARGET_EVENT = 2;
+
+    private static final int TARGET_ID = 3;
+
+    private static final int TARGET_RETRY = 4;
+
+    private final Consumer<Event> eventHandler;
+
+    private final Event event = new Event();
+
+    private final byte[] fieldName = new byte[MAX_FIELD_NAME_LENGTH];
+
+    private int fieldNameLength;
+
+    private boolean fieldNameOverflow;
+
+    private int state = STATE_FIELD;
+
+    private int target = TARGET_NONE;
+
+    /**
+     * 上一个字节是 CR，若下一个字节是 LF 则应跳过
+     */
+    private boolean skipLineFeed;
+
+    /**
+     * 已经匹配的 BOM 字节数，-1 表示 BOM 检查已结束
+     */
+    private int bomMatched = 0;
+
+    private final ByteArray data = new ByteArray(1024);
+
+    private int dataLines;
+
+    private final ByteArray eventType = new ByteArray(16);
+
+    private final ByteArray idLine = new ByteArray(16);
+
+    private final ByteArray lastEventId = new ByteArray(16);
+
+    private String lastEventIdString;
+
+    private long retryValue;
+
+    private boolean retryValid;
+
+    private long reconnectionTime = -1;
+
+    /**
+     * @param eventHandler 事件处理器，每个完整事件回调一次；传入的 {@link Event} 在回调返回后即失效
+     */
+    SseEventParser(Consumer<Event> eventHandler) {
+        this.eventHandler = eventHandler;
+    }
+
+    /**
+     * 解析一个数据分块，分块会被完全消费
+     *
+     * @param chunk 网络数据分块
+     */
+    void parse(ByteBuffer chunk) {
+        while (chunk.hasRemaining()) {
+            if (bomMatched >= 0) {
+                skipBom(chunk);
+                continue;
+            }
+            if (skipLineFeed) {
+                skipLineFeed = false;
+                if (chunk.get(chunk.position()) == '\n') {
+                    chunk.position(chunk.position() + 1);
+                    continue;
+                }
+            }
+            switch (state) {
+                case STATE_FIELD -> {
+                    byte b = chunk.get();
+                    if (b == '\r' || b == '\n') {
+                        skipLineFeed = b == '\r';
+                        endOfLine();
+                    }
+                    else if (b == ':') {
+                        startValue();
+                    }
+                    else if (fieldNameLength < MAX_FIELD_NAME_LENGTH) {
+                        fieldName[fieldNameLength++] = b;
+                    }
+                    else {
+                        fieldNameOverflow = true;
+                    }
+                }
+                case STATE_VALUE_START -> {
+                    // 冒号后的第一个空格不属于字段值
+                    if (chunk.get(chunk.position()) == ' ') {
+                        chunk.position(chunk.position() + 1);
+                    }
+                    state = STATE_VALUE;
+                }
+                default -> readValue(chunk);
+            }
+        }
+    }
+
+    /**
+     * 重连时间，即服务器通过 {@code retry:} 字段下发的毫秒数
+     *
+     * @return 重连时间，服务器未下发时返回 -1
+     */
+    long reconnectionTime() {
+        return reconnectionTime;
+    }
+
+    /**
+     * 最近一次收到的事件 ID，参见 {@link Event#lastEventId()}
+     *
+     * @return 事件 ID，从未收到时返回 {@code null}
+     */
+    String lastEventId() {
+        return event.lastEventId();
+    }
+
+    /**
+     * 跳过流开头的 UTF-8 BOM，检查结束后将 {@link #bomMatched} 置为 -1
+     */
+    private void skipBom(ByteBuffer chunk) {
+        while (chunk.hasRemaining() && bomMatched < UTF8_BOM.length) {
+            if (chunk.get(chunk.position()) != UTF8_BOM[bomMatched]) {
+                // 已匹配的部分 BOM 字节不可能构成合法的字段，直接丢弃
+                bomMatched = -1;
+                return;
+            }
+            chunk.position(chunk.position() + 1);
+            bomMatched++;
+        }
+        if (bomMatched == UTF8_BOM.length) {
+            bomMatched = -1;
+        }
+    }
+
+    /**
+     * 读到冒号，根据字段名确定字段值的写入目标
+     */
+    private void startValue() {
+        target = TARGET_NONE;
+        if (!fieldNameOverflow) {
+            if (fieldNameIs(FIELD_DATA)) {
+                target = TARGET_DATA;
+                if (dataLines > 0) {
+                    data.append((byte) '\n');
+                }
+                dataLines++;
+            }
+            else if (fieldNameIs(FIELD_EVENT)) {
+                target = TARGET_EVENT;
+                eventType.clear();
+            }
+            else if (fieldNameIs(FIELD_ID)) {
+                target = TARGET_ID;
+                idLine.clear();
+            }
+            else if (fieldNameIs(FIELD_RETRY)) {
+                target = TARGET_RETRY;
+                retryValue = 0;
+                retryValid = true;
+            }
+        }
+        state = STATE_VALUE_START;
+    }
+
+    /**
+     * 把直到行尾（或分块末尾）的字段值整块写入目标缓冲区
+     */
+    private void readValue(ByteBuffer chunk) {
+        int start = chunk.position();
+        int limit = chunk.limit();
+        int end = start;
+        while (end < limit) {
+            byte b = chunk.get(end);
+            if (b == '\n' || b == '\r') {
+                break;
+            }
+            end++;
+        }
+
+        int length = end - start;
+        switch (target) {
+            case TARGET_DATA -> data.append(chunk, start, length);
+            case TARGET_EVENT -> eventType.append(chunk, start, length);
+            case TARGET_ID -> idLine.append(chunk, start, length);
+            case TARGET_RETRY -> accumulateRetry(chunk, start, length);
+            default -> {
+            }
+        }
+
+        if (end < limit) {
+            skipLineFeed = chunk.get(end) == '\r';
+            chunk.position(end + 1);
+            endOfLine();
+        }
+        else {
+            chunk.position(end);
+        }
+    }
+
+    private void accumulateRetry(ByteBuffer chunk, int start, int length) {
+        for (int i = start; i < start + length && retryValid; i++) {
+            byte b = chunk.get(i);
+            if (b < '0' || b > '9' || retryValue > (Long.MAX_VALUE - 9) / 10) {
+                retryValid = false;
+            }
+            else {
+                retryValue = retryValue * 10 + (b - '0');
+            }
+        }
+    }
+
+    /**
+     * 一行结束：空行触发事件分发，字段行提交字段值
+     */
+    private void endOfLine() {
+        if (state == STATE_FIELD) {
+            if (fieldNameLength == 0 && !fieldNameOverflow) {
+                dispatchEvent();
+                return;
+            }
+            // 没有冒号的行，整行都是字段名，字段值为空
+            startValue();
+        }
+
+        switch (target) {
+            case TARGET_ID -> {
+                if (!idLine.contains((byte) 0) && !idLine.contentEquals(lastEventId)) {
+                    lastEventId.clear();
+                    lastEventId.append(idLine);
+                    lastEventIdString = null;
+                }
+            }
+            case TARGET_RETRY -> {
+                if (retryValid && retryValue > 0) {
+                    reconnectionTime = retryValue;
+                }
+            }
+            default -> {
+            }
+        }
+
+        state = STATE_FIELD;
+        target = TARGET_NONE;
+        fieldNameLength = 0;
+        fieldNameOverflow = false;
+    }
+
+    private void dispatchEvent() {
+        if (dataLines > 0) {
+            eventHandler.accept(event);
+        }
+        data.clear();
+        dataLines = 0;
+        eventType.clear();
+    }
+
+    private boolean fieldNameIs(byte[] name) {
+        return Arrays.equals(fieldName, 0, fieldNameLength, name, 0, name.length);
+    }
+
+    static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * 正在分发的 SSE 事件的只读视图，只在事件处理器回调期间有效
+     */
+    final class Event {
+
+        private Event() {
+        }
+
+        /**
+         * 判断事件类型，未指定 {@code event:} 字段的事件类型为 {@code message}
+         *
+         * @param type ASCII 编码的事件类型
+         * @return 事件类型是否与之相同
+         */
+        boolean isType(byte[] type) {
+            if (eventType.length == 0) {
+                return Arrays.equals(type, MESSAGE_EVENT_TYPE);
+            }
+            return Arrays.equals(eventType.bytes, 0, eventType.length, type, 0, type.length);
+        }
+
+        /**
+         * @return 事件类型字符串，每次调用都会创建新的字符串
+         */
+        String type() {
+            return eventType.length == 0 ? "message"
+                    : new String(eventType.bytes, 0, eventType.length, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * @return 保存事件数据的数组，有效内容为 {@code [0, dataLength())}，回调返回后会被复用
+         */
+        byte[] data() {
+            return data.bytes;
+        }
+
+        /**
+         * @return 事件数据的字节长度
+         */
+        int dataLength() {
+            return data.length;
+        }
+
+        /**
+         * @return 事件数据字符串，每次调用都会创建新的字符串
+         */
+        String dataAsString() {
+            return new String(data.bytes, 0, data.length, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * 最近一次收到的事件 ID，在 ID 变化后第一次调用时才创建字符串
+         *
+         * @return 事件 ID，从未收到时返回 {@code null}
+         */
+        String lastEventId() {
+            if (lastEventIdString == null && lastEventId.length > 0) {
+                lastEventIdString = new String(lastEventId.bytes, 0, lastEventId.length, StandardCharsets.UTF_8);
+            }
+            return lastEventIdString;
+        }
+
+    }
+
+    /**
+     * 可复用的可增长字节数组
+     */
+    private static final class ByteArray {
+
+        private byte[] bytes;
+
+        private int length;
+
+        ByteArray(int initialCapacity) {
+            this.bytes = new byte[initialCapacity];
+        }
+
+        void append(byte b) {
+            ensureCapacity(length + 1);
+            bytes[length++] = b;
+        }
+
+        void append(ByteBuffer src, int index, int count) {
+            if (count == 0) {
+                return;
+            }
+            ensureCapacity(length + count);
+            src.get(index, bytes, length, count);
+            length += count;
+        }
+
+        void append(ByteArray other) {
+            ensureCapacity(length + other.length);
+            System.arraycopy(other.bytes, 0, bytes, length, other.length);
+            length += other.length;
+        }
+
+        boolean contains(byte b) {
+            for (int i = 0; i < length; i++) {
+                if (bytes[i] == b) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        boolean contentEquals(ByteArray other) {
+            return Arrays.equals(bytes, 0, length, other.bytes, 0, other.length);
+        }
+
+        void clear() {
+            length = 0;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(capacity, bytes.length << 1));
+            }
+        }
+
+    }
+
+}
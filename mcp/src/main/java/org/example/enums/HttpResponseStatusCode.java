@@ -129,6 +129,11 @@ public class HttpResponseStatusCode {
      */
     public static final int CLIENT_ERROR_410_GONE = 410;
 
+    /**
+     * 413 Payload Too Large - 请求体超过服务器允许的大小
+     */
+    public static final int CLIENT_ERROR_413_PAYLOAD_TOO_LARGE = 413;
+
     /**
      * 415 Unsupported Media Type - 请求体的媒体类型不被支持
      */
@@ -139,4 +144,27 @@ public class HttpResponseStatusCode {
      */
     public static final int CLIENT_ERROR_429_TOO_MANY_REQUESTS = 429;
 
+    /**
+     * 431 Request Header Fields Too Large - 请求头过大
+     */
+    public static final int CLIENT_ERROR_431_REQUEST_HEADER_FIELDS_TOO_LARGE = 431;
+
+    // ==================================================
+    // = 5xx
+    // ==================================================
+    /**
+     * 500 Internal Server Error - 服务器内部错误
+     */
+    public static final int SERVER_ERROR_500_INTERNAL_SERVER_ERROR = 500;
+
+    /**
+     * 501 Not Implemented - 服务器不支持请求所需的功能
+     */
+    public static final int SERVER_ERROR_501_NOT_IMPLEMENTED = 501;
+
+    /**
+     * 503 Service Unavailable - 服务器暂时无法处理请求
+     */
+    public static final int SERVER_ERROR_503_SERVICE_UNAVAILABLE = 503;
+
 }
\ No newline at end of file
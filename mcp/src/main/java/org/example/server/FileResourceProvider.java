@@ -0,0 +1,387 @@
+package org.example.server;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import org.example.spec.BinaryData;
+import org.example.spec.McpError;
+import org.example.spec.McpSchema;
+import org.example.spec.StreamingReadResourceResult;
+import org.example.util.Assert;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SynchronousSink;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * 把一个目录下的文件作为 {@code file://} 资源提供，用于处理 {@code resources/list} 和 {@code resources/read}
+ *
+ * <p>
+ * 读取时不会把文件读入堆中：文件按页对齐的块依次通过 {@link FileChannel#map} 映射，
+ * 每块成为结果中的一个 {@link McpSchema.TextResourceContents} 或 {@link McpSchema.BlobResourceContents}，
+ * 以 {@link StreamingReadResourceResult} 的形式交给传输逐块写出。二进制块直接以映射区域作为
+ * {@link BinaryData}，编码 Base64 时才按需载入页面；文本块只在编码当前块时解码为字符串，
+ * 块的边界会回退到完整的 UTF-8 字符上。
+ * </p>
+ *
+ * <p>
+ * 读取的字节数以打开文件时的大小为准，与 {@link McpSchema.Resource#size()} 一致。
+ * 映射每一块之前会检查文件是否已被截短，发现时以错误结束；但这只缩小了竞争窗口而不能消除它：
+ * 检查之后、页面被编码之前截短文件，访问已经不存在的映射页会抛出 {@link InternalError}。
+ * 被提供的文件只应追加写入或通过重命名整体替换，不应被原地截短。
+ * </p>
+ *
+ * <p>
+ * 文件系统访问和映射页的读取都会阻塞，所有返回的 {@link Mono} / {@link Flux} 都在
+ * {@link Schedulers#boundedElastic()} 上订阅，不会占用调用方（例如传输的选择器线程）。
+ * </p>
+ *
+ * <p>
+ * 只有根目录之内的普通文件可以被读取，符号链接会先解析为真实路径再检查，其他 URI 一律以
+ * {@link McpSchema.ErrorCodes#RESOURCE_NOT_FOUND} 拒绝。
+ * </p>
+ */
+public final class FileResourceProvider {
+
+    /**
+     * 映射区域的对齐单位
+     */
+    static final int PAGE_SIZE = 4096;
+
+    /**
+     * 默认每块 4 MB
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+
+    private static final String DEFAULT_MIME_TYPE = "application/octet-stream";
+
+    /**
+     * {@link Files#probeContentType} 不认识时按扩展名补充的 MIME 类型
+     */
+    private static final Map<String, String> EXTENSION_MIME_TYPES = Map.ofEntries(
+        Map.entry("txt", "text/plain"),
+        Map.entry("log", "text/plain"),
+        Map.entry("md", "text/markdown"),
+        Map.entry("csv", "text/csv"),
+        Map.entry("json", "application/json"),
+        Map.entry("ndjson", "application/x-ndjson"),
+        Map.entry("jsonl", "application/x-ndjson"),
+        Map.entry("yaml", "application/yaml"),
+        Map.entry("yml", "application/yaml"),
+        Map.entry("xml", "application/xml"));
+
+    private final Path root;
+
+    private final String rootUri;
+
+    private final int chunkSize;
+
+    private final int maxDepth;
+
+    private final Predicate<String> textMimeType;
+
+    private FileResourceProvider(Path root, int chunkSize, int maxDepth, Predicate<String> textMimeType) {
+        this.root = root;
+        this.rootUri = root.toUri().toString();
+        this.chunkSize = chunkSize;
+        this.maxDepth = maxDepth;
+        this.textMimeType = textMimeType;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return 根目录下所有可读的普通文件，带有大小和 MIME 类型
+     */
+    public Flux<McpSchema.Resource> listResources() {
+        return Flux.using(() -> Files.walk(root, maxDepth), paths -> Flux.fromStream(paths), Stream::close)
+            .filter(path -> Files.isRegularFile(path) && Files.isReadable(path))
+            .<McpSchema.Resource>handle((path, sink) -> {
+                try {
+                    sink.next(toResource(path, Files.readAttributes(path, BasicFileAttributes.class).size()));
+                }
+                catch (IOException e) {
+                    // 遍历期间被删除的文件直接跳过
+                }
+            })
+            .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * @return 描述根目录下任意文件的资源模板
+     */
+    public McpSchema.ResourceTemplate resourceTemplate() {
+        return new McpSchema.ResourceTemplate(rootUri + "{+path}", root.getFileName() == null ? rootUri
+                : root.getFileName().toString(), "Files under " + rootUri, null, null);
+    }
+
+    /**
+     * 获取单个文件的资源描述
+     *
+     * @param uri 文件的 {@code file://} URI
+     * @return 资源描述，文件不存在或不在根目录下时以 {@link McpError} 结束
+     */
+    public Mono<McpSchema.Resource> resource(String uri) {
+        return Mono.fromCallable(() -> {
+            Path path = resolve(uri);
+            return toResource(path, Files.size(path));
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * 处理 {@code resources/read}
+     *
+     * @param request 读取请求
+     * @return 逐块产生内容的结果
+     */
+    public Mono<StreamingReadResourceResult> read(McpSchema.ReadResourceRequest request) {
+        Assert.notNull(request, "request must not be null");
+        return read(request.uri());
+    }
+
+    /**
+     * 读取一个文件
+     *
+     * @param uri 文件的 {@code file://} URI
+     * @return 逐块产生内容的结果，文件不存在或不在根目录下时以 {@link McpError} 结束
+     */
+    public Mono<StreamingReadResourceResult> read(String uri) {
+        return Mono.fromCallable(() -> {
+            Path path = resolve(uri);
+            String mimeType = mimeType(path);
+            boolean text = textMimeType.test(mimeType);
+            long size = Files.size(path);
+            Flux<McpSchema.ResourceContents> contents = Flux.using(
+                () -> FileChannel.open(path, StandardOpenOption.READ),
+                channel -> Flux.generate(() -> 0L, (Long position, SynchronousSink<McpSchema.ResourceContents> sink) -> {
+                    if (position >= size) {
+                        sink.complete();
+                        return position;
+                    }
+                    try {
+                        return text ? nextText(channel, uri, mimeType, position, size, sink)
+                                : nextBlob(channel, uri, mimeType, position, size, sink);
+                    }
+                    catch (IOException e) {
+                        sink.error(new McpError(McpSchema.ErrorCodes.INTERNAL_ERROR,
+                            "Failed to read resource: " + uri, e));
+                        return position;
+                    }
+                }),
+                FileResourceProvider::closeQuietly)
+                .subscribeOn(Schedulers.boundedElastic());
+            return new StreamingReadResourceResult(contents);
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private long nextBlob(FileChannel channel, String uri, String mimeType, long position, long size,
+        SynchronousSink<McpSchema.ResourceContents> sink) throws IOException {
+
+        long end = Math.min(position + chunkSize, size);
+        checkNotTruncated(channel, end, uri);
+        sink.next(McpSchema.BlobResourceContents.of(uri, mimeType, BinaryData.ofMapped(channel, position,
+            end - position)));
+        return end;
+    }
+
+    /**
+     * 映射从 {@code position} 所在页开始的一块，解码到最后一个完整的 UTF-8 字符为止
+     *
+     * @return 下一块文本的起始位置
+     */
+    private long nextText(FileChannel channel, String uri, String mimeType, long position, long size,
+        SynchronousSink<McpSchema.ResourceContents> sink) throws IOException {
+
+        long mapStart = position - position % PAGE_SIZE;
+        long mapEnd = Math.min(mapStart + chunkSize, size);
+        checkNotTruncated(channel, mapEnd, uri);
+        MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, mapStart, mapEnd - mapStart);
+        int from = (int) (position - mapStart);
+        int to = mapEnd < size ? utf8Boundary(mapped, from, mapped.limit()) : mapped.limit();
+        byte[] bytes = new byte[to - from];
+        mapped.get(from, bytes);
+        sink.next(new McpSchema.TextResourceContents(uri, mimeType, new String(bytes, StandardCharsets.UTF_8)));
+        return mapStart + to;
+    }
+
+    /**
+     * 把块的结束位置回退到不会截断多字节字符的位置
+     */
+    static int utf8Boundary(MappedByteBuffer buffer, int from, int to) {
+        for (int back = 1; back <= 3 && to - back >= from; back++) {
+            int b = buffer.get(to - back) & 0xFF;
+            if ((b & 0xC0) == 0x80) {
+                continue;
+            }
+            int length = b >= 0xF0 ? 4 : b >= 0xE0 ? 3 : b >= 0xC0 ? 2 : 1;
+            return length > back ? to - back : to;
+        }
+        return to;
+    }
+
+    private static void checkNotTruncated(FileChannel channel, long end, String uri) throws IOException {
+        if (channel.size() < end) {
+            throw new McpError(McpSchema.ErrorCodes.INTERNAL_ERROR, "Resource was truncated while reading: " + uri);
+        }
+    }
+
+    private Path resolve(String uri) {
+        Path path;
+        try {
+            URI parsed = URI.create(uri);
+            if (!"file".equalsIgnoreCase(parsed.getScheme())) {
+                throw new McpError(McpSchema.ErrorCodes.RESOURCE_NOT_FOUND, "Resource not found: " + uri);
+            }
+            path = Path.of(parsed).toRealPath();
+        }
+        catch (IllegalArgumentException | IOException | SecurityException e) {
+            throw new McpError(McpSchema.ErrorCodes.RESOURCE_NOT_FOUND, "Resource not found: " + uri);
+        }
+        if (!path.startsWith(root) || !Files.isRegularFile(path, LinkOption.NOFOLLOW_LINKS)
+                || !Files.isReadable(path)) {
+            throw new McpError(McpSchema.ErrorCodes.RESOURCE_NOT_FOUND, "Resource not found: " + uri);
+        }
+        return path;
+    }
+
+    private McpSchema.Resource toResource(Path path, long size) {
+        return McpSchema.Resource.builder()
+            .uri(path.toUri().toString())
+            .name(root.relativize(path).toString())
+            .mimeType(mimeType(path))
+            .size(size)
+            .build();
+    }
+
+    private static String mimeType(Path path) {
+        String mimeType = null;
+        try {
+            mimeType = Files.probeContentType(path);
+        }
+        catch (IOException ignored) {
+            // 退回到按扩展名判断
+        }
+        if (mimeType != null) {
+            return mimeType;
+        }
+        String fileName = path.getFileName().toString();
+        int dot = fileName.lastIndexOf('.');
+        if (dot >= 0) {
+            mimeType = EXTENSION_MIME_TYPES.get(fileName.substring(dot + 1).toLowerCase(Locale.ROOT));
+        }
+        return mimeType != null ? mimeType : DEFAULT_MIME_TYPE;
+    }
+
+    /**
+     * 默认按文本处理的 MIME 类型：{@code text/*} 以及常见的 JSON、XML、YAML 类型
+     */
+    static boolean isTextMimeType(String mimeType) {
+        return mimeType.startsWith("text/") || mimeType.endsWith("json") || mimeType.endsWith("xml")
+                || mimeType.endsWith("yaml") || mimeType.equals("application/javascript");
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        try {
+            channel.close();
+        }
+        catch (IOException ignored) {
+            // 映射区域在通道关闭后依然有效，关闭失败不影响已经产生的内容
+        }
+    }
+
+    /**
+     * 用于创建 {@link FileResourceProvider} 实例的构造器
+     */
+    public static class Builder {
+
+        private Path root;
+
+        private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+        private int maxDepth = Integer.MAX_VALUE;
+
+        private Predicate<String> textMimeType = FileResourceProvider::isTextMimeType;
+
+        Builder() {
+        }
+
+        /**
+         * @param root 对外提供的根目录
+         * @return 当前构造器
+         */
+        public Builder root(Path root) {
+            Assert.notNull(root, "root must not be null");
+            this.root = root;
+            return this;
+        }
+
+        /**
+         * 设置每块的大小，会向上取整为 4 KB 的整数倍，且至少为两页
+         *
+         * @param chunkSize 字节数，必须大于 0
+         * @return 当前构造器
+         */
+        public Builder chunkSize(int chunkSize) {
+            Assert.isTrue(chunkSize > 0, "chunkSize must be greater than 0");
+            this.chunkSize = chunkSize;
+            return this;
+        }
+
+        /**
+         * @param maxDepth 列出资源时遍历的最大目录深度，1 表示只列出根目录下的文件
+         * @return 当前构造器
+         */
+        public Builder maxDepth(int maxDepth) {
+            Assert.isTrue(maxDepth > 0, "maxDepth must be greater than 0");
+            this.maxDepth = maxDepth;
+            return this;
+        }
+
+        /**
+         * @param textMimeType 判断一个 MIME 类型是否以 {@link McpSchema.TextResourceContents} 返回
+         * @return 当前构造器
+         */
+        public Builder textMimeType(Predicate<String> textMimeType) {
+            Assert.notNull(textMimeType, "textMimeType must not be null");
+            this.textMimeType = textMimeType;
+            return this;
+        }
+
+        /**
+         * @return 文件资源提供者
+         * @throws IllegalArgumentException 如果根目录不存在或不是目录
+         */
+        public FileResourceProvider build() {
+            Assert.notNull(root, "root must not be null");
+            Path realRoot;
+            try {
+                realRoot = root.toRealPath();
+            }
+            catch (IOException e) {
+                throw new IllegalArgumentException("root does not exist: " + root, e);
+            }
+            Assert.isTrue(Files.isDirectory(realRoot), "root must be a directory");
+            // 至少两页，保证文本块从页中间开始时仍有进展
+            int alignedChunkSize = (int) Math.min(Integer.MAX_VALUE - PAGE_SIZE + 1L,
+                Math.max(2L * PAGE_SIZE, (chunkSize + PAGE_SIZE - 1L) / PAGE_SIZE * PAGE_SIZE));
+            return new FileResourceProvider(realRoot, alignedChunkSize, maxDepth, textMimeType);
+        }
+
+    }
+
+}
@@ -0,0 +1,291 @@
+package org.example.server;
+
+import java.io.Serial;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.example.enums.HttpResponseStatusCode;
+
+/**
+ * 从连接的入站字节中增量解码 HTTP/1.1 请求
+ *
+ * <p>
+ * 只有在一个请求的请求头和请求体都已完整到达时才返回结果，否则返回 {@code null} 等待更多数据；
+ * 支持 {@code Content-Length} 和 {@code chunked} 两种请求体编码。请求头和请求体超过上限时抛出
+ * {@link HttpStatusException}，调用方应返回对应的状态码并关闭连接。
+ * </p>
+ */
+final class HttpRequestDecoder {
+
+    private final int maxHeaderSize;
+
+    private final int maxBodySize;
+
+    /**
+     * @param maxHeaderSize 请求行加请求头的最大字节数
+     * @param maxBodySize 请求体的最大字节数
+     */
+    HttpRequestDecoder(int maxHeaderSize, int maxBodySize) {
+        this.maxHeaderSize = maxHeaderSize;
+        this.maxBodySize = maxBodySize;
+    }
+
+    /**
+     * 尝试从 {@code [offset, offset + length)} 中解码一个完整的请求
+     *
+     * @return 解码出的请求，数据不完整时返回 {@code null}
+     * @throws HttpStatusException 请求格式错误或超过大小限制
+     */
+    Request decode(byte[] buf, int offset, int length) {
+        int limit = offset + length;
+        int headEnd = indexOfHeadEnd(buf, offset, limit);
+        if (headEnd < 0) {
+            if (length > maxHeaderSize) {
+                throw new HttpStatusException(HttpResponseStatusCode.CLIENT_ERROR_431_REQUEST_HEADER_FIELDS_TOO_LARGE,
+                    "Request header too large");
+            }
+            return null;
+        }
+        if (headEnd - offset > maxHeaderSize) {
+            throw new HttpStatusException(HttpResponseStatusCode.CLIENT_ERROR_431_REQUEST_HEADER_FIELDS_TOO_LARGE,
+                "Request header too large");
+        }
+
+        String head = new String(buf, offset, headEnd - offset, StandardCharsets.ISO_8859_1);
+        String[] lines = head.split("\r\n");
+        String[] requestLine = lines[0].split(" ");
+        if (requestLine.length != 3 || !requestLine[2].startsWith("HTTP/1.")) {
+            throw new HttpStatusException(HttpResponseStatusCode.CLIENT_ERROR_400_BAD_REQUEST,
+                "Malformed request line");
+        }
+        Map<String, String> headers = new HashMap<>();
+        for (int i = 1; i < lines.length; i++) {
+            int colon = lines[i].indexOf(':');
+            if (colon <= 0) {
+                throw new HttpStatusException(HttpResponseStatusCode.CLIENT_ERROR_400_BAD_REQUEST,
+                    "Malformed request header");
+            }
+            headers.merge(lines[i].substring(0, colon).trim().toLowerCase(Locale.ROOT),
+                lines[i].substring(colon + 1).trim(), (first, second) -> first + ", " + second);
+        }
+
+        int bodyStart = headEnd + 4;
+        byte[] body;
+        int consumed;
+        String transferEncoding = headers.get("transfer-encoding");
+        if (transferEncoding != null) {
+            if (!"chunked".equalsIgnoreCase(transferEncoding)) {
+                throw new HttpStatusException(HttpResponseStatusCode.SERVER_ERROR_501_NOT_IMPLEMENTED,
+                    "Unsupported transfer encoding: " + transferEncoding);
+            }
+            ChunkedBody chunked = decodeChunked(buf, bodyStart, limit);
+            if (chunked == null) {
+                return null;
+            }
+            body = chunked.body;
+            consumed = chunked.end - offset;
+        }
+        else {
+            int contentLength = contentLength(headers.get("content-length"));
+            if (limit - bodyStart < contentLength) {
+                return null;
+            }
+            body = new byte[contentLength];
+            System.arraycopy(buf, bodyStart, body, 0, contentLength);
+            consumed = bodyStart + contentLength - offset;
+        }
+
+        String target = requestLine[1];
+        int question = target.indexOf('?');
+        String path = question < 0 ? target : target.substring(0, question);
+        String query = question < 0 ? null : target.substring(question + 1);
+        boolean keepAlive = "HTTP/1.1".equals(requestLine[2])
+                ? !"close".equalsIgnoreCase(headers.get("connection"))
+                : "keep-alive".equalsIgnoreCase(headers.get("connection"));
+        return new Request(requestLine[0], path, query, headers, body, keepAlive, consumed);
+    }
+
+    private int contentLength(String value) {
+        if (value == null) {
+            return 0;
+        }
+        long contentLength;
+        try {
+            contentLength = Long.parseLong(value);
+        }
+        catch (NumberFormatException e) {
+            throw new HttpStatusException(HttpResponseStatusCode.CLIENT_ERROR_400_BAD_REQUEST,
+                "Invalid Content-Length: " + value);
+        }
+        if (contentLength < 0) {
+            throw new HttpStatusException(HttpResponseStatusCode.CLIENT_ERROR_400_BAD_REQUEST,
+                "Invalid Content-Length: " + value);
+        }
+        if (contentLength > maxBodySize) {
+            throw new HttpStatusException(HttpResponseStatusCode.CLIENT_ERROR_413_PAYLOAD_TOO_LARGE,
+                "Request body too large");
+        }
+        return (int) contentLength;
+    }
+
+    /**
+     * 解码 chunked 请求体，数据不完整时返回 {@code null}；chunk 扩展和 trailer 会被忽略
+     */
+    private ChunkedBody decodeChunked(byte[] buf, int start, int limit) {
+        int position = start;
+        int total = 0;
+        // 第一遍只计算长度并确认数据完整，第二遍再复制
+        while (true) {
+            int lineEnd = indexOfCrlf(buf, position, limit);
+            if (lineEnd < 0) {
+                return null;
+            }
+            int size = chunkSize(buf, position, lineEnd);
+            position = lineEnd + 2;
+            if (size == 0) {
+                break;
+            }
+            if (total + (long) size > maxBodySize) {
+                throw new HttpStatusException(HttpResponseStatusCode.CLIENT_ERROR_413_PAYLOAD_TOO_LARGE,
+                    "Request body too large");
+            }
+            if (limit - position < size + 2) {
+                return null;
+            }
+            total += size;
+            position += size + 2;
+        }
+        // trailer 以空行结束
+        while (true) {
+            int lineEnd = indexOfCrlf(buf, position, limit);
+            if (lineEnd < 0) {
+                return null;
+            }
+            boolean empty = lineEnd == position;
+            position = lineEnd + 2;
+            if (empty) {
+                break;
+            }
+        }
+
+        byte[] body = new byte[total];
+        int copied = 0;
+        int chunkStart = start;
+        while (copied < total) {
+            int lineEnd = indexOfCrlf(buf, chunkStart, limit);
+            int size = chunkSize(buf, chunkStart, lineEnd);
+            System.arraycopy(buf, lineEnd + 2, body, copied, size);
+            copied += size;
+            chunkStart = lineEnd + 2 + size + 2;
+        }
+        return new ChunkedBody(body, position);
+    }
+
+    private static int chunkSize(byte[] buf, int start, int end) {
+        int size = 0;
+        int i = start;
+        for (; i < end && buf[i] != ';'; i++) {
+            int digit = Character.digit(buf[i], 16);
+            if (digit < 0 || size > (Integer.MAX_VALUE >> 4)) {
+                throw new HttpStatusException(HttpResponseStatusCode.CLIENT_ERROR_400_BAD_REQUEST,
+                    "Invalid chunk size");
+            }
+            size = (size << 4) | digit;
+        }
+        if (i == start) {
+            throw new HttpStatusException(HttpResponseStatusCode.CLIENT_ERROR_400_BAD_REQUEST, "Invalid chunk size");
+        }
+        return size;
+    }
+
+    private static int indexOfHeadEnd(byte[] buf, int start, int limit) {
+        for (int i = start; i + 3 < limit; i++) {
+            if (buf[i] == '\r' && buf[i + 1] == '\n' && buf[i + 2] == '\r' && buf[i + 3] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int indexOfCrlf(byte[] buf, int start, int limit) {
+        for (int i = start; i + 1 < limit; i++) {
+            if (buf[i] == '\r' && buf[i + 1] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private record ChunkedBody(byte[] body, int end) {
+    }
+
+    /**
+     * 一个完整的 HTTP 请求
+     *
+     * @param method 请求方法
+     * @param path 请求路径，不含查询字符串
+     * @param query 原始查询字符串，没有时为 {@code null}
+     * @param headers 请求头，名称为小写
+     * @param body 请求体
+     * @param keepAlive 响应之后是否保持连接
+     * @param consumed 该请求占用的入站字节数
+     */
+    record Request(String method, String path, String query, Map<String, String> headers, byte[] body,
+        boolean keepAlive, int consumed) {
+
+        /**
+         * @param name 查询参数名
+         * @return 第一个同名查询参数的解码值，不存在时返回 {@code null}
+         * @throws HttpStatusException 查询字符串含有非法的百分号转义
+         */
+        String queryParameter(String name) {
+            if (query == null) {
+                return null;
+            }
+            for (String pair : query.split("&")) {
+                int equals = pair.indexOf('=');
+                String key = equals < 0 ? pair : pair.substring(0, equals);
+                if (name.equals(decodeQueryComponent(key))) {
+                    return equals < 0 ? "" : decodeQueryComponent(pair.substring(equals + 1));
+                }
+            }
+            return null;
+        }
+
+        private static String decodeQueryComponent(String value) {
+            try {
+                return URLDecoder.decode(value, StandardCharsets.UTF_8);
+            }
+            catch (IllegalArgumentException e) {
+                throw new HttpStatusException(HttpResponseStatusCode.CLIENT_ERROR_400_BAD_REQUEST,
+                    "Malformed query string");
+            }
+        }
+
+    }
+
+    /**
+     * 需要以指定状态码拒绝请求的错误
+     */
+    static final class HttpStatusException extends RuntimeException {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final int statusCode;
+
+        HttpStatusException(int statusCode, String message) {
+            super(message, null, false, false);
+            this.statusCode = statusCode;
+        }
+
+        int statusCode() {
+            return statusCode;
+        }
+
+    }
+
+}
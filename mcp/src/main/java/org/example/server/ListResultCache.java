@@ -0,0 +1,239 @@
+package org.example.server;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import org.example.spec.EncodedJson;
+import org.example.spec.McpError;
+import org.example.spec.McpSchema;
+import org.example.spec.McpServerTransportProvider;
+import org.example.util.Assert;
+import org.example.util.HashedWheelTimer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * 分页列表结果的编码缓存
+ *
+ * <p>
+ * {@code tools/list}、{@code resources/list} 和 {@code prompts/list} 的结果很少变化，却会被每个连接的客户端请求，
+ * 部署后的重连风暴会把同一份目录序列化成千上万次。缓存为 {@link PaginatedIndex} 的每一页保存编码好的
+ * {@link EncodedJson}，同一版本的同一页只序列化一次，之后的响应只复制字节。
+ * </p>
+ *
+ * <p>
+ * 缓存以索引的版本号为准：索引被修改后，旧版本的页面在下一次请求时整体丢弃。通过 {@link #watch} 关联的索引
+ * 在修改后还会向所有会话广播对应的 {@code notifications/.../list_changed} 通知。第一次修改后开始一个
+ * 合并窗口（见 {@link Builder#notificationWindow}），窗口内的后续修改（例如逐个注册一批工具）只产生一条通知；
+ * 窗口由 {@link HashedWheelTimer} 驱动，广播在 {@link Schedulers#parallel()} 上执行，不占用定时器线程。
+ * </p>
+ */
+public final class ListResultCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ListResultCache.class);
+
+    private final ObjectWriter writer;
+
+    private final McpServerTransportProvider transportProvider;
+
+    private final int maxPagesPerList;
+
+    private final long windowNanos;
+
+    private final HashedWheelTimer timer;
+
+    private final Map<PaginatedIndex<?>, Pages> pages = new ConcurrentHashMap<>();
+
+    private ListResultCache(Builder builder) {
+        this.writer = builder.objectMapper.writer();
+        this.transportProvider = builder.transportProvider;
+        this.maxPagesPerList = builder.maxPagesPerList;
+        this.windowNanos = builder.notificationWindow.toNanos();
+        this.timer = builder.timer != null ? builder.timer : HashedWheelTimer.shared();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 取索引当前版本的一页，优先使用已经编码好的结果
+     *
+     * @param index 索引
+     * @param cursor 上一页返回的游标，{@link McpSchema#FIRST_PAGE} 表示第一页
+     * @param toResult 把页面转换为列表结果，例如 {@link McpSchema.ListToolsResult}
+     * @param <T> 条目类型
+     * @return 编码好的列表结果，可以直接作为响应的 {@code result}
+     * @throws McpError 如果游标无效
+     */
+    public <T> EncodedJson page(PaginatedIndex<T> index, String cursor,
+        Function<PaginatedIndex.Page<T>, ? extends McpSchema.Result> toResult) {
+        PaginatedIndex.Snapshot<T> snapshot = index.snapshot();
+        long version = snapshot.version();
+        Pages cached = pages.get(index);
+        if (cached == null || cached.version < version) {
+            cached = pages.compute(index,
+                    (key, current) -> current != null && current.version >= version ? current : new Pages(version));
+        }
+        if (cached.version != version) {
+            // 读取快照之后索引又被修改，旧版本的结果不进入缓存
+            return EncodedJson.encode(writer, toResult.apply(snapshot.page(cursor, index.pageSize())));
+        }
+        EncodedJson encoded = cursor == null ? cached.first : cached.byCursor.get(cursor);
+        if (encoded != null) {
+            return encoded;
+        }
+        encoded = EncodedJson.encode(writer, toResult.apply(snapshot.page(cursor, index.pageSize())));
+        if (cursor == null) {
+            cached.first = encoded;
+        }
+        else if (cached.byCursor.size() < maxPagesPerList) {
+            // 任意合法的 Base64 都是有效游标，限制缓存的页数避免被构造的游标撑大
+            cached.byCursor.put(cursor, encoded);
+        }
+        return encoded;
+    }
+
+    /**
+     * 索引修改后立即丢弃它的缓存，并在合并窗口结束后向所有会话广播列表变化通知
+     *
+     * @param index 索引
+     * @param notificationMethod 通知方法，例如 {@link McpSchema#METHOD_NOTIFICATION_TOOLS_LIST_CHANGED}
+     */
+    public void watch(PaginatedIndex<?> index, String notificationMethod) {
+        Assert.notNull(index, "index must not be null");
+        Assert.hasText(notificationMethod, "notificationMethod must not be empty");
+        AtomicBoolean pending = new AtomicBoolean();
+        Runnable broadcast = () -> {
+            // 先复位再发送，发送期间的修改会开始下一个窗口
+            pending.set(false);
+            Mono.defer(() -> transportProvider.notifyClients(notificationMethod, null))
+                .subscribe(null, error -> logger.warn("Failed to send {}: {}", notificationMethod,
+                        error.getMessage()));
+        };
+        index.addListener(snapshot -> {
+            pages.remove(index);
+            if (transportProvider != null && pending.compareAndSet(false, true)) {
+                if (windowNanos == 0) {
+                    Schedulers.parallel().schedule(broadcast);
+                }
+                else {
+                    // 定时器线程不能阻塞，广播交给调度器
+                    timer.schedule(() -> Schedulers.parallel().schedule(broadcast), windowNanos,
+                            TimeUnit.NANOSECONDS);
+                }
+            }
+        });
+    }
+
+    /**
+     * 清空所有缓存的页面
+     */
+    public void clear() {
+        pages.clear();
+    }
+
+    /**
+     * 一个索引某个版本的已编码页面
+     */
+    private static final class Pages {
+
+        final long version;
+
+        final Map<String, EncodedJson> byCursor = new ConcurrentHashMap<>();
+
+        volatile EncodedJson first;
+
+        Pages(long version) {
+            this.version = version;
+        }
+
+    }
+
+    /**
+     * 用于创建 {@link ListResultCache} 实例的构造器
+     */
+    public static class Builder {
+
+        private ObjectMapper objectMapper = new ObjectMapper();
+
+        private McpServerTransportProvider transportProvider;
+
+        private int maxPagesPerList = 1024;
+
+        private Duration notificationWindow = Duration.ofMillis(100);
+
+        private HashedWheelTimer timer;
+
+        Builder() {
+        }
+
+        /**
+         * @param objectMapper 编码列表结果使用的 ObjectMapper，应与传输层使用的一致
+         * @return 当前构造器
+         */
+        public Builder objectMapper(ObjectMapper objectMapper) {
+            Assert.notNull(objectMapper, "objectMapper must not be null");
+            this.objectMapper = objectMapper;
+            return this;
+        }
+
+        /**
+         * @param transportProvider 广播列表变化通知的传输，不设置时不发送通知
+         * @return 当前构造器
+         */
+        public Builder transportProvider(McpServerTransportProvider transportProvider) {
+            Assert.notNull(transportProvider, "transportProvider must not be null");
+            this.transportProvider = transportProvider;
+            return this;
+        }
+
+        /**
+         * @param maxPagesPerList 每个列表除第一页外最多缓存的页数，默认为 1024
+         * @return 当前构造器
+         */
+        public Builder maxPagesPerList(int maxPagesPerList) {
+            Assert.isTrue(maxPagesPerList >= 0, "maxPagesPerList must not be negative");
+            this.maxPagesPerList = maxPagesPerList;
+            return this;
+        }
+
+        /**
+         * @param notificationWindow 列表变化通知的合并窗口，窗口内的多次修改只广播一次，默认 100 毫秒；
+         *        为 0 时只合并广播开始之前的修改
+         * @return 当前构造器
+         */
+        public Builder notificationWindow(Duration notificationWindow) {
+            Assert.notNull(notificationWindow, "notificationWindow must not be null");
+            Assert.isTrue(!notificationWindow.isNegative(), "notificationWindow must not be negative");
+            this.notificationWindow = notificationWindow;
+            return this;
+        }
+
+        /**
+         * @param timer 驱动合并窗口的定时器，默认使用 {@link HashedWheelTimer#shared()}
+         * @return 当前构造器
+         */
+        public Builder timer(HashedWheelTimer timer) {
+            Assert.notNull(timer, "timer must not be null");
+            this.timer = timer;
+            return this;
+        }
+
+        public ListResultCache build() {
+            return new ListResultCache(this);
+        }
+
+    }
+
+}
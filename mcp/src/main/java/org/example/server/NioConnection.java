@@ -0,0 +1,245 @@
+package org.example.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import org.example.spec.McpTransportException;
+
+import reactor.core.publisher.MonoSink;
+
+/**
+ * NIO 服务器上的一个客户端连接
+ *
+ * <p>
+ * 所有套接字读写和关闭都只在选择器线程上进行。其他线程通过 {@link #write} 把待写数据放入无锁队列，
+ * 并在队列由空变为非空时请求选择器线程刷新，因此一次 {@link java.nio.channels.Selector#wakeup} 可以覆盖多次写入。
+ * 刷新时把队列中的多个缓冲区合并为一次 gathering write；套接字写满时注册 {@link SelectionKey#OP_WRITE}
+ * 等待可写，在此期间写入的数据只在队列中排队。
+ * </p>
+ *
+ * <p>
+ * 空闲连接只持有通道、选择键和一个空队列，入站缓冲区在需要时才分配，
+ * 因此同一个选择器线程可以维持大量空闲的 SSE 连接。
+ * </p>
+ */
+final class NioConnection {
+
+    /**
+     * 入站缓冲区在清空后仍然保留的最大容量，更大的缓冲区会被释放
+     */
+    private static final int RETAINED_INBOUND_CAPACITY = 4096;
+
+    /**
+     * 一次 gathering write 最多合并的缓冲区数
+     */
+    private static final int MAX_GATHER = 16;
+
+    final SocketChannel channel;
+
+    final SelectionKey key;
+
+    private final Consumer<NioConnection> flushRequester;
+
+    private final Queue<Outbound> outbound = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 是否已经请求过刷新或正在等待可写，为 {@code true} 时新的写入无需再次唤醒选择器
+     */
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    private volatile boolean closed;
+
+    /**
+     * 入站字节，只在选择器线程上访问
+     */
+    private byte[] inbound;
+
+    private int inboundLength;
+
+    /**
+     * 该连接承载的 SSE 会话，普通请求连接为 {@code null}
+     */
+    NioSseSessionTransport session;
+
+    /**
+     * @param channel 已接受的非阻塞通道
+     * @param key 通道在选择器上的选择键
+     * @param flushRequester 请求选择器线程刷新该连接的回调
+     */
+    NioConnection(SocketChannel channel, SelectionKey key, Consumer<NioConnection> flushRequester) {
+        this.channel = channel;
+        this.key = key;
+        this.flushRequester = flushRequester;
+    }
+
+    /**
+     * 将数据加入写队列，可以从任意线程调用
+     *
+     * @param buffer 要写出的数据，调用后不能再修改
+     * @param sink 数据全部写入套接字时完成，连接关闭时以错误结束；可以为 {@code null}
+     * @param closeAfter 写完后是否关闭连接
+     */
+    void write(ByteBuffer buffer, MonoSink<Void> sink, boolean closeAfter) {
+        if (closed) {
+            fail(sink);
+            return;
+        }
+        outbound.offer(new Outbound(buffer, sink, closeAfter));
+        if (closed) {
+            // 与 close() 并发时由这里清理可能遗留的条目
+            failPending();
+            return;
+        }
+        if (flushScheduled.compareAndSet(false, true)) {
+            flushRequester.accept(this);
+        }
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * 在选择器线程上尽可能多地写出队列中的数据
+     *
+     * @param gather 选择器线程复用的缓冲区数组
+     */
+    void flush(ByteBuffer[] gather) throws IOException {
+        while (!closed) {
+            int count = 0;
+            for (Outbound entry : outbound) {
+                gather[count++] = entry.buffer;
+                if (count == MAX_GATHER || count == gather.length || entry.closeAfter) {
+                    break;
+                }
+            }
+            if (count == 0) {
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+                flushScheduled.set(false);
+                if (outbound.isEmpty() || !flushScheduled.compareAndSet(false, true)) {
+                    return;
+                }
+                continue;
+            }
+            channel.write(gather, 0, count);
+            boolean blocked = gather[count - 1].hasRemaining();
+            Arrays.fill(gather, 0, count, null);
+
+            Outbound head;
+            while ((head = outbound.peek()) != null && !head.buffer.hasRemaining()) {
+                outbound.poll();
+                if (head.sink != null) {
+                    head.sink.success();
+                }
+                if (head.closeAfter) {
+                    close();
+                    return;
+                }
+            }
+            if (blocked) {
+                key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 在选择器线程上读取可用的入站数据并追加到入站缓冲区
+     *
+     * @param readBuffer 选择器线程复用的读缓冲区
+     * @param retain 是否保留读到的数据；为 {@code false} 时数据被丢弃，只用于检测连接关闭
+     * @return 对端已关闭连接时返回 {@code false}
+     */
+    boolean read(ByteBuffer readBuffer, boolean retain) throws IOException {
+        while (true) {
+            readBuffer.clear();
+            int n = channel.read(readBuffer);
+            if (n < 0) {
+                return false;
+            }
+            if (n == 0) {
+                return true;
+            }
+            if (retain) {
+                readBuffer.flip();
+                if (inbound == null) {
+                    inbound = new byte[Math.max(RETAINED_INBOUND_CAPACITY, n)];
+                }
+                else if (inboundLength + n > inbound.length) {
+                    inbound = Arrays.copyOf(inbound, Math.max(inboundLength + n, inbound.length << 1));
+                }
+                readBuffer.get(inbound, inboundLength, n);
+                inboundLength += n;
+            }
+        }
+    }
+
+    byte[] inbound() {
+        return inbound;
+    }
+
+    int inboundLength() {
+        return inboundLength;
+    }
+
+    /**
+     * 丢弃已经处理的入站字节
+     */
+    void consumeInbound(int count) {
+        inboundLength -= count;
+        if (inboundLength == 0) {
+            if (inbound.length > RETAINED_INBOUND_CAPACITY) {
+                inbound = null;
+            }
+        }
+        else {
+            System.arraycopy(inbound, count, inbound, 0, inboundLength);
+        }
+    }
+
+    /**
+     * 在选择器线程上关闭连接，队列中尚未写出的数据以错误通知调用方
+     */
+    void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        key.cancel();
+        try {
+            channel.close();
+        }
+        catch (IOException ignored) {
+            // 连接已经不可用，关闭失败不影响后续处理
+        }
+        inbound = null;
+        failPending();
+        if (session != null) {
+            session.connectionClosed();
+        }
+    }
+
+    private void failPending() {
+        Outbound entry;
+        while ((entry = outbound.poll()) != null) {
+            fail(entry.sink);
+        }
+    }
+
+    private static void fail(MonoSink<Void> sink) {
+        if (sink != null) {
+            sink.error(new McpTransportException("Connection closed"));
+        }
+    }
+
+    private record Outbound(ByteBuffer buffer, MonoSink<Void> sink, boolean closeAfter) {
+    }
+
+}
@@ -0,0 +1,776 @@
+package org.example.server;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.example.enums.HttpResponseStatusCode;
+import org.example.spec.JsonRpcMessageDecoder;
+import org.example.spec.McpCodecRegistry;
+import org.example.spec.McpSchema;
+import org.example.spec.McpServerTransportProvider;
+import org.example.spec.McpTransportException;
+import org.example.util.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * 基于 JDK NIO 选择器的 HTTP+SSE 服务端传输实现，不依赖任何第三方 HTTP 服务器
+ *
+ * <p>
+ * 与 {@link org.example.client.HttpClientSseClientTransport} 对应，遵循 MCP 的 HTTP 与 SSE 传输规范：
+ * </p>
+ * <ul>
+ * <li>客户端 GET SSE 端点建立会话，服务器首先发送 'endpoint' 事件，其数据为带有 sessionId 的消息端点</li>
+ * <li>客户端向消息端点 POST JSON-RPC 消息或批量数组，服务器立即以 202 响应</li>
+ * <li>处理结果以 'message' 事件的形式通过该会话的 SSE 流发回</li>
+ * </ul>
+ *
+ * <p>
+ * 所有连接的读写都由一个选择器线程完成，连接不占用线程，空闲的 SSE 连接只占用一个文件描述符和少量对象，
+ * 单个进程即可维持数万个空闲会话（需要相应调高进程的文件描述符上限）。
+ * 出站消息在调用线程上序列化，入站消息在选择器线程上解码后交给 {@link Builder#handlerScheduler} 处理，
+ * 因此会话处理器可以阻塞而不会影响其他连接。同一会话的请求最多同时处理 {@link Builder#maxConcurrentRequests} 条，
+ * 只有 {@code initialize} 要求之后的请求等它处理完；通知和响应不受该上限约束，不同会话之间并行。
+ * 会话接收器则在选择器线程上调用，不能阻塞。
+ * </p>
+ *
+ * @see McpServerTransportProvider
+ */
+public class NioSseServerTransportProvider implements McpServerTransportProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(NioSseServerTransportProvider.class);
+
+    /**
+     * 默认的 SSE 端点路径
+     */
+    public static final String DEFAULT_SSE_ENDPOINT = "/sse";
+
+    /**
+     * 默认的消息端点路径
+     */
+    public static final String DEFAULT_MESSAGE_ENDPOINT = "/message";
+
+    /**
+     * 默认的请求体大小上限
+     */
+    public static final int DEFAULT_MAX_REQUEST_BODY_SIZE = 4 * 1024 * 1024;
+
+    /**
+     * 默认每个会话同时处理的请求数上限
+     */
+    public static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 16;
+
+    private static final byte[] ENDPOINT_EVENT_TYPE = SseFrames.ascii("endpoint");
+
+    private static final int MAX_REQUEST_HEADER_SIZE = 8 * 1024;
+
+    private static final int READ_BUFFER_SIZE = 16 * 1024;
+
+    /**
+     * 关闭时等待各会话写完最后一个 chunk 的最长时间
+     */
+    private static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(5);
+
+    /**
+     * 接受连接失败（通常是文件描述符耗尽）后暂停接受的时间，单位纳秒
+     */
+    private static final long ACCEPT_BACKOFF_NANOS = Duration.ofMillis(100).toNanos();
+
+    private final InetSocketAddress bindAddress;
+
+    private final int backlog;
+
+    private final String sseEndpoint;
+
+    private final String messageEndpoint;
+
+    private final ObjectMapper objectMapper;
+
+    private final ObjectWriter writer;
+
+    private final JsonRpcMessageDecoder messageDecoder;
+
+    /**
+     * 所有会话共享的 reader / writer 缓存
+     */
+    private final McpCodecRegistry codecs;
+
+    private final HttpRequestDecoder requestDecoder;
+
+    private final Scheduler handlerScheduler;
+
+    private final int maxConcurrentRequests;
+
+    /**
+     * 保活注释事件的发送间隔，单位纳秒，0 表示不发送
+     */
+    private final long keepAliveIntervalNanos;
+
+    private final Map<String, NioSseSessionTransport> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * 等待选择器线程刷新写队列的连接
+     */
+    private final Queue<NioConnection> flushRequests = new ConcurrentLinkedQueue<>();
+
+    private final Sinks.Empty<Void> terminated = Sinks.empty();
+
+    private volatile SessionAcceptor sessionAcceptor;
+
+    private volatile boolean closing;
+
+    private volatile boolean running;
+
+    private Selector selector;
+
+    private ServerSocketChannel serverChannel;
+
+    private SelectionKey acceptKey;
+
+    private Thread selectorThread;
+
+    // 以下缓冲区只在选择器线程上使用
+
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+
+    private final ByteBuffer[] gather = new ByteBuffer[16];
+
+    private long nextKeepAlive;
+
+    /**
+     * 是否因接受连接失败而暂停接受
+     */
+    private boolean acceptPaused;
+
+    private long acceptResumeAt;
+
+    /**
+     * 创建一个新的 NioSseServerTransportProvider 实例，需要调用 {@link #start()} 才开始监听
+     *
+     * @param bindAddress 监听地址
+     * @param backlog 等待接受的连接队列长度
+     * @param sseEndpoint SSE 端点路径
+     * @param messageEndpoint 消息端点路径
+     * @param objectMapper JSON 序列化/反序列化使用的 ObjectMapper
+     * @param lazyParams 是否将入站请求和通知的 params 延迟到 unmarshalFrom 时再绑定
+     * @param handlerScheduler 执行会话处理器的调度器
+     * @param keepAliveInterval 保活注释事件的发送间隔，为 {@code null} 时不发送
+     * @param maxRequestBodySize 请求体大小上限
+     * @param maxConcurrentRequests 每个会话同时处理的请求数上限
+     */
+    NioSseServerTransportProvider(InetSocketAddress bindAddress, int backlog, String sseEndpoint,
+        String messageEndpoint, ObjectMapper objectMapper, boolean lazyParams, Scheduler handlerScheduler,
+        Duration keepAliveInterval, int maxRequestBodySize, int maxConcurrentRequests) {
+        Assert.notNull(bindAddress, "bindAddress must not be null");
+        Assert.hasText(sseEndpoint, "sseEndpoint must not be empty");
+        Assert.hasText(messageEndpoint, "messageEndpoint must not be empty");
+        Assert.isTrue(!sseEndpoint.equals(messageEndpoint), "sseEndpoint and messageEndpoint must differ");
+        Assert.notNull(objectMapper, "objectMapper must not be null");
+        Assert.notNull(handlerScheduler, "handlerScheduler must not be null");
+        Assert.isTrue(maxRequestBodySize > 0, "maxRequestBodySize must be greater than 0");
+        Assert.isTrue(maxConcurrentRequests > 0, "maxConcurrentRequests must be greater than 0");
+
+        this.bindAddress = bindAddress;
+        this.backlog = backlog;
+        this.sseEndpoint = sseEndpoint;
+        this.messageEndpoint = messageEndpoint;
+        this.objectMapper = objectMapper;
+        // SSE 的 data 字段不能跨行，不论 ObjectMapper 如何配置都输出单行 JSON
+        this.writer = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+        this.messageDecoder = new JsonRpcMessageDecoder(objectMapper, lazyParams);
+        this.codecs = new McpCodecRegistry(objectMapper);
+        this.requestDecoder = new HttpRequestDecoder(MAX_REQUEST_HEADER_SIZE, maxRequestBodySize);
+        this.handlerScheduler = handlerScheduler;
+        this.maxConcurrentRequests = maxConcurrentRequests;
+        this.keepAliveIntervalNanos = keepAliveInterval != null ? keepAliveInterval.toNanos() : 0;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public void setSessionAcceptor(SessionAcceptor acceptor) {
+        Assert.notNull(acceptor, "acceptor must not be null");
+        this.sessionAcceptor = acceptor;
+    }
+
+    /**
+     * 绑定监听地址并启动选择器线程
+     *
+     * @throws McpTransportException 如果无法绑定地址
+     */
+    public synchronized void start() {
+        Assert.isTrue(selectorThread == null, "server has already been started");
+        try {
+            selector = Selector.open();
+            serverChannel = ServerSocketChannel.open();
+            serverChannel.configureBlocking(false);
+            serverChannel.bind(bindAddress, backlog);
+            acceptKey = serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        }
+        catch (IOException e) {
+            closeQuietly();
+            throw new McpTransportException("Failed to start server on " + bindAddress, e);
+        }
+        running = true;
+        nextKeepAlive = System.nanoTime() + keepAliveIntervalNanos;
+        selectorThread = new Thread(this::runSelectorLoop, "mcp-nio-sse-server");
+        selectorThread.start();
+        logger.info("MCP SSE server listening on {}", localAddress());
+    }
+
+    /**
+     * @return 实际监听的地址，绑定端口 0 时可以用来获取系统分配的端口
+     */
+    public InetSocketAddress localAddress() {
+        try {
+            return (InetSocketAddress) serverChannel.getLocalAddress();
+        }
+        catch (IOException e) {
+            throw new McpTransportException("Failed to get local address", e);
+        }
+    }
+
+    /**
+     * @return 当前会话数
+     */
+    public int sessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * 向所有会话广播通知，消息只序列化一次，各会话共享同一个编码好的帧
+     */
+    @Override
+    public Mono<Void> notifyClients(String method, Object params) {
+        return Mono.fromCallable(() -> SseFrames.event(NioSseSessionTransport.MESSAGE_EVENT_TYPE,
+                writer.writeValueAsBytes(new McpSchema.JSONRPCNotification(McpSchema.JSONRPC_VERSION, method, params))))
+            .onErrorMap(IOException.class, e -> new McpTransportException("Failed to serialize notification", e))
+            .doOnNext(frame -> sessions.values().forEach(session -> session.sendFrame(frame)))
+            .then();
+    }
+
+    /**
+     * 停止接受新会话，结束所有 SSE 流，然后关闭监听端口和选择器
+     */
+    @Override
+    public Mono<Void> closeGracefully() {
+        return Mono.defer(() -> {
+            closing = true;
+            synchronized (this) {
+                if (selectorThread == null) {
+                    return Mono.empty();
+                }
+            }
+            return Flux.fromIterable(List.copyOf(sessions.values()))
+                .flatMap(NioSseSessionTransport::closeGracefully)
+                .then()
+                .timeout(CLOSE_TIMEOUT, Mono.empty())
+                .then(Mono.fromRunnable(() -> {
+                    running = false;
+                    selector.wakeup();
+                }))
+                .then(terminated.asMono());
+        });
+    }
+
+    private void runSelectorLoop() {
+        try {
+            while (running) {
+                long timeout = selectTimeoutMillis();
+                if (timeout > 0) {
+                    selector.select(this::processKey, timeout);
+                }
+                else {
+                    selector.select(this::processKey);
+                }
+                processFlushRequests();
+                resumeAcceptIfDue();
+                sendKeepAliveIfDue();
+            }
+        }
+        catch (IOException | RuntimeException e) {
+            logger.error("MCP SSE server selector loop failed", e);
+        }
+        finally {
+            shutdown();
+        }
+    }
+
+    /**
+     * @return 下一次保活或恢复接受连接之前的毫秒数，都不需要时返回 0 表示无限等待
+     */
+    private long selectTimeoutMillis() {
+        long now = System.nanoTime();
+        long wait = Long.MAX_VALUE;
+        if (keepAliveIntervalNanos > 0) {
+            wait = nextKeepAlive - now;
+        }
+        if (acceptPaused) {
+            wait = Math.min(wait, acceptResumeAt - now);
+        }
+        return wait == Long.MAX_VALUE ? 0 : Math.max(1, wait / 1_000_000);
+    }
+
+    private void processKey(SelectionKey key) {
+        if (key.attachment() == null) {
+            if (key.isValid() && key.isAcceptable()) {
+                acceptConnections();
+            }
+            return;
+        }
+        NioConnection connection = (NioConnection) key.attachment();
+        try {
+            if (key.isValid() && key.isWritable()) {
+                connection.flush(gather);
+            }
+            if (key.isValid() && key.isReadable()) {
+                handleRead(connection);
+            }
+        }
+        catch (IOException | CancelledKeyException e) {
+            logger.debug("Connection error: {}", e.getMessage());
+            connection.close();
+        }
+        catch (RuntimeException e) {
+            // 单个连接上的意外错误只关闭该连接，不能让选择器循环退出
+            logger.warn("Unexpected error on connection, closing it", e);
+            connection.close();
+        }
+    }
+
+    private void acceptConnections() {
+        while (true) {
+            SocketChannel channel;
+            try {
+                channel = serverChannel.accept();
+            }
+            catch (IOException e) {
+                // 通常是文件描述符耗尽；等待中的连接仍然让 OP_ACCEPT 保持就绪，
+                // 立即重试会让选择器空转，所以暂停一段时间再接受
+                logger.warn("Failed to accept connection, pausing accepts for {} ms: {}",
+                    ACCEPT_BACKOFF_NANOS / 1_000_000, e.getMessage());
+                acceptKey.interestOps(0);
+                acceptPaused = true;
+                acceptResumeAt = System.nanoTime() + ACCEPT_BACKOFF_NANOS;
+                return;
+            }
+            if (channel == null) {
+                return;
+            }
+            try {
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+                key.attach(new NioConnection(channel, key, this::requestFlush));
+            }
+            catch (IOException e) {
+                logger.debug("Failed to register connection: {}", e.getMessage());
+                try {
+                    channel.close();
+                }
+                catch (IOException ignored) {
+                    // 连接尚未注册，直接丢弃
+                }
+            }
+        }
+    }
+
+    private void handleRead(NioConnection connection) throws IOException {
+        // SSE 连接上客户端不应再发送数据，读取只是为了及时发现连接已断开
+        boolean streaming = connection.session != null;
+        if (!connection.read(readBuffer, !streaming)) {
+            connection.close();
+            return;
+        }
+        if (streaming) {
+            return;
+        }
+        while (connection.inboundLength() > 0 && !connection.isClosed() && connection.session == null) {
+            HttpRequestDecoder.Request request;
+            try {
+                request = requestDecoder.decode(connection.inbound(), 0, connection.inboundLength());
+            }
+            catch (HttpRequestDecoder.HttpStatusException e) {
+                respond(connection, e.statusCode(), e.getMessage(), false);
+                return;
+            }
+            if (request == null) {
+                return;
+            }
+            connection.consumeInbound(request.consumed());
+            handleRequest(connection, request);
+        }
+    }
+
+    private void handleRequest(NioConnection connection, HttpRequestDecoder.Request request) {
+        if (request.path().equals(sseEndpoint)) {
+            if ("GET".equals(request.method())) {
+                openSession(connection);
+            }
+            else {
+                respond(connection, HttpResponseStatusCode.CLIENT_ERROR_405_METHOD_NOT_ALLOWED,
+                    "Method not allowed", request.keepAlive());
+            }
+        }
+        else if (request.path().equals(messageEndpoint)) {
+            if ("POST".equals(request.method())) {
+                handleMessage(connection, request);
+            }
+            else {
+                respond(connection, HttpResponseStatusCode.CLIENT_ERROR_405_METHOD_NOT_ALLOWED,
+                    "Method not allowed", request.keepAlive());
+            }
+        }
+        else {
+            respond(connection, HttpResponseStatusCode.CLIENT_ERROR_404_NOT_FOUND, "Not found", request.keepAlive());
+        }
+    }
+
+    private void openSession(NioConnection connection) {
+        SessionAcceptor acceptor = this.sessionAcceptor;
+        if (closing || acceptor == null) {
+            respond(connection, HttpResponseStatusCode.SERVER_ERROR_503_SERVICE_UNAVAILABLE,
+                "Server is not accepting sessions", false);
+            return;
+        }
+
+        String sessionId = UUID.randomUUID().toString();
+        NioSseSessionTransport session = new NioSseSessionTransport(sessionId, connection, codecs, writer,
+                handlerScheduler, maxConcurrentRequests);
+        try {
+            session.handler = acceptor.accept(session);
+            Assert.notNull(session.handler, "session handler must not be null");
+        }
+        catch (RuntimeException e) {
+            logger.error("Session acceptor failed: {}", e.getMessage());
+            respond(connection, HttpResponseStatusCode.SERVER_ERROR_500_INTERNAL_SERVER_ERROR,
+                "Failed to create session", false);
+            return;
+        }
+
+        connection.session = session;
+        sessions.put(sessionId, session);
+        session.startHandling();
+        session.onClose().subscribe(null, null, () -> {
+            sessions.remove(sessionId);
+            logger.debug("Session {} closed", sessionId);
+        });
+        connection.write(SseFrames.responseHead(), null, false);
+        connection.write(ByteBuffer.wrap(SseFrames.event(ENDPOINT_EVENT_TYPE,
+            SseFrames.ascii(messageEndpoint + "?sessionId=" + sessionId))), null, false);
+        logger.debug("Session {} opened", sessionId);
+    }
+
+    private void handleMessage(NioConnection connection, HttpRequestDecoder.Request request) {
+        String sessionId;
+        try {
+            sessionId = request.queryParameter("sessionId");
+        }
+        catch (HttpRequestDecoder.HttpStatusException e) {
+            respond(connection, e.statusCode(), e.getMessage(), request.keepAlive());
+            return;
+        }
+        if (sessionId == null) {
+            respond(connection, HttpResponseStatusCode.CLIENT_ERROR_400_BAD_REQUEST,
+                "Session ID missing in message endpoint", request.keepAlive());
+            return;
+        }
+        NioSseSessionTransport session = sessions.get(sessionId);
+        if (session == null) {
+            respond(connection, HttpResponseStatusCode.CLIENT_ERROR_404_NOT_FOUND,
+                "Session not found: " + sessionId, request.keepAlive());
+            return;
+        }
+
+        List<McpSchema.JSONRPCMessage> messages;
+        try {
+            messages = messageDecoder.decodeBatch(request.body(), 0, request.body().length);
+        }
+        catch (IOException | IllegalArgumentException e) {
+            logger.debug("Invalid message format: {}", e.getMessage());
+            respond(connection, HttpResponseStatusCode.CLIENT_ERROR_400_BAD_REQUEST, "Invalid message format",
+                request.keepAlive());
+            return;
+        }
+        respond(connection, HttpResponseStatusCode.SUCCESS_202_ACCEPTED, "", request.keepAlive());
+
+        for (McpSchema.JSONRPCMessage message : messages) {
+            session.receive(message);
+        }
+    }
+
+    private void respond(NioConnection connection, int statusCode, String body, boolean keepAlive) {
+        connection.write(SseFrames.response(statusCode, reasonPhrase(statusCode), body, keepAlive), null,
+            !keepAlive);
+    }
+
+    private void requestFlush(NioConnection connection) {
+        flushRequests.offer(connection);
+        if (Thread.currentThread() != selectorThread) {
+            selector.wakeup();
+        }
+    }
+
+    private void processFlushRequests() {
+        NioConnection connection;
+        while ((connection = flushRequests.poll()) != null) {
+            if (connection.isClosed()) {
+                continue;
+            }
+            try {
+                connection.flush(gather);
+            }
+            catch (IOException | CancelledKeyException e) {
+                logger.debug("Connection error: {}", e.getMessage());
+                connection.close();
+            }
+            catch (RuntimeException e) {
+                logger.warn("Unexpected error on connection, closing it", e);
+                connection.close();
+            }
+        }
+    }
+
+    private void resumeAcceptIfDue() {
+        if (!acceptPaused || System.nanoTime() - acceptResumeAt < 0) {
+            return;
+        }
+        acceptPaused = false;
+        if (acceptKey.isValid()) {
+            acceptKey.interestOps(SelectionKey.OP_ACCEPT);
+        }
+    }
+
+    private void sendKeepAliveIfDue() {
+        if (keepAliveIntervalNanos <= 0 || System.nanoTime() - nextKeepAlive < 0) {
+            return;
+        }
+        nextKeepAlive = System.nanoTime() + keepAliveIntervalNanos;
+        // 对端已经消失的连接会在写入失败时被关闭
+        sessions.values().forEach(NioSseSessionTransport::sendKeepAlive);
+        processFlushRequests();
+    }
+
+    private void shutdown() {
+        running = false;
+        if (selector.isOpen()) {
+            for (SelectionKey key : selector.keys()) {
+                if (key.attachment() instanceof NioConnection connection) {
+                    connection.close();
+                }
+            }
+        }
+        closeQuietly();
+        terminated.tryEmitEmpty();
+        logger.info("MCP SSE server stopped");
+    }
+
+    private void closeQuietly() {
+        try {
+            if (serverChannel != null) {
+                serverChannel.close();
+            }
+            if (selector != null) {
+                selector.close();
+            }
+        }
+        catch (IOException e) {
+            logger.debug("Failed to close server channel: {}", e.getMessage());
+        }
+    }
+
+    private static String reasonPhrase(int statusCode) {
+        return switch (statusCode) {
+            case HttpResponseStatusCode.SUCCESS_202_ACCEPTED -> "Accepted";
+            case HttpResponseStatusCode.CLIENT_ERROR_400_BAD_REQUEST -> "Bad Request";
+            case HttpResponseStatusCode.CLIENT_ERROR_404_NOT_FOUND -> "Not Found";
+            case HttpResponseStatusCode.CLIENT_ERROR_405_METHOD_NOT_ALLOWED -> "Method Not Allowed";
+            case HttpResponseStatusCode.CLIENT_ERROR_413_PAYLOAD_TOO_LARGE -> "Payload Too Large";
+            case HttpResponseStatusCode.CLIENT_ERROR_431_REQUEST_HEADER_FIELDS_TOO_LARGE ->
+                "Request Header Fields Too Large";
+            case HttpResponseStatusCode.SERVER_ERROR_500_INTERNAL_SERVER_ERROR -> "Internal Server Error";
+            case HttpResponseStatusCode.SERVER_ERROR_501_NOT_IMPLEMENTED -> "Not Implemented";
+            case HttpResponseStatusCode.SERVER_ERROR_503_SERVICE_UNAVAILABLE -> "Service Unavailable";
+            default -> "Unknown";
+        };
+    }
+
+    /**
+     * 用于创建 {@link NioSseServerTransportProvider} 实例的构造器
+     */
+    public static class Builder {
+
+        private InetSocketAddress bindAddress = new InetSocketAddress(InetAddress.getLoopbackAddress(), 8080);
+
+        private int backlog = 1024;
+
+        private String sseEndpoint = DEFAULT_SSE_ENDPOINT;
+
+        private String messageEndpoint = DEFAULT_MESSAGE_ENDPOINT;
+
+        private ObjectMapper objectMapper = new ObjectMapper();
+
+        private boolean lazyParams = false;
+
+        private Scheduler handlerScheduler = Schedulers.boundedElastic();
+
+        private Duration keepAliveInterval;
+
+        private int maxRequestBodySize = DEFAULT_MAX_REQUEST_BODY_SIZE;
+
+        private int maxConcurrentRequests = DEFAULT_MAX_CONCURRENT_REQUESTS;
+
+        Builder() {
+        }
+
+        /**
+         * 设置监听地址，默认为本机回环地址的 8080 端口
+         *
+         * @param bindAddress 监听地址
+         * @return 当前构造器
+         */
+        public Builder bindAddress(InetSocketAddress bindAddress) {
+            Assert.notNull(bindAddress, "bindAddress must not be null");
+            this.bindAddress = bindAddress;
+            return this;
+        }
+
+        /**
+         * 在本机回环地址上监听指定端口
+         *
+         * @param port 端口，0 表示由系统分配
+         * @return 当前构造器
+         */
+        public Builder port(int port) {
+            this.bindAddress = new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+            return this;
+        }
+
+        /**
+         * 设置等待接受的连接队列长度，大量客户端同时连接时应调大
+         *
+         * @param backlog 队列长度，必须大于 0
+         * @return 当前构造器
+         */
+        public Builder backlog(int backlog) {
+            Assert.isTrue(backlog > 0, "backlog must be greater than 0");
+            this.backlog = backlog;
+            return this;
+        }
+
+        public Builder sseEndpoint(String sseEndpoint) {
+            Assert.hasText(sseEndpoint, "sseEndpoint must not be empty");
+            this.sseEndpoint = sseEndpoint;
+            return this;
+        }
+
+        public Builder messageEndpoint(String messageEndpoint) {
+            Assert.hasText(messageEndpoint, "messageEndpoint must not be empty");
+            this.messageEndpoint = messageEndpoint;
+            return this;
+        }
+
+        public Builder objectMapper(ObjectMapper objectMapper) {
+            Assert.notNull(objectMapper, "objectMapper must not be null");
+            this.objectMapper = objectMapper;
+            return this;
+        }
+
+        /**
+         * 是否将入站请求和通知的 params 延迟到 unmarshalFrom 时再绑定
+         *
+         * @param lazyParams 为 {@code true} 时 params 保留为原始 token
+         * @return 当前构造器
+         */
+        public Builder lazyParams(boolean lazyParams) {
+            this.lazyParams = lazyParams;
+            return this;
+        }
+
+        /**
+         * 设置执行会话处理器以及产生流式响应内容的调度器，默认为 {@link Schedulers#boundedElastic()}
+         *
+         * @param handlerScheduler 调度器
+         * @return 当前构造器
+         */
+        public Builder handlerScheduler(Scheduler handlerScheduler) {
+            Assert.notNull(handlerScheduler, "handlerScheduler must not be null");
+            this.handlerScheduler = handlerScheduler;
+            return this;
+        }
+
+        /**
+         * 定期在每个 SSE 流上发送注释事件，使中间代理不会因空闲而断开连接，
+         * 同时让服务器能够发现对端已经消失的连接；默认不发送
+         *
+         * @param keepAliveInterval 发送间隔
+         * @return 当前构造器
+         */
+        public Builder keepAliveInterval(Duration keepAliveInterval) {
+            Assert.notNull(keepAliveInterval, "keepAliveInterval must not be null");
+            Assert.isTrue(!keepAliveInterval.isNegative() && !keepAliveInterval.isZero(),
+                "keepAliveInterval must be positive");
+            this.keepAliveInterval = keepAliveInterval;
+            return this;
+        }
+
+        /**
+         * 设置请求体大小上限，超过时以 413 拒绝
+         *
+         * @param maxRequestBodySize 字节数，必须大于 0
+         * @return 当前构造器
+         */
+        public Builder maxRequestBodySize(int maxRequestBodySize) {
+            Assert.isTrue(maxRequestBodySize > 0, "maxRequestBodySize must be greater than 0");
+            this.maxRequestBodySize = maxRequestBodySize;
+            return this;
+        }
+
+        /**
+         * 设置每个会话同时处理的请求数上限，默认为 {@link #DEFAULT_MAX_CONCURRENT_REQUESTS}；
+         * 超出上限的请求在会话队列中等待，队列也满时以 JSON-RPC 错误拒绝
+         *
+         * @param maxConcurrentRequests 上限，必须大于 0
+         * @return 当前构造器
+         */
+        public Builder maxConcurrentRequests(int maxConcurrentRequests) {
+            Assert.isTrue(maxConcurrentRequests > 0, "maxConcurrentRequests must be greater than 0");
+            this.maxConcurrentRequests = maxConcurrentRequests;
+            return this;
+        }
+
+        public NioSseServerTransportProvider build() {
+            return new NioSseServerTransportProvider(bindAddress, backlog, sseEndpoint, messageEndpoint, objectMapper,
+                lazyParams, handlerScheduler, keepAliveInterval, maxRequestBodySize, maxConcurrentRequests);
+        }
+
+    }
+
+}
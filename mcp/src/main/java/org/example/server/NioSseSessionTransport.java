@@ -0,0 +1,554 @@
+package org.example.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import org.example.spec.McpCodecRegistry;
+import org.example.spec.McpError;
+import org.example.spec.McpMethod;
+import org.example.spec.McpSchema;
+import org.example.spec.McpServerTransport;
+import org.example.spec.McpTransportException;
+import org.example.spec.ProtocolVersions;
+import org.example.spec.StreamingReadResourceResult;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.util.concurrent.Queues;
+
+/**
+ * {@link NioSseServerTransportProvider} 上的一个 SSE 会话
+ *
+ * <p>
+ * 出站消息在调用线程上序列化为完整的 SSE 帧，再交给连接的写队列，选择器线程只负责写字节。
+ * </p>
+ *
+ * <p>
+ * 结果为 {@link StreamingReadResourceResult} 的响应按内容逐个编码，整个响应是一个跨多个 chunk 的 SSE 事件，
+ * 每个 chunk 写完才请求下一个内容。内容的产生和编码都在工作调度器上进行：写完的通知来自选择器线程，
+ * 先切换到工作调度器再请求下一个内容，选择器线程不会执行上游的读取或序列化。事件写出期间，同一会话的其他消息、广播和关闭帧会按顺序暂存，
+ * 保活帧则直接跳过，保证不会插入到事件中间。
+ * </p>
+ *
+ * <p>
+ * 入站消息进入会话自己的有界队列。请求最多同时处理 {@code maxConcurrentRequests} 条，
+ * 只有 {@code initialize} 是屏障：它之后到达的请求要等它处理完才开始。
+ * 通知和对服务器请求的响应使用另一个队列，不占用请求的并发名额，因此 {@code notifications/cancelled}
+ * 可以到达正在执行的请求。队列已满时请求以 JSON-RPC 错误拒绝，其他消息直接丢弃。
+ * </p>
+ */
+final class NioSseSessionTransport implements McpServerTransport {
+
+    private static final Logger logger = LoggerFactory.getLogger(NioSseSessionTransport.class);
+
+    static final byte[] MESSAGE_EVENT_TYPE = SseFrames.ascii("message");
+
+    private static final byte[] CONTENTS_SEPARATOR = SseFrames.ascii(",");
+
+    private static final byte[] CONTENTS_SUFFIX = SseFrames.ascii("]}}");
+
+    /**
+     * 每个会话等待处理的请求数上限，通知和响应另有同样大小的队列
+     */
+    static final int MAX_PENDING_MESSAGES = 256;
+
+    private final String sessionId;
+
+    private final NioConnection connection;
+
+    private final McpCodecRegistry codecs;
+
+    private final ObjectWriter writer;
+
+    private final Scheduler scheduler;
+
+    private final int maxConcurrentRequests;
+
+    private final Sinks.Empty<Void> closed = Sinks.empty();
+
+    /**
+     * 待处理的入站请求，只由选择器线程写入
+     */
+    private final Sinks.Many<McpSchema.JSONRPCMessage> requests = Sinks.many()
+        .unicast()
+        .onBackpressureBuffer(Queues.<McpSchema.JSONRPCMessage>get(MAX_PENDING_MESSAGES).get());
+
+    /**
+     * 待处理的入站通知和响应，只由选择器线程写入
+     */
+    private final Sinks.Many<McpSchema.JSONRPCMessage> others = Sinks.many()
+        .unicast()
+        .onBackpressureBuffer(Queues.<McpSchema.JSONRPCMessage>get(MAX_PENDING_MESSAGES).get());
+
+    /**
+     * 处理入站消息的订阅，连接关闭时取消
+     */
+    private volatile Disposable inboundSubscription;
+
+    /**
+     * 最近一个 initialize 请求处理完时完成，只在请求队列的 flatMap 中按到达顺序读写
+     */
+    private Mono<Void> initialized = Mono.empty();
+
+    /**
+     * 是否有跨多个 chunk 的事件正在写出，由 {@code this} 保护
+     */
+    private boolean streaming;
+
+    /**
+     * 事件写出期间暂存的出站操作，由 {@code this} 保护
+     */
+    private final ArrayDeque<Deferred> deferred = new ArrayDeque<>();
+
+    /**
+     * 会话的入站消息处理器，由 {@link org.example.spec.McpServerTransportProvider.SessionAcceptor} 返回
+     */
+    volatile Function<Mono<McpSchema.JSONRPCMessage>, Mono<McpSchema.JSONRPCMessage>> handler;
+
+    /**
+     * @param sessionId 会话 ID
+     * @param connection 承载 SSE 流的连接
+     * @param codecs 反序列化参数使用的编解码器缓存，由所有会话共享
+     * @param writer 序列化消息使用的 ObjectWriter，不能开启缩进输出
+     * @param scheduler 执行处理器以及产生和编码流式响应内容的调度器
+     * @param maxConcurrentRequests 同时处理的请求数上限
+     */
+    NioSseSessionTransport(String sessionId, NioConnection connection, McpCodecRegistry codecs,
+        ObjectWriter writer, Scheduler scheduler, int maxConcurrentRequests) {
+        this.sessionId = sessionId;
+        this.connection = connection;
+        this.codecs = codecs;
+        this.writer = writer;
+        this.scheduler = scheduler;
+        this.maxConcurrentRequests = maxConcurrentRequests;
+    }
+
+    @Override
+    public String sessionId() {
+        return sessionId;
+    }
+
+    @Override
+    public Mono<Void> onClose() {
+        return closed.asMono();
+    }
+
+    @Override
+    public Mono<Void> sendMessage(McpSchema.JSONRPCMessage message) {
+        if (message instanceof McpSchema.JSONRPCResponse response
+                && response.result() instanceof StreamingReadResourceResult result) {
+            return Mono.create(sink -> {
+                ContentStream stream = new ContentStream(response.id(), result, sink);
+                sink.onCancel(stream::cancel);
+                if (startOrDefer(stream)) {
+                    stream.start();
+                }
+            });
+        }
+        return Mono.create(sink -> {
+            byte[] frame;
+            try {
+                frame = SseFrames.event(MESSAGE_EVENT_TYPE, writer.writeValueAsBytes(message));
+            }
+            catch (IOException e) {
+                sink.error(new McpTransportException("Failed to serialize message", e));
+                return;
+            }
+            write(ByteBuffer.wrap(frame), sink, false);
+        });
+    }
+
+    /**
+     * 发送一个已经编码好的帧，用于向多个会话广播同一条消息
+     */
+    void sendFrame(byte[] frame) {
+        write(ByteBuffer.wrap(frame), null, false);
+    }
+
+    /**
+     * 发送一个已经编码好的帧，帧全部写入套接字后完成，用于需要感知慢客户端的批量推送
+     */
+    Mono<Void> sendEncodedFrame(byte[] frame) {
+        return Mono.create(sink -> write(ByteBuffer.wrap(frame), sink, false));
+    }
+
+    /**
+     * 发送保活帧，事件写出期间直接跳过
+     */
+    synchronized void sendKeepAlive() {
+        if (!streaming) {
+            connection.write(SseFrames.keepAlive(), null, false);
+        }
+    }
+
+    /**
+     * 写出一个完整的帧；有事件正在写出时暂存，等事件结束后按顺序写出
+     */
+    private void write(ByteBuffer buffer, MonoSink<Void> sink, boolean closeAfter) {
+        synchronized (this) {
+            if (streaming) {
+                deferred.add(new DeferredWrite(connection, buffer, sink, closeAfter));
+                return;
+            }
+            // 持有锁入队，保证与事件的开始之间的顺序
+            connection.write(buffer, sink, closeAfter);
+        }
+    }
+
+    /**
+     * @return {@code true} 表示调用方可以立即开始写出事件，否则事件已暂存
+     */
+    private synchronized boolean startOrDefer(ContentStream stream) {
+        if (streaming) {
+            deferred.add(stream);
+            return false;
+        }
+        streaming = true;
+        return true;
+    }
+
+    /**
+     * 事件写完后按顺序处理暂存的操作，遇到下一个流式事件时停下，由它结束时继续
+     */
+    private void streamFinished() {
+        while (true) {
+            Deferred next;
+            synchronized (this) {
+                next = deferred.poll();
+                if (next == null) {
+                    streaming = false;
+                    return;
+                }
+            }
+            if (next.run()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 结束 SSE 响应体并在写完后关闭连接
+     */
+    @Override
+    public Mono<Void> closeGracefully() {
+        return Mono.<Void>create(sink -> {
+            if (connection.isClosed()) {
+                sink.success();
+                return;
+            }
+            write(SseFrames.lastChunk(), sink, true);
+        }).onErrorResume(McpTransportException.class, e -> Mono.empty());
+    }
+
+    @Override
+    public <T> T unmarshalFrom(Object data, TypeReference<T> typeRef) {
+        return codecs.unmarshal(data, typeRef);
+    }
+
+    @Override
+    public <T> T unmarshalParams(McpMethod method, Object params, TypeReference<T> typeRef) {
+        return codecs.unmarshalParams(method, params, typeRef);
+    }
+
+    @Override
+    public <T> T unmarshalResult(McpMethod method, Object result, TypeReference<T> typeRef) {
+        return codecs.unmarshalResult(method, result, typeRef);
+    }
+
+    @Override
+    public List<String> protocolVersions() {
+        return List.of(ProtocolVersions.MCP_2024_11_05);
+    }
+
+    NioConnection connection() {
+        return connection;
+    }
+
+    /**
+     * 开始处理入站消息，会话的处理器设置之后由选择器线程调用一次
+     */
+    void startHandling() {
+        Function<Mono<McpSchema.JSONRPCMessage>, Mono<McpSchema.JSONRPCMessage>> handler = this.handler;
+        inboundSubscription = Flux
+            .merge(requests.asFlux().flatMap(request -> handleRequest(handler, request), maxConcurrentRequests),
+                    others.asFlux().flatMap(message -> handle(handler, message), MAX_PENDING_MESSAGES))
+            .subscribe();
+    }
+
+    /**
+     * 在之前的 initialize 处理完之后处理请求；请求本身是 initialize 时，它成为之后请求的新屏障
+     */
+    private Mono<Void> handleRequest(Function<Mono<McpSchema.JSONRPCMessage>, Mono<McpSchema.JSONRPCMessage>> handler,
+        McpSchema.JSONRPCMessage message) {
+        Mono<Void> handling = initialized.then(handle(handler, message));
+        if (message instanceof McpSchema.JSONRPCRequest request && request.mcpMethod() == McpMethod.INITIALIZE) {
+            Sinks.Empty<Void> finished = Sinks.empty();
+            initialized = finished.asMono();
+            return handling.doFinally(signal -> finished.tryEmitEmpty());
+        }
+        return handling;
+    }
+
+    private Mono<Void> handle(Function<Mono<McpSchema.JSONRPCMessage>, Mono<McpSchema.JSONRPCMessage>> handler,
+        McpSchema.JSONRPCMessage message) {
+        return Mono.defer(() -> handler.apply(Mono.just(message)))
+            .subscribeOn(scheduler)
+            .flatMap(this::sendMessage)
+            .onErrorResume(error -> {
+                logger.error("Error handling message for session {}: {}", sessionId, error.getMessage());
+                return Mono.empty();
+            });
+    }
+
+    /**
+     * 把一条入站消息加入处理队列，由选择器线程调用
+     *
+     * @param message 入站消息
+     */
+    void receive(McpSchema.JSONRPCMessage message) {
+        if (message instanceof McpSchema.JSONRPCRequest request) {
+            Sinks.EmitResult result = requests.tryEmitNext(request);
+            if (result == Sinks.EmitResult.FAIL_OVERFLOW) {
+                logger.warn("Rejecting request {} for session {}: too many pending requests", request.id(),
+                    sessionId);
+                sendMessage(new McpSchema.JSONRPCResponse(McpSchema.JSONRPC_VERSION, request.id(), null,
+                        new McpSchema.JSONRPCResponse.JSONRPCError(McpSchema.ErrorCodes.INTERNAL_ERROR,
+                            "Too many pending requests", null)))
+                    .subscribe(null, error -> logger.debug("Failed to reject request: {}", error.getMessage()));
+            }
+            else if (result.isFailure()) {
+                logger.debug("Dropping request for closed session {}", sessionId);
+            }
+        }
+        else if (others.tryEmitNext(message).isFailure()) {
+            logger.debug("Dropping message for session {}: queue full or session closed", sessionId);
+        }
+    }
+
+    /**
+     * 连接关闭时由选择器线程调用
+     */
+    void connectionClosed() {
+        List<Deferred> pending;
+        synchronized (this) {
+            pending = new ArrayList<>(deferred);
+            deferred.clear();
+        }
+        McpTransportException error = new McpTransportException("Connection closed");
+        pending.forEach(operation -> operation.fail(error));
+        requests.tryEmitComplete();
+        others.tryEmitComplete();
+        Disposable handling = inboundSubscription;
+        if (handling != null) {
+            handling.dispose();
+        }
+        closed.tryEmitEmpty();
+    }
+
+    /**
+     * 事件写出期间暂存的出站操作
+     */
+    private interface Deferred {
+
+        /**
+         * @return {@code true} 表示开始写出了新的流式事件
+         */
+        boolean run();
+
+        void fail(Throwable error);
+
+    }
+
+    private record DeferredWrite(NioConnection connection, ByteBuffer buffer, MonoSink<Void> sink,
+        boolean closeAfter) implements Deferred {
+
+        @Override
+        public boolean run() {
+            connection.write(buffer, sink, closeAfter);
+            return false;
+        }
+
+        @Override
+        public void fail(Throwable error) {
+            if (sink != null) {
+                sink.error(error);
+            }
+        }
+
+    }
+
+    /**
+     * 一个结果为 {@link StreamingReadResourceResult} 的响应
+     *
+     * <p>
+     * 第一个内容到达时才写出事件的开头，在此之前失败可以改为发送普通的错误响应；
+     * 开头写出之后再失败只能关闭连接，客户端会看到不完整的事件。
+     * </p>
+     */
+    private final class ContentStream implements Deferred {
+
+        private final Object id;
+
+        private final StreamingReadResourceResult result;
+
+        private final MonoSink<Void> sink;
+
+        private volatile Disposable subscription;
+
+        private volatile boolean cancelled;
+
+        /**
+         * 事件的开头是否已经写出，只在 concatMap 中修改
+         */
+        private volatile boolean started;
+
+        /**
+         * 完成、失败和取消只能处理一次，避免重复推进暂存队列
+         */
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        ContentStream(Object id, StreamingReadResourceResult result, MonoSink<Void> sink) {
+            this.id = id;
+            this.result = result;
+            this.sink = sink;
+        }
+
+        @Override
+        public boolean run() {
+            if (cancelled) {
+                return false;
+            }
+            start();
+            return true;
+        }
+
+        @Override
+        public void fail(Throwable error) {
+            sink.error(error);
+        }
+
+        void start() {
+            byte[] prefix;
+            try {
+                prefix = prefix();
+            }
+            catch (IOException e) {
+                finish(new McpTransportException("Failed to serialize message", e));
+                return;
+            }
+            subscription = result.contents()
+                .subscribeOn(scheduler)
+                .concatMap(content -> writeContent(prefix, content), 1)
+                .then(Mono.defer(() -> writeFrame(started ? SseFrames.eventEnd(CONTENTS_SUFFIX)
+                        : SseFrames.event(MESSAGE_EVENT_TYPE, concat(prefix, CONTENTS_SUFFIX)))))
+                .subscribe(null, this::finish, () -> finish(null));
+        }
+
+        void cancel() {
+            cancelled = true;
+            Disposable current = subscription;
+            if (current != null && done.compareAndSet(false, true)) {
+                current.dispose();
+                if (started) {
+                    connection.write(ByteBuffer.allocate(0), null, true);
+                }
+                streamFinished();
+            }
+        }
+
+        private Mono<Void> writeContent(byte[] prefix, McpSchema.ResourceContents content) {
+            byte[] json;
+            try {
+                json = writer.writeValueAsBytes(content);
+            }
+            catch (IOException e) {
+                return Mono.error(new McpTransportException("Failed to serialize resource contents", e));
+            }
+            byte[] frame = started ? SseFrames.eventPart(concat(CONTENTS_SEPARATOR, json))
+                    : SseFrames.eventStart(MESSAGE_EVENT_TYPE, concat(prefix, json));
+            started = true;
+            return writeFrame(frame);
+        }
+
+        /**
+         * 写出一个 chunk，完成信号从选择器线程切换到工作调度器，之后的请求和编码不占用选择器线程
+         */
+        private Mono<Void> writeFrame(byte[] frame) {
+            return Mono.<Void>create(written -> connection.write(ByteBuffer.wrap(frame), written, false))
+                .publishOn(scheduler);
+        }
+
+        private void finish(Throwable error) {
+            if (!done.compareAndSet(false, true)) {
+                return;
+            }
+            if (error == null) {
+                sink.success();
+            }
+            else if (!started && !connection.isClosed()) {
+                // 事件还没有开始，仍然可以把失败作为普通的 JSON-RPC 错误响应返回
+                sendError(error);
+                sink.error(error);
+            }
+            else {
+                connection.write(ByteBuffer.allocate(0), null, true);
+                sink.error(error);
+            }
+            streamFinished();
+        }
+
+        private void sendError(Throwable error) {
+            McpSchema.JSONRPCResponse.JSONRPCError jsonRpcError = error instanceof McpError mcpError
+                    ? mcpError.getJsonRpcError() : new McpSchema.JSONRPCResponse.JSONRPCError(
+                        McpSchema.ErrorCodes.INTERNAL_ERROR, String.valueOf(error.getMessage()), null);
+            McpSchema.JSONRPCResponse response = new McpSchema.JSONRPCResponse(McpSchema.JSONRPC_VERSION, id, null,
+                    jsonRpcError);
+            try {
+                connection.write(ByteBuffer.wrap(SseFrames.event(MESSAGE_EVENT_TYPE, writer.writeValueAsBytes(response))),
+                    null, false);
+            }
+            catch (IOException e) {
+                connection.write(ByteBuffer.allocate(0), null, true);
+            }
+        }
+
+        /**
+         * 结果对象 {@code contents} 数组之前的部分
+         */
+        private byte[] prefix() throws IOException {
+            StringBuilder json = new StringBuilder("{\"jsonrpc\":\"").append(McpSchema.JSONRPC_VERSION)
+                .append("\",\"id\":")
+                .append(writer.writeValueAsString(id))
+                .append(",\"result\":{");
+            if (result.meta() != null) {
+                json.append("\"_meta\":").append(writer.writeValueAsString(result.meta())).append(',');
+            }
+            return json.append("\"contents\":[").toString().getBytes(StandardCharsets.UTF_8);
+        }
+
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        byte[] bytes = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, bytes, first.length, second.length);
+        return bytes;
+    }
+
+}
@@ -0,0 +1,409 @@
+package org.example.server;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.example.spec.McpError;
+import org.example.spec.McpSchema;
+import org.example.spec.McpTransport;
+import org.example.util.Assert;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+
+/**
+ * 按键排序、带版本号的不可变索引，为 {@code tools/list}、{@code resources/list} 等分页列表请求生成页面和游标
+ *
+ * <p>
+ * 索引的每个版本是一个 {@link Snapshot}：按键排序的键数组和条目数组。读取不加锁，直接使用当前快照；
+ * 修改在 {@code this} 上串行进行，合并出新的数组后整体替换快照，版本号加一，正在读取旧快照的请求不受影响。
+ * 注册大量条目时应使用 {@link #putAll} / {@link #removeAll}，一次合并代替逐个复制。
+ * </p>
+ *
+ * <p>
+ * 游标是一页最后一个条目的键经过 Base64URL 编码后的不透明字符串。取下一页时二分查找该键之后的位置，
+ * 代价为 O(log n + 页大小)，与页号无关；页面本身是快照数组的只读视图，不复制条目。
+ * 由于游标只记录位置的键，索引在两次请求之间被修改时游标依然有效：已删除的键不影响定位，
+ * 新插入到游标之后的条目会出现在后续页中。
+ * </p>
+ *
+ * @param <T> 条目类型
+ */
+public final class PaginatedIndex<T> {
+
+    /**
+     * 默认每页条目数
+     */
+    public static final int DEFAULT_PAGE_SIZE = 100;
+
+    private static final Base64.Encoder CURSOR_ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Base64.Decoder CURSOR_DECODER = Base64.getUrlDecoder();
+
+    private static final TypeReference<McpSchema.PaginatedRequest> PAGINATED_REQUEST = new TypeReference<>() {
+    };
+
+    private final Function<T, String> keyFunction;
+
+    private final int pageSize;
+
+    private final List<Consumer<Snapshot<T>>> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile Snapshot<T> snapshot;
+
+    /**
+     * @param keyFunction 条目的排序键，必须唯一且不为 {@code null}，例如工具名或资源 URI
+     * @param pageSize 每页条目数
+     */
+    public PaginatedIndex(Function<T, String> keyFunction, int pageSize) {
+        Assert.notNull(keyFunction, "keyFunction must not be null");
+        Assert.isTrue(pageSize > 0, "pageSize must be greater than 0");
+        this.keyFunction = keyFunction;
+        this.pageSize = pageSize;
+        this.snapshot = new Snapshot<>(0, new String[0], new Object[0]);
+    }
+
+    public PaginatedIndex(Function<T, String> keyFunction) {
+        this(keyFunction, DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * 添加或替换一个条目
+     *
+     * @param item 条目
+     */
+    public synchronized void put(T item) {
+        Assert.notNull(item, "item must not be null");
+        String key = keyFunction.apply(item);
+        Assert.notNull(key, "key must not be null");
+        Snapshot<T> current = snapshot;
+        int index = Arrays.binarySearch(current.keys, key);
+        String[] keys;
+        Object[] items;
+        if (index >= 0) {
+            keys = current.keys;
+            items = current.items.clone();
+            items[index] = item;
+        }
+        else {
+            index = -index - 1;
+            keys = insert(current.keys, index, key, new String[current.keys.length + 1]);
+            items = insert(current.items, index, item, new Object[current.items.length + 1]);
+        }
+        publish(new Snapshot<>(current.version + 1, keys, items));
+    }
+
+    /**
+     * 添加或替换多个条目，只产生一个新版本
+     *
+     * @param items 条目，键相同时后出现的生效
+     */
+    public synchronized void putAll(Collection<? extends T> items) {
+        Assert.notNull(items, "items must not be null");
+        if (items.isEmpty()) {
+            return;
+        }
+        Snapshot<T> current = snapshot;
+        publish(merge(current.keys, current.items, items, current.version + 1));
+    }
+
+    /**
+     * @param key 条目的键
+     * @return 是否存在该条目
+     */
+    public synchronized boolean remove(String key) {
+        Snapshot<T> current = snapshot;
+        int index = key == null ? -1 : Arrays.binarySearch(current.keys, key);
+        if (index < 0) {
+            return false;
+        }
+        String[] keys = new String[current.keys.length - 1];
+        Object[] items = new Object[keys.length];
+        System.arraycopy(current.keys, 0, keys, 0, index);
+        System.arraycopy(current.keys, index + 1, keys, index, keys.length - index);
+        System.arraycopy(current.items, 0, items, 0, index);
+        System.arraycopy(current.items, index + 1, items, index, items.length - index);
+        publish(new Snapshot<>(current.version + 1, keys, items));
+        return true;
+    }
+
+    /**
+     * 移除多个条目，只产生一个新版本
+     *
+     * @param keys 条目的键
+     * @return 实际移除的条目数
+     */
+    public synchronized int removeAll(Collection<String> keys) {
+        Assert.notNull(keys, "keys must not be null");
+        Snapshot<T> current = snapshot;
+        TreeSet<String> removed = new TreeSet<>();
+        for (String key : keys) {
+            if (key != null && Arrays.binarySearch(current.keys, key) >= 0) {
+                removed.add(key);
+            }
+        }
+        if (removed.isEmpty()) {
+            return 0;
+        }
+        int size = current.keys.length - removed.size();
+        String[] newKeys = new String[size];
+        Object[] newItems = new Object[size];
+        int j = 0;
+        for (int i = 0; i < current.keys.length; i++) {
+            if (!removed.contains(current.keys[i])) {
+                newKeys[j] = current.keys[i];
+                newItems[j++] = current.items[i];
+            }
+        }
+        publish(new Snapshot<>(current.version + 1, newKeys, newItems));
+        return removed.size();
+    }
+
+    /**
+     * 用给定的条目替换整个索引，只产生一个新版本
+     *
+     * @param items 新的全部条目，键相同时后出现的生效
+     */
+    public synchronized void replaceAll(Collection<? extends T> items) {
+        Assert.notNull(items, "items must not be null");
+        publish(merge(new String[0], new Object[0], items, snapshot.version + 1));
+    }
+
+    /**
+     * 注册一个在每次修改后调用的监听器
+     *
+     * <p>
+     * 监听器在修改线程上、修改的锁内按版本顺序调用，不能阻塞；需要做耗时工作时应转交给其他线程。
+     * </p>
+     *
+     * @param listener 接收新版本快照的监听器
+     */
+    public void addListener(Consumer<Snapshot<T>> listener) {
+        Assert.notNull(listener, "listener must not be null");
+        listeners.add(listener);
+    }
+
+    private void publish(Snapshot<T> next) {
+        snapshot = next;
+        for (Consumer<Snapshot<T>> listener : listeners) {
+            listener.accept(next);
+        }
+    }
+
+    private static <E> E[] insert(E[] source, int index, E element, E[] target) {
+        System.arraycopy(source, 0, target, 0, index);
+        target[index] = element;
+        System.arraycopy(source, index, target, index + 1, source.length - index);
+        return target;
+    }
+
+    /**
+     * 把条目合并到有序数组中，生成新的快照
+     */
+    private Snapshot<T> merge(String[] baseKeys, Object[] baseItems, Collection<? extends T> items, long version) {
+        TreeMap<String, T> added = new TreeMap<>();
+        for (T item : items) {
+            Assert.notNull(item, "item must not be null");
+            String key = keyFunction.apply(item);
+            Assert.notNull(key, "key must not be null");
+            added.put(key, item);
+        }
+        String[] keys = new String[baseKeys.length + added.size()];
+        Object[] values = new Object[keys.length];
+        int size = 0;
+        int i = 0;
+        // 合并两个有序序列，键相同时用新条目替换
+        for (var entry : added.entrySet()) {
+            while (i < baseKeys.length && baseKeys[i].compareTo(entry.getKey()) < 0) {
+                keys[size] = baseKeys[i];
+                values[size++] = baseItems[i++];
+            }
+            if (i < baseKeys.length && baseKeys[i].equals(entry.getKey())) {
+                i++;
+            }
+            keys[size] = entry.getKey();
+            values[size++] = entry.getValue();
+        }
+        while (i < baseKeys.length) {
+            keys[size] = baseKeys[i];
+            values[size++] = baseItems[i++];
+        }
+        if (size < keys.length) {
+            keys = Arrays.copyOf(keys, size);
+            values = Arrays.copyOf(values, size);
+        }
+        return new Snapshot<>(version, keys, values);
+    }
+
+    /**
+     * @param key 条目的键
+     * @return 条目，不存在时为 {@code null}
+     */
+    public T get(String key) {
+        return snapshot.get(key);
+    }
+
+    /**
+     * @return 当前版本的快照
+     */
+    public Snapshot<T> snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * @return 当前版本号，每次修改加一
+     */
+    public long version() {
+        return snapshot.version;
+    }
+
+    public int size() {
+        return snapshot.keys.length;
+    }
+
+    /**
+     * @return 所有条目的副本，按键排序
+     */
+    public List<T> toList() {
+        return new ArrayList<>(snapshot.items());
+    }
+
+    /**
+     * 取游标之后的一页
+     *
+     * @param cursor 上一页返回的游标，{@link McpSchema#FIRST_PAGE} 表示第一页
+     * @return 页面
+     * @throws McpError 如果游标无效
+     */
+    public Page<T> page(String cursor) {
+        return snapshot.page(cursor, pageSize);
+    }
+
+    /**
+     * @return 每页条目数
+     */
+    public int pageSize() {
+        return pageSize;
+    }
+
+    /**
+     * 某个版本的索引内容
+     *
+     * @param <T> 条目类型
+     */
+    public static final class Snapshot<T> {
+
+        private final long version;
+
+        private final String[] keys;
+
+        private final Object[] items;
+
+        private Snapshot(long version, String[] keys, Object[] items) {
+            this.version = version;
+            this.keys = keys;
+            this.items = items;
+        }
+
+        public long version() {
+            return version;
+        }
+
+        public int size() {
+            return keys.length;
+        }
+
+        @SuppressWarnings("unchecked")
+        public T get(String key) {
+            int index = Arrays.binarySearch(keys, key);
+            return index >= 0 ? (T) items[index] : null;
+        }
+
+        /**
+         * @return 按键排序的所有条目的只读视图
+         */
+        @SuppressWarnings("unchecked")
+        public List<T> items() {
+            return Collections.unmodifiableList((List<T>) Arrays.asList(items));
+        }
+
+        /**
+         * 取游标之后的一页
+         *
+         * @param cursor 上一页返回的游标，{@link McpSchema#FIRST_PAGE} 表示第一页
+         * @param pageSize 每页条目数
+         * @return 页面
+         * @throws McpError 如果游标无效
+         */
+        @SuppressWarnings("unchecked")
+        public Page<T> page(String cursor, int pageSize) {
+            int from = 0;
+            if (cursor != null) {
+                int index = Arrays.binarySearch(keys, decodeCursor(cursor));
+                // 键已被删除时从它本应在的位置继续
+                from = index >= 0 ? index + 1 : -index - 1;
+            }
+            int to = (int) Math.min((long) from + pageSize, keys.length);
+            List<T> page = from >= to ? List.of()
+                    : Collections.unmodifiableList((List<T>) Arrays.asList(items).subList(from, to));
+            String nextCursor = to < keys.length ? encodeCursor(keys[to - 1]) : null;
+            return new Page<>(page, nextCursor, version);
+        }
+
+    }
+
+    /**
+     * 一页条目
+     *
+     * @param items 本页条目，按键排序
+     * @param nextCursor 下一页的游标，最后一页为 {@code null}
+     * @param version 生成本页的索引版本
+     * @param <T> 条目类型
+     */
+    public record Page<T>(List<T> items, String nextCursor, long version) {
+    }
+
+    /**
+     * 从分页列表请求中取出游标
+     *
+     * @param request {@code tools/list} 等分页列表请求
+     * @param transport 用于反序列化参数的传输
+     * @return 游标，没有参数或参数中没有游标时为 {@link McpSchema#FIRST_PAGE}
+     */
+    static String requestCursor(McpSchema.JSONRPCRequest request, McpTransport transport) {
+        if (request.params() == null) {
+            return McpSchema.FIRST_PAGE;
+        }
+        McpSchema.PaginatedRequest params;
+        try {
+            params = transport.unmarshalParams(request.mcpMethod(), request.params(), PAGINATED_REQUEST);
+        }
+        catch (IllegalArgumentException e) {
+            throw new McpError(McpSchema.ErrorCodes.INVALID_PARAMS, "Invalid " + request.method() + " params", e);
+        }
+        return params == null ? McpSchema.FIRST_PAGE : params.cursor();
+    }
+
+    static String encodeCursor(String key) {
+        return CURSOR_ENCODER.encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String decodeCursor(String cursor) {
+        try {
+            return new String(CURSOR_DECODER.decode(cursor), StandardCharsets.UTF_8);
+        }
+        catch (IllegalArgumentException e) {
+            throw new McpError(McpSchema.ErrorCodes.INVALID_PARAMS, "Invalid cursor: " + cursor);
+        }
+    }
+
+}
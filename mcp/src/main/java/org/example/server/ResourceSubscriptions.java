@@ -0,0 +1,441 @@
+package org.example.server;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.example.spec.McpError;
+import org.example.spec.McpMethod;
+import org.example.spec.McpSchema;
+import org.example.spec.McpServerTransport;
+import org.example.util.Assert;
+import org.example.util.HashedWheelTimer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * 资源订阅表，处理 {@code resources/subscribe} 和 {@code resources/unsubscribe}，
+ * 并把 {@code notifications/resources/updated} 推送给订阅了该资源的会话
+ *
+ * <p>
+ * 订阅按 URI 保存在 {@link ConcurrentHashMap} 中，每个 URI 对应一个并发的会话集合，订阅、退订和推送互不阻塞；
+ * 会话关闭时自动退订它的所有资源。同一个资源的通知帧只编码一次，由所有订阅它的会话共享。
+ * </p>
+ *
+ * <p>
+ * 推送分两级合并。资源第一次更新时开始一个合并窗口，窗口内的后续更新只是一次 CAS，不遍历订阅者；
+ * 窗口结束时才在调度器上把资源记入每个订阅会话的待推送集合，因此窗口内同一资源的多次更新对每个会话只产生一条通知。
+ * 会话的上一批通知还没有写入套接字时不会写出下一批，新的更新留在待推送集合中继续合并，
+ * 慢客户端积压的始终只是每个资源至多一条待推送的通知，而不是所有更新。
+ * </p>
+ */
+public final class ResourceSubscriptions {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResourceSubscriptions.class);
+
+    private static final TypeReference<McpSchema.SubscribeRequest> SUBSCRIBE_REQUEST = new TypeReference<>() {
+    };
+
+    private static final TypeReference<McpSchema.UnsubscribeRequest> UNSUBSCRIBE_REQUEST = new TypeReference<>() {
+    };
+
+    private final ObjectWriter writer;
+
+    private final long windowNanos;
+
+    private final HashedWheelTimer timer;
+
+    private final Scheduler scheduler;
+
+    private final ConcurrentHashMap<String, Topic> topics = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<McpServerTransport, Subscriber> subscribers = new ConcurrentHashMap<>();
+
+    private ResourceSubscriptions(Builder builder) {
+        this.writer = builder.objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+        this.windowNanos = builder.window.toNanos();
+        this.timer = builder.timer != null ? builder.timer : HashedWheelTimer.shared();
+        this.scheduler = builder.scheduler;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 订阅一个资源，重复订阅没有影响
+     *
+     * @param session 会话
+     * @param uri 资源 URI
+     */
+    public void subscribe(McpServerTransport session, String uri) {
+        Assert.notNull(session, "session must not be null");
+        Assert.hasText(uri, "uri must not be empty");
+        Subscriber subscriber = subscriberOf(session);
+        if (!subscriber.uris.add(uri)) {
+            return;
+        }
+        topics.compute(uri, (key, topic) -> {
+            if (topic == null) {
+                topic = new Topic(key);
+            }
+            topic.subscribers.add(subscriber);
+            return topic;
+        });
+        if (subscriber.closed) {
+            // 与会话关闭并发时，由这里撤销刚加入的订阅
+            unsubscribe(session, uri);
+        }
+    }
+
+    /**
+     * 退订一个资源
+     *
+     * @param session 会话
+     * @param uri 资源 URI
+     * @return 会话是否订阅了该资源
+     */
+    public boolean unsubscribe(McpServerTransport session, String uri) {
+        Subscriber subscriber = subscribers.get(session);
+        if (subscriber == null || !subscriber.uris.remove(uri)) {
+            return false;
+        }
+        removeFromTopic(subscriber, uri);
+        return true;
+    }
+
+    /**
+     * 退订会话的所有资源，会话关闭时自动调用
+     *
+     * @param session 会话
+     */
+    public void unsubscribeAll(McpServerTransport session) {
+        Subscriber subscriber = subscribers.remove(session);
+        if (subscriber == null) {
+            return;
+        }
+        subscriber.closed = true;
+        for (String uri : subscriber.uris) {
+            removeFromTopic(subscriber, uri);
+        }
+        subscriber.uris.clear();
+        subscriber.dirty.clear();
+    }
+
+    /**
+     * 通知订阅了该资源的会话资源已更新，在合并窗口结束后推送
+     *
+     * @param uri 资源 URI
+     * @return 订阅了该资源的会话数
+     */
+    public int notifyUpdated(String uri) {
+        Topic topic = topics.get(uri);
+        if (topic == null) {
+            return 0;
+        }
+        if (topic.pending.compareAndSet(false, true)) {
+            if (windowNanos == 0) {
+                scheduler.schedule(topic::fanOut);
+            }
+            else {
+                // 定时器线程不能阻塞，遍历订阅者交给调度器
+                timer.schedule(() -> scheduler.schedule(topic::fanOut), windowNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+        return topic.subscribers.size();
+    }
+
+    /**
+     * @param uri 资源 URI
+     * @return 订阅了该资源的会话数
+     */
+    public int subscriberCount(String uri) {
+        Topic topic = topics.get(uri);
+        return topic == null ? 0 : topic.subscribers.size();
+    }
+
+    /**
+     * @return 至少订阅了一个资源的会话数
+     */
+    public int sessionCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * 处理 {@code resources/subscribe} 和 {@code resources/unsubscribe} 请求
+     *
+     * @param request 请求
+     * @param session 发出请求的会话
+     * @return 响应；其他方法以 {@link McpSchema.ErrorCodes#METHOD_NOT_FOUND} 错误响应，
+     * 意外的异常以 {@link McpSchema.ErrorCodes#INTERNAL_ERROR} 错误响应
+     */
+    public Mono<McpSchema.JSONRPCResponse> handle(McpSchema.JSONRPCRequest request, McpServerTransport session) {
+        Mono<Object> result;
+        if (request.mcpMethod() == McpMethod.RESOURCES_SUBSCRIBE) {
+            result = Mono.fromSupplier(() -> {
+                subscribe(session, uriOf(request,
+                        session.unmarshalParams(request.mcpMethod(), request.params(), SUBSCRIBE_REQUEST)));
+                return Map.of();
+            });
+        }
+        else if (request.mcpMethod() == McpMethod.RESOURCES_UNSUBSCRIBE) {
+            result = Mono.fromSupplier(() -> {
+                unsubscribe(session, uriOf(request,
+                        session.unmarshalParams(request.mcpMethod(), request.params(), UNSUBSCRIBE_REQUEST)));
+                return Map.of();
+            });
+        }
+        else {
+            result = Mono.error(new McpError(McpSchema.ErrorCodes.METHOD_NOT_FOUND,
+                    "Method not found: " + request.method()));
+        }
+        return result
+            .onErrorMap(IllegalArgumentException.class,
+                    e -> new McpError(McpSchema.ErrorCodes.INVALID_PARAMS, "Invalid " + request.method() + " params",
+                            e))
+            .map(value -> new McpSchema.JSONRPCResponse(McpSchema.JSONRPC_VERSION, request.id(), value, null))
+            .onErrorMap(e -> !(e instanceof McpError), e -> new McpError(McpSchema.ErrorCodes.INTERNAL_ERROR,
+                    request.method() + " failed: " + e.getMessage(), e))
+            .onErrorResume(McpError.class, e -> Mono.just(new McpSchema.JSONRPCResponse(McpSchema.JSONRPC_VERSION,
+                    request.id(), null, e.getJsonRpcError())));
+    }
+
+    private static String uriOf(McpSchema.JSONRPCRequest request, Object params) {
+        String uri = params instanceof McpSchema.SubscribeRequest subscribe ? subscribe.uri()
+                : params instanceof McpSchema.UnsubscribeRequest unsubscribe ? unsubscribe.uri() : null;
+        if (uri == null || uri.isEmpty()) {
+            throw new McpError(McpSchema.ErrorCodes.INVALID_PARAMS, "Missing uri in " + request.method());
+        }
+        return uri;
+    }
+
+    private Subscriber subscriberOf(McpServerTransport session) {
+        Subscriber subscriber = subscribers.get(session);
+        if (subscriber != null) {
+            return subscriber;
+        }
+        Subscriber created = new Subscriber(session);
+        subscriber = subscribers.putIfAbsent(session, created);
+        if (subscriber != null) {
+            return subscriber;
+        }
+        // 在 putIfAbsent 之外注册，已经关闭的会话会立即回调
+        session.onClose().subscribe(null, error -> unsubscribeAll(session), () -> unsubscribeAll(session));
+        return created;
+    }
+
+    private void removeFromTopic(Subscriber subscriber, String uri) {
+        topics.computeIfPresent(uri, (key, topic) -> {
+            topic.subscribers.remove(subscriber);
+            return topic.subscribers.isEmpty() ? null : topic;
+        });
+    }
+
+    /**
+     * 一个被订阅的资源
+     */
+    private final class Topic {
+
+        final String uri;
+
+        final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+        /**
+         * 编码好的通知，第一次推送时创建
+         */
+        private volatile McpSchema.JSONRPCNotification notification;
+
+        private volatile byte[] frame;
+
+        /**
+         * 合并窗口是否已经开始
+         */
+        final AtomicBoolean pending = new AtomicBoolean();
+
+        Topic(String uri) {
+            this.uri = uri;
+        }
+
+        void fanOut() {
+            // 先结束窗口，遍历期间到达的更新开始下一个窗口
+            pending.set(false);
+            for (Subscriber subscriber : subscribers) {
+                subscriber.markDirty(this);
+            }
+        }
+
+        McpSchema.JSONRPCNotification notification() {
+            McpSchema.JSONRPCNotification value = notification;
+            if (value == null) {
+                value = new McpSchema.JSONRPCNotification(McpSchema.JSONRPC_VERSION,
+                        McpSchema.METHOD_NOTIFICATION_RESOURCES_UPDATED,
+                        new McpSchema.ResourcesUpdatedNotification(uri));
+                notification = value;
+            }
+            return value;
+        }
+
+        byte[] frame() throws IOException {
+            byte[] value = frame;
+            if (value == null) {
+                value = SseFrames.event(NioSseSessionTransport.MESSAGE_EVENT_TYPE,
+                        writer.writeValueAsBytes(notification()));
+                frame = value;
+            }
+            return value;
+        }
+
+    }
+
+    /**
+     * 一个会话的订阅和待推送的资源
+     */
+    private final class Subscriber {
+
+        final McpServerTransport session;
+
+        final Set<String> uris = ConcurrentHashMap.newKeySet();
+
+        /**
+         * 已更新但尚未推送的资源
+         */
+        final Set<Topic> dirty = ConcurrentHashMap.newKeySet();
+
+        /**
+         * 是否已经安排了推送或正在推送
+         */
+        final AtomicBoolean scheduled = new AtomicBoolean();
+
+        volatile boolean closed;
+
+        Subscriber(McpServerTransport session) {
+            this.session = session;
+        }
+
+        /**
+         * 在调度器线程上调用，会话空闲时直接推送
+         */
+        void markDirty(Topic topic) {
+            if (!closed && dirty.add(topic) && scheduled.compareAndSet(false, true)) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            List<Mono<Void>> sends = new ArrayList<>(dirty.size());
+            for (Topic topic : dirty) {
+                dirty.remove(topic);
+                if (closed || !uris.contains(topic.uri)) {
+                    continue;
+                }
+                sends.add(send(topic));
+            }
+            Mono<Void> batch = sends.size() == 1 ? sends.get(0) : Mono.when(sends);
+            batch
+                .onErrorResume(error -> {
+                    logger.debug("Failed to send resource updates: {}", error.getMessage());
+                    return Mono.empty();
+                })
+                .doFinally(signal -> {
+                    scheduled.set(false);
+                    if (!closed && !dirty.isEmpty() && scheduled.compareAndSet(false, true)) {
+                        scheduler.schedule(this::flush);
+                    }
+                })
+                .subscribe();
+        }
+
+        private Mono<Void> send(Topic topic) {
+            if (session instanceof NioSseSessionTransport nio) {
+                try {
+                    return nio.sendEncodedFrame(topic.frame());
+                }
+                catch (IOException e) {
+                    return Mono.error(e);
+                }
+            }
+            return session.sendMessage(topic.notification());
+        }
+
+    }
+
+    /**
+     * 用于创建 {@link ResourceSubscriptions} 实例的构造器
+     */
+    public static class Builder {
+
+        private ObjectMapper objectMapper = new ObjectMapper();
+
+        private Duration window = Duration.ofMillis(100);
+
+        private HashedWheelTimer timer;
+
+        private Scheduler scheduler = Schedulers.parallel();
+
+        Builder() {
+        }
+
+        /**
+         * @param objectMapper 编码通知使用的 ObjectMapper，应与传输层使用的一致
+         * @return 当前构造器
+         */
+        public Builder objectMapper(ObjectMapper objectMapper) {
+            Assert.notNull(objectMapper, "objectMapper must not be null");
+            this.objectMapper = objectMapper;
+            return this;
+        }
+
+        /**
+         * @param window 合并窗口，窗口内同一资源的多次更新只推送一次，默认 100 毫秒；
+         *        为 0 时只合并上一批推送写出期间的更新
+         * @return 当前构造器
+         */
+        public Builder window(Duration window) {
+            Assert.notNull(window, "window must not be null");
+            Assert.isTrue(!window.isNegative(), "window must not be negative");
+            this.window = window;
+            return this;
+        }
+
+        /**
+         * @param timer 驱动合并窗口的定时器，默认使用 {@link HashedWheelTimer#shared()}
+         * @return 当前构造器
+         */
+        public Builder timer(HashedWheelTimer timer) {
+            Assert.notNull(timer, "timer must not be null");
+            this.timer = timer;
+            return this;
+        }
+
+        /**
+         * @param scheduler 执行推送的调度器，默认为 {@link Schedulers#parallel()}
+         * @return 当前构造器
+         */
+        public Builder scheduler(Scheduler scheduler) {
+            Assert.notNull(scheduler, "scheduler must not be null");
+            this.scheduler = scheduler;
+            return this;
+        }
+
+        public ResourceSubscriptions build() {
+            return new ResourceSubscriptions(this);
+        }
+
+    }
+
+}
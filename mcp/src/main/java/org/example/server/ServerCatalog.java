@@ -0,0 +1,280 @@
+package org.example.server;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+import org.example.spec.McpError;
+import org.example.spec.McpMethod;
+import org.example.spec.McpSchema;
+import org.example.spec.McpTransport;
+import org.example.util.Assert;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * 服务端注册的资源、资源模板和提示词，处理 {@code resources/list}、{@code resources/templates/list} 和
+ * {@code prompts/list} 请求
+ *
+ * <p>
+ * 三类条目分别保存在按 URI、URI 模板和名称排序的 {@link PaginatedIndex} 中。列表请求按游标分页，
+ * 每页的代价只与页大小有关；注册和注销在列表请求进行中也可以安全执行，已经发给客户端的游标继续有效。
+ * 批量注册应使用接收集合的方法，一批条目只产生一个新版本。
+ * </p>
+ *
+ * <p>
+ * 设置 {@link ListResultCache} 后，每一页只在条目变化后序列化一次，条目变化时向所有会话广播
+ * {@code notifications/resources/list_changed}（资源和资源模板）或 {@code notifications/prompts/list_changed}。
+ * </p>
+ */
+public final class ServerCatalog {
+
+    private final PaginatedIndex<McpSchema.Resource> resources;
+
+    private final PaginatedIndex<McpSchema.ResourceTemplate> resourceTemplates;
+
+    private final PaginatedIndex<McpSchema.Prompt> prompts;
+
+    private final ListResultCache listCache;
+
+    private ServerCatalog(int pageSize, ListResultCache listCache) {
+        this.resources = new PaginatedIndex<>(McpSchema.Resource::uri, pageSize);
+        this.resourceTemplates = new PaginatedIndex<>(McpSchema.ResourceTemplate::uriTemplate, pageSize);
+        this.prompts = new PaginatedIndex<>(McpSchema.Prompt::name, pageSize);
+        this.listCache = listCache;
+        if (listCache != null) {
+            listCache.watch(resources, McpSchema.METHOD_NOTIFICATION_RESOURCES_LIST_CHANGED);
+            listCache.watch(resourceTemplates, McpSchema.METHOD_NOTIFICATION_RESOURCES_LIST_CHANGED);
+            listCache.watch(prompts, McpSchema.METHOD_NOTIFICATION_PROMPTS_LIST_CHANGED);
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 注册一个资源，URI 相同的资源会被替换
+     *
+     * @param resource 资源
+     */
+    public void addResource(McpSchema.Resource resource) {
+        Assert.notNull(resource, "resource must not be null");
+        resources.put(resource);
+    }
+
+    /**
+     * 注册多个资源，URI 相同的资源会被替换
+     *
+     * @param resources 资源
+     */
+    public void addResources(Collection<McpSchema.Resource> resources) {
+        this.resources.putAll(resources);
+    }
+
+    /**
+     * @param uri 资源 URI
+     * @return 是否存在该资源
+     */
+    public boolean removeResource(String uri) {
+        return resources.remove(uri);
+    }
+
+    /**
+     * @param uri 资源 URI
+     * @return 资源，不存在时为 {@code null}
+     */
+    public McpSchema.Resource resource(String uri) {
+        return resources.get(uri);
+    }
+
+    /**
+     * 注册一个资源模板，URI 模板相同的会被替换
+     *
+     * @param template 资源模板
+     */
+    public void addResourceTemplate(McpSchema.ResourceTemplate template) {
+        Assert.notNull(template, "template must not be null");
+        resourceTemplates.put(template);
+    }
+
+    /**
+     * @param uriTemplate URI 模板
+     * @return 是否存在该资源模板
+     */
+    public boolean removeResourceTemplate(String uriTemplate) {
+        return resourceTemplates.remove(uriTemplate);
+    }
+
+    /**
+     * 注册一个提示词，同名提示词会被替换
+     *
+     * @param prompt 提示词
+     */
+    public void addPrompt(McpSchema.Prompt prompt) {
+        Assert.notNull(prompt, "prompt must not be null");
+        prompts.put(prompt);
+    }
+
+    /**
+     * 注册多个提示词，同名提示词会被替换
+     *
+     * @param prompts 提示词
+     */
+    public void addPrompts(Collection<McpSchema.Prompt> prompts) {
+        this.prompts.putAll(prompts);
+    }
+
+    /**
+     * @param name 提示词名
+     * @return 是否存在该提示词
+     */
+    public boolean removePrompt(String name) {
+        return prompts.remove(name);
+    }
+
+    /**
+     * @param name 提示词名
+     * @return 提示词，不存在时为 {@code null}
+     */
+    public McpSchema.Prompt prompt(String name) {
+        return prompts.get(name);
+    }
+
+    /**
+     * @param cursor 上一页返回的游标，{@link McpSchema#FIRST_PAGE} 表示第一页
+     * @return 按 URI 排序的一页资源
+     * @throws McpError 如果游标无效
+     */
+    public McpSchema.ListResourcesResult listResources(String cursor) {
+        PaginatedIndex.Page<McpSchema.Resource> page = resources.page(cursor);
+        return new McpSchema.ListResourcesResult(page.items(), page.nextCursor());
+    }
+
+    /**
+     * @param cursor 上一页返回的游标，{@link McpSchema#FIRST_PAGE} 表示第一页
+     * @return 按 URI 模板排序的一页资源模板
+     * @throws McpError 如果游标无效
+     */
+    public McpSchema.ListResourceTemplatesResult listResourceTemplates(String cursor) {
+        PaginatedIndex.Page<McpSchema.ResourceTemplate> page = resourceTemplates.page(cursor);
+        return new McpSchema.ListResourceTemplatesResult(page.items(), page.nextCursor());
+    }
+
+    /**
+     * @param cursor 上一页返回的游标，{@link McpSchema#FIRST_PAGE} 表示第一页
+     * @return 按名称排序的一页提示词
+     * @throws McpError 如果游标无效
+     */
+    public McpSchema.ListPromptsResult listPrompts(String cursor) {
+        PaginatedIndex.Page<McpSchema.Prompt> page = prompts.page(cursor);
+        return new McpSchema.ListPromptsResult(page.items(), page.nextCursor());
+    }
+
+    /**
+     * @return 资源的索引，用于批量修改或读取版本号
+     */
+    public PaginatedIndex<McpSchema.Resource> resources() {
+        return resources;
+    }
+
+    /**
+     * @return 资源模板的索引
+     */
+    public PaginatedIndex<McpSchema.ResourceTemplate> resourceTemplates() {
+        return resourceTemplates;
+    }
+
+    /**
+     * @return 提示词的索引
+     */
+    public PaginatedIndex<McpSchema.Prompt> prompts() {
+        return prompts;
+    }
+
+    /**
+     * 处理 {@code resources/list}、{@code resources/templates/list} 和 {@code prompts/list} 请求
+     *
+     * @param request 请求
+     * @param transport 用于反序列化参数的传输
+     * @return 响应；其他方法以 {@link McpSchema.ErrorCodes#METHOD_NOT_FOUND} 错误响应，
+     * 意外的异常以 {@link McpSchema.ErrorCodes#INTERNAL_ERROR} 错误响应
+     */
+    public Mono<McpSchema.JSONRPCResponse> handle(McpSchema.JSONRPCRequest request, McpTransport transport) {
+        McpMethod method = request.mcpMethod();
+        Mono<Object> result;
+        if (method == McpMethod.RESOURCES_LIST) {
+            result = Mono.fromSupplier(() -> list(resources, PaginatedIndex.requestCursor(request, transport),
+                    page -> new McpSchema.ListResourcesResult(page.items(), page.nextCursor())));
+        }
+        else if (method == McpMethod.RESOURCES_TEMPLATES_LIST) {
+            result = Mono.fromSupplier(() -> list(resourceTemplates, PaginatedIndex.requestCursor(request, transport),
+                    page -> new McpSchema.ListResourceTemplatesResult(page.items(), page.nextCursor())));
+        }
+        else if (method == McpMethod.PROMPT_LIST) {
+            result = Mono.fromSupplier(() -> list(prompts, PaginatedIndex.requestCursor(request, transport),
+                    page -> new McpSchema.ListPromptsResult(page.items(), page.nextCursor())));
+        }
+        else {
+            result = Mono.error(new McpError(McpSchema.ErrorCodes.METHOD_NOT_FOUND,
+                    "Method not found: " + request.method()));
+        }
+        return result
+            .map(value -> new McpSchema.JSONRPCResponse(McpSchema.JSONRPC_VERSION, request.id(), value, null))
+            .onErrorMap(e -> !(e instanceof McpError), e -> new McpError(McpSchema.ErrorCodes.INTERNAL_ERROR,
+                    request.method() + " failed: " + e.getMessage(), e))
+            .onErrorResume(McpError.class, e -> Mono.just(new McpSchema.JSONRPCResponse(McpSchema.JSONRPC_VERSION,
+                    request.id(), null, e.getJsonRpcError())));
+    }
+
+    private <T> Object list(PaginatedIndex<T> index, String cursor,
+        Function<PaginatedIndex.Page<T>, ? extends McpSchema.Result> toResult) {
+        return listCache == null ? toResult.apply(index.page(cursor)) : listCache.page(index, cursor, toResult);
+    }
+
+    /**
+     * @return 可以由 {@link #handle} 处理的方法
+     */
+    public static List<McpMethod> methods() {
+        return List.of(McpMethod.RESOURCES_LIST, McpMethod.RESOURCES_TEMPLATES_LIST, McpMethod.PROMPT_LIST);
+    }
+
+    /**
+     * 用于创建 {@link ServerCatalog} 实例的构造器
+     */
+    public static class Builder {
+
+        private int pageSize = PaginatedIndex.DEFAULT_PAGE_SIZE;
+
+        private ListResultCache listCache;
+
+        Builder() {
+        }
+
+        /**
+         * @param pageSize 列表请求每页的条目数，默认为 {@value PaginatedIndex#DEFAULT_PAGE_SIZE}
+         * @return 当前构造器
+         */
+        public Builder pageSize(int pageSize) {
+            Assert.isTrue(pageSize > 0, "pageSize must be greater than 0");
+            this.pageSize = pageSize;
+            return this;
+        }
+
+        /**
+         * @param listCache 缓存编码好的列表结果并在条目变化时广播通知，不设置时每次请求都序列化
+         * @return 当前构造器
+         */
+        public Builder listResultCache(ListResultCache listCache) {
+            Assert.notNull(listCache, "listCache must not be null");
+            this.listCache = listCache;
+            return this;
+        }
+
+        public ServerCatalog build() {
+            return new ServerCatalog(pageSize, listCache);
+        }
+
+    }
+
+}
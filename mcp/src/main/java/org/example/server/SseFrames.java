@@ -0,0 +1,157 @@
+package org.example.server;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 编码写往 SSE 连接的字节帧
+ *
+ * <p>
+ * SSE 响应使用 {@code chunked} 传输编码，每个事件通常恰好是一个 chunk，整帧在一个字节数组中一次构建完成；
+ * 需要流式写出的事件由 {@link #eventStart}、{@link #eventPart} 和 {@link #eventEnd} 依次编码成多个 chunk。
+ * 帧本身不可变，广播时多个连接可以共享同一个数组，各自用 {@link ByteBuffer#wrap} 包装即可。
+ * </p>
+ */
+final class SseFrames {
+
+    private static final byte[] CRLF = { '\r', '\n' };
+
+    private static final byte[] EVENT_PREFIX = ascii("event: ");
+
+    private static final byte[] DATA_PREFIX = ascii("\ndata: ");
+
+    private static final byte[] EVENT_SUFFIX = ascii("\n\n");
+
+    /**
+     * 结束 chunked 响应体的最后一个 chunk
+     */
+    private static final byte[] LAST_CHUNK = ascii("0\r\n\r\n");
+
+    private static final byte[] KEEP_ALIVE = chunk(ascii(":\n\n"));
+
+    private SseFrames() {
+    }
+
+    /**
+     * SSE 响应头，之后的每个事件都是一个 chunk
+     */
+    static ByteBuffer responseHead() {
+        return ByteBuffer.wrap(ascii("HTTP/1.1 200 OK\r\n"
+                + "Content-Type: text/event-stream; charset=utf-8\r\n"
+                + "Cache-Control: no-cache\r\n"
+                + "Transfer-Encoding: chunked\r\n"
+                + "\r\n"));
+    }
+
+    /**
+     * 编码一个事件，{@code data} 中不能包含换行符
+     *
+     * @param type ASCII 事件类型
+     * @param data UTF-8 编码的单行事件数据
+     * @return 作为一个 chunk 编码的事件帧
+     */
+    static byte[] event(byte[] type, byte[] data) {
+        int payloadLength = EVENT_PREFIX.length + type.length + DATA_PREFIX.length + data.length + EVENT_SUFFIX.length;
+        byte[] size = ascii(Integer.toHexString(payloadLength));
+        byte[] frame = new byte[size.length + CRLF.length + payloadLength + CRLF.length];
+        int position = 0;
+        position = put(frame, position, size);
+        position = put(frame, position, CRLF);
+        position = put(frame, position, EVENT_PREFIX);
+        position = put(frame, position, type);
+        position = put(frame, position, DATA_PREFIX);
+        position = put(frame, position, data);
+        position = put(frame, position, EVENT_SUFFIX);
+        put(frame, position, CRLF);
+        return frame;
+    }
+
+    /**
+     * 编码跨多个 chunk 的事件的第一段，{@code data} 中不能包含换行符
+     *
+     * @param type ASCII 事件类型
+     * @param data 事件数据的开头部分
+     * @return 一个 chunk
+     */
+    static byte[] eventStart(byte[] type, byte[] data) {
+        byte[] payload = new byte[EVENT_PREFIX.length + type.length + DATA_PREFIX.length + data.length];
+        int position = put(payload, 0, EVENT_PREFIX);
+        position = put(payload, position, type);
+        position = put(payload, position, DATA_PREFIX);
+        put(payload, position, data);
+        return chunk(payload);
+    }
+
+    /**
+     * 编码跨多个 chunk 的事件的中间一段
+     *
+     * @param data 事件数据的一部分，不能包含换行符
+     * @return 一个 chunk
+     */
+    static byte[] eventPart(byte[] data) {
+        return chunk(data);
+    }
+
+    /**
+     * 编码跨多个 chunk 的事件的最后一段
+     *
+     * @param data 事件数据的最后部分，不能包含换行符
+     * @return 一个 chunk
+     */
+    static byte[] eventEnd(byte[] data) {
+        byte[] payload = Arrays.copyOf(data, data.length + EVENT_SUFFIX.length);
+        put(payload, data.length, EVENT_SUFFIX);
+        return chunk(payload);
+    }
+
+    /**
+     * @return 不带数据的注释事件，用于保活和探测已断开的连接
+     */
+    static ByteBuffer keepAlive() {
+        return ByteBuffer.wrap(KEEP_ALIVE).asReadOnlyBuffer();
+    }
+
+    /**
+     * @return 结束 SSE 响应体的最后一个 chunk
+     */
+    static ByteBuffer lastChunk() {
+        return ByteBuffer.wrap(LAST_CHUNK).asReadOnlyBuffer();
+    }
+
+    /**
+     * 编码一个带有纯文本响应体的完整响应
+     */
+    static ByteBuffer response(int statusCode, String reason, String body, boolean keepAlive) {
+        byte[] content = body.getBytes(StandardCharsets.UTF_8);
+        String head = "HTTP/1.1 " + statusCode + " " + reason + "\r\n"
+                + (content.length > 0 ? "Content-Type: text/plain; charset=utf-8\r\n" : "")
+                + "Content-Length: " + content.length + "\r\n"
+                + (keepAlive ? "" : "Connection: close\r\n")
+                + "\r\n";
+        byte[] headBytes = ascii(head);
+        ByteBuffer response = ByteBuffer.allocate(headBytes.length + content.length);
+        response.put(headBytes).put(content).flip();
+        return response;
+    }
+
+    static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[] chunk(byte[] payload) {
+        byte[] size = ascii(Integer.toHexString(payload.length));
+        byte[] frame = new byte[size.length + CRLF.length + payload.length + CRLF.length];
+        int position = put(frame, 0, size);
+        position = put(frame, position, CRLF);
+        position = put(frame, position, payload);
+        put(frame, position, CRLF);
+        return frame;
+    }
+
+    private static int put(byte[] target, int position, byte[] source) {
+        System.arraycopy(source, 0, target, position, source.length);
+        return position + source.length;
+    }
+
+}
@@ -0,0 +1,565 @@
+package org.example.server;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.example.spec.McpError;
+import org.example.spec.McpMethod;
+import org.example.spec.McpSchema;
+import org.example.spec.McpTransport;
+import org.example.spec.ToolSchemaValidator;
+import org.example.util.Assert;
+import org.example.util.AsyncSemaphore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * 服务端的工具注册表和 {@code tools/call} 调度器
+ *
+ * <p>
+ * 工具处理器是普通的阻塞方法，可以直接访问 JDBC、文件或其他阻塞 API。每次调用都提交到独立的执行器上运行，
+ * 不会占用 Reactor 的事件循环线程：运行在 JDK 21 及以上时使用虚拟线程（通过反射获取
+ * {@code Executors.newVirtualThreadPerTaskExecutor()}，因此仍可在 JDK 17 上编译），
+ * 否则使用有界的平台线程池。
+ * </p>
+ *
+ * <p>
+ * 每个工具可以设置并发上限，超出的调用在 {@link AsyncSemaphore} 上排队，不占用线程；
+ * {@link #stats(String)} 给出每个工具正在执行和排队的调用数以及累计的完成、失败次数和耗时。
+ * 订阅被取消时排队中的调用直接移出队列，执行中的调用会被中断。
+ * </p>
+ *
+ * <p>
+ * 处理器抛出的异常转换为 {@code isError} 的 {@link McpSchema.CallToolResult}，只把异常类型和消息作为结果文本，
+ * 不会把栈轨迹格式化进结果；栈轨迹只在 debug 日志中输出。可预期的失败应抛出不填充栈轨迹的
+ * {@link ToolExecutionException}。{@link McpError} 则作为 JSON-RPC 错误原样返回。
+ * </p>
+ *
+ * <p>
+ * {@code tools/list} 按工具名排序分页返回，工具定义保存在 {@link PaginatedIndex} 中，
+ * 取任意一页的代价只与页大小有关，注册和注销工具不会使客户端手中的游标失效。
+ * 设置 {@link ListResultCache} 后，每一页只在工具变化后序列化一次，工具变化时向所有会话广播
+ * {@code notifications/tools/list_changed}。
+ * </p>
+ */
+public final class ToolDispatcher implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ToolDispatcher.class);
+
+    private static final TypeReference<McpSchema.CallToolRequest> CALL_TOOL_REQUEST = new TypeReference<>() {
+    };
+
+    private final ExecutorService executor;
+
+    private final boolean ownsExecutor;
+
+    private final boolean virtualThreads;
+
+    private final ToolSchemaValidator validator;
+
+    private final ConcurrentHashMap<String, Registration> tools = new ConcurrentHashMap<>();
+
+    /**
+     * 按工具名排序的工具定义，与 {@link #tools} 一起在 {@code this} 上修改
+     */
+    private final PaginatedIndex<McpSchema.Tool> toolIndex;
+
+    private final ListResultCache listCache;
+
+    private ToolDispatcher(ExecutorService executor, boolean ownsExecutor, boolean virtualThreads,
+        ToolSchemaValidator validator, int pageSize, ListResultCache listCache) {
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+        this.virtualThreads = virtualThreads;
+        this.validator = validator;
+        this.toolIndex = new PaginatedIndex<>(McpSchema.Tool::name, pageSize);
+        this.listCache = listCache;
+        if (listCache != null) {
+            listCache.watch(toolIndex, McpSchema.METHOD_NOTIFICATION_TOOLS_LIST_CHANGED);
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 注册一个不限制并发的工具，同名工具会被替换
+     *
+     * @param tool 工具定义
+     * @param handler 工具处理器
+     */
+    public void addTool(McpSchema.Tool tool, ToolHandler handler) {
+        addTool(tool, 0, handler);
+    }
+
+    /**
+     * 注册一个工具，同名工具会被替换
+     *
+     * @param tool 工具定义
+     * @param maxConcurrency 同时执行的最大调用数，0 表示不限制
+     * @param handler 工具处理器
+     * @throws IllegalArgumentException 如果设置了校验器而工具的 {@code inputSchema} 或 {@code outputSchema} 无法编译
+     */
+    public synchronized void addTool(McpSchema.Tool tool, int maxConcurrency, ToolHandler handler) {
+        Assert.notNull(tool, "tool must not be null");
+        Assert.hasText(tool.name(), "tool name must not be empty");
+        Assert.isTrue(maxConcurrency >= 0, "maxConcurrency must not be negative");
+        Assert.notNull(handler, "handler must not be null");
+        if (validator != null) {
+            validator.evict(tool.name());
+            try {
+                validator.precompile(tool);
+            }
+            catch (McpError e) {
+                throw new IllegalArgumentException(e.getMessage(), e);
+            }
+        }
+        tools.put(tool.name(), new Registration(tool, handler,
+                maxConcurrency > 0 ? new AsyncSemaphore(maxConcurrency) : null));
+        toolIndex.put(tool);
+    }
+
+    /**
+     * 注销一个工具，已经在执行的调用不受影响
+     *
+     * @param name 工具名
+     * @return 是否存在该工具
+     */
+    public synchronized boolean removeTool(String name) {
+        if (tools.remove(name) == null) {
+            return false;
+        }
+        if (validator != null) {
+            validator.evict(name);
+        }
+        toolIndex.remove(name);
+        return true;
+    }
+
+    /**
+     * @return 按工具名排序的所有工具
+     */
+    public List<McpSchema.Tool> listTools() {
+        return toolIndex.snapshot().items();
+    }
+
+    /**
+     * 取一页工具
+     *
+     * @param cursor 上一页返回的游标，{@link McpSchema#FIRST_PAGE} 表示第一页
+     * @return 按工具名排序的一页工具
+     * @throws McpError 如果游标无效
+     */
+    public McpSchema.ListToolsResult listTools(String cursor) {
+        PaginatedIndex.Page<McpSchema.Tool> page = toolIndex.page(cursor);
+        return new McpSchema.ListToolsResult(page.items(), page.nextCursor());
+    }
+
+    /**
+     * 调用一个工具
+     *
+     * @param request 调用请求
+     * @return 调用结果；工具不存在或参数不满足 {@code inputSchema} 时以 {@link McpError} 结束
+     */
+    public Mono<McpSchema.CallToolResult> call(McpSchema.CallToolRequest request) {
+        Assert.notNull(request, "request must not be null");
+        Registration registration = tools.get(request.name());
+        if (registration == null) {
+            return Mono.error(new McpError(McpSchema.ErrorCodes.INVALID_PARAMS, "Unknown tool: " + request.name()));
+        }
+        if (validator != null) {
+            try {
+                validator.checkArguments(registration.tool, request);
+            }
+            catch (McpError e) {
+                return Mono.error(e);
+            }
+        }
+        Mono<McpSchema.CallToolResult> execution = execute(registration, request);
+        AsyncSemaphore limit = registration.limit;
+        if (limit == null) {
+            return execution;
+        }
+        return Mono.usingWhen(limit.acquire().thenReturn(limit), permit -> execution,
+                permit -> Mono.fromRunnable(permit::release), (permit, error) -> Mono.fromRunnable(permit::release),
+                permit -> Mono.fromRunnable(permit::release));
+    }
+
+    /**
+     * 处理 {@code tools/list} 和 {@code tools/call} 请求
+     *
+     * @param request 请求
+     * @param transport 用于反序列化参数的传输
+     * @return 响应；其他方法以 {@link McpSchema.ErrorCodes#METHOD_NOT_FOUND} 错误响应，
+     * 意外的异常以 {@link McpSchema.ErrorCodes#INTERNAL_ERROR} 错误响应
+     */
+    public Mono<McpSchema.JSONRPCResponse> handle(McpSchema.JSONRPCRequest request, McpTransport transport) {
+        Mono<Object> result;
+        if (request.mcpMethod() == McpMethod.TOOLS_LIST) {
+            result = Mono.fromSupplier(() -> {
+                String cursor = PaginatedIndex.requestCursor(request, transport);
+                return listCache == null ? listTools(cursor)
+                        : listCache.page(toolIndex, cursor,
+                                page -> new McpSchema.ListToolsResult(page.items(), page.nextCursor()));
+            });
+        }
+        else if (request.mcpMethod() == McpMethod.TOOLS_CALL) {
+            result = Mono
+                .fromSupplier(() -> transport.unmarshalParams(request.mcpMethod(), request.params(), CALL_TOOL_REQUEST))
+                .onErrorMap(IllegalArgumentException.class,
+                        e -> new McpError(McpSchema.ErrorCodes.INVALID_PARAMS, "Invalid tools/call params", e))
+                .flatMap(this::call);
+        }
+        else {
+            result = Mono.error(new McpError(McpSchema.ErrorCodes.METHOD_NOT_FOUND,
+                    "Method not found: " + request.method()));
+        }
+        return result
+            .map(value -> new McpSchema.JSONRPCResponse(McpSchema.JSONRPC_VERSION, request.id(), value, null))
+            .onErrorMap(e -> !(e instanceof McpError), e -> new McpError(McpSchema.ErrorCodes.INTERNAL_ERROR,
+                    request.method() + " failed: " + e.getMessage(), e))
+            .onErrorResume(McpError.class, e -> Mono.just(new McpSchema.JSONRPCResponse(McpSchema.JSONRPC_VERSION,
+                    request.id(), null, e.getJsonRpcError())));
+    }
+
+    /**
+     * @param name 工具名
+     * @return 工具的调用统计，工具不存在时为 {@code null}
+     */
+    public ToolStats stats(String name) {
+        Registration registration = tools.get(name);
+        return registration == null ? null : registration.stats();
+    }
+
+    /**
+     * @return 所有工具的调用统计，按工具名排序
+     */
+    public List<ToolStats> stats() {
+        List<ToolStats> stats = new ArrayList<>();
+        for (McpSchema.Tool tool : toolIndex.snapshot().items()) {
+            Registration registration = tools.get(tool.name());
+            if (registration != null) {
+                stats.add(registration.stats());
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * @return 已提交到执行器但尚未开始执行的调用数，使用虚拟线程时总是 0
+     */
+    public int executorQueueDepth() {
+        return executor instanceof ThreadPoolExecutor pool ? pool.getQueue().size() : 0;
+    }
+
+    /**
+     * @return 是否在虚拟线程上执行工具
+     */
+    public boolean usesVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * 关闭由调度器创建的执行器，外部传入的执行器不受影响
+     */
+    @Override
+    public void close() {
+        if (ownsExecutor) {
+            executor.shutdownNow();
+        }
+    }
+
+    private Mono<McpSchema.CallToolResult> execute(Registration registration, McpSchema.CallToolRequest request) {
+        return Mono.create(sink -> {
+            Future<?> future;
+            try {
+                future = executor.submit(() -> {
+                    registration.active.incrementAndGet();
+                    long start = System.nanoTime();
+                    try {
+                        sink.success(invoke(registration, request));
+                    }
+                    catch (McpError e) {
+                        registration.failed.increment();
+                        sink.error(e);
+                    }
+                    catch (RuntimeException e) {
+                        // invoke 已经处理了处理器的异常，这里只剩调度器自身的缺陷，不能让 FutureTask 吞掉
+                        registration.failed.increment();
+                        logger.warn("Tool {} dispatch failed", request.name(), e);
+                        sink.error(new McpError(McpSchema.ErrorCodes.INTERNAL_ERROR,
+                                "Tool call to " + request.name() + " failed: " + e.getMessage(), e));
+                    }
+                    catch (Error e) {
+                        registration.failed.increment();
+                        sink.error(e);
+                        throw e;
+                    }
+                    finally {
+                        registration.active.decrementAndGet();
+                        registration.completed.increment();
+                        registration.totalNanos.add(System.nanoTime() - start);
+                    }
+                });
+            }
+            catch (RejectedExecutionException e) {
+                sink.error(new McpError(McpSchema.ErrorCodes.INTERNAL_ERROR,
+                        "Tool executor rejected call to " + request.name(), e));
+                return;
+            }
+            sink.onCancel(() -> future.cancel(true));
+        });
+    }
+
+    private McpSchema.CallToolResult invoke(Registration registration, McpSchema.CallToolRequest request) {
+        McpSchema.CallToolResult result;
+        try {
+            result = registration.handler.call(request);
+        }
+        catch (McpError | Error e) {
+            throw e;
+        }
+        catch (ToolExecutionException e) {
+            registration.failed.increment();
+            return errorResult(String.valueOf(e.getMessage()));
+        }
+        catch (InterruptedException e) {
+            // 订阅被取消，结果不会再被使用
+            registration.failed.increment();
+            Thread.currentThread().interrupt();
+            return errorResult("Tool call was cancelled");
+        }
+        catch (Exception e) {
+            registration.failed.increment();
+            if (logger.isDebugEnabled()) {
+                logger.debug("Tool {} failed", request.name(), e);
+            }
+            else {
+                logger.warn("Tool {} failed: {}", request.name(), e.toString());
+            }
+            return errorResult(e.getClass().getSimpleName() + ": " + e.getMessage());
+        }
+        if (result == null) {
+            return new McpSchema.CallToolResult(List.of(), false);
+        }
+        if (validator != null) {
+            ToolSchemaValidator.ValidationResult validation;
+            try {
+                validation = validator.validateResult(registration.tool, result);
+            }
+            catch (RuntimeException e) {
+                // outputSchema 无效或结构化结果无法转换为 JSON 树
+                registration.failed.increment();
+                logger.warn("Tool {} result could not be validated: {}", request.name(), e.getMessage());
+                return errorResult("Tool result could not be validated: " + e.getMessage());
+            }
+            if (!validation.valid()) {
+                registration.failed.increment();
+                logger.warn("Tool {} returned structured content that does not match its outputSchema: {}",
+                        request.name(), validation.errors());
+                return errorResult("Tool returned invalid structured content: "
+                        + String.join("; ", validation.errors()));
+            }
+        }
+        return result;
+    }
+
+    private static McpSchema.CallToolResult errorResult(String message) {
+        return new McpSchema.CallToolResult(List.of(new McpSchema.TextContent(message)), true);
+    }
+
+    /**
+     * 运行在 JDK 21 及以上时返回虚拟线程执行器，否则返回 {@code null}
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        }
+        catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    private static ExecutorService newBoundedExecutor(int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), task -> {
+                    Thread thread = new Thread(task, "mcp-tool-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * 阻塞的工具处理器，在调度器的执行器上运行
+     */
+    @FunctionalInterface
+    public interface ToolHandler {
+
+        /**
+         * @param request 调用请求
+         * @return 调用结果，{@code null} 视为没有内容的成功结果
+         * @throws Exception 转换为 {@code isError} 的结果
+         */
+        McpSchema.CallToolResult call(McpSchema.CallToolRequest request) throws Exception;
+
+    }
+
+    /**
+     * 一个工具的调用统计
+     *
+     * @param name 工具名
+     * @param maxConcurrency 并发上限，0 表示不限制
+     * @param active 正在执行的调用数
+     * @param queued 因达到并发上限而排队的调用数
+     * @param completed 累计执行完成的调用数，包括失败的调用
+     * @param failed 累计失败的调用数
+     * @param totalNanos 累计执行耗时，不含排队时间
+     */
+    public record ToolStats(String name, int maxConcurrency, int active, int queued, long completed, long failed,
+        long totalNanos) {
+    }
+
+    private static final class Registration {
+
+        final McpSchema.Tool tool;
+
+        final ToolHandler handler;
+
+        final AsyncSemaphore limit;
+
+        final AtomicInteger active = new AtomicInteger();
+
+        final LongAdder completed = new LongAdder();
+
+        final LongAdder failed = new LongAdder();
+
+        final LongAdder totalNanos = new LongAdder();
+
+        Registration(McpSchema.Tool tool, ToolHandler handler, AsyncSemaphore limit) {
+            this.tool = tool;
+            this.handler = handler;
+            this.limit = limit;
+        }
+
+        ToolStats stats() {
+            return new ToolStats(tool.name(), limit == null ? 0 : limit.permits(), active.get(),
+                    limit == null ? 0 : limit.queueLength(), completed.sum(), failed.sum(), totalNanos.sum());
+        }
+
+    }
+
+    /**
+     * 用于创建 {@link ToolDispatcher} 实例的构造器
+     */
+    public static class Builder {
+
+        private ExecutorService executor;
+
+        private boolean virtualThreads = true;
+
+        private int fallbackThreads = Math.max(8, Runtime.getRuntime().availableProcessors() * 4);
+
+        private ToolSchemaValidator validator;
+
+        private int pageSize = PaginatedIndex.DEFAULT_PAGE_SIZE;
+
+        private ListResultCache listCache;
+
+        Builder() {
+        }
+
+        /**
+         * 使用外部的执行器运行工具，调度器关闭时不会关闭它
+         *
+         * @param executor 执行器
+         * @return 当前构造器
+         */
+        public Builder executor(ExecutorService executor) {
+            Assert.notNull(executor, "executor must not be null");
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * @param virtualThreads 运行在 JDK 21 及以上时是否使用虚拟线程，默认为 {@code true}
+         * @return 当前构造器
+         */
+        public Builder virtualThreads(boolean virtualThreads) {
+            this.virtualThreads = virtualThreads;
+            return this;
+        }
+
+        /**
+         * @param fallbackThreads 不使用虚拟线程时平台线程池的大小，默认为处理器数的 4 倍且不少于 8
+         * @return 当前构造器
+         */
+        public Builder fallbackThreads(int fallbackThreads) {
+            Assert.isTrue(fallbackThreads > 0, "fallbackThreads must be greater than 0");
+            this.fallbackThreads = fallbackThreads;
+            return this;
+        }
+
+        /**
+         * @param validator 调用前校验参数、调用后校验结构化结果的校验器，不设置时不校验
+         * @return 当前构造器
+         */
+        public Builder validator(ToolSchemaValidator validator) {
+            Assert.notNull(validator, "validator must not be null");
+            this.validator = validator;
+            return this;
+        }
+
+        /**
+         * @param pageSize {@code tools/list} 每页的工具数，默认为 {@value PaginatedIndex#DEFAULT_PAGE_SIZE}
+         * @return 当前构造器
+         */
+        public Builder pageSize(int pageSize) {
+            Assert.isTrue(pageSize > 0, "pageSize must be greater than 0");
+            this.pageSize = pageSize;
+            return this;
+        }
+
+        /**
+         * @param listCache 缓存编码好的 {@code tools/list} 结果并在工具变化时广播通知，不设置时每次请求都序列化
+         * @return 当前构造器
+         */
+        public Builder listResultCache(ListResultCache listCache) {
+            Assert.notNull(listCache, "listCache must not be null");
+            this.listCache = listCache;
+            return this;
+        }
+
+        public ToolDispatcher build() {
+            if (executor != null) {
+                return new ToolDispatcher(executor, false, false, validator, pageSize, listCache);
+            }
+            ExecutorService virtual = virtualThreads ? newVirtualThreadExecutor() : null;
+            if (virtual != null) {
+                return new ToolDispatcher(virtual, true, true, validator, pageSize, listCache);
+            }
+            return new ToolDispatcher(newBoundedExecutor(fallbackThreads), true, false, validator, pageSize, listCache);
+        }
+
+    }
+
+}
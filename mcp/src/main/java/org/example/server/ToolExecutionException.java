@@ -0,0 +1,26 @@
+package org.example.server;
+
+import java.io.Serial;
+
+/**
+ * 工具执行中可预期的失败，例如参数指向的记录不存在
+ *
+ * <p>
+ * {@link ToolDispatcher} 把它转换为 {@code isError} 为 {@code true} 的 {@link org.example.spec.McpSchema.CallToolResult}，
+ * 消息原样作为结果文本返回给模型，不记录日志。它不填充栈轨迹，在高频失败的路径上抛出它的开销只有一次对象分配。
+ * </p>
+ */
+public class ToolExecutionException extends RuntimeException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public ToolExecutionException(String message) {
+        super(message, null, false, false);
+    }
+
+    public ToolExecutionException(String message, Throwable cause) {
+        super(message, cause, false, false);
+    }
+
+}
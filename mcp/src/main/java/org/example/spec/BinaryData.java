@@ -0,0 +1,554 @@
+package org.example.spec;
+
+import java.io.IOException;
+import java.io.Serial;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+import org.example.util.Assert;
+
+import com.fasterxml.jackson.core.Base64Variant;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * 以 Base64 形式出现在 JSON 中的二进制数据，用于 {@link McpSchema.BlobResourceContents#blob()}、
+ * {@link McpSchema.ImageContent#data()} 和 {@link McpSchema.AudioContent#data()}
+ *
+ * <p>
+ * 数据以解码后的字节保存，来源可以是内存中的字节、内存映射的文件或按需打开的输入流。
+ * 序列化时通过 {@link JsonGenerator#writeBinary(Base64Variant, InputStream, int)} 分块编码，
+ * 反序列化时通过 {@link JsonParser#readBinaryValue(Base64Variant, OutputStream)} 分块解码，
+ * 大的媒体数据在任何时刻都不需要把完整的 Base64 文本放在堆上。
+ * </p>
+ *
+ * <p>
+ * 由字节（或 Base64 文本）构成的数据按解码后的内容判断相等，与来源和分块方式无关，
+ * 因此直接构造的内容与序列化后再读回的内容相等。比较和第一次计算哈希值都要读出全部字节，
+ * 对内存映射的大文件代价与文件大小成正比。{@link #ofStream} 创建的数据每次读取都会打开新的输入流，
+ * 仍然按实例判断相等。
+ * </p>
+ */
+@JsonSerialize(using = BinaryData.Serializer.class)
+@JsonDeserialize(using = BinaryData.Deserializer.class)
+public abstract sealed class BinaryData permits BinaryData.Base64Text, BinaryData.Buffers, BinaryData.Streamed {
+
+    /**
+     * 反序列化时第一块的大小，之后每块翻倍直到 {@link #CHUNK_SIZE}
+     */
+    private static final int MIN_CHUNK_SIZE = 256;
+
+    /**
+     * 反序列化时每块的最大大小
+     */
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    /**
+     * 内存映射时每段的最大长度，单个 {@link ByteBuffer} 最多只能映射 2 GB
+     */
+    private static final long MAX_MAPPED_SEGMENT = 1L << 30;
+
+    /**
+     * 按内容计算的哈希值，{@code 0} 表示尚未计算
+     */
+    private int hash;
+
+    private BinaryData() {
+    }
+
+    /**
+     * 包装已经编码好的 Base64 文本，序列化时原样输出
+     *
+     * @param base64 Base64 文本
+     * @return 二进制数据
+     */
+    public static BinaryData ofBase64(String base64) {
+        Assert.notNull(base64, "base64 must not be null");
+        return new Base64Text(base64);
+    }
+
+    /**
+     * @param bytes 字节数组，不会被复制，调用方之后不应再修改
+     * @return 二进制数据
+     */
+    public static BinaryData of(byte[] bytes) {
+        Assert.notNull(bytes, "bytes must not be null");
+        return new Buffers(List.of(ByteBuffer.wrap(bytes)));
+    }
+
+    /**
+     * @param buffer 从当前位置到上限的内容，不会被复制
+     * @return 二进制数据
+     */
+    public static BinaryData of(ByteBuffer buffer) {
+        Assert.notNull(buffer, "buffer must not be null");
+        return new Buffers(List.of(buffer.slice()));
+    }
+
+    /**
+     * 以只读方式内存映射整个文件，页面由操作系统按需载入
+     *
+     * @param path 文件路径
+     * @return 二进制数据
+     * @throws IOException 如果文件无法打开或映射
+     */
+    public static BinaryData ofFile(Path path) throws IOException {
+        Assert.notNull(path, "path must not be null");
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return ofMapped(channel, 0, channel.size());
+        }
+    }
+
+    /**
+     * 以只读方式内存映射文件中的一段区域，映射在通道关闭后依然有效
+     *
+     * @param channel 文件通道
+     * @param position 区域的起始位置
+     * @param length 区域的长度
+     * @return 二进制数据
+     * @throws IOException 如果映射失败
+     */
+    public static BinaryData ofMapped(FileChannel channel, long position, long length) throws IOException {
+        Assert.notNull(channel, "channel must not be null");
+        List<ByteBuffer> segments = new ArrayList<>();
+        for (long offset = 0; offset < length; offset += MAX_MAPPED_SEGMENT) {
+            long size = Math.min(MAX_MAPPED_SEGMENT, length - offset);
+            segments.add(channel.map(FileChannel.MapMode.READ_ONLY, position + offset, size));
+        }
+        return new Buffers(segments);
+    }
+
+    /**
+     * 每次读取时重新打开输入流，适合数据来自外部存储、不希望常驻内存的场景
+     *
+     * @param length 解码后的字节数，未知时为 {@code -1}
+     * @param supplier 输入流的提供者，每次序列化都会调用一次
+     * @return 二进制数据
+     */
+    public static BinaryData ofStream(long length, StreamSupplier supplier) {
+        Assert.notNull(supplier, "supplier must not be null");
+        return new Streamed(length, supplier);
+    }
+
+    /**
+     * @return 解码后的字节数，未知时为 {@code -1}
+     */
+    public abstract long length();
+
+    /**
+     * 打开一个读取解码后字节的输入流，调用方负责关闭
+     *
+     * @return 输入流
+     * @throws IOException 如果无法打开底层数据
+     */
+    public abstract InputStream openStream() throws IOException;
+
+    /**
+     * 把全部字节读入一个数组，只适合确定数据不大的场景
+     *
+     * @return 解码后的字节
+     * @throws UncheckedIOException 如果读取失败
+     */
+    public byte[] toByteArray() {
+        try (InputStream in = openStream()) {
+            return in.readAllBytes();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 编码为 Base64 文本，会在堆上生成完整的字符串，只适合确定数据不大的场景
+     *
+     * @return Base64 文本
+     */
+    public String toBase64() {
+        return Base64.getEncoder().encodeToString(toByteArray());
+    }
+
+    /**
+     * 将数据以 Base64 字符串的形式写入 JSON
+     */
+    void writeTo(JsonGenerator gen, Base64Variant variant) throws IOException {
+        long length = length();
+        try (InputStream in = openStream()) {
+            gen.writeBinary(variant, in, length >= 0 && length <= Integer.MAX_VALUE ? (int) length : -1);
+        }
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof BinaryData other) || this instanceof Streamed || other instanceof Streamed) {
+            return false;
+        }
+        if (this instanceof Base64Text text && other instanceof Base64Text otherText
+                && text.base64.equals(otherText.base64)) {
+            return true;
+        }
+        if (this instanceof Buffers && other instanceof Buffers && length() != other.length()) {
+            return false;
+        }
+        try (InputStream in = openStream(); InputStream otherIn = other.openStream()) {
+            byte[] buffer = new byte[8192];
+            byte[] otherBuffer = new byte[8192];
+            while (true) {
+                int n = in.readNBytes(buffer, 0, buffer.length);
+                int m = otherIn.readNBytes(otherBuffer, 0, otherBuffer.length);
+                if (n != m || !Arrays.equals(buffer, 0, n, otherBuffer, 0, m)) {
+                    return false;
+                }
+                if (n < buffer.length) {
+                    return true;
+                }
+            }
+        }
+        catch (IOException | IllegalArgumentException e) {
+            // 无法读出（例如 Base64 文本无效）时只有同一个实例相等
+            return false;
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        if (this instanceof Streamed) {
+            return System.identityHashCode(this);
+        }
+        int h = hash;
+        if (h == 0) {
+            h = 1;
+            try (InputStream in = openStream()) {
+                byte[] buffer = new byte[8192];
+                int n;
+                while ((n = in.read(buffer)) > 0) {
+                    for (int i = 0; i < n; i++) {
+                        h = 31 * h + buffer[i];
+                    }
+                }
+            }
+            catch (IOException | IllegalArgumentException e) {
+                // 与 equals 一致：无效的 Base64 文本只与相同的文本相等
+                h = this instanceof Base64Text text ? text.base64.hashCode() : System.identityHashCode(this);
+            }
+            hash = h;
+        }
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        return "BinaryData[length=" + length() + "]";
+    }
+
+    /**
+     * 可能抛出 {@link IOException} 的输入流提供者
+     */
+    @FunctionalInterface
+    public interface StreamSupplier {
+
+        InputStream open() throws IOException;
+
+    }
+
+    /**
+     * 已经编码好的 Base64 文本
+     */
+    static final class Base64Text extends BinaryData {
+
+        private final String base64;
+
+        Base64Text(String base64) {
+            this.base64 = base64;
+        }
+
+        /**
+         * 按文本长度和填充推算，文本中带有换行等非 Base64 字符时只是近似值
+         */
+        @Override
+        public long length() {
+            int length = base64.length();
+            if (length % 4 != 0) {
+                return -1;
+            }
+            int padding = 0;
+            while (padding < 2 && length - padding > 0 && base64.charAt(length - padding - 1) == '=') {
+                padding++;
+            }
+            return (long) length / 4 * 3 - padding;
+        }
+
+        @Override
+        public InputStream openStream() {
+            return Base64.getMimeDecoder().wrap(new AsciiInputStream(base64));
+        }
+
+        @Override
+        public String toBase64() {
+            return base64;
+        }
+
+        @Override
+        void writeTo(JsonGenerator gen, Base64Variant variant) throws IOException {
+            gen.writeString(base64);
+        }
+
+    }
+
+    /**
+     * 内存中或内存映射的一组缓冲区
+     */
+    static final class Buffers extends BinaryData {
+
+        private final List<ByteBuffer> buffers;
+
+        private final long length;
+
+        Buffers(List<ByteBuffer> buffers) {
+            this.buffers = buffers;
+            long total = 0;
+            for (ByteBuffer buffer : buffers) {
+                total += buffer.remaining();
+            }
+            this.length = total;
+        }
+
+        @Override
+        public long length() {
+            return length;
+        }
+
+        @Override
+        public InputStream openStream() {
+            return new BuffersInputStream(buffers);
+        }
+
+        @Override
+        void writeTo(JsonGenerator gen, Base64Variant variant) throws IOException {
+            if (buffers.size() == 1 && buffers.get(0).hasArray()) {
+                ByteBuffer buffer = buffers.get(0);
+                gen.writeBinary(variant, buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+                return;
+            }
+            super.writeTo(gen, variant);
+        }
+
+    }
+
+    /**
+     * 按需打开的输入流
+     */
+    static final class Streamed extends BinaryData {
+
+        private final long length;
+
+        private final StreamSupplier supplier;
+
+        Streamed(long length, StreamSupplier supplier) {
+            this.length = length;
+            this.supplier = supplier;
+        }
+
+        @Override
+        public long length() {
+            return length;
+        }
+
+        @Override
+        public InputStream openStream() throws IOException {
+            return supplier.open();
+        }
+
+    }
+
+    /**
+     * 依次读取一组缓冲区的输入流，读取的是缓冲区的副本视图，不会改变原缓冲区的位置
+     */
+    private static final class BuffersInputStream extends InputStream {
+
+        private final List<ByteBuffer> buffers;
+
+        private int index;
+
+        private ByteBuffer current;
+
+        BuffersInputStream(List<ByteBuffer> buffers) {
+            this.buffers = buffers;
+        }
+
+        private ByteBuffer current() {
+            while (current == null || !current.hasRemaining()) {
+                if (index == buffers.size()) {
+                    return null;
+                }
+                current = buffers.get(index++).duplicate();
+            }
+            return current;
+        }
+
+        @Override
+        public int read() {
+            ByteBuffer buffer = current();
+            return buffer == null ? -1 : buffer.get() & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            ByteBuffer buffer = current();
+            if (buffer == null) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+    }
+
+    /**
+     * 按 ASCII 读取字符串的输入流，避免为解码 Base64 文本再复制一份字节数组
+     */
+    private static final class AsciiInputStream extends InputStream {
+
+        private final String text;
+
+        private int position;
+
+        AsciiInputStream(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public int read() {
+            return position < text.length() ? text.charAt(position++) & 0x7F : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (position >= text.length()) {
+                return -1;
+            }
+            int count = Math.min(length, text.length() - position);
+            for (int i = 0; i < count; i++) {
+                bytes[offset + i] = (byte) (text.charAt(position + i) & 0x7F);
+            }
+            position += count;
+            return count;
+        }
+
+    }
+
+    /**
+     * 把解码后的字节写入一系列块的输出流，结束时不需要再拼接成一个大数组
+     *
+     * <p>
+     * 块从 {@link #MIN_CHUNK_SIZE} 开始逐块翻倍，小图标只占用与自身相当的内存；
+     * 最后一块使用不到一半时复制成恰好大小的数组，不让空闲部分随数据一起保留。
+     * </p>
+     */
+    private static final class ChunkedOutputStream extends OutputStream {
+
+        private final List<ByteBuffer> chunks = new ArrayList<>();
+
+        private byte[] current;
+
+        private int count;
+
+        @Override
+        public void write(int b) {
+            ensureWritable();
+            current[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            while (length > 0) {
+                ensureWritable();
+                int n = Math.min(length, current.length - count);
+                System.arraycopy(bytes, offset, current, count, n);
+                count += n;
+                offset += n;
+                length -= n;
+            }
+        }
+
+        private void ensureWritable() {
+            if (current == null || count == current.length) {
+                if (current != null) {
+                    chunks.add(ByteBuffer.wrap(current));
+                }
+                current = new byte[current == null ? MIN_CHUNK_SIZE : Math.min(current.length * 2, CHUNK_SIZE)];
+                count = 0;
+            }
+        }
+
+        List<ByteBuffer> toBuffers() {
+            if (current != null && count > 0) {
+                chunks.add(ByteBuffer.wrap(count < current.length / 2 ? Arrays.copyOf(current, count) : current, 0,
+                    count).slice());
+                current = null;
+            }
+            return chunks;
+        }
+
+    }
+
+    static final class Serializer extends StdSerializer<BinaryData> {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        Serializer() {
+            super(BinaryData.class);
+        }
+
+        @Override
+        public void serialize(BinaryData value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            value.writeTo(gen, provider.getConfig().getBase64Variant());
+        }
+
+    }
+
+    static final class Deserializer extends StdDeserializer<BinaryData> {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        Deserializer() {
+            super(BinaryData.class);
+        }
+
+        @Override
+        public BinaryData deserialize(JsonParser parser, DeserializationContext ctxt) throws IOException {
+            ChunkedOutputStream out = new ChunkedOutputStream();
+            // 流式解析器直接从输入缓冲区解码，不会先把整段 Base64 文本构造成字符串
+            parser.readBinaryValue(ctxt.getBase64Variant(), out);
+            return new Buffers(out.toBuffers());
+        }
+
+    }
+
+}
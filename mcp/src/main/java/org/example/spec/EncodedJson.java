@@ -0,0 +1,200 @@
+package org.example.spec;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Serial;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.example.util.Assert;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * 已经编码好的 JSON 值，序列化时原样写出
+ *
+ * <p>
+ * 用作 {@link McpSchema.JSONRPCResponse#result()} 时，响应的外层仍由传输层序列化，{@code result} 部分只是把保存的
+ * UTF-8 字节复制到输出缓冲区，不再遍历对象，也不再转义字符串。实例只保存一份 UTF-8 字节，不另外保留字符串；
+ * 写入基于字符的生成器（例如 {@code writeValueAsString}）或调用 {@link #json()} 时才临时解码。
+ * 多个会话可以共享同一个实例。
+ * </p>
+ *
+ * <p>
+ * 写入 {@link com.fasterxml.jackson.databind.util.TokenBuffer} 时，改为解析字节并逐个复制 token。
+ * </p>
+ */
+@JsonSerialize(using = EncodedJson.Serializer.class)
+public final class EncodedJson {
+
+    private final Utf8Json json;
+
+    private EncodedJson(byte[] bytes) {
+        this.json = new Utf8Json(bytes);
+    }
+
+    /**
+     * 编码一个值
+     *
+     * @param writer 编码使用的 writer，会关闭缩进以保证结果中没有换行符
+     * @param value 要编码的值
+     * @return 编码后的值
+     * @throws IllegalArgumentException 如果值无法编码
+     */
+    public static EncodedJson encode(ObjectWriter writer, Object value) {
+        Assert.notNull(writer, "writer must not be null");
+        try {
+            return new EncodedJson(writer.without(SerializationFeature.INDENT_OUTPUT).writeValueAsBytes(value));
+        }
+        catch (IOException e) {
+            throw new IllegalArgumentException("Failed to encode " + value.getClass().getSimpleName(), e);
+        }
+    }
+
+    /**
+     * @return 编码后的 JSON 文本，每次调用都重新解码
+     */
+    public String json() {
+        return json.getValue();
+    }
+
+    /**
+     * @return 编码后的 UTF-8 字节数
+     */
+    public int length() {
+        return json.bytes.length;
+    }
+
+    @Override
+    public String toString() {
+        return json.getValue();
+    }
+
+    /**
+     * 以 UTF-8 字节为准的 {@link SerializableString}，只用于原样写出，字节不会被修改
+     *
+     * <p>
+     * 基于字节的生成器只调用不加引号的 UTF-8 方法，直接复制字节；其他方法按需解码。
+     * </p>
+     */
+    private static final class Utf8Json implements SerializableString {
+
+        private final byte[] bytes;
+
+        Utf8Json(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public String getValue() {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public int charLength() {
+            return getValue().length();
+        }
+
+        @Override
+        public byte[] asUnquotedUTF8() {
+            return bytes;
+        }
+
+        @Override
+        public int appendUnquotedUTF8(byte[] buffer, int offset) {
+            if (offset + bytes.length > buffer.length) {
+                return -1;
+            }
+            System.arraycopy(bytes, 0, buffer, offset, bytes.length);
+            return bytes.length;
+        }
+
+        @Override
+        public int writeUnquotedUTF8(OutputStream out) throws IOException {
+            out.write(bytes);
+            return bytes.length;
+        }
+
+        @Override
+        public int putUnquotedUTF8(ByteBuffer buffer) {
+            if (buffer.remaining() < bytes.length) {
+                return -1;
+            }
+            buffer.put(bytes);
+            return bytes.length;
+        }
+
+        @Override
+        public int appendUnquoted(char[] buffer, int offset) {
+            return text().appendUnquoted(buffer, offset);
+        }
+
+        @Override
+        public char[] asQuotedChars() {
+            return text().asQuotedChars();
+        }
+
+        @Override
+        public byte[] asQuotedUTF8() {
+            return text().asQuotedUTF8();
+        }
+
+        @Override
+        public int appendQuotedUTF8(byte[] buffer, int offset) {
+            return text().appendQuotedUTF8(buffer, offset);
+        }
+
+        @Override
+        public int appendQuoted(char[] buffer, int offset) {
+            return text().appendQuoted(buffer, offset);
+        }
+
+        @Override
+        public int writeQuotedUTF8(OutputStream out) throws IOException {
+            return text().writeQuotedUTF8(out);
+        }
+
+        @Override
+        public int putQuotedUTF8(ByteBuffer buffer) throws IOException {
+            return text().putQuotedUTF8(buffer);
+        }
+
+        @Override
+        public String toString() {
+            return getValue();
+        }
+
+        private SerializedString text() {
+            return new SerializedString(getValue());
+        }
+
+    }
+
+    static final class Serializer extends StdSerializer<EncodedJson> {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        Serializer() {
+            super(EncodedJson.class);
+        }
+
+        @Override
+        public void serialize(EncodedJson value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            if (RawJson.acceptsRaw(gen)) {
+                gen.writeRawValue(value.json);
+                return;
+            }
+            RawJson.copy(McpSchema.MAP_READER.createParser(value.json.bytes), gen);
+        }
+
+    }
+
+}
@@ -0,0 +1,453 @@
+package org.example.spec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+import org.example.util.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.deser.DefaultDeserializationContext;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * 基于 Jackson {@link JsonParser} 的 JSON-RPC 消息流式解码器
+ *
+ * <p>
+ * 只遍历一次输入的 token 流：在读取字段的同时根据 {@code method}/{@code id}/{@code result}/{@code error}
+ * 是否出现来判断消息类型，读完后直接构造 {@link McpSchema.JSONRPCRequest}、{@link McpSchema.JSONRPCNotification}
+ * 或 {@link McpSchema.JSONRPCResponse}，不再先构建 {@code HashMap} 再 {@code convertValue} 一遍。
+ * </p>
+ *
+ * <p>
+ * {@code params}、{@code result} 的绑定结果与原先经由 Map 中转时一致（{@code LinkedHashMap}/{@code ArrayList}/标量），
+ * 未知字段会被直接跳过。开启 {@code lazyParams} 后，请求和通知的 {@code params} 以 {@link LazyParams}
+ * 的形式保留原始 token，直到 {@link McpTransport#unmarshalFrom} 时才绑定。
+ * </p>
+ *
+ * <p>
+ * 解码器本身无状态，可以在多个线程之间共享。
+ * </p>
+ *
+ * @see McpSchema#deserializeJsonRpcMessage(ObjectMapper, String)
+ */
+public final class JsonRpcMessageDecoder {
+
+    private static final Logger logger = LoggerFactory.getLogger(JsonRpcMessageDecoder.class);
+
+    /**
+     * 提供反序列化配置的 ObjectMapper
+     */
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 是否将 params 保留为 {@link LazyParams}
+     */
+    private final boolean lazyParams;
+
+    /**
+     * 创建一个立即绑定 params 的解码器
+     *
+     * @param objectMapper 提供反序列化配置的 ObjectMapper
+     */
+    public JsonRpcMessageDecoder(ObjectMapper objectMapper) {
+        this(objectMapper, false);
+    }
+
+    /**
+     * 创建一个解码器
+     *
+     * @param objectMapper 提供反序列化配置的 ObjectMapper
+     * @param lazyParams 为 {@code true} 时请求和通知的 params 以 {@link LazyParams} 的形式延迟绑定
+     */
+    public JsonRpcMessageDecoder(ObjectMapper objectMapper, boolean lazyParams) {
+        Assert.notNull(objectMapper, "objectMapper must not be null");
+        this.objectMapper = objectMapper;
+        this.lazyParams = lazyParams;
+    }
+
+    /**
+     * 解码 JSON 字符串形式的消息
+     *
+     * @param jsonText JSON 字符串
+     * @return 解码后的消息
+     * @throws IOException 如果 JSON 格式错误或不是 JSON 对象
+     * @throws IllegalArgumentException 如果无法识别为任何已知的 JSONRPCMessage 类型
+     */
+    public McpSchema.JSONRPCMessage decode(String jsonText) throws IOException {
+        logger.debug("Received JSON message: {}", jsonText);
+
+        try (JsonParser parser = objectMapper.createParser(jsonText)) {
+            return readMessage(parser, () -> jsonText);
+        }
+    }
+
+    /**
+     * 解码 UTF-8 字节数组中一段区间内的消息
+     *
+     * @param data 包含 UTF-8 编码 JSON 的字节数组
+     * @param offset 消息在数组中的起始位置
+     * @param length 消息的字节长度
+     * @return 解码后的消息
+     * @throws IOException 如果 JSON 格式错误或不是 JSON 对象
+     * @throws IllegalArgumentException 如果无法识别为任何已知的 JSONRPCMessage 类型
+     */
+    public McpSchema.JSONRPCMessage decode(byte[] data, int offset, int length) throws IOException {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Received JSON message: {}", new String(data, offset, length, StandardCharsets.UTF_8));
+        }
+
+        try (JsonParser parser = objectMapper.createParser(data, offset, length)) {
+            return readMessage(parser, () -> new String(data, offset, length, StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * 解码缓冲区中 position 到 limit 之间的消息，不会改变缓冲区的 position
+     *
+     * @param buffer 包含 UTF-8 编码 JSON 的缓冲区
+     * @return 解码后的消息
+     * @throws IOException 如果 JSON 格式错误或不是 JSON 对象
+     * @throws IllegalArgumentException 如果无法识别为任何已知的 JSONRPCMessage 类型
+     */
+    public McpSchema.JSONRPCMessage decode(ByteBuffer buffer) throws IOException {
+        if (buffer.hasArray()) {
+            return decode(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        }
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("Received JSON message: {}", StandardCharsets.UTF_8.decode(buffer.duplicate()));
+        }
+
+        try (JsonParser parser = objectMapper.createParser(new ByteBufferBackedInputStream(buffer.duplicate()))) {
+            return readMessage(parser, () -> StandardCharsets.UTF_8.decode(buffer.duplicate()).toString());
+        }
+    }
+
+    /**
+     * 解码输入流中的消息，流中应只包含一条消息
+     *
+     * @param inputStream 包含 JSON 的输入流
+     * @return 解码后的消息
+     * @throws IOException 如果读取失败、JSON 格式错误或不是 JSON 对象
+     * @throws IllegalArgumentException 如果无法识别为任何已知的 JSONRPCMessage 类型
+     */
+    public McpSchema.JSONRPCMessage decode(InputStream inputStream) throws IOException {
+        try (JsonParser parser = objectMapper.createParser(inputStream)) {
+            return readMessage(parser, () -> "<input stream>");
+        }
+    }
+
+    /**
+     * 解码一条消息或一个 JSON-RPC 批量数组
+     *
+     * <p>
+     * 顶层为数组时按需逐个解析数组元素：下游每请求一个元素才解析一个，解析完立即发出，
+     * 大批量中的第一个消息不必等待最后一个消息解析完成，也不会把整个数组构建成树。
+     * 顶层为对象时发出唯一的一条消息。
+     * </p>
+     *
+     * <p>
+     * 返回的 {@link Flux} 同步地从 {@code data} 中读取，调用方在其完成之前不能修改该数组。
+     * 空数组、非对象元素以及无法识别的元素会以错误结束。
+     * </p>
+     *
+     * @param data 包含 UTF-8 编码 JSON 的字节数组
+     * @param offset 起始位置
+     * @param length 字节长度
+     * @return 依次发出各消息的 {@link Flux}
+     */
+    public Flux<McpSchema.JSONRPCMessage> decodeAll(byte[] data, int offset, int length) {
+        return decodeAll(() -> objectMapper.createParser(data, offset, length),
+                () -> new String(data, offset, length, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解码一条消息或一个 JSON-RPC 批量数组，参见 {@link #decodeAll(byte[], int, int)}
+     *
+     * @param jsonText JSON 字符串
+     * @return 依次发出各消息的 {@link Flux}
+     */
+    public Flux<McpSchema.JSONRPCMessage> decodeAll(String jsonText) {
+        return decodeAll(() -> objectMapper.createParser(jsonText), () -> jsonText);
+    }
+
+    /**
+     * 解码输入流中的一条消息或一个 JSON-RPC 批量数组，参见 {@link #decodeAll(byte[], int, int)}
+     *
+     * <p>
+     * 数组元素随着输入流的读取逐个发出，适合直接消费 HTTP 响应体等尚未完全到达的输入
+     * </p>
+     *
+     * @param inputStream 包含 JSON 的输入流
+     * @return 依次发出各消息的 {@link Flux}
+     */
+    public Flux<McpSchema.JSONRPCMessage> decodeAll(InputStream inputStream) {
+        return decodeAll(() -> objectMapper.createParser(inputStream), () -> "<input stream>");
+    }
+
+    /**
+     * 一次性解码一条消息或一个 JSON-RPC 批量数组中的所有消息
+     *
+     * <p>
+     * 与 {@link #decodeAll(byte[], int, int)} 的区别在于任何一个元素无效时都不返回任何消息，
+     * 适合需要先确认整个请求体有效再决定如何响应的场景
+     * </p>
+     *
+     * @param data 包含 UTF-8 编码 JSON 的字节数组
+     * @param offset 起始位置
+     * @param length 字节长度
+     * @return 按数组顺序排列的消息，顶层为对象时只包含一条消息
+     * @throws IOException 如果 JSON 格式错误或结构不是 JSON-RPC 消息
+     * @throws IllegalArgumentException 如果批量数组为空或某条消息无法识别
+     */
+    public List<McpSchema.JSONRPCMessage> decodeBatch(byte[] data, int offset, int length) throws IOException {
+        BatchReader reader = new BatchReader(objectMapper.createParser(data, offset, length),
+                () -> new String(data, offset, length, StandardCharsets.UTF_8));
+        try {
+            List<McpSchema.JSONRPCMessage> messages = new ArrayList<>();
+            McpSchema.JSONRPCMessage message;
+            while ((message = reader.next()) != null) {
+                messages.add(message);
+            }
+            return messages;
+        }
+        finally {
+            reader.close();
+        }
+    }
+
+    private Flux<McpSchema.JSONRPCMessage> decodeAll(Callable<JsonParser> parserFactory, Supplier<String> source) {
+        return Flux.generate(() -> new BatchReader(parserFactory.call(), source), (reader, sink) -> {
+            try {
+                McpSchema.JSONRPCMessage message = reader.next();
+                if (message != null) {
+                    sink.next(message);
+                }
+                else {
+                    sink.complete();
+                }
+            }
+            catch (IOException | IllegalArgumentException e) {
+                sink.error(e);
+            }
+            return reader;
+        }, BatchReader::close);
+    }
+
+    /**
+     * 从解析器的当前位置读取一条 JSON-RPC 消息
+     *
+     * <p>
+     * 解析器应位于消息对象的 {@link JsonToken#START_OBJECT} 上，或尚未读取任何 token。
+     * 返回时解析器位于该对象的 {@link JsonToken#END_OBJECT} 上。
+     * </p>
+     *
+     * @param parser 由 {@link #objectMapper} 创建的解析器
+     * @param source 原始输入的描述，仅在消息类型无法识别时用于构造异常信息
+     * @return 解码后的消息
+     * @throws IOException 如果 JSON 格式错误或不是 JSON 对象
+     * @throws IllegalArgumentException 如果无法识别为任何已知的 JSONRPCMessage 类型
+     */
+    McpSchema.JSONRPCMessage readMessage(JsonParser parser, Supplier<String> source) throws IOException {
+
+        JsonToken token = parser.hasCurrentToken() ? parser.currentToken() : parser.nextToken();
+        if (token != JsonToken.START_OBJECT) {
+            throw MismatchedInputException.from(parser, McpSchema.JSONRPCMessage.class,
+                "Cannot deserialize JSONRPCMessage: expected JSON object but was " + token);
+        }
+
+        DeserializationContext ctxt = null;
+
+        String jsonrpc = null;
+        String method = null;
+        McpMethod mcpMethod = null;
+        Object id = null;
+        Object params = null;
+        Object result = null;
+        McpSchema.JSONRPCResponse.JSONRPCError error = null;
+
+        boolean hasMethod = false;
+        boolean hasId = false;
+        boolean hasResult = false;
+        boolean hasError = false;
+
+        for (String field = parser.nextFieldName(); field != null; field = parser.nextFieldName()) {
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "jsonrpc" -> jsonrpc = readString(parser, value);
+                case "method" -> {
+                    hasMethod = true;
+                    // 已知方法名直接在解析器的字符缓冲区上查找，并换成 McpSchema 中的常量实例
+                    mcpMethod = value == JsonToken.VALUE_STRING ? McpMethod.of(parser.getTextCharacters(),
+                        parser.getTextOffset(), parser.getTextLength()) : null;
+                    method = mcpMethod != null ? mcpMethod.wireName() : readString(parser, value);
+                }
+                case "id" -> {
+                    hasId = true;
+                    id = readId(parser, value);
+                }
+                case "params" -> {
+                    if (value == JsonToken.VALUE_NULL) {
+                        params = null;
+                    }
+                    else if (lazyParams) {
+                        params = LazyParams.copyOf(parser);
+                    }
+                    else {
+                        ctxt = ctxt != null ? ctxt : createContext(parser);
+                        params = ctxt.readValue(parser, Object.class);
+                    }
+                }
+                case "result" -> {
+                    hasResult = true;
+                    if (value != JsonToken.VALUE_NULL) {
+                        ctxt = ctxt != null ? ctxt : createContext(parser);
+                        result = ctxt.readValue(parser, Object.class);
+                    }
+                }
+                case "error" -> {
+                    hasError = true;
+                    if (value != JsonToken.VALUE_NULL) {
+                        ctxt = ctxt != null ? ctxt : createContext(parser);
+                        error = ctxt.readValue(parser, McpSchema.JSONRPCResponse.JSONRPCError.class);
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+
+        if (hasMethod && hasId) {
+            return new McpSchema.JSONRPCRequest(jsonrpc, method, id, params, mcpMethod);
+        }
+        else if (hasMethod) {
+            return new McpSchema.JSONRPCNotification(jsonrpc, method, params, mcpMethod);
+        }
+        else if (hasResult || hasError) {
+            return new McpSchema.JSONRPCResponse(jsonrpc, id, result, error);
+        }
+
+        throw new IllegalArgumentException("Cannot deserialize JSONRPCMessage: " + source.get());
+    }
+
+    /**
+     * 逐个读取顶层对象或顶层数组元素的状态
+     */
+    private final class BatchReader {
+
+        private final JsonParser parser;
+
+        private final Supplier<String> source;
+
+        /**
+         * 顶层是否为数组，在读取第一个 token 之前为 {@code null}
+         */
+        private Boolean batch;
+
+        private int index;
+
+        private boolean done;
+
+        BatchReader(JsonParser parser, Supplier<String> source) {
+            this.parser = parser;
+            this.source = source;
+        }
+
+        /**
+         * @return 下一条消息，没有更多消息时返回 {@code null}
+         */
+        McpSchema.JSONRPCMessage next() throws IOException {
+            if (done) {
+                return null;
+            }
+            if (batch == null) {
+                JsonToken first = parser.nextToken();
+                batch = first == JsonToken.START_ARRAY;
+                if (!batch) {
+                    done = true;
+                    return readMessage(parser, source);
+                }
+            }
+
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.END_ARRAY) {
+                done = true;
+                if (index == 0) {
+                    throw new IllegalArgumentException("Cannot deserialize JSONRPCMessage: empty batch");
+                }
+                return null;
+            }
+            int element = index++;
+            return readMessage(parser, () -> "batch element #" + element + " of " + source.get());
+        }
+
+        void close() {
+            try {
+                parser.close();
+            }
+            catch (IOException e) {
+                logger.debug("Failed to close parser", e);
+            }
+        }
+
+    }
+
+    /**
+     * 读取字符串字段，非字符串的标量按 Jackson 的默认规则转换为字符串
+     */
+    private static String readString(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_STRING) {
+            return parser.getText();
+        }
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token.isScalarValue()) {
+            return parser.getValueAsString();
+        }
+        throw MismatchedInputException.from(parser, String.class,
+            "Cannot deserialize value of type `java.lang.String` from " + token);
+    }
+
+    /**
+     * 读取请求 ID，得到的类型与经由 {@code Map<String, Object>} 中转时一致
+     */
+    private Object readId(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_STRING) {
+            return parser.getText();
+        }
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        DeserializationConfig config = objectMapper.getDeserializationConfig();
+        if (token == JsonToken.VALUE_NUMBER_INT && !config.isEnabled(DeserializationFeature.USE_BIG_INTEGER_FOR_INTS)
+            && !config.isEnabled(DeserializationFeature.USE_LONG_FOR_INTS)) {
+            return parser.getNumberValue();
+        }
+        return createContext(parser).readValue(parser, Object.class);
+    }
+
+    /**
+     * 为当前消息创建一个反序列化上下文，同一条消息内的各个字段共用该上下文
+     */
+    private DeserializationContext createContext(JsonParser parser) {
+        return ((DefaultDeserializationContext) objectMapper.getDeserializationContext())
+            .createInstance(objectMapper.getDeserializationConfig(), parser, objectMapper.getInjectableValues());
+    }
+
+}
@@ -0,0 +1,134 @@
+package org.example.spec;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+/**
+ * 延迟绑定的 {@code params}
+ *
+ * <p>
+ * 开启延迟绑定的 {@link JsonRpcMessageDecoder} 不会把 {@code params} 构建成 {@code LinkedHashMap} 树，
+ * 而是把原始 token 保存在 {@link TokenBuffer} 中，等到 {@link McpTransport#unmarshalFrom} 需要具体类型
+ * （如 {@link McpSchema.CallToolRequest}）时才直接从 token 绑定，且同一类型只绑定一次。
+ * 只按 {@code method} 转发或丢弃消息的路由因此完全不需要构建参数树。
+ * </p>
+ *
+ * <p>
+ * 重新序列化时（例如转发消息）直接回放保存的 token，输出与原始 JSON 等价。
+ * </p>
+ */
+public final class LazyParams implements JsonSerializable {
+
+    /**
+     * 原始 params 的 token 副本
+     */
+    private final TokenBuffer tokens;
+
+    /**
+     * 第一次成功绑定的目标类型
+     */
+    private JavaType boundType;
+
+    /**
+     * 第一次成功绑定的结果
+     */
+    private Object boundValue;
+
+    /**
+     * @param tokens 包含且仅包含一个完整 JSON 值的 token 缓冲区
+     */
+    LazyParams(TokenBuffer tokens) {
+        this.tokens = tokens;
+    }
+
+    /**
+     * 从解析器的当前位置复制一个完整的 JSON 值
+     *
+     * @param parser 位于值的第一个 token 上的解析器，返回时位于该值的最后一个 token 上
+     * @return 延迟绑定的 params
+     * @throws IOException 如果读取 token 失败
+     */
+    static LazyParams copyOf(JsonParser parser) throws IOException {
+        TokenBuffer buffer = new TokenBuffer(parser, null);
+        buffer.copyCurrentStructure(parser);
+        return new LazyParams(buffer);
+    }
+
+    /**
+     * 将 params 绑定为指定类型
+     *
+     * <p>
+     * 第一次成功绑定的结果会被缓存，之后以相同类型调用时直接返回缓存结果；以其他类型调用时重新从 token 绑定。
+     * </p>
+     *
+     * @param objectMapper 用于绑定的 ObjectMapper
+     * @param typeRef 目标类型
+     * @return 绑定后的对象
+     * @param <T> 目标类型
+     * @throws IllegalArgumentException 如果 params 无法绑定为目标类型，与 {@link ObjectMapper#convertValue} 保持一致
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T bind(ObjectMapper objectMapper, TypeReference<T> typeRef) {
+        return (T) bind(objectMapper.readerFor(typeRef));
+    }
+
+    /**
+     * 使用预先创建好的 reader 绑定 params，通常来自 {@link McpCodecRegistry}
+     *
+     * <p>
+     * 缓存规则与 {@link #bind(ObjectMapper, TypeReference)} 相同，以 reader 的目标类型区分。
+     * </p>
+     *
+     * @param reader 目标类型的 reader
+     * @return 绑定后的对象
+     * @throws IllegalArgumentException 如果 params 无法绑定为目标类型
+     */
+    public synchronized Object bind(ObjectReader reader) {
+        JavaType type = reader.getValueType();
+        if (type.equals(boundType)) {
+            return boundValue;
+        }
+        Object value;
+        try (JsonParser parser = tokens.asParser(reader)) {
+            value = reader.readValue(parser);
+        }
+        catch (IOException e) {
+            throw new IllegalArgumentException("Failed to bind params to " + type.toCanonical(), e);
+        }
+        if (boundType == null) {
+            boundType = type;
+            boundValue = value;
+        }
+        return value;
+    }
+
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        try (JsonParser parser = tokens.asParser(gen.getCodec())) {
+            parser.nextToken();
+            gen.copyCurrentStructure(parser);
+        }
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer)
+        throws IOException {
+        serialize(gen, serializers);
+    }
+
+    @Override
+    public String toString() {
+        return "LazyParams[" + tokens + "]";
+    }
+
+}
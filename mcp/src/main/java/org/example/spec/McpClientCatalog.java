@@ -0,0 +1,250 @@
+package org.example.spec;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * 客户端的服务端目录缓存：工具、资源、资源模板和提示词列表
+ *
+ * <p>
+ * 每个列表在第一次读取时按 {@code nextCursor} 取完所有页面后缓存，之后的读取直接返回缓存的不可变列表，
+ * 不再产生请求；同时发生的多次读取共享同一次加载。只有收到对应的 {@code notifications/.../list_changed} 通知时
+ * 缓存才会失效，已经被读取过的列表在失效后立即在后台重新加载，下一次读取通常不需要等待。
+ * {@code notifications/resources/list_changed} 同时使资源和资源模板列表失效。
+ * </p>
+ *
+ * <p>
+ * 同一个列表的页面只能依次请求（下一页的游标来自上一页的响应），{@link #loadAll()} 并行加载四个列表。
+ * 加载失败不会被缓存，下一次读取重新请求。
+ * </p>
+ *
+ * @see McpClientSession.Builder#catalogCache(boolean)
+ */
+public final class McpClientCatalog {
+
+    private static final Logger logger = LoggerFactory.getLogger(McpClientCatalog.class);
+
+    private static final TypeReference<McpSchema.ListToolsResult> LIST_TOOLS_RESULT = new TypeReference<>() {
+    };
+
+    private static final TypeReference<McpSchema.ListResourcesResult> LIST_RESOURCES_RESULT = new TypeReference<>() {
+    };
+
+    private static final TypeReference<McpSchema.ListResourceTemplatesResult> LIST_RESOURCE_TEMPLATES_RESULT = new TypeReference<>() {
+    };
+
+    private static final TypeReference<McpSchema.ListPromptsResult> LIST_PROMPTS_RESULT = new TypeReference<>() {
+    };
+
+    private final Entry<McpSchema.Tool, McpSchema.ListToolsResult> tools;
+
+    private final Entry<McpSchema.Resource, McpSchema.ListResourcesResult> resources;
+
+    private final Entry<McpSchema.ResourceTemplate, McpSchema.ListResourceTemplatesResult> resourceTemplates;
+
+    private final Entry<McpSchema.Prompt, McpSchema.ListPromptsResult> prompts;
+
+    McpClientCatalog(McpClientSession session) {
+        this.tools = new Entry<>(session, McpSchema.METHOD_TOOLS_LIST, LIST_TOOLS_RESULT,
+                McpSchema.ListToolsResult::tools, McpSchema.ListToolsResult::nextCursor);
+        this.resources = new Entry<>(session, McpSchema.METHOD_RESOURCES_LIST, LIST_RESOURCES_RESULT,
+                McpSchema.ListResourcesResult::resources, McpSchema.ListResourcesResult::nextCursor);
+        this.resourceTemplates = new Entry<>(session, McpSchema.METHOD_RESOURCES_TEMPLATES_LIST,
+                LIST_RESOURCE_TEMPLATES_RESULT, McpSchema.ListResourceTemplatesResult::resourceTemplates,
+                McpSchema.ListResourceTemplatesResult::nextCursor);
+        this.prompts = new Entry<>(session, McpSchema.METHOD_PROMPT_LIST, LIST_PROMPTS_RESULT,
+                McpSchema.ListPromptsResult::prompts, McpSchema.ListPromptsResult::nextCursor);
+    }
+
+    /**
+     * @return 服务端的所有工具，已缓存时不发出请求
+     */
+    public Mono<List<McpSchema.Tool>> tools() {
+        return tools.get();
+    }
+
+    /**
+     * @param name 工具名
+     * @return 工具，不存在时为空
+     */
+    public Mono<McpSchema.Tool> tool(String name) {
+        return tools().flatMap(list -> Mono.justOrEmpty(
+                list.stream().filter(tool -> tool.name().equals(name)).findFirst()));
+    }
+
+    /**
+     * @return 服务端的所有资源，已缓存时不发出请求
+     */
+    public Mono<List<McpSchema.Resource>> resources() {
+        return resources.get();
+    }
+
+    /**
+     * @return 服务端的所有资源模板，已缓存时不发出请求
+     */
+    public Mono<List<McpSchema.ResourceTemplate>> resourceTemplates() {
+        return resourceTemplates.get();
+    }
+
+    /**
+     * @return 服务端的所有提示词，已缓存时不发出请求
+     */
+    public Mono<List<McpSchema.Prompt>> prompts() {
+        return prompts.get();
+    }
+
+    /**
+     * 并行加载四个列表，服务端不支持的列表（例如没有 {@code prompts} 能力）只记录日志
+     *
+     * @return 所有列表加载完成或失败后完成
+     */
+    public Mono<Void> loadAll() {
+        return Mono.when(preload(tools), preload(resources), preload(resourceTemplates), preload(prompts));
+    }
+
+    /**
+     * 丢弃所有缓存，下一次读取重新请求
+     */
+    public void clear() {
+        tools.clear();
+        resources.clear();
+        resourceTemplates.clear();
+        prompts.clear();
+    }
+
+    /**
+     * 根据 {@code list_changed} 通知使对应的列表失效
+     *
+     * @param method 通知方法
+     */
+    void onListChanged(String method) {
+        switch (method) {
+            case McpSchema.METHOD_NOTIFICATION_TOOLS_LIST_CHANGED -> tools.invalidate();
+            case McpSchema.METHOD_NOTIFICATION_RESOURCES_LIST_CHANGED -> {
+                resources.invalidate();
+                resourceTemplates.invalidate();
+            }
+            case McpSchema.METHOD_NOTIFICATION_PROMPTS_LIST_CHANGED -> prompts.invalidate();
+            default -> {
+            }
+        }
+    }
+
+    private static Mono<Void> preload(Entry<?, ?> entry) {
+        return entry.get()
+            .onErrorResume(error -> {
+                logger.debug("Failed to load {}: {}", entry.method, error.getMessage());
+                return Mono.empty();
+            })
+            .then();
+    }
+
+    /**
+     * 一个列表的缓存
+     *
+     * @param <T> 条目类型
+     * @param <R> 列表结果类型
+     */
+    private static final class Entry<T, R> {
+
+        private final McpClientSession session;
+
+        private final String method;
+
+        private final TypeReference<R> resultType;
+
+        private final Function<R, List<T>> items;
+
+        private final Function<R, String> nextCursor;
+
+        /**
+         * 已完成或正在进行的加载，失效后为 {@code null}
+         */
+        private final AtomicReference<Mono<List<T>>> cached = new AtomicReference<>();
+
+        Entry(McpClientSession session, String method, TypeReference<R> resultType, Function<R, List<T>> items,
+            Function<R, String> nextCursor) {
+            this.session = session;
+            this.method = method;
+            this.resultType = resultType;
+            this.items = items;
+            this.nextCursor = nextCursor;
+        }
+
+        Mono<List<T>> get() {
+            return Mono.defer(() -> {
+                while (true) {
+                    Mono<List<T>> current = cached.get();
+                    if (current != null) {
+                        return current;
+                    }
+                    Mono<List<T>> load = newLoad();
+                    if (cached.compareAndSet(null, load)) {
+                        return load;
+                    }
+                }
+            });
+        }
+
+        void invalidate() {
+            if (cached.getAndSet(null) != null) {
+                // 列表正在被使用，在后台重新加载，下一次读取不必等待
+                get().subscribe(null, error -> logger.debug("Failed to reload {}: {}", method, error.getMessage()));
+            }
+        }
+
+        void clear() {
+            cached.set(null);
+        }
+
+        private Mono<List<T>> newLoad() {
+            AtomicReference<Mono<List<T>>> self = new AtomicReference<>();
+            Mono<List<T>> load = fetchAll().doOnError(error -> cached.compareAndSet(self.get(), null)).cache();
+            self.set(load);
+            return load;
+        }
+
+        private Mono<List<T>> fetchAll() {
+            return Mono.defer(() -> {
+                Set<String> seen = new HashSet<>();
+                List<T> all = new ArrayList<>();
+                return fetchPages(seen, all).then(Mono.fromSupplier(() -> List.copyOf(all)));
+            });
+        }
+
+        private Mono<Void> fetchPages(Set<String> seen, List<T> all) {
+            return fetch(null).expand(result -> {
+                String cursor = nextCursor.apply(result);
+                if (cursor == null) {
+                    return Mono.empty();
+                }
+                if (!seen.add(cursor)) {
+                    return Mono.error(new IllegalStateException("Server repeated cursor for " + method));
+                }
+                return fetch(cursor);
+            }).doOnNext(result -> {
+                List<T> page = items.apply(result);
+                if (page != null) {
+                    all.addAll(page);
+                }
+            }).then();
+        }
+
+        private Mono<R> fetch(String cursor) {
+            return session.sendRequest(method, new McpSchema.PaginatedRequest(cursor), resultType);
+        }
+
+    }
+
+}
@@ -0,0 +1,667 @@
+package org.example.spec;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.example.util.Assert;
+import org.example.util.AsyncSemaphore;
+import org.example.util.HashedWheelTimer;
+import org.example.util.LongObjectMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.publisher.Sinks;
+
+/**
+ * 客户端会话：把发出的请求与服务端的响应对应起来，并把服务端发来的请求和通知交给注册的处理器
+ *
+ * <p>
+ * 发出的请求使用单调递增的 {@code long} ID，待响应的请求按 ID 的低位分散到若干个
+ * {@link LongObjectMap} 中，每个分段各自加锁。与 {@code ConcurrentHashMap<Object, ...>} 相比，
+ * 每个在途请求只有一个条目对象和一个定时器句柄，没有装箱的键和哈希表节点。
+ * 响应的 ID 反序列化后可能是 {@link Integer}、{@link Long}，也可能被对端回显为数字字符串，都按数值查找；
+ * 对端自己生成的请求 ID（可能是任意字符串）只用于回复，不进入待响应表。
+ * </p>
+ *
+ * <p>
+ * 请求超时由共享的 {@link HashedWheelTimer} 驱动，而不是为每个请求调度一个任务。
+ * 响应、超时、取消和发送失败谁先从表中移除条目谁就负责结束请求，其余的都不再生效。
+ * 已经发出的请求被调用方取消或超时时，会向服务端发送 {@code notifications/cancelled}；
+ * 服务端对它发来的请求发送同样的通知时，对应处理器的订阅会被取消，且不再回复。
+ * </p>
+ *
+ * <p>
+ * 所有请求在同一个传输上流水线发送，不等待之前的响应。可以按方法限制同时在途的请求数
+ * （例如最多 64 个 {@code tools/call}），超出的请求在 {@link AsyncSemaphore} 上排队，
+ * 不占用线程；请求超时从调用时开始计算，包含排队的时间，排队超过期限的请求直接以
+ * {@link TimeoutException} 结束而不会发出。
+ * </p>
+ */
+public final class McpClientSession {
+
+    private static final Logger logger = LoggerFactory.getLogger(McpClientSession.class);
+
+    /**
+     * 待响应表的分段数，必须是 2 的幂
+     */
+    private static final int STRIPES = 16;
+
+    private static final TypeReference<McpSchema.CallToolResult> CALL_TOOL_RESULT = new TypeReference<>() {
+    };
+
+    private static final TypeReference<McpSchema.ReadResourceResult> READ_RESOURCE_RESULT = new TypeReference<>() {
+    };
+
+    private static final TypeReference<McpSchema.GetPromptResult> GET_PROMPT_RESULT = new TypeReference<>() {
+    };
+
+    private static final TypeReference<McpSchema.CancelledNotification> CANCELLED_NOTIFICATION = new TypeReference<>() {
+    };
+
+    private final McpClientTransport transport;
+
+    private final long requestTimeoutNanos;
+
+    private final HashedWheelTimer timer;
+
+    private final Map<String, RequestHandler<?>> requestHandlers;
+
+    private final Map<String, NotificationHandler> notificationHandlers;
+
+    private final AtomicLong nextId = new AtomicLong(1);
+
+    private final LongObjectMap<Pending>[] pending;
+
+    /**
+     * 按方法名的并发上限，不在其中的方法不限制
+     */
+    private final Map<String, AsyncSemaphore> concurrencyLimits;
+
+    /**
+     * 正在处理的服务端请求，键为归一化的请求 ID，收到 {@code notifications/cancelled} 时触发
+     */
+    private final ConcurrentHashMap<Object, Sinks.Empty<Void>> inboundRequests = new ConcurrentHashMap<>();
+
+    /**
+     * 服务端目录缓存，未启用时为 {@code null}
+     */
+    private final McpClientCatalog catalog;
+
+    @SuppressWarnings("unchecked")
+    private McpClientSession(Builder builder) {
+        this.transport = builder.transport;
+        this.requestTimeoutNanos = builder.requestTimeout.toNanos();
+        this.timer = builder.timer != null ? builder.timer : HashedWheelTimer.shared();
+        this.requestHandlers = Map.copyOf(builder.requestHandlers);
+        this.notificationHandlers = Map.copyOf(builder.notificationHandlers);
+        Map<String, AsyncSemaphore> limits = new HashMap<>();
+        builder.concurrencyLimits.forEach((method, permits) -> limits.put(method, new AsyncSemaphore(permits)));
+        this.concurrencyLimits = Map.copyOf(limits);
+        this.catalog = builder.catalogCache ? new McpClientCatalog(this) : null;
+        this.pending = (LongObjectMap<Pending>[]) new LongObjectMap<?>[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            pending[i] = new LongObjectMap<>();
+        }
+    }
+
+    public static Builder builder(McpClientTransport transport) {
+        return new Builder(transport);
+    }
+
+    /**
+     * 连接传输并开始接收消息
+     *
+     * @return 传输就绪时完成
+     */
+    public Mono<Void> connect() {
+        return transport.connect(message -> message.flatMap(this::handle));
+    }
+
+    /**
+     * 发送请求并等待响应
+     *
+     * @param method 方法名
+     * @param params 参数，可以为 {@code null}
+     * @param typeRef 结果类型
+     * @return 结果；对端返回错误时以 {@link McpError} 结束，超时以 {@link TimeoutException} 结束
+     * @param <T> 结果类型
+     */
+    public <T> Mono<T> sendRequest(String method, Object params, TypeReference<T> typeRef) {
+        Assert.hasText(method, "method must not be empty");
+        Assert.notNull(typeRef, "typeRef must not be null");
+        McpMethod mcpMethod = McpMethod.of(method);
+        AsyncSemaphore limit = concurrencyLimits.get(method);
+        Mono<McpSchema.JSONRPCResponse> response;
+        if (limit == null) {
+            response = exchange(method, params, requestTimeoutNanos);
+        }
+        else {
+            response = Mono.defer(() -> {
+                long deadline = System.nanoTime() + requestTimeoutNanos;
+                return Mono.usingWhen(acquire(limit, method, deadline),
+                        permit -> exchange(method, params, deadline - System.nanoTime()),
+                        permit -> Mono.fromRunnable(permit::release),
+                        (permit, error) -> Mono.fromRunnable(permit::release),
+                        permit -> Mono.fromRunnable(permit::release));
+            });
+        }
+        return response.<T>handle((message, sink) -> {
+            if (message.error() != null) {
+                sink.error(new McpError(message.error()));
+                return;
+            }
+            if (message.result() != null) {
+                sink.next(transport.unmarshalResult(mcpMethod, message.result(), typeRef));
+            }
+            else {
+                sink.complete();
+            }
+        });
+    }
+
+    /**
+     * @return 服务端目录缓存
+     * @throws IllegalStateException 如果构造时没有启用 {@link Builder#catalogCache(boolean)}
+     */
+    public McpClientCatalog catalog() {
+        if (catalog == null) {
+            throw new IllegalStateException("Catalog cache is not enabled");
+        }
+        return catalog;
+    }
+
+    public Mono<McpSchema.CallToolResult> callTool(McpSchema.CallToolRequest request) {
+        return sendRequest(McpSchema.METHOD_TOOLS_CALL, request, CALL_TOOL_RESULT);
+    }
+
+    public Mono<McpSchema.ReadResourceResult> readResource(McpSchema.ReadResourceRequest request) {
+        return sendRequest(McpSchema.METHOD_RESOURCES_READ, request, READ_RESOURCE_RESULT);
+    }
+
+    public Mono<McpSchema.GetPromptResult> getPrompt(McpSchema.GetPromptRequest request) {
+        return sendRequest(McpSchema.METHOD_PROMPT_GET, request, GET_PROMPT_RESULT);
+    }
+
+    /**
+     * 发出请求并等待响应，超时从现在开始计算
+     */
+    private Mono<McpSchema.JSONRPCResponse> exchange(String method, Object params, long timeoutNanos) {
+        return Mono.create(sink -> {
+            if (timeoutNanos <= 0) {
+                sink.error(new TimeoutException("Request " + method + " timed out while queued"));
+                return;
+            }
+            long id = nextId.getAndIncrement();
+            Pending request = new Pending(id, method, sink);
+            LongObjectMap<Pending> stripe = stripe(id);
+            synchronized (stripe) {
+                stripe.put(id, request);
+            }
+            request.timeout = timer.schedule(request, timeoutNanos, TimeUnit.NANOSECONDS);
+            sink.onCancel(() -> {
+                if (remove(id) != null) {
+                    request.cancelTimeout();
+                    notifyCancelled(request, "Request cancelled by client");
+                }
+            });
+            transport.sendMessage(new McpSchema.JSONRPCRequest(McpSchema.JSONRPC_VERSION, method, id, params))
+                .subscribe(null, error -> {
+                    if (remove(id) != null) {
+                        request.cancelTimeout();
+                        sink.error(error);
+                    }
+                });
+        });
+    }
+
+    /**
+     * 在期限之前获得一个许可，排队超时时放弃等待
+     */
+    private Mono<AsyncSemaphore> acquire(AsyncSemaphore limit, String method, long deadline) {
+        if (limit.tryAcquire()) {
+            return Mono.just(limit);
+        }
+        return Mono.create(sink -> new QueuedRequest(limit, method, sink).start(deadline - System.nanoTime()));
+    }
+
+    private void notifyCancelled(Pending request, String reason) {
+        // initialize 请求不能被取消
+        if (McpSchema.METHOD_INITIALIZE.equals(request.method)) {
+            return;
+        }
+        sendNotification(McpSchema.METHOD_NOTIFICATION_CANCELLED, new McpSchema.CancelledNotification(request.id, reason))
+            .subscribe(null, error -> logger.debug("Failed to send cancellation for request {}", request.id, error));
+    }
+
+    /**
+     * 发送通知
+     *
+     * @param method 方法名
+     * @param params 参数，可以为 {@code null}
+     * @return 发送完成时完成
+     */
+    public Mono<Void> sendNotification(String method, Object params) {
+        Assert.hasText(method, "method must not be empty");
+        return transport.sendMessage(new McpSchema.JSONRPCNotification(McpSchema.JSONRPC_VERSION, method, params));
+    }
+
+    /**
+     * @return 等待响应的请求数
+     */
+    public int pendingRequests() {
+        int count = 0;
+        for (LongObjectMap<Pending> stripe : pending) {
+            synchronized (stripe) {
+                count += stripe.size();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 关闭传输，所有等待中的请求以 {@link McpTransportException} 结束
+     *
+     * @return 关闭完成时完成
+     */
+    public Mono<Void> closeGracefully() {
+        return transport.closeGracefully().doFinally(signal -> failPending(new McpTransportException("Session closed")));
+    }
+
+    public void close() {
+        closeGracefully().subscribe();
+    }
+
+    private Mono<McpSchema.JSONRPCMessage> handle(McpSchema.JSONRPCMessage message) {
+        if (message instanceof McpSchema.JSONRPCResponse response) {
+            complete(response);
+            return Mono.empty();
+        }
+        if (message instanceof McpSchema.JSONRPCRequest request) {
+            return handleRequest(request);
+        }
+        if (message instanceof McpSchema.JSONRPCNotification notification) {
+            if (notification.mcpMethod() == McpMethod.NOTIFICATION_CANCELLED) {
+                cancelInbound(notification.params());
+            }
+            else if (catalog != null) {
+                catalog.onListChanged(notification.method());
+            }
+            NotificationHandler handler = notificationHandlers.get(notification.method());
+            if (handler == null) {
+                logger.debug("No handler registered for notification {}", notification.method());
+                return Mono.empty();
+            }
+            return handler.handle(notification.params())
+                .onErrorResume(error -> {
+                    logger.error("Error handling notification {}", notification.method(), error);
+                    return Mono.empty();
+                })
+                .then(Mono.empty());
+        }
+        return Mono.empty();
+    }
+
+    private void complete(McpSchema.JSONRPCResponse response) {
+        long id;
+        Object rawId = response.id();
+        if (rawId instanceof Integer || rawId instanceof Long) {
+            id = ((Number) rawId).longValue();
+        }
+        else if (rawId instanceof String text && isDecimal(text)) {
+            id = Long.parseLong(text);
+        }
+        else {
+            logger.warn("Received response with unknown id: {}", rawId);
+            return;
+        }
+        Pending request = remove(id);
+        if (request == null) {
+            logger.debug("Received response for unknown or expired request {}", id);
+            return;
+        }
+        request.cancelTimeout();
+        request.sink.success(response);
+    }
+
+    private Mono<McpSchema.JSONRPCMessage> handleRequest(McpSchema.JSONRPCRequest request) {
+        RequestHandler<?> handler = requestHandlers.get(request.method());
+        if (handler == null) {
+            return Mono.just(errorResponse(request.id(), McpSchema.ErrorCodes.METHOD_NOT_FOUND,
+                    "Method not found: " + request.method()));
+        }
+        Object key = requestKey(request.id());
+        Sinks.Empty<Void> cancelled = Sinks.empty();
+        inboundRequests.put(key, cancelled);
+        return Mono.defer(() -> handler.handle(request.params()))
+            .<McpSchema.JSONRPCMessage>map(
+                    result -> new McpSchema.JSONRPCResponse(McpSchema.JSONRPC_VERSION, request.id(), result, null))
+            .switchIfEmpty(Mono.fromSupplier(
+                    () -> new McpSchema.JSONRPCResponse(McpSchema.JSONRPC_VERSION, request.id(), Map.of(), null)))
+            .onErrorResume(error -> Mono.just(error instanceof McpError mcpError
+                    ? new McpSchema.JSONRPCResponse(McpSchema.JSONRPC_VERSION, request.id(), null,
+                            mcpError.getJsonRpcError())
+                    : errorResponse(request.id(), McpSchema.ErrorCodes.INTERNAL_ERROR,
+                            String.valueOf(error.getMessage()))))
+            // 被取消的请求不再回复
+            .takeUntilOther(cancelled.asMono())
+            .doFinally(signal -> inboundRequests.remove(key, cancelled));
+    }
+
+    private void cancelInbound(Object params) {
+        McpSchema.CancelledNotification notification;
+        try {
+            notification = transport.unmarshalParams(McpMethod.NOTIFICATION_CANCELLED, params,
+                    CANCELLED_NOTIFICATION);
+        }
+        catch (IllegalArgumentException e) {
+            logger.warn("Ignoring malformed cancellation: {}", params);
+            return;
+        }
+        if (notification == null || notification.requestId() == null) {
+            return;
+        }
+        Sinks.Empty<Void> cancelled = inboundRequests.remove(requestKey(notification.requestId()));
+        if (cancelled != null) {
+            logger.debug("Request {} cancelled by server: {}", notification.requestId(), notification.reason());
+            cancelled.tryEmitEmpty();
+        }
+    }
+
+    /**
+     * 整数 ID 统一为 {@link Long}，使 {@code 1} 和 {@code 1L} 对应同一个请求
+     */
+    private static Object requestKey(Object id) {
+        return id instanceof Integer value ? Long.valueOf(value) : id;
+    }
+
+    private static McpSchema.JSONRPCResponse errorResponse(Object id, int code, String message) {
+        return new McpSchema.JSONRPCResponse(McpSchema.JSONRPC_VERSION, id, null,
+                new McpSchema.JSONRPCResponse.JSONRPCError(code, message, null));
+    }
+
+    private void failPending(Throwable error) {
+        for (LongObjectMap<Pending> stripe : pending) {
+            List<Pending> drained;
+            synchronized (stripe) {
+                drained = stripe.drain();
+            }
+            for (Pending request : drained) {
+                request.cancelTimeout();
+                request.sink.error(error);
+            }
+        }
+    }
+
+    private LongObjectMap<Pending> stripe(long id) {
+        return pending[(int) id & (STRIPES - 1)];
+    }
+
+    private Pending remove(long id) {
+        LongObjectMap<Pending> stripe = stripe(id);
+        synchronized (stripe) {
+            return stripe.remove(id);
+        }
+    }
+
+    private static boolean isDecimal(String text) {
+        int length = text.length();
+        if (length == 0 || length > 18) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 处理服务端发来的请求，例如 {@code sampling/createMessage} 或 {@code roots/list}
+     *
+     * @param <T> 结果类型
+     */
+    @FunctionalInterface
+    public interface RequestHandler<T> {
+
+        /**
+         * @param params 请求参数，可以用 {@link McpTransport#unmarshalFrom} 转换为具体类型
+         * @return 结果，为空时回复空对象；以 {@link McpError} 结束时把其中的错误返回给对端
+         */
+        Mono<T> handle(Object params);
+
+    }
+
+    /**
+     * 处理服务端发来的通知
+     */
+    @FunctionalInterface
+    public interface NotificationHandler {
+
+        /**
+         * @param params 通知参数
+         * @return 处理完成时完成
+         */
+        Mono<Void> handle(Object params);
+
+    }
+
+    /**
+     * 一个等待响应的请求，同时作为超时任务
+     */
+    private final class Pending implements Runnable {
+
+        private final long id;
+
+        private final String method;
+
+        private final MonoSink<McpSchema.JSONRPCResponse> sink;
+
+        private volatile HashedWheelTimer.Timeout timeout;
+
+        Pending(long id, String method, MonoSink<McpSchema.JSONRPCResponse> sink) {
+            this.id = id;
+            this.method = method;
+            this.sink = sink;
+        }
+
+        @Override
+        public void run() {
+            if (remove(id) != null) {
+                sink.error(new TimeoutException("Request " + method + " (id " + id + ") timed out after "
+                        + Duration.ofNanos(requestTimeoutNanos)));
+                notifyCancelled(this, "Request timed out");
+            }
+        }
+
+        void cancelTimeout() {
+            HashedWheelTimer.Timeout current = timeout;
+            if (current != null) {
+                current.cancel();
+            }
+        }
+
+    }
+
+    /**
+     * 一个在并发上限上排队的请求，同时作为排队超时任务
+     */
+    private final class QueuedRequest implements Runnable {
+
+        private final AsyncSemaphore limit;
+
+        private final String method;
+
+        private final MonoSink<AsyncSemaphore> sink;
+
+        /**
+         * 获得许可、排队超时和取消只能生效一个
+         */
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        private volatile Disposable waiting;
+
+        private volatile HashedWheelTimer.Timeout timeout;
+
+        QueuedRequest(AsyncSemaphore limit, String method, MonoSink<AsyncSemaphore> sink) {
+            this.limit = limit;
+            this.method = method;
+            this.sink = sink;
+        }
+
+        void start(long delayNanos) {
+            if (delayNanos <= 0) {
+                run();
+                return;
+            }
+            timeout = timer.schedule(this, delayNanos, TimeUnit.NANOSECONDS);
+            sink.onCancel(() -> {
+                if (done.compareAndSet(false, true)) {
+                    timeout.cancel();
+                    stopWaiting();
+                }
+            });
+            waiting = limit.acquire().subscribe(null, sink::error, this::granted);
+            if (done.get()) {
+                // 在订阅完成之前已经超时或被取消
+                stopWaiting();
+            }
+        }
+
+        private void granted() {
+            if (done.compareAndSet(false, true)) {
+                HashedWheelTimer.Timeout current = timeout;
+                if (current != null) {
+                    current.cancel();
+                }
+                sink.success(limit);
+            }
+            else {
+                limit.release();
+            }
+        }
+
+        @Override
+        public void run() {
+            if (done.compareAndSet(false, true)) {
+                stopWaiting();
+                sink.error(new TimeoutException("Request " + method + " timed out while queued ("
+                        + limit.queueLength() + " waiting, " + limit.permits() + " in flight)"));
+            }
+        }
+
+        private void stopWaiting() {
+            Disposable current = waiting;
+            if (current != null) {
+                current.dispose();
+            }
+        }
+
+    }
+
+    /**
+     * 用于创建 {@link McpClientSession} 实例的构造器
+     */
+    public static class Builder {
+
+        private final McpClientTransport transport;
+
+        private Duration requestTimeout = Duration.ofSeconds(20);
+
+        private HashedWheelTimer timer;
+
+        private final Map<String, RequestHandler<?>> requestHandlers = new HashMap<>();
+
+        private final Map<String, NotificationHandler> notificationHandlers = new HashMap<>();
+
+        private final Map<String, Integer> concurrencyLimits = new HashMap<>();
+
+        private boolean catalogCache;
+
+        Builder(McpClientTransport transport) {
+            Assert.notNull(transport, "transport must not be null");
+            this.transport = transport;
+        }
+
+        /**
+         * @param requestTimeout 请求超时，默认 20 秒
+         * @return 当前构造器
+         */
+        public Builder requestTimeout(Duration requestTimeout) {
+            Assert.notNull(requestTimeout, "requestTimeout must not be null");
+            Assert.isTrue(!requestTimeout.isNegative() && !requestTimeout.isZero(),
+                    "requestTimeout must be positive");
+            this.requestTimeout = requestTimeout;
+            return this;
+        }
+
+        /**
+         * @param timer 驱动请求超时的定时器，默认使用 {@link HashedWheelTimer#shared()}
+         * @return 当前构造器
+         */
+        public Builder timer(HashedWheelTimer timer) {
+            Assert.notNull(timer, "timer must not be null");
+            this.timer = timer;
+            return this;
+        }
+
+        public Builder requestHandler(String method, RequestHandler<?> handler) {
+            Assert.hasText(method, "method must not be empty");
+            Assert.notNull(handler, "handler must not be null");
+            this.requestHandlers.put(method, handler);
+            return this;
+        }
+
+        public Builder notificationHandler(String method, NotificationHandler handler) {
+            Assert.hasText(method, "method must not be empty");
+            Assert.notNull(handler, "handler must not be null");
+            this.notificationHandlers.put(method, handler);
+            return this;
+        }
+
+        /**
+         * 限制一个方法同时在途的请求数，超出的请求排队等待
+         *
+         * @param method 方法名，例如 {@link McpSchema#METHOD_TOOLS_CALL}
+         * @param maxInFlight 最大在途请求数，必须大于 0
+         * @return 当前构造器
+         */
+        public Builder concurrencyLimit(String method, int maxInFlight) {
+            Assert.hasText(method, "method must not be empty");
+            Assert.isTrue(maxInFlight > 0, "maxInFlight must be greater than 0");
+            this.concurrencyLimits.put(method, maxInFlight);
+            return this;
+        }
+
+        /**
+         * 缓存服务端的工具、资源、资源模板和提示词列表，收到对应的 {@code list_changed} 通知时刷新
+         *
+         * @param catalogCache 是否启用，默认不启用
+         * @return 当前构造器
+         * @see McpClientSession#catalog()
+         */
+        public Builder catalogCache(boolean catalogCache) {
+            this.catalogCache = catalogCache;
+            return this;
+        }
+
+        public McpClientSession build() {
+            return new McpClientSession(this);
+        }
+
+    }
+
+}
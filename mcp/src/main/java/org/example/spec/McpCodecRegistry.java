@@ -0,0 +1,226 @@
+package org.example.spec;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.example.util.Assert;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+/**
+ * 按 MCP 方法和目标类型缓存的 {@link ObjectReader}
+ *
+ * <p>
+ * {@link ObjectMapper#convertValue} 和 {@link ObjectMapper#readerFor} 每次调用都要重新解析目标类型并查找
+ * 反序列化器。注册表在构造时为 {@link McpSchema} 中每个请求参数、通知参数和结果记录预先创建 reader，
+ * 根反序列化器在此时就已解析完毕；同时为这些记录创建一次 writer，预热 ObjectMapper 共享的序列化器缓存。
+ * </p>
+ *
+ * <p>
+ * 已知方法的参数和结果通过 {@link #unmarshalParams} / {@link #unmarshalResult} 按 {@link McpMethod} 查找，
+ * 只有一次 {@link EnumMap} 下标访问；其他类型通过 {@link #unmarshal} 按 {@link TypeReference#getType()}
+ * 做一次哈希查找。出站消息以 JSON-RPC 信封整体序列化，{@code result} 的序列化器按运行时类型从
+ * ObjectMapper 的共享缓存中取得，因此不单独缓存各记录的 writer。
+ * </p>
+ *
+ * <p>
+ * 注册表是线程安全的，一个 ObjectMapper 只需要一个实例，应当随传输一起创建并在所有会话之间共享。
+ * </p>
+ */
+public final class McpCodecRegistry {
+
+    /**
+     * 方法到请求（或通知）参数类型的映射，没有参数的方法不在其中
+     */
+    private static final Map<McpMethod, Class<?>> PARAMS_TYPES = Map.ofEntries(
+        Map.entry(McpMethod.INITIALIZE, McpSchema.InitializeRequest.class),
+        Map.entry(McpMethod.TOOLS_LIST, McpSchema.PaginatedRequest.class),
+        Map.entry(McpMethod.TOOLS_CALL, McpSchema.CallToolRequest.class),
+        Map.entry(McpMethod.RESOURCES_LIST, McpSchema.PaginatedRequest.class),
+        Map.entry(McpMethod.RESOURCES_READ, McpSchema.ReadResourceRequest.class),
+        Map.entry(McpMethod.RESOURCES_TEMPLATES_LIST, McpSchema.PaginatedRequest.class),
+        Map.entry(McpMethod.RESOURCES_SUBSCRIBE, McpSchema.SubscribeRequest.class),
+        Map.entry(McpMethod.RESOURCES_UNSUBSCRIBE, McpSchema.UnsubscribeRequest.class),
+        Map.entry(McpMethod.PROMPT_LIST, McpSchema.PaginatedRequest.class),
+        Map.entry(McpMethod.PROMPT_GET, McpSchema.GetPromptRequest.class),
+        Map.entry(McpMethod.COMPLETION_COMPLETE, McpSchema.CompleteRequest.class),
+        Map.entry(McpMethod.LOGGING_SET_LEVEL, McpSchema.SetLevelRequest.class),
+        Map.entry(McpMethod.ROOTS_LIST, McpSchema.PaginatedRequest.class),
+        Map.entry(McpMethod.SAMPLING_CREATE_MESSAGE, McpSchema.CreateMessageRequest.class),
+        Map.entry(McpMethod.ELICITATION_CREATE, McpSchema.ElicitRequest.class),
+        Map.entry(McpMethod.NOTIFICATION_PROGRESS, McpSchema.ProgressNotification.class),
+        Map.entry(McpMethod.NOTIFICATION_CANCELLED, McpSchema.CancelledNotification.class),
+        Map.entry(McpMethod.NOTIFICATION_MESSAGE, McpSchema.LoggingMessageNotification.class),
+        Map.entry(McpMethod.NOTIFICATION_RESOURCES_UPDATED, McpSchema.ResourcesUpdatedNotification.class));
+
+    /**
+     * 方法到结果类型的映射，结果为空对象的方法（如 ping）不在其中
+     */
+    private static final Map<McpMethod, Class<?>> RESULT_TYPES = Map.ofEntries(
+        Map.entry(McpMethod.INITIALIZE, McpSchema.InitializeResult.class),
+        Map.entry(McpMethod.TOOLS_LIST, McpSchema.ListToolsResult.class),
+        Map.entry(McpMethod.TOOLS_CALL, McpSchema.CallToolResult.class),
+        Map.entry(McpMethod.RESOURCES_LIST, McpSchema.ListResourcesResult.class),
+        Map.entry(McpMethod.RESOURCES_READ, McpSchema.ReadResourceResult.class),
+        Map.entry(McpMethod.RESOURCES_TEMPLATES_LIST, McpSchema.ListResourceTemplatesResult.class),
+        Map.entry(McpMethod.PROMPT_LIST, McpSchema.ListPromptsResult.class),
+        Map.entry(McpMethod.PROMPT_GET, McpSchema.GetPromptResult.class),
+        Map.entry(McpMethod.COMPLETION_COMPLETE, McpSchema.CompleteResult.class),
+        Map.entry(McpMethod.ROOTS_LIST, McpSchema.ListRootsResult.class),
+        Map.entry(McpMethod.SAMPLING_CREATE_MESSAGE, McpSchema.CreateMessageResult.class),
+        Map.entry(McpMethod.ELICITATION_CREATE, McpSchema.ElicitResult.class));
+
+    private final ObjectMapper objectMapper;
+
+    private final EnumMap<McpMethod, ObjectReader> paramsReaders;
+
+    private final EnumMap<McpMethod, ObjectReader> resultReaders;
+
+    /**
+     * 按 {@link TypeReference#getType()} 缓存的 reader，包括 {@link #unmarshal} 遇到的任意类型
+     */
+    private final ConcurrentHashMap<Type, ObjectReader> readers = new ConcurrentHashMap<>();
+
+    /**
+     * 创建注册表并预热所有 MCP 记录类型的 reader 和序列化器
+     *
+     * @param objectMapper 用于创建 reader 的 ObjectMapper
+     */
+    public McpCodecRegistry(ObjectMapper objectMapper) {
+        Assert.notNull(objectMapper, "objectMapper must not be null");
+        this.objectMapper = objectMapper;
+        this.paramsReaders = warmUp(PARAMS_TYPES);
+        this.resultReaders = warmUp(RESULT_TYPES);
+    }
+
+    private EnumMap<McpMethod, ObjectReader> warmUp(Map<McpMethod, Class<?>> types) {
+        EnumMap<McpMethod, ObjectReader> byMethod = new EnumMap<>(McpMethod.class);
+        types.forEach((method, type) -> {
+            byMethod.put(method, readers.computeIfAbsent(type, key -> objectMapper.readerFor(type)));
+            // writerFor 会预先解析根序列化器，解析结果留在 ObjectMapper 共享的缓存中
+            objectMapper.writerFor(type);
+        });
+        return byMethod;
+    }
+
+    /**
+     * 获取方法的参数 reader，只有一次 {@link EnumMap} 下标访问
+     *
+     * @param method 请求或通知的方法，通常取自 {@link McpSchema.JSONRPCRequest#mcpMethod()}
+     * @return 参数 reader，如果方法未知或没有参数则返回 {@code null}
+     */
+    public ObjectReader paramsReader(McpMethod method) {
+        return method == null ? null : paramsReaders.get(method);
+    }
+
+    /**
+     * 获取方法的结果 reader
+     *
+     * @param method 请求的方法
+     * @return 结果 reader，如果方法未知或结果为空对象则返回 {@code null}
+     */
+    public ObjectReader resultReader(McpMethod method) {
+        return method == null ? null : resultReaders.get(method);
+    }
+
+    /**
+     * 获取指定类型的 reader，第一次使用时创建并缓存
+     *
+     * @param typeRef 目标类型
+     * @return reader
+     */
+    public ObjectReader reader(TypeReference<?> typeRef) {
+        ObjectReader reader = readers.get(typeRef.getType());
+        if (reader == null) {
+            reader = readers.computeIfAbsent(typeRef.getType(), type -> objectMapper.readerFor(typeRef));
+        }
+        return reader;
+    }
+
+    /**
+     * 将原始数据转换为指定类型，语义与 {@link ObjectMapper#convertValue(Object, TypeReference)} 一致
+     *
+     * @param data 原始数据，可以是 {@link LazyParams}
+     * @param typeRef 目标类型
+     * @return 转换后的对象
+     * @param <T> 目标类型
+     * @throws IllegalArgumentException 如果数据无法转换为目标类型
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T unmarshal(Object data, TypeReference<T> typeRef) {
+        return (T) unmarshal(data, reader(typeRef));
+    }
+
+    /**
+     * 按方法转换请求或通知的参数
+     *
+     * @param method 请求或通知的方法，为 {@code null} 或与 {@code typeRef} 不一致时按类型查找
+     * @param data 原始参数，可以是 {@link LazyParams}
+     * @param typeRef 目标类型
+     * @return 转换后的参数
+     * @param <T> 目标类型
+     * @throws IllegalArgumentException 如果数据无法转换为目标类型
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T unmarshalParams(McpMethod method, Object data, TypeReference<T> typeRef) {
+        return (T) unmarshal(data, reader(paramsReader(method), typeRef));
+    }
+
+    /**
+     * 按方法转换请求的结果
+     *
+     * @param method 请求的方法，为 {@code null} 或与 {@code typeRef} 不一致时按类型查找
+     * @param data 原始结果
+     * @param typeRef 目标类型
+     * @return 转换后的结果
+     * @param <T> 目标类型
+     * @throws IllegalArgumentException 如果数据无法转换为目标类型
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T unmarshalResult(McpMethod method, Object data, TypeReference<T> typeRef) {
+        return (T) unmarshal(data, reader(resultReader(method), typeRef));
+    }
+
+    /**
+     * 方法表中的类型与调用方期望的类型一致时使用方法的 reader，否则按类型查找
+     */
+    private ObjectReader reader(ObjectReader byMethod, TypeReference<?> typeRef) {
+        if (byMethod != null && byMethod.getValueType().getRawClass() == typeRef.getType()) {
+            return byMethod;
+        }
+        return reader(typeRef);
+    }
+
+    private Object unmarshal(Object data, ObjectReader reader) {
+        if (data == null) {
+            return null;
+        }
+        if (data instanceof LazyParams lazyParams) {
+            return lazyParams.bind(reader);
+        }
+        // 与 convertValue 相同，先写入 TokenBuffer 再用预先解析好的 reader 读出，不经过 JSON 文本
+        TokenBuffer buffer = new TokenBuffer(objectMapper, false);
+        if (objectMapper.isEnabled(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)) {
+            buffer = buffer.forceUseOfBigDecimal(true);
+        }
+        try {
+            objectMapper.writeValue(buffer, data);
+            try (JsonParser parser = buffer.asParser(reader)) {
+                return reader.readValue(parser);
+            }
+        }
+        catch (IOException e) {
+            throw new IllegalArgumentException(
+                "Failed to convert value to " + reader.getValueType().toCanonical() + ": " + e.getMessage(), e);
+        }
+    }
+
+}
@@ -0,0 +1,36 @@
+package org.example.spec;
+
+import java.io.Serial;
+
+import org.example.util.Assert;
+
+/**
+ * 携带 JSON-RPC 错误对象的异常，处理器抛出它时，传输会把其中的错误原样返回给对端
+ */
+public class McpError extends RuntimeException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final McpSchema.JSONRPCResponse.JSONRPCError jsonRpcError;
+
+    public McpError(McpSchema.JSONRPCResponse.JSONRPCError jsonRpcError) {
+        super(jsonRpcError.message());
+        this.jsonRpcError = jsonRpcError;
+    }
+
+    public McpError(int code, String message) {
+        this(new McpSchema.JSONRPCResponse.JSONRPCError(code, message, null));
+    }
+
+    public McpError(int code, String message, Throwable cause) {
+        super(message, cause);
+        Assert.notNull(message, "message must not be null");
+        this.jsonRpcError = new McpSchema.JSONRPCResponse.JSONRPCError(code, message, null);
+    }
+
+    public McpSchema.JSONRPCResponse.JSONRPCError getJsonRpcError() {
+        return jsonRpcError;
+    }
+
+}
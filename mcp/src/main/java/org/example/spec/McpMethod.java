@@ -0,0 +1,190 @@
+package org.example.spec;
+
+/**
+ * {@link McpSchema} 中所有 {@code METHOD_*} 常量对应的枚举
+ *
+ * <p>
+ * {@link JsonRpcMessageDecoder} 在解析时就把 {@code method} 解析为枚举并保存在
+ * {@link McpSchema.JSONRPCRequest#mcpMethod()} / {@link McpSchema.JSONRPCNotification#mcpMethod()} 上，
+ * 路由和指标可以直接对枚举做 {@code switch} 或按 {@link #ordinal()} 索引数组，不必在每一跳都重新比较字符串。
+ * </p>
+ *
+ * <p>
+ * 名称查找使用构造时生成的完美哈希表：一次取模定位、一次比较即可得出结果，
+ * 解码器还可以直接用解析器的字符缓冲区查找，已知方法名不需要分配新的 {@link String}。
+ * </p>
+ */
+public enum McpMethod {
+
+    // Lifecycle Methods
+    INITIALIZE(McpSchema.METHOD_INITIALIZE),
+
+    NOTIFICATION_INITIALIZED(McpSchema.METHOD_NOTIFICATION_INITIALIZED),
+
+    PING(McpSchema.METHOD_PING),
+
+    NOTIFICATION_PROGRESS(McpSchema.METHOD_NOTIFICATION_PROGRESS),
+
+    NOTIFICATION_CANCELLED(McpSchema.METHOD_NOTIFICATION_CANCELLED),
+
+    // Tool Methods
+    TOOLS_LIST(McpSchema.METHOD_TOOLS_LIST),
+
+    TOOLS_CALL(McpSchema.METHOD_TOOLS_CALL),
+
+    NOTIFICATION_TOOLS_LIST_CHANGED(McpSchema.METHOD_NOTIFICATION_TOOLS_LIST_CHANGED),
+
+    // Resources Methods
+    RESOURCES_LIST(McpSchema.METHOD_RESOURCES_LIST),
+
+    RESOURCES_READ(McpSchema.METHOD_RESOURCES_READ),
+
+    NOTIFICATION_RESOURCES_LIST_CHANGED(McpSchema.METHOD_NOTIFICATION_RESOURCES_LIST_CHANGED),
+
+    NOTIFICATION_RESOURCES_UPDATED(McpSchema.METHOD_NOTIFICATION_RESOURCES_UPDATED),
+
+    RESOURCES_TEMPLATES_LIST(McpSchema.METHOD_RESOURCES_TEMPLATES_LIST),
+
+    RESOURCES_SUBSCRIBE(McpSchema.METHOD_RESOURCES_SUBSCRIBE),
+
+    RESOURCES_UNSUBSCRIBE(McpSchema.METHOD_RESOURCES_UNSUBSCRIBE),
+
+    // Prompt Methods
+    PROMPT_LIST(McpSchema.METHOD_PROMPT_LIST),
+
+    PROMPT_GET(McpSchema.METHOD_PROMPT_GET),
+
+    NOTIFICATION_PROMPTS_LIST_CHANGED(McpSchema.METHOD_NOTIFICATION_PROMPTS_LIST_CHANGED),
+
+    COMPLETION_COMPLETE(McpSchema.METHOD_COMPLETION_COMPLETE),
+
+    // Logging Methods
+    LOGGING_SET_LEVEL(McpSchema.METHOD_LOGGING_SET_LEVEL),
+
+    NOTIFICATION_MESSAGE(McpSchema.METHOD_NOTIFICATION_MESSAGE),
+
+    // Roots Methods
+    ROOTS_LIST(McpSchema.METHOD_ROOTS_LIST),
+
+    NOTIFICATION_ROOTS_LIST_CHANGED(McpSchema.METHOD_NOTIFICATION_ROOTS_LIST_CHANGED),
+
+    // Sampling Methods
+    SAMPLING_CREATE_MESSAGE(McpSchema.METHOD_SAMPLING_CREATE_MESSAGE),
+
+    // Elicitation Methods
+    ELICITATION_CREATE(McpSchema.METHOD_ELICITATION_CREATE);
+
+    private static final String NOTIFICATION_PREFIX = "notifications/";
+
+    /**
+     * 完美哈希表，下标由 {@link #slot(int)} 计算，空槽为 {@code null}
+     */
+    private static final McpMethod[] TABLE;
+
+    /**
+     * 哈希表大小减一，表大小为 2 的幂
+     */
+    private static final int MASK;
+
+    static {
+        McpMethod[] values = values();
+        int size = Integer.highestOneBit(values.length) << 1;
+        McpMethod[] table;
+        // 逐步加倍表的大小，直到所有方法名都落在不同的槽中
+        while (true) {
+            table = new McpMethod[size];
+            boolean collision = false;
+            for (McpMethod method : values) {
+                int slot = slot(method.wireName.hashCode()) & (size - 1);
+                if (table[slot] != null) {
+                    collision = true;
+                    break;
+                }
+                table[slot] = method;
+            }
+            if (!collision) {
+                break;
+            }
+            if (size >= 1 << 16) {
+                throw new IllegalStateException("Cannot build a collision-free table for MCP method names");
+            }
+            size <<= 1;
+        }
+        TABLE = table;
+        MASK = size - 1;
+    }
+
+    private final String wireName;
+
+    private final boolean notification;
+
+    McpMethod(String wireName) {
+        this.wireName = wireName;
+        this.notification = wireName.startsWith(NOTIFICATION_PREFIX);
+    }
+
+    /**
+     * @return 协议中的方法名，与 {@link McpSchema} 中对应的 {@code METHOD_*} 常量是同一个实例
+     */
+    public String wireName() {
+        return wireName;
+    }
+
+    /**
+     * @return 是否为通知方法（以 {@code notifications/} 开头）
+     */
+    public boolean isNotification() {
+        return notification;
+    }
+
+    /**
+     * 按方法名查找
+     *
+     * @param name 方法名
+     * @return 对应的枚举，未知方法名或 {@code null} 时返回 {@code null}
+     */
+    public static McpMethod of(String name) {
+        if (name == null) {
+            return null;
+        }
+        McpMethod method = TABLE[slot(name.hashCode()) & MASK];
+        if (method != null && (method.wireName == name || method.wireName.equals(name))) {
+            return method;
+        }
+        return null;
+    }
+
+    /**
+     * 直接在字符缓冲区上查找方法名，不创建 {@link String}
+     *
+     * @param chars 字符缓冲区，例如 {@link com.fasterxml.jackson.core.JsonParser#getTextCharacters()}
+     * @param offset 方法名的起始位置
+     * @param length 方法名的长度
+     * @return 对应的枚举，未知方法名时返回 {@code null}
+     */
+    public static McpMethod of(char[] chars, int offset, int length) {
+        int hash = 0;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        McpMethod method = TABLE[slot(hash) & MASK];
+        if (method == null || method.wireName.length() != length) {
+            return null;
+        }
+        String wireName = method.wireName;
+        for (int i = 0; i < length; i++) {
+            if (wireName.charAt(i) != chars[offset + i]) {
+                return null;
+            }
+        }
+        return method;
+    }
+
+    /**
+     * 把 {@link String#hashCode()} 的高位混入低位，使掩码后的分布更均匀
+     */
+    private static int slot(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+}
@@ -3,10 +3,14 @@ package org.example.spec;
 import com.fasterxml.jackson.annotation.*;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.example.util.Assert;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.*;
 
 public final class McpSchema {
@@ -33,6 +37,8 @@ public final class McpSchema {
 
     public static final String METHOD_NOTIFICATION_PROGRESS = "notifications/progress";
 
+    public static final String METHOD_NOTIFICATION_CANCELLED = "notifications/cancelled";
+
     // Tool Methods
     public static final String METHOD_TOOLS_LIST = "tools/list";
 
@@ -108,6 +114,11 @@ public final class McpSchema {
          * 内部 JSON-RPC 错误
          */
         public static final int INTERNAL_ERROR = -32603;
+
+        /**
+         * 资源未找到-请求的资源不存在或不可访问
+         */
+        public static final int RESOURCE_NOT_FOUND = -32002;
     }
 
     public sealed interface Request
@@ -133,7 +144,8 @@ public final class McpSchema {
     }
 
     public sealed interface Notification
-            permits ProgressNotification, LoggingMessageNotification, ResourcesUpdatedNotification {
+            permits ProgressNotification, CancelledNotification, LoggingMessageNotification,
+            ResourcesUpdatedNotification {
 
         Map<String, Object> meta();
 
@@ -146,33 +158,99 @@ public final class McpSchema {
     private static final TypeReference<HashMap<String, Object>> MAP_TYPE_REF = new TypeReference<>() {
     };
 
+    /**
+     * 解析 schema、工具参数和结构化内容使用的 reader，预先创建以免每次调用都重新查找反序列化器
+     */
+    static final ObjectReader MAP_READER = OBJECT_MAPPER.readerFor(MAP_TYPE_REF);
+
+    private static final ObjectReader JSON_SCHEMA_READER = OBJECT_MAPPER.readerFor(JsonSchema.class);
+
     /**
      * 反序列化 JSON-RPC 消息
      *
+     * <p>
+     * 通过 {@link JsonRpcMessageDecoder} 单次遍历 token 流完成类型判断与绑定，不再经由 {@code HashMap} 中转
+     * </p>
+     *
      * @param objectMapper Jackson ObjectMapper 实例，用于反序列化
      * @param jsonText JSON 字符串，表示 JSON-RPC 消息
      * @return 反序列化后的 JSONRPCMessage 对象, 可能是{@link JSONRPCRequest}, {@link JSONRPCNotification}, {@link JSONRPCResponse}
      * @throws IOException 如果反序列化发生错误，抛出 IOException
-     * @throws IllegalAccessException 如果 JSON 字符串无法转换为任何已知的 JSONRPCMessage 类型，抛出 IllegalArgumentException
+     * @throws IllegalArgumentException 如果 JSON 字符串无法转换为任何已知的 JSONRPCMessage 类型，抛出 IllegalArgumentException
      */
     public static JSONRPCMessage deserializeJsonRpcMessage(ObjectMapper objectMapper, String jsonText)
             throws IOException {
+        return new JsonRpcMessageDecoder(objectMapper).decode(jsonText);
+    }
 
-        logger.debug("Received JSON message: {}", jsonText);
+    /**
+     * 从 UTF-8 字节数组的一段区间反序列化 JSON-RPC 消息
+     *
+     * <p>
+     * 传输层可以直接传入网络缓冲区，省去先解码成 {@link String} 再由 Jackson 编码回字节的过程
+     * </p>
+     *
+     * @param objectMapper Jackson ObjectMapper 实例，用于反序列化
+     * @param data 包含 UTF-8 编码 JSON 的字节数组
+     * @param offset 消息在数组中的起始位置
+     * @param length 消息的字节长度
+     * @return 反序列化后的 JSONRPCMessage 对象
+     * @throws IOException 如果反序列化发生错误，抛出 IOException
+     * @throws IllegalArgumentException 如果无法转换为任何已知的 JSONRPCMessage 类型
+     */
+    public static JSONRPCMessage deserializeJsonRpcMessage(ObjectMapper objectMapper, byte[] data, int offset,
+            int length) throws IOException {
+        return new JsonRpcMessageDecoder(objectMapper).decode(data, offset, length);
+    }
 
-        var map = objectMapper.readValue(jsonText, MAP_TYPE_REF);
+    /**
+     * 从 UTF-8 字节数组反序列化 JSON-RPC 消息
+     *
+     * @param objectMapper Jackson ObjectMapper 实例，用于反序列化
+     * @param data 包含 UTF-8 编码 JSON 的字节数组
+     * @return 反序列化后的 JSONRPCMessage 对象
+     * @throws IOException 如果反序列化发生错误，抛出 IOException
+     * @throws IllegalArgumentException 如果无法转换为任何已知的 JSONRPCMessage 类型
+     */
+    public static JSONRPCMessage deserializeJsonRpcMessage(ObjectMapper objectMapper, byte[] data)
+            throws IOException {
+        return deserializeJsonRpcMessage(objectMapper, data, 0, data.length);
+    }
 
-        if (map.containsKey("method") && map.containsKey("id")) {
-            return objectMapper.convertValue(map, JSONRPCRequest.class);
-        }
-        else if (map.containsKey("method") && !map.containsKey("id")) {
-            return objectMapper.convertValue(map, JSONRPCNotification.class);
-        }
-        else if (map.containsKey("result") || map.containsKey("error")) {
-            return objectMapper.convertValue(map, JSONRPCResponse.class);
-        }
+    /**
+     * 从 {@link ByteBuffer} 中剩余的 UTF-8 字节反序列化 JSON-RPC 消息
+     *
+     * <p>
+     * 堆内缓冲区直接读取其底层数组，直接内存缓冲区则以流的方式读取，两种情况都不会改变缓冲区的 position
+     * </p>
+     *
+     * @param objectMapper Jackson ObjectMapper 实例，用于反序列化
+     * @param buffer 包含 UTF-8 编码 JSON 的缓冲区，读取 position 到 limit 之间的内容
+     * @return 反序列化后的 JSONRPCMessage 对象
+     * @throws IOException 如果反序列化发生错误，抛出 IOException
+     * @throws IllegalArgumentException 如果无法转换为任何已知的 JSONRPCMessage 类型
+     */
+    public static JSONRPCMessage deserializeJsonRpcMessage(ObjectMapper objectMapper, ByteBuffer buffer)
+            throws IOException {
+        return new JsonRpcMessageDecoder(objectMapper).decode(buffer);
+    }
 
-        throw new IllegalArgumentException("Cannot deserialize JSONRPCMessage: " + jsonText);
+    /**
+     * 从输入流反序列化 JSON-RPC 消息，流中应只包含一条消息
+     *
+     * <p>
+     * 读取完成后是否关闭输入流由 ObjectMapper 的 {@code JsonParser.Feature.AUTO_CLOSE_SOURCE} 决定，默认会关闭
+     * </p>
+     *
+     * @param objectMapper Jackson ObjectMapper 实例，用于反序列化
+     * @param inputStream 包含 JSON 的输入流
+     * @return 反序列化后的 JSONRPCMessage 对象
+     * @throws IOException 如果读取或反序列化发生错误，抛出 IOException
+     * @throws IllegalArgumentException 如果无法转换为任何已知的 JSONRPCMessage 类型
+     */
+    public static JSONRPCMessage deserializeJsonRpcMessage(ObjectMapper objectMapper, InputStream inputStream)
+            throws IOException {
+        return new JsonRpcMessageDecoder(objectMapper).decode(inputStream);
     }
 
     // ---------------------------
@@ -190,12 +268,20 @@ public final class McpSchema {
         @JsonProperty("jsonrpc") String jsonrpc,
         @JsonProperty("method") String method,
         @JsonProperty("id") Object id,
-        @JsonProperty("params") Object params) implements JSONRPCMessage { // @formatter:on
+        @JsonProperty("params") Object params,
+        @JsonIgnore McpMethod mcpMethod) implements JSONRPCMessage { // @formatter:on
 
         public JSONRPCRequest {
             Assert.notNull(id, "MCP requests MUST include an ID - null IDs are not allowed");
             Assert.isTrue(id instanceof String || id instanceof Integer || id instanceof Long,
                     "MCP requests MUST have an ID that is either a string or integer");
+            if (mcpMethod == null) {
+                mcpMethod = McpMethod.of(method);
+            }
+        }
+
+        public JSONRPCRequest(String jsonrpc, String method, Object id, Object params) {
+            this(jsonrpc, method, id, params, null);
         }
     }
 
@@ -204,11 +290,23 @@ public final class McpSchema {
      * @param jsonrpc
      * @param method
      * @param params
+     * @param mcpMethod 解析后的方法，未知方法为 {@code null}，不参与序列化
      */
     public record JSONRPCNotification( // @formatter:off
         @JsonProperty("jsonrpc") String jsonrpc,
         @JsonProperty("method") String method,
-        @JsonProperty("params") Object params) implements JSONRPCMessage { // @formatter:on
+        @JsonProperty("params") Object params,
+        @JsonIgnore McpMethod mcpMethod) implements JSONRPCMessage { // @formatter:on
+
+        public JSONRPCNotification {
+            if (mcpMethod == null) {
+                mcpMethod = McpMethod.of(method);
+            }
+        }
+
+        public JSONRPCNotification(String jsonrpc, String method, Object params) {
+            this(jsonrpc, method, params, null);
+        }
     }
 
     public record JSONRPCResponse( // @formatter:off
@@ -623,11 +721,11 @@ public final class McpSchema {
                 return this;
             }
 
-            public ResourceLink build() {
+            public Resource build() {
                 Assert.hasText(uri, "uri must not be empty");
                 Assert.hasText(name, "name must not be empty");
 
-                return new ResourceLink(uri, name, title, description, mimeType, size, annotations, meta);
+                return new Resource(uri, name, title, description, mimeType, size, annotations, meta);
             }
 
         }
@@ -798,7 +896,7 @@ public final class McpSchema {
      * 二进制资源内容
      * @param uri 资源的URI标识
      * @param mimeType 资源MIME类型
-     * @param blob 表示资源二进制数据的Base64编码字符串（仅当资源可表示为二进制数据而非文本时设置）
+     * @param blob 资源的二进制数据，在 JSON 中以Base64编码字符串表示（仅当资源可表示为二进制数据而非文本时设置）
      * @param meta
      */
     @JsonInclude(JsonInclude.Include.NON_ABSENT)
@@ -806,9 +904,20 @@ public final class McpSchema {
     public record BlobResourceContents( // @formatter:off
         @JsonProperty("uri") String uri,
         @JsonProperty("mimeType") String mimeType,
-        @JsonProperty("blob") String blob,
+        @JsonProperty("blob") BinaryData blob,
         @JsonProperty("_meta") Map<String, Object> meta) implements ResourceContents { // @formatter:on
 
+        /**
+         * 以 {@link BinaryData} 创建，与接收 Base64 字符串的构造器区分，{@code blob} 为 {@code null} 时不会产生重载歧义
+         */
+        public static BlobResourceContents of(String uri, String mimeType, BinaryData blob) {
+            return new BlobResourceContents(uri, mimeType, blob, null);
+        }
+
+        public BlobResourceContents(String uri, String mimeType, String blob, Map<String, Object> meta) {
+            this(uri, mimeType, blob == null ? null : BinaryData.ofBase64(blob), meta);
+        }
+
         public BlobResourceContents(String uri, String mimeType, String blob) {
             this(uri, mimeType, blob, null);
         }
@@ -1011,6 +1120,9 @@ public final class McpSchema {
                 return this;
             }
 
+            /**
+             * @param outputSchema JSON 文本，保存为只读的 {@link RawJsonMap}
+             */
             public Builder outputSchema(String outputSchema) {
                 this.outputSchema = schemaToMap(outputSchema);
                 return this;
@@ -1035,16 +1147,16 @@ public final class McpSchema {
 
     private static Map<String, Object> schemaToMap(String schema) {
         try {
-            return OBJECT_MAPPER.readValue(schema, MAP_TYPE_REF);
+            return RawJsonMap.of(schema);
         }
-        catch (IOException e) {
+        catch (IllegalArgumentException e) {
             throw new IllegalArgumentException("Invalid schema: " + schema, e);
         }
     }
 
     private static JsonSchema parseSchema(String schema) {
         try {
-            return OBJECT_MAPPER.readValue(schema, JsonSchema.class);
+            return JSON_SCHEMA_READER.readValue(schema);
         }
         catch (IOException e) {
             throw new IllegalArgumentException("Invalid schema: " + schema, e);
@@ -1058,6 +1170,10 @@ public final class McpSchema {
         @JsonProperty("arguments") Map<String, Object> arguments,
         @JsonProperty("_meta") Map<String, Object> meta) implements Request { // @formatter:on
 
+        /**
+         * @param name 工具名
+         * @param jsonArguments JSON 对象文本，{@link #arguments()} 将是以它为准的只读 {@link RawJsonMap}
+         */
         public CallToolRequest(String name, String jsonArguments) {
             this(name, parseJsonArguments(jsonArguments), null);
         }
@@ -1068,9 +1184,9 @@ public final class McpSchema {
 
         private static Map<String, Object> parseJsonArguments(String jsonArguments) {
             try {
-                return OBJECT_MAPPER.readValue(jsonArguments, MAP_TYPE_REF);
+                return RawJsonMap.of(jsonArguments);
             }
-            catch (IOException e) {
+            catch (IllegalArgumentException e) {
                 throw new IllegalArgumentException("Invalid arguments: " + jsonArguments, e);
             }
         }
@@ -1170,11 +1286,15 @@ public final class McpSchema {
                 return this;
             }
 
+            /**
+             * @param structuredContent JSON 对象文本，{@link CallToolResult#structuredContent()} 将是以它为准的只读
+             * {@link RawJsonMap}
+             */
             public Builder structuredContent(String structuredContent) {
                 Assert.hasText(structuredContent, "structuredContent must not be empty");
                 try {
-                    this.structuredContent = OBJECT_MAPPER.readValue(structuredContent, MAP_TYPE_REF);
-                } catch (IOException e) {
+                    this.structuredContent = RawJsonMap.of(structuredContent);
+                } catch (IllegalArgumentException e) {
                     throw new IllegalArgumentException("Invalid structured content: " + structuredContent, e);
                 }
                 return this;
@@ -1638,6 +1758,25 @@ public final class McpSchema {
         }
     }
 
+    /**
+     * 取消一个之前发出的请求，接收方应停止处理且不再发送响应
+     *
+     * @param requestId 被取消的请求 ID
+     * @param reason 取消原因
+     * @param meta
+     */
+    @JsonInclude(JsonInclude.Include.NON_ABSENT)
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record CancelledNotification( // @formatter:off
+        @JsonProperty("requestId") Object requestId,
+        @JsonProperty("reason") String reason,
+        @JsonProperty("_meta") Map<String, Object> meta) implements Notification { // @formatter:on
+
+        public CancelledNotification(Object requestId, String reason) {
+            this(requestId, reason, null);
+        }
+    }
+
     @JsonIgnoreProperties(ignoreUnknown = true)
     public record ResourcesUpdatedNotification(// @formatter:off
         @JsonProperty("uri") String uri,
@@ -1875,10 +2014,21 @@ public final class McpSchema {
     @JsonIgnoreProperties(ignoreUnknown = true)
     public record ImageContent( // @formatter:off
         @JsonProperty("annotations") Annotations annotations,
-        @JsonProperty("data") String data,
+        @JsonProperty("data") BinaryData data,
         @JsonProperty("mimeType") String mimeType,
         @JsonProperty("_meta") Map<String, Object> meta) implements Annotated, Content { // @formatter:on
 
+        /**
+         * 以 {@link BinaryData} 创建，与接收 Base64 字符串的构造器区分，{@code data} 为 {@code null} 时不会产生重载歧义
+         */
+        public static ImageContent of(Annotations annotations, BinaryData data, String mimeType) {
+            return new ImageContent(annotations, data, mimeType, null);
+        }
+
+        public ImageContent(Annotations annotations, String data, String mimeType, Map<String, Object> meta) {
+            this(annotations, data == null ? null : BinaryData.ofBase64(data), mimeType, meta);
+        }
+
         public ImageContent(Annotations annotations, String data, String mimeType) {
             this(annotations, data, mimeType, null);
         }
@@ -1888,11 +2038,22 @@ public final class McpSchema {
     @JsonIgnoreProperties(ignoreUnknown = true)
     public record AudioContent( // @formatter:off
         @JsonProperty("annotations") Annotations annotations,
-        @JsonProperty("data") String data,
+        @JsonProperty("data") BinaryData data,
         @JsonProperty("mimeType") String mimeType,
         @JsonProperty("_meta") Map<String, Object> meta) implements Annotated, Content { // @formatter:on
 
-        // backwards compatibility constructor
+        /**
+         * 以 {@link BinaryData} 创建，与接收 Base64 字符串的构造器区分，{@code data} 为 {@code null} 时不会产生重载歧义
+         */
+        public static AudioContent of(Annotations annotations, BinaryData data, String mimeType) {
+            return new AudioContent(annotations, data, mimeType, null);
+        }
+
+        // backwards compatibility constructors
+        public AudioContent(Annotations annotations, String data, String mimeType, Map<String, Object> meta) {
+            this(annotations, data == null ? null : BinaryData.ofBase64(data), mimeType, meta);
+        }
+
         public AudioContent(Annotations annotations, String data, String mimeType) {
             this(annotations, data, mimeType, null);
         }
@@ -1,4 +1,30 @@
 package org.example.spec;
 
-public interface McpServerTransport {
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link McpTransport}的服务端接口，每个实例对应一个已连接的客户端会话
+ *
+ * <p>
+ * 实例由 {@link McpServerTransportProvider} 在客户端连接时创建并交给
+ * {@link McpServerTransportProvider.SessionAcceptor}，{@link #sendMessage} 只向该会话的客户端发送消息。
+ * 实现类必须允许从任意线程并发调用 {@link #sendMessage}。
+ * </p>
+ *
+ * @see McpServerTransportProvider
+ */
+public interface McpServerTransport extends McpTransport {
+
+    /**
+     * @return 会话 ID，在同一个 {@link McpServerTransportProvider} 内唯一
+     */
+    String sessionId();
+
+    /**
+     * 会话结束信号，无论是服务端主动关闭还是客户端断开连接
+     *
+     * @return 会话结束时完成的 {@link Mono}
+     */
+    Mono<Void> onClose();
+
 }
@@ -0,0 +1,68 @@
+package org.example.spec;
+
+import java.util.function.Function;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * 服务端传输层的提供者，负责接受客户端连接并为每个连接创建一个 {@link McpServerTransport} 会话
+ *
+ * <p>
+ * 服务器通过 {@link #setSessionAcceptor} 注册会话接收器：每当有新客户端连接时，
+ * 提供者创建会话并调用接收器，接收器返回的处理器负责处理该会话的所有入站消息，
+ * 处理器返回的响应消息（如果有）会通过同一个会话发回客户端。
+ * </p>
+ *
+ * @see McpServerTransport
+ */
+public interface McpServerTransportProvider {
+
+    /**
+     * 注册会话接收器，必须在接受客户端连接之前调用
+     *
+     * @param acceptor 会话接收器
+     */
+    void setSessionAcceptor(SessionAcceptor acceptor);
+
+    /**
+     * 向所有已连接的会话发送同一条通知
+     *
+     * @param method 通知方法名
+     * @param params 通知参数
+     * @return 通知交给所有会话之后完成的 {@link Mono}
+     */
+    Mono<Void> notifyClients(String method, Object params);
+
+    /**
+     * 关闭所有会话并停止接受新连接
+     *
+     * @return 所有资源释放后完成的 {@link Mono}
+     */
+    Mono<Void> closeGracefully();
+
+    /**
+     * 关闭所有会话并停止接受新连接，不等待关闭完成
+     */
+    default void close() {
+        this.closeGracefully().subscribe();
+    }
+
+    /**
+     * 会话接收器，在新会话建立时被调用
+     */
+    @FunctionalInterface
+    interface SessionAcceptor {
+
+        /**
+         * 接受一个新会话
+         * <p>处理器的签名与 {@link McpClientTransport#connect} 相同：返回的 {@link Mono} 发出响应消息，
+         * 对于通知或不需要响应的消息则为空</p>
+         *
+         * @param transport 新会话的传输
+         * @return 该会话入站消息的处理器
+         */
+        Function<Mono<McpSchema.JSONRPCMessage>, Mono<McpSchema.JSONRPCMessage>> accept(McpServerTransport transport);
+
+    }
+
+}
@@ -57,6 +57,7 @@ public interface McpTransport {
 
     /**
      * 反序列化，将原始数据（如 JSON 字符串、字节流）转换为指定类型的 Java 对象
+     * <p>实现类应识别 {@link LazyParams}，直接从其保存的 token 绑定，而不是先构建 Map 再转换</p>
      * @param data 原始数据
      * @param typeRef 指定的类型引用，用于指示目标类型
      * @return 转换后的Java对象
@@ -64,6 +65,34 @@ public interface McpTransport {
      */
     <T> T unmarshalFrom(Object data, TypeReference<T> typeRef);
 
+    /**
+     * 反序列化已知方法的请求或通知参数
+     * <p>实现类可以按方法查找预先创建好的 reader（参见 {@link McpCodecRegistry#unmarshalParams}），
+     * 默认实现等同于 {@link #unmarshalFrom}</p>
+     * @param method 请求或通知的方法，可以为 {@code null}
+     * @param params 原始参数
+     * @param typeRef 参数类型
+     * @return 转换后的参数
+     * @param <T> 参数类型
+     */
+    default <T> T unmarshalParams(McpMethod method, Object params, TypeReference<T> typeRef) {
+        return unmarshalFrom(params, typeRef);
+    }
+
+    /**
+     * 反序列化已知方法的请求结果
+     * <p>实现类可以按方法查找预先创建好的 reader（参见 {@link McpCodecRegistry#unmarshalResult}），
+     * 默认实现等同于 {@link #unmarshalFrom}</p>
+     * @param method 请求的方法，可以为 {@code null}
+     * @param result 原始结果
+     * @param typeRef 结果类型
+     * @return 转换后的结果
+     * @param <T> 结果类型
+     */
+    default <T> T unmarshalResult(McpMethod method, Object result, TypeReference<T> typeRef) {
+        return unmarshalFrom(result, typeRef);
+    }
+
     /**
      * 获取支持的协议版本列表
      *
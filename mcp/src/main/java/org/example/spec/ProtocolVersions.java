@@ -2,10 +2,10 @@ package org.example.spec;
 
 public interface ProtocolVersions {
 
-    String MCP_2024_11_05 = "2024_11_05";
+    String MCP_2024_11_05 = "2024-11-05";
 
-    String MCP_2025_03_26 = "2025_03_26";
+    String MCP_2025_03_26 = "2025-03-26";
 
-    String MCP_2025_06_18 = "2025_06_18";
+    String MCP_2025_06_18 = "2025-06-18";
 
 }
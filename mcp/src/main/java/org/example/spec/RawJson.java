@@ -0,0 +1,45 @@
+package org.example.spec;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+/**
+ * {@link RawJsonMap} 和 {@link EncodedJson} 写出已编码 JSON 时共用的逻辑
+ *
+ * <p>
+ * 输出 JSON 文本的生成器（包括包装它们的 {@link com.fasterxml.jackson.core.util.JsonGeneratorDelegate}）
+ * 可以用 {@link JsonGenerator#writeRawValue} 原样写入；{@link TokenBuffer}（{@code convertValue}、
+ * {@code valueToTree} 使用的生成器）只接受 token，需要解析原始文本后逐个复制。
+ * </p>
+ */
+final class RawJson {
+
+    private RawJson() {
+    }
+
+    /**
+     * @param gen 生成器
+     * @return 是否可以把已编码的 JSON 原样写入该生成器
+     */
+    static boolean acceptsRaw(JsonGenerator gen) {
+        return !(gen instanceof TokenBuffer);
+    }
+
+    /**
+     * 把解析器中的一个完整值逐个 token 复制到生成器，然后关闭解析器
+     *
+     * @param parser 位于值之前的解析器
+     * @param gen 生成器
+     * @throws IOException 如果解析或写出失败
+     */
+    static void copy(JsonParser parser, JsonGenerator gen) throws IOException {
+        try (parser) {
+            parser.nextToken();
+            gen.copyCurrentStructure(parser);
+        }
+    }
+
+}
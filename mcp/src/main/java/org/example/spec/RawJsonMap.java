@@ -0,0 +1,168 @@
+package org.example.spec;
+
+import java.io.IOException;
+import java.io.Serial;
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+import org.example.util.Assert;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * 以调用方提供的 JSON 文本为准的只读 {@link Map}
+ *
+ * <p>
+ * {@link McpSchema.CallToolRequest#CallToolRequest(String, String)} 等接受 JSON 字符串的入口不再把它解析成
+ * {@code HashMap} 树：构造时只做一次不建树的 token 扫描确认它是一个合法的 JSON 对象，
+ * 序列化为 JSON 文本时直接写出原始字符；只有真正读取其中的键值时才解析，且只解析一次。
+ * 转发工具调用的代理因此不再需要先解析再序列化同一份参数。
+ * </p>
+ *
+ * <p>
+ * 写入 {@link com.fasterxml.jackson.databind.util.TokenBuffer}，或原始文本中含有换行符
+ * （SSE 的 {@code data} 行中不能出现）时，改为逐个复制 token，输出为紧凑的 JSON，同样不构建树。
+ * </p>
+ *
+ * <p>
+ * 这个 Map 是只读的，所有修改方法都抛出 {@link UnsupportedOperationException}；需要修改时先复制到新的 Map。
+ * </p>
+ */
+@JsonSerialize(using = RawJsonMap.Serializer.class)
+public final class RawJsonMap extends AbstractMap<String, Object> {
+
+    private final ObjectReader reader;
+
+    private final String json;
+
+    /**
+     * 原始文本中是否没有换行符，可以原样写出
+     */
+    private final boolean singleLine;
+
+    /**
+     * 解析结果，第一次读取时创建
+     */
+    private volatile Map<String, Object> parsed;
+
+    private RawJsonMap(ObjectReader reader, String json) {
+        this.reader = reader;
+        this.json = json;
+        this.singleLine = json.indexOf('\n') < 0 && json.indexOf('\r') < 0;
+    }
+
+    /**
+     * @param json JSON 对象的文本
+     * @return 以该文本为准的 Map
+     * @throws IllegalArgumentException 如果文本不是一个完整的 JSON 对象
+     */
+    public static RawJsonMap of(String json) {
+        return of(McpSchema.MAP_READER, json);
+    }
+
+    /**
+     * @param reader 读取键值时解析使用的 reader，目标类型应为 {@code Map<String, Object>}
+     * @param json JSON 对象的文本
+     * @return 以该文本为准的 Map
+     * @throws IllegalArgumentException 如果文本不是一个完整的 JSON 对象
+     */
+    static RawJsonMap of(ObjectReader reader, String json) {
+        Assert.notNull(json, "json must not be null");
+        try (JsonParser parser = reader.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("JSON is not an object: " + json);
+            }
+            parser.skipChildren();
+            if (parser.nextToken() != null) {
+                throw new IllegalArgumentException("Trailing content after JSON object: " + json);
+            }
+        }
+        catch (IOException e) {
+            throw new IllegalArgumentException("Invalid JSON object: " + json, e);
+        }
+        return new RawJsonMap(reader, json);
+    }
+
+    /**
+     * @return 原始 JSON 文本
+     */
+    public String json() {
+        return json;
+    }
+
+    /**
+     * @return 是否已经解析过
+     */
+    public boolean isParsed() {
+        return parsed != null;
+    }
+
+    private Map<String, Object> parsed() {
+        Map<String, Object> map = parsed;
+        if (map == null) {
+            synchronized (this) {
+                map = parsed;
+                if (map == null) {
+                    try {
+                        map = Collections.unmodifiableMap(reader.readValue(json));
+                    }
+                    catch (IOException e) {
+                        // 构造时已经校验过，不会发生
+                        throw new IllegalStateException("Failed to parse JSON object", e);
+                    }
+                    parsed = map;
+                }
+            }
+        }
+        return map;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return parsed().entrySet();
+    }
+
+    @Override
+    public Object get(Object key) {
+        return parsed().get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return parsed().containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return parsed().size();
+    }
+
+    static final class Serializer extends StdSerializer<RawJsonMap> {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        Serializer() {
+            super(RawJsonMap.class);
+        }
+
+        @Override
+        public void serialize(RawJsonMap value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            if (value.singleLine && RawJson.acceptsRaw(gen)) {
+                gen.writeRawValue(value.json);
+                return;
+            }
+            RawJson.copy(value.reader.createParser(value.json), gen);
+        }
+
+    }
+
+}
@@ -0,0 +1,85 @@
+package org.example.spec;
+
+import java.io.IOException;
+import java.io.Serial;
+import java.util.Map;
+
+import org.example.util.Assert;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * 以 {@link Flux} 逐个产生内容的 {@code resources/read} 结果，在协议上与 {@link McpSchema.ReadResourceResult} 完全相同
+ *
+ * <p>
+ * 服务端处理器可以把它作为 {@link McpSchema.JSONRPCResponse#result()} 返回。支持流式写出的传输
+ * （如 {@link org.example.server.NioSseServerTransportProvider}）每收到一个内容就把它编码并写入连接，
+ * 写完后才向上游请求下一个，读取大日志文件或数据集时内存中只有正在写出的那一项。
+ * 大的资源应当拆分为多个 {@link McpSchema.TextResourceContents} 或 {@link McpSchema.BlobResourceContents}，
+ * 二进制内容可以使用 {@link BinaryData#ofMapped} 直接映射文件区域。
+ * </p>
+ *
+ * <p>
+ * 不支持流式写出的传输经由 Jackson 序列化时，会在序列化线程上阻塞地逐个取出内容，因此不应在非阻塞线程上序列化。
+ * </p>
+ *
+ * @param contents 资源内容流，只能被订阅一次
+ * @param meta 结果的元数据
+ */
+@JsonSerialize(using = StreamingReadResourceResult.Serializer.class)
+public record StreamingReadResourceResult(Flux<McpSchema.ResourceContents> contents, Map<String, Object> meta) {
+
+    public StreamingReadResourceResult {
+        Assert.notNull(contents, "contents must not be null");
+    }
+
+    public StreamingReadResourceResult(Flux<McpSchema.ResourceContents> contents) {
+        this(contents, null);
+    }
+
+    /**
+     * 收集所有内容，得到普通的 {@link McpSchema.ReadResourceResult}
+     *
+     * @return 包含全部内容的结果
+     */
+    public Mono<McpSchema.ReadResourceResult> collect() {
+        return contents.collectList().map(list -> new McpSchema.ReadResourceResult(list, meta));
+    }
+
+    /**
+     * 不支持流式写出时的后备序列化器，输出与 {@link McpSchema.ReadResourceResult} 相同的 JSON
+     */
+    static final class Serializer extends StdSerializer<StreamingReadResourceResult> {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        Serializer() {
+            super(StreamingReadResourceResult.class);
+        }
+
+        @Override
+        public void serialize(StreamingReadResourceResult value, JsonGenerator gen, SerializerProvider provider)
+            throws IOException {
+            gen.writeStartObject();
+            gen.writeArrayFieldStart("contents");
+            for (McpSchema.ResourceContents content : value.contents().toIterable(1)) {
+                provider.defaultSerializeValue(content, gen);
+            }
+            gen.writeEndArray();
+            if (value.meta() != null) {
+                gen.writeFieldName("_meta");
+                provider.defaultSerializeValue(value.meta(), gen);
+            }
+            gen.writeEndObject();
+        }
+
+    }
+
+}
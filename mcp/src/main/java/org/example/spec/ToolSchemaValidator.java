@@ -0,0 +1,274 @@
+package org.example.spec;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.example.util.Assert;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.networknt.schema.JsonSchema;
+import com.networknt.schema.JsonSchemaFactory;
+import com.networknt.schema.OutputFormat;
+import com.networknt.schema.SchemaValidatorsConfig;
+import com.networknt.schema.SpecVersion;
+import com.networknt.schema.ValidationMessage;
+
+/**
+ * 按工具缓存的 {@link McpSchema.Tool#inputSchema()} / {@link McpSchema.Tool#outputSchema()} 校验器
+ *
+ * <p>
+ * 每个工具的 schema 只在第一次校验时编译一次（包括 {@code $ref} 的解析），之后按工具名查找。
+ * 缓存项同时记录 schema 对象本身和它的哈希值：同一个 {@link McpSchema.Tool} 实例直接按引用命中；
+ * 重新构造的工具先比较哈希再比较内容，只有 schema 真正改变时才重新编译。
+ * 无法编译的 schema 同样被缓存：之后的每次校验直接抛出同一个 {@link McpSchema.ErrorCodes#INTERNAL_ERROR} 错误，
+ * 不会反复编译。
+ * </p>
+ *
+ * <p>
+ * 校验先以 {@link OutputFormat#BOOLEAN} 运行，不收集错误信息，遇到第一个不满足的约束就返回；
+ * 只有校验失败时才再运行一次生成错误列表。只声明了 {@code "type": "object"} 的空 schema 不会编译，直接视为通过。
+ * 被校验的参数和结构化结果每次都要转换为 {@link JsonNode} 树，开销与其大小成正比；
+ * 由 JSON 文本构造的 {@link RawJsonMap} 直接从文本解析为树，不经过 {@code Map}。
+ * </p>
+ *
+ * <p>
+ * 校验器是线程安全的，应当在服务端（或客户端）的所有会话之间共享。
+ * </p>
+ */
+public final class ToolSchemaValidator {
+
+    private final ObjectMapper objectMapper;
+
+    private final JsonSchemaFactory factory;
+
+    private final SchemaValidatorsConfig config;
+
+    private final ConcurrentHashMap<String, Compiled> inputSchemas = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<String, Compiled> outputSchemas = new ConcurrentHashMap<>();
+
+    /**
+     * @param objectMapper 把参数和结构化结果转换为 JSON 树使用的 ObjectMapper
+     */
+    public ToolSchemaValidator(ObjectMapper objectMapper) {
+        Assert.notNull(objectMapper, "objectMapper must not be null");
+        this.objectMapper = objectMapper;
+        this.factory = JsonSchemaFactory.getInstance(SpecVersion.VersionFlag.V202012);
+        this.config = SchemaValidatorsConfig.builder().build();
+    }
+
+    /**
+     * 按工具的 {@code inputSchema} 校验调用参数，{@code arguments} 为空时按空对象校验
+     *
+     * @param tool 被调用的工具
+     * @param request 调用请求
+     * @return 校验结果
+     * @throws McpError 如果 {@code inputSchema} 本身无法编译
+     */
+    public ValidationResult validateArguments(McpSchema.Tool tool, McpSchema.CallToolRequest request) {
+        Assert.notNull(tool, "tool must not be null");
+        Assert.notNull(request, "request must not be null");
+        Compiled compiled = compiled(inputSchemas, tool.name(), "inputSchema", tool.inputSchema());
+        if (compiled.acceptAll()) {
+            return ValidationResult.VALID;
+        }
+        JsonNode arguments = request.arguments() == null ? objectMapper.createObjectNode()
+                : toTree(request.arguments());
+        return validate(compiled.schema(), arguments);
+    }
+
+    /**
+     * 按工具的 {@code outputSchema} 校验 {@code structuredContent}
+     *
+     * <p>
+     * 工具没有声明 {@code outputSchema} 或结果是错误结果时总是通过；声明了 {@code outputSchema}
+     * 而结果没有 {@code structuredContent} 时校验失败。
+     * </p>
+     *
+     * @param tool 被调用的工具
+     * @param result 调用结果
+     * @return 校验结果
+     * @throws McpError 如果 {@code outputSchema} 本身无法编译
+     */
+    public ValidationResult validateResult(McpSchema.Tool tool, McpSchema.CallToolResult result) {
+        Assert.notNull(tool, "tool must not be null");
+        Assert.notNull(result, "result must not be null");
+        if (tool.outputSchema() == null || Boolean.TRUE.equals(result.isError())) {
+            return ValidationResult.VALID;
+        }
+        if (result.structuredContent() == null) {
+            return new ValidationResult(false, List.of("structuredContent is required by the outputSchema of tool "
+                    + tool.name()));
+        }
+        Compiled compiled = compiled(outputSchemas, tool.name(), "outputSchema", tool.outputSchema());
+        if (compiled.acceptAll()) {
+            return ValidationResult.VALID;
+        }
+        return validate(compiled.schema(), toTree(result.structuredContent()));
+    }
+
+    /**
+     * 校验调用参数，失败时抛出 {@link McpSchema.ErrorCodes#INVALID_PARAMS} 错误
+     *
+     * @param tool 被调用的工具
+     * @param request 调用请求
+     * @throws McpError 如果参数不满足 {@code inputSchema}，或 {@code inputSchema} 本身无法编译
+     */
+    public void checkArguments(McpSchema.Tool tool, McpSchema.CallToolRequest request) {
+        ValidationResult result = validateArguments(tool, request);
+        if (!result.valid()) {
+            throw new McpError(McpSchema.ErrorCodes.INVALID_PARAMS,
+                    "Invalid arguments for tool " + tool.name() + ": " + String.join("; ", result.errors()));
+        }
+    }
+
+    /**
+     * 预先编译工具的 {@code inputSchema} 和 {@code outputSchema}，用于在注册工具时发现无效的 schema
+     *
+     * @param tool 工具
+     * @throws McpError 如果任一 schema 无法编译
+     */
+    public void precompile(McpSchema.Tool tool) {
+        Assert.notNull(tool, "tool must not be null");
+        compiled(inputSchemas, tool.name(), "inputSchema", tool.inputSchema());
+        compiled(outputSchemas, tool.name(), "outputSchema", tool.outputSchema());
+    }
+
+    /**
+     * 移除一个工具的缓存，工具被注销时调用
+     *
+     * @param toolName 工具名
+     */
+    public void evict(String toolName) {
+        inputSchemas.remove(toolName);
+        outputSchemas.remove(toolName);
+    }
+
+    private Compiled compiled(ConcurrentHashMap<String, Compiled> cache, String toolName, String kind,
+        Object source) {
+        if (source == null) {
+            return Compiled.ACCEPT_ALL;
+        }
+        Compiled compiled = cache.get(toolName);
+        if (compiled == null || compiled.source() != source) {
+            int hash = source.hashCode();
+            if (compiled != null && compiled.hash() == hash && compiled.source().equals(source)) {
+                // 内容相同的新实例，记住它以便下次按引用命中
+                compiled = new Compiled(source, hash, compiled.schema(), compiled.acceptAll(), compiled.error());
+            }
+            else {
+                compiled = compile(toolName, kind, source, hash);
+            }
+            cache.put(toolName, compiled);
+        }
+        if (compiled.error() != null) {
+            throw compiled.error();
+        }
+        return compiled;
+    }
+
+    private Compiled compile(String toolName, String kind, Object source, int hash) {
+        try {
+            JsonNode node = objectMapper.valueToTree(source);
+            if (isUnconstrained(node)) {
+                return new Compiled(source, hash, null, true, null);
+            }
+            JsonSchema schema = factory.getSchema(node, config);
+            schema.initializeValidators();
+            return new Compiled(source, hash, schema, false, null);
+        }
+        catch (RuntimeException e) {
+            McpError error = new McpError(McpSchema.ErrorCodes.INTERNAL_ERROR,
+                    "Invalid " + kind + " of tool " + toolName + ": " + e.getMessage(), e);
+            return new Compiled(source, hash, null, false, error);
+        }
+    }
+
+    /**
+     * 把参数或结构化结果转换为 JSON 树，{@link RawJsonMap} 直接解析原始文本
+     */
+    private JsonNode toTree(Map<String, Object> value) {
+        if (value instanceof RawJsonMap raw && !raw.isParsed()) {
+            try {
+                return objectMapper.readTree(raw.json());
+            }
+            catch (JsonProcessingException e) {
+                throw new McpError(McpSchema.ErrorCodes.INVALID_PARAMS, "Invalid JSON: " + e.getOriginalMessage(), e);
+            }
+        }
+        return objectMapper.valueToTree(value);
+    }
+
+    /**
+     * 只包含 {@code type: object} 以及空的 {@code properties} / {@code required} 的 schema 对参数对象没有约束
+     */
+    private static boolean isUnconstrained(JsonNode node) {
+        if (!(node instanceof ObjectNode object)) {
+            return false;
+        }
+        for (Map.Entry<String, JsonNode> field : object.properties()) {
+            JsonNode value = field.getValue();
+            boolean unconstrained = switch (field.getKey()) {
+                case "type" -> "object".equals(value.asText());
+                case "properties", "required" -> value.isEmpty();
+                case "$schema", "title", "description" -> true;
+                default -> false;
+            };
+            if (!unconstrained) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static ValidationResult validate(JsonSchema schema, JsonNode instance) {
+        if (Boolean.TRUE.equals(schema.validate(instance, OutputFormat.BOOLEAN))) {
+            return ValidationResult.VALID;
+        }
+        Set<ValidationMessage> messages = schema.validate(instance);
+        List<String> errors = new ArrayList<>(messages.size());
+        for (ValidationMessage message : messages) {
+            errors.add(message.getMessage());
+        }
+        return new ValidationResult(false, List.copyOf(errors));
+    }
+
+    /**
+     * 一个 schema 的编译结果
+     *
+     * @param source 编译时的 schema 对象
+     * @param hash {@code source} 的哈希值
+     * @param schema 编译后的 schema，{@code acceptAll} 或编译失败时为 {@code null}
+     * @param acceptAll schema 是否对实例没有约束
+     * @param error 编译失败时抛出的错误
+     */
+    private record Compiled(Object source, int hash, JsonSchema schema, boolean acceptAll, McpError error) {
+
+        static final Compiled ACCEPT_ALL = new Compiled(null, 0, null, true, null);
+
+    }
+
+    /**
+     * 校验结果
+     *
+     * @param valid 是否通过
+     * @param errors 未通过时的错误信息，通过时为空列表
+     */
+    public record ValidationResult(boolean valid, List<String> errors) {
+
+        public static final ValidationResult VALID = new ValidationResult(true, List.of());
+
+        public ValidationResult {
+            Assert.notNull(errors, "errors must not be null");
+            errors = List.copyOf(errors);
+        }
+
+    }
+
+}
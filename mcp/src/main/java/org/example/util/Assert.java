@@ -0,0 +1,63 @@
+package org.example.util;
+
+import reactor.util.annotation.Nullable;
+
+import java.util.Collection;
+
+/**
+ * 参数断言工具类，断言失败时抛出 {@link IllegalArgumentException}
+ */
+public final class Assert {
+
+    private Assert() {
+    }
+
+    /**
+     * 断言集合不为 {@code null} 且不为空
+     * @param collection 要检查的集合
+     * @param message 断言失败时使用的异常信息
+     * @throws IllegalArgumentException 若集合为 {@code null} 或为空
+     */
+    public static void notEmpty(@Nullable Collection<?> collection, String message) {
+        if (Utils.isEmpty(collection)) {
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    /**
+     * 断言对象不为 {@code null}
+     * @param object 要检查的对象
+     * @param message 断言失败时使用的异常信息
+     * @throws IllegalArgumentException 若对象为 {@code null}
+     */
+    public static void notNull(@Nullable Object object, String message) {
+        if (object == null) {
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    /**
+     * 断言字符串包含实际的文本内容，参见 {@link Utils#hasText(String)}
+     * @param text 要检查的字符串
+     * @param message 断言失败时使用的异常信息
+     * @throws IllegalArgumentException 若字符串不包含实际的文本内容
+     */
+    public static void hasText(@Nullable String text, String message) {
+        if (!Utils.hasText(text)) {
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    /**
+     * 断言布尔表达式为 {@code true}
+     * @param expression 布尔表达式
+     * @param message 断言失败时使用的异常信息
+     * @throws IllegalArgumentException 若表达式为 {@code false}
+     */
+    public static void isTrue(boolean expression, String message) {
+        if (!expression) {
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+}
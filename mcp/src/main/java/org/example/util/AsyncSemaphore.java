@@ -0,0 +1,162 @@
+package org.example.util;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+/**
+ * 非阻塞的异步信号量
+ *
+ * <p>
+ * {@link #acquire()} 返回一个在获得许可时完成的 {@link Mono}，等待期间不占用任何线程；
+ * 等待者按先到先得的顺序获得许可。等待中的订阅被取消时会从队列中移除，
+ * 已获得许可但尚未交付给订阅者就被取消时会自动归还许可，因此许可不会泄漏。
+ * </p>
+ *
+ * <p>
+ * 获得许可后必须调用且只调用一次 {@link #release()}，通常放在 {@code doFinally} 中。
+ * </p>
+ */
+public final class AsyncSemaphore {
+
+    /**
+     * 许可总数
+     */
+    private final int permits;
+
+    /**
+     * 当前可用的许可数，只在持有 {@code this} 锁时修改
+     */
+    private int available;
+
+    /**
+     * 等待获得许可的订阅者
+     */
+    private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+
+    /**
+     * @param permits 许可总数，必须大于 0
+     */
+    public AsyncSemaphore(int permits) {
+        Assert.isTrue(permits > 0, "permits must be greater than 0");
+        this.permits = permits;
+        this.available = permits;
+    }
+
+    /**
+     * 尝试立即获得一个许可
+     *
+     * @return 获得许可时返回 {@code true}，否则返回 {@code false}
+     */
+    public synchronized boolean tryAcquire() {
+        if (available > 0 && waiters.isEmpty()) {
+            available--;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 获得一个许可，没有可用许可时排队等待
+     *
+     * @return 获得许可时完成的 {@link Mono}
+     */
+    public Mono<Void> acquire() {
+        return Mono.create(sink -> {
+            Waiter waiter = new Waiter(sink);
+            synchronized (this) {
+                if (available > 0 && waiters.isEmpty()) {
+                    available--;
+                    waiter.state.set(Waiter.GRANTED);
+                }
+                else {
+                    waiters.addLast(waiter);
+                }
+            }
+            sink.onCancel(() -> cancel(waiter));
+            if (waiter.state.get() == Waiter.GRANTED) {
+                sink.success();
+            }
+        });
+    }
+
+    /**
+     * 归还一个许可，若有等待者则直接交给队首的等待者
+     */
+    public void release() {
+        Waiter next;
+        synchronized (this) {
+            next = waiters.pollFirst();
+            while (next != null && !next.state.compareAndSet(Waiter.WAITING, Waiter.GRANTED)) {
+                next = waiters.pollFirst();
+            }
+            if (next == null) {
+                Assert.isTrue(available < permits, "released more permits than acquired");
+                available++;
+                return;
+            }
+        }
+        next.sink.success();
+    }
+
+    /**
+     * @return 当前可用的许可数
+     */
+    public synchronized int availablePermits() {
+        return available;
+    }
+
+    /**
+     * @return 当前已被占用的许可数
+     */
+    public synchronized int inUse() {
+        return permits - available;
+    }
+
+    /**
+     * @return 正在排队等待许可的订阅者数量
+     */
+    public synchronized int queueLength() {
+        return waiters.size();
+    }
+
+    /**
+     * @return 许可总数
+     */
+    public int permits() {
+        return permits;
+    }
+
+    private void cancel(Waiter waiter) {
+        if (waiter.state.compareAndSet(Waiter.WAITING, Waiter.CANCELLED)) {
+            synchronized (this) {
+                waiters.remove(waiter);
+            }
+        }
+        else if (waiter.state.compareAndSet(Waiter.GRANTED, Waiter.CANCELLED)) {
+            // 许可已经分配但订阅者在收到之前取消了，归还许可
+            release();
+        }
+    }
+
+    private static final class Waiter {
+
+        static final int WAITING = 0;
+
+        static final int GRANTED = 1;
+
+        static final int CANCELLED = 2;
+
+        final MonoSink<Void> sink;
+
+        final AtomicInteger state = new AtomicInteger(WAITING);
+
+        Waiter(MonoSink<Void> sink) {
+            this.sink = sink;
+        }
+
+    }
+
+}
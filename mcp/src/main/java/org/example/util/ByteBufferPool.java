@@ -0,0 +1,85 @@
+package org.example.util;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 固定大小字节缓冲区的池
+ *
+ * <p>
+ * 池中最多保留 {@code maxPooled} 个空闲缓冲区，超出的缓冲区在归还时直接丢弃交给 GC，
+ * 因此突发的大负载不会让池永久占用大量内存。池为空时 {@link #acquire()} 分配新的缓冲区，从不阻塞。
+ * </p>
+ *
+ * <p>
+ * 归还之后缓冲区会被其他调用方复用，调用方必须确保此时已经没有任何代码（包括 HttpClient 等第三方代码）
+ * 还持有该缓冲区或其视图；无法确定时不要归还。
+ * </p>
+ */
+public final class ByteBufferPool {
+
+    private final int bufferSize;
+
+    private final int maxPooled;
+
+    private final Queue<ByteBuffer> buffers = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger pooled = new AtomicInteger();
+
+    /**
+     * @param bufferSize 每个缓冲区的字节数
+     * @param maxPooled 最多保留的空闲缓冲区数
+     */
+    public ByteBufferPool(int bufferSize, int maxPooled) {
+        Assert.isTrue(bufferSize > 0, "bufferSize must be greater than 0");
+        Assert.isTrue(maxPooled >= 0, "maxPooled must not be negative");
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+    }
+
+    /**
+     * @return 一个已清空的堆缓冲区，容量为 {@link #bufferSize()}
+     */
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = buffers.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocate(bufferSize);
+        }
+        pooled.decrementAndGet();
+        return buffer;
+    }
+
+    /**
+     * 归还缓冲区，池已满或缓冲区不是由本池分配时直接丢弃
+     *
+     * @param buffer 不再使用的缓冲区
+     */
+    public void release(ByteBuffer buffer) {
+        if (buffer.capacity() != bufferSize || buffer.isReadOnly()) {
+            return;
+        }
+        if (pooled.incrementAndGet() > maxPooled) {
+            pooled.decrementAndGet();
+            return;
+        }
+        buffer.clear();
+        buffers.offer(buffer);
+    }
+
+    /**
+     * @return 每个缓冲区的字节数
+     */
+    public int bufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * @return 当前空闲的缓冲区数
+     */
+    public int pooled() {
+        return pooled.get();
+    }
+
+}
@@ -0,0 +1,344 @@
+package org.example.util;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 时间轮定时器，用于大量很少真正到期的超时，例如请求超时
+ *
+ * <p>
+ * 时间被划分为固定长度的 tick，轮上的每个槽是一个双向链表。添加和取消只是把任务放入无锁队列，
+ * 由唯一的工作线程在每个 tick 开始时挂到对应的槽上或从槽上摘下，到期检查只遍历当前槽。
+ * 与每个请求在 {@link java.util.concurrent.ScheduledExecutorService} 上调度一个任务相比，
+ * 没有堆的 O(log n) 插入和删除，也没有每次调度产生的 {@code Future}。
+ * </p>
+ *
+ * <p>
+ * 任务最多比预定时间晚一个 tick 执行。任务在工作线程上运行，不能阻塞。
+ * </p>
+ */
+public final class HashedWheelTimer implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(HashedWheelTimer.class);
+
+    /**
+     * 每个 tick 最多从队列转移到轮上的任务数，避免突发的大量添加拖慢到期处理
+     */
+    private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private static volatile HashedWheelTimer shared;
+
+    private final long tickNanos;
+
+    private final Bucket[] wheel;
+
+    private final int mask;
+
+    private final Queue<Timeout> added = new ConcurrentLinkedQueue<>();
+
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+
+    private final Thread worker;
+
+    private final long startTime;
+
+    private volatile boolean stopped;
+
+    /**
+     * 工作线程已经处理过的 tick 数
+     */
+    private long tick;
+
+    /**
+     * @param tickDuration 每个 tick 的时长
+     * @param wheelSize 轮上的槽数，会向上取整为 2 的幂
+     * @param threadFactory 创建工作线程
+     */
+    public HashedWheelTimer(Duration tickDuration, int wheelSize, ThreadFactory threadFactory) {
+        Assert.notNull(tickDuration, "tickDuration must not be null");
+        Assert.isTrue(tickDuration.toMillis() >= 1, "tickDuration must be at least 1ms");
+        Assert.isTrue(wheelSize > 0 && wheelSize <= 1 << 20, "wheelSize must be between 1 and 2^20");
+        Assert.notNull(threadFactory, "threadFactory must not be null");
+        this.tickNanos = tickDuration.toNanos();
+        int size = Integer.highestOneBit(wheelSize - 1) << 1;
+        size = Math.max(1, size);
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.startTime = System.nanoTime();
+        this.worker = threadFactory.newThread(this::run);
+        this.worker.start();
+    }
+
+    /**
+     * 10ms 一个 tick、512 个槽的定时器，工作线程为守护线程
+     */
+    public HashedWheelTimer() {
+        this(Duration.ofMillis(10), 512, task -> {
+            Thread thread = new Thread(task, "mcp-wheel-timer-" + THREAD_COUNTER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return 进程内共享的默认定时器，第一次调用时创建
+     */
+    public static HashedWheelTimer shared() {
+        HashedWheelTimer timer = shared;
+        if (timer == null) {
+            synchronized (HashedWheelTimer.class) {
+                timer = shared;
+                if (timer == null) {
+                    timer = new HashedWheelTimer();
+                    shared = timer;
+                }
+            }
+        }
+        return timer;
+    }
+
+    /**
+     * 在指定延迟后执行任务
+     *
+     * @param task 到期时在工作线程上执行的任务
+     * @param delay 延迟
+     * @param unit 延迟的单位
+     * @return 可以用于取消的句柄
+     * @throws IllegalStateException 如果定时器已经关闭
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        Assert.notNull(task, "task must not be null");
+        Assert.notNull(unit, "unit must not be null");
+        if (stopped) {
+            throw new IllegalStateException("Timer is stopped");
+        }
+        long deadline = System.nanoTime() + Math.max(0, unit.toNanos(delay)) - startTime;
+        Timeout timeout = new Timeout(this, task, deadline);
+        added.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * 停止工作线程，尚未到期的任务不会再执行
+     */
+    @Override
+    public void close() {
+        stopped = true;
+        worker.interrupt();
+        synchronized (HashedWheelTimer.class) {
+            if (shared == this) {
+                shared = null;
+            }
+        }
+    }
+
+    private void run() {
+        while (!stopped) {
+            if (!waitForNextTick()) {
+                break;
+            }
+            removeCancelled();
+            transferAdded();
+            wheel[(int) (tick & mask)].expire();
+            tick++;
+        }
+    }
+
+    /**
+     * 等待当前 tick 结束
+     *
+     * @return 定时器关闭时为 {@code false}
+     */
+    private boolean waitForNextTick() {
+        long deadline = tickNanos * (tick + 1);
+        while (true) {
+            long sleep = deadline - (System.nanoTime() - startTime);
+            if (sleep <= 0) {
+                return true;
+            }
+            LockSupport.parkNanos(this, sleep);
+            if (stopped) {
+                return false;
+            }
+        }
+    }
+
+    private void transferAdded() {
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+            Timeout timeout = added.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.state != Timeout.PENDING) {
+                continue;
+            }
+            long expireTick = Math.max(timeout.deadline / tickNanos, tick);
+            timeout.remainingRounds = (expireTick - tick) / wheel.length;
+            wheel[(int) (expireTick & mask)].add(timeout);
+        }
+    }
+
+    private void removeCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    /**
+     * 定时任务的句柄
+     */
+    public static final class Timeout {
+
+        private static final int PENDING = 0;
+
+        private static final int CANCELLED = 1;
+
+        private static final int EXPIRED = 2;
+
+        private static final AtomicIntegerFieldUpdater<Timeout> STATE = AtomicIntegerFieldUpdater
+            .newUpdater(Timeout.class, "state");
+
+        private final HashedWheelTimer timer;
+
+        private final Runnable task;
+
+        /**
+         * 相对 {@link HashedWheelTimer#startTime} 的到期时间
+         */
+        private final long deadline;
+
+        private volatile int state = PENDING;
+
+        // 以下字段只由工作线程访问
+        private long remainingRounds;
+
+        private Bucket bucket;
+
+        private Timeout prev;
+
+        private Timeout next;
+
+        private Timeout(HashedWheelTimer timer, Runnable task, long deadline) {
+            this.timer = timer;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * 取消任务
+         *
+         * @return {@code true} 表示任务尚未执行且已被取消
+         */
+        public boolean cancel() {
+            if (!STATE.compareAndSet(this, PENDING, CANCELLED)) {
+                return false;
+            }
+            // 从槽上摘下由工作线程完成，尚未挂到槽上的任务在转移时会被跳过
+            timer.cancelled.add(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state == EXPIRED;
+        }
+
+        private void expire() {
+            if (!STATE.compareAndSet(this, PENDING, EXPIRED)) {
+                return;
+            }
+            try {
+                task.run();
+            }
+            catch (Throwable e) {
+                logger.warn("Timer task threw an exception", e);
+            }
+        }
+
+    }
+
+    /**
+     * 轮上的一个槽，只由工作线程访问
+     */
+    private static final class Bucket {
+
+        private Timeout head;
+
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            }
+            else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        void expire() {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.remainingRounds <= 0) {
+                    // 任务总是挂在到期 tick 所在的槽上，轮数用完即已到期
+                    remove(timeout);
+                    timeout.expire();
+                }
+                else if (timeout.isCancelled()) {
+                    remove(timeout);
+                }
+                else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.bucket != this) {
+                return;
+            }
+            Timeout next = timeout.next;
+            if (timeout.prev != null) {
+                timeout.prev.next = next;
+            }
+            if (next != null) {
+                next.prev = timeout.prev;
+            }
+            if (timeout == head) {
+                head = next;
+            }
+            if (timeout == tail) {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+
+    }
+
+}
@@ -0,0 +1,192 @@
+package org.example.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 以 {@code long} 为键的开放寻址哈希表
+ *
+ * <p>
+ * 键和值分别保存在两个数组中，使用线性探测，删除时向前移动后续元素而不是留下墓碑，
+ * 因此探测长度不会随着反复插入删除而增长。与 {@code HashMap<Long, V>} 相比，每个条目不需要
+ * {@link Long} 和 {@code Node} 两个对象，适合保存大量短生命周期的条目，例如按请求 ID 索引的待响应请求。
+ * </p>
+ *
+ * <p>
+ * 不是线程安全的，由调用方加锁。值不能为 {@code null}。
+ * </p>
+ *
+ * @param <V> 值的类型
+ */
+public final class LongObjectMap<V> {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+
+    /**
+     * 与 {@link #keys} 一一对应，{@code null} 表示空槽
+     */
+    private Object[] values;
+
+    private int mask;
+
+    private int size;
+
+    /**
+     * 装载因子为 0.5，超过时容量加倍
+     */
+    private int resizeThreshold;
+
+    public LongObjectMap() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize 预期的条目数，容量会取不小于它两倍的 2 的幂
+     */
+    public LongObjectMap(int expectedSize) {
+        Assert.isTrue(expectedSize >= 0, "expectedSize must not be negative");
+        int capacity = Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(1, expectedSize) * 2 - 1) << 1);
+        allocate(capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int index = slot(key);
+        while (true) {
+            Object value = values[index];
+            if (value == null) {
+                return null;
+            }
+            if (keys[index] == key) {
+                return (V) value;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    /**
+     * @return 之前与该键关联的值，没有则为 {@code null}
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        Assert.notNull(value, "value must not be null");
+        int index = slot(key);
+        while (true) {
+            Object existing = values[index];
+            if (existing == null) {
+                keys[index] = key;
+                values[index] = value;
+                if (++size > resizeThreshold) {
+                    rehash(values.length << 1);
+                }
+                return null;
+            }
+            if (keys[index] == key) {
+                values[index] = value;
+                return (V) existing;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    /**
+     * @return 被移除的值，没有则为 {@code null}
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int index = slot(key);
+        while (true) {
+            Object value = values[index];
+            if (value == null) {
+                return null;
+            }
+            if (keys[index] == key) {
+                size--;
+                shiftBack(index);
+                return (V) value;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    /**
+     * 移除并返回所有值
+     *
+     * @return 被移除的值，顺序不确定
+     */
+    @SuppressWarnings("unchecked")
+    public List<V> drain() {
+        List<V> drained = new ArrayList<>(size);
+        for (Object value : values) {
+            if (value != null) {
+                drained.add((V) value);
+            }
+        }
+        Arrays.fill(values, null);
+        size = 0;
+        return drained;
+    }
+
+    /**
+     * 把 {@code index} 之后同一探测链上的条目前移，填补被删除的空槽
+     */
+    private void shiftBack(int index) {
+        int hole = index;
+        int next = (index + 1) & mask;
+        while (values[next] != null) {
+            int home = slot(keys[next]);
+            // 只有当 home 不在 (hole, next] 之间时，条目才能移动到空槽
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        values[hole] = null;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldValues.length; i++) {
+            Object value = oldValues[i];
+            if (value != null) {
+                int index = slot(oldKeys[i]);
+                while (values[index] != null) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                values[index] = value;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        resizeThreshold = capacity >>> 1;
+    }
+
+    /**
+     * 斐波那契散列，连续的键也会均匀分布
+     */
+    private int slot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+}
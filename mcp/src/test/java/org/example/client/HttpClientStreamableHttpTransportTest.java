@@ -0,0 +1,181 @@
+package org.example.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.example.spec.McpSchema;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.Mono;
+
+class HttpClientStreamableHttpTransportTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final StubServer server = new StubServer();
+
+    private HttpClientStreamableHttpTransport transport;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (transport != null) {
+            transport.closeGracefully().block(TIMEOUT);
+        }
+        server.close();
+    }
+
+    @Test
+    void resumesDroppedStreamFromLastEventId() throws Exception {
+        server.start();
+        BlockingQueue<McpSchema.JSONRPCMessage> received = new LinkedBlockingQueue<>();
+        transport = HttpClientStreamableHttpTransport.builder("http://127.0.0.1:" + server.port())
+            .customizeClient(builder -> builder.version(HttpClient.Version.HTTP_1_1))
+            .openStream(true)
+            .build();
+        transport.connect(message -> message.doOnNext(received::add).then(Mono.empty())).block(TIMEOUT);
+        transport.sendMessage(new McpSchema.JSONRPCNotification(McpSchema.JSONRPC_VERSION,
+                McpSchema.METHOD_NOTIFICATION_INITIALIZED, null))
+            .block(TIMEOUT);
+
+        assertThat(method(received.poll(5, TimeUnit.SECONDS))).isEqualTo("notifications/first");
+        assertThat(method(received.poll(5, TimeUnit.SECONDS))).isEqualTo("notifications/second");
+
+        // 第二个流保持打开，一次断开只应该恢复一次
+        Thread.sleep(300);
+        assertThat(server.lastEventIds).containsExactly("", "1");
+        assertThat(server.maxOpenStreams.get()).isEqualTo(1);
+    }
+
+    private static String method(McpSchema.JSONRPCMessage message) {
+        assertThat(message).isInstanceOf(McpSchema.JSONRPCNotification.class);
+        return ((McpSchema.JSONRPCNotification) message).method();
+    }
+
+    /**
+     * 最简单的 Streamable HTTP 服务器：POST 一律返回 202；第一个 GET 发出 ID 为 1 的事件后重置连接，
+     * 之后的 GET 发出 ID 为 2 的事件并保持打开
+     */
+    private static final class StubServer implements AutoCloseable {
+
+        /**
+         * 每个 GET 请求携带的 {@code Last-Event-ID}，没有时为空字符串
+         */
+        final List<String> lastEventIds = new CopyOnWriteArrayList<>();
+
+        final AtomicInteger maxOpenStreams = new AtomicInteger();
+
+        private final AtomicInteger openStreams = new AtomicInteger();
+
+        private final List<Socket> sockets = new CopyOnWriteArrayList<>();
+
+        private ServerSocket serverSocket;
+
+        void start() throws IOException {
+            serverSocket = new ServerSocket(0);
+            Thread acceptor = new Thread(() -> {
+                try {
+                    while (true) {
+                        Socket socket = serverSocket.accept();
+                        sockets.add(socket);
+                        Thread handler = new Thread(() -> handle(socket));
+                        handler.setDaemon(true);
+                        handler.start();
+                    }
+                }
+                catch (IOException e) {
+                    // 服务器已关闭
+                }
+            });
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        int port() {
+            return serverSocket.getLocalPort();
+        }
+
+        private void handle(Socket socket) {
+            try {
+                BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(socket.getInputStream(), StandardCharsets.ISO_8859_1));
+                String requestLine = reader.readLine();
+                int contentLength = 0;
+                String lastEventId = "";
+                String header;
+                while ((header = reader.readLine()) != null && !header.isEmpty()) {
+                    String lower = header.toLowerCase(Locale.ROOT);
+                    if (lower.startsWith("content-length:")) {
+                        contentLength = Integer.parseInt(header.substring("content-length:".length()).trim());
+                    }
+                    else if (lower.startsWith("last-event-id:")) {
+                        lastEventId = header.substring("last-event-id:".length()).trim();
+                    }
+                }
+                for (int i = 0; i < contentLength; i++) {
+                    reader.read();
+                }
+                OutputStream out = socket.getOutputStream();
+                if (requestLine.startsWith("POST")) {
+                    out.write("HTTP/1.1 202 Accepted\r\nContent-Length: 0\r\nConnection: close\r\n\r\n"
+                        .getBytes(StandardCharsets.US_ASCII));
+                    out.flush();
+                    socket.close();
+                    return;
+                }
+
+                lastEventIds.add(lastEventId);
+                int open = openStreams.incrementAndGet();
+                maxOpenStreams.accumulateAndGet(open, Math::max);
+                boolean first = lastEventIds.size() == 1;
+                String id = first ? "1" : "2";
+                String method = first ? "notifications/first" : "notifications/second";
+                out.write(("HTTP/1.1 200 OK\r\nContent-Type: text/event-stream\r\n\r\n" + "retry: 50\nid: " + id
+                        + "\ndata: {\"jsonrpc\":\"2.0\",\"method\":\"" + method + "\"}\n\n")
+                    .getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                if (first) {
+                    Thread.sleep(100);
+                    openStreams.decrementAndGet();
+                    // 发送 RST 模拟连接意外断开
+                    socket.setSoLinger(true, 0);
+                    socket.close();
+                }
+            }
+            catch (IOException e) {
+                // 客户端断开
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (serverSocket != null) {
+                serverSocket.close();
+            }
+            for (Socket socket : sockets) {
+                socket.close();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,92 @@
+package org.example.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class SseEventParserTest {
+
+    /**
+     * 覆盖 BOM、三种行尾、注释、多行 data、id、retry 和多字节 UTF-8 字符的事件流
+     */
+    private static final byte[] STREAM = ("﻿"
+            + ": comment\r\n"
+            + "event: endpoint\r\n"
+            + "data: /message?sessionId=1\r\n\r\n"
+            + "id: 7\n"
+            + "retry: 1500\n"
+            + "data: {\"text\":\"héllo 世界 😀\"}\n\n"
+            + "data: first\r"
+            + "data: second\r\r"
+            + "id\n"
+            + "unknown: ignored\n"
+            + "data:no-space\n\n").getBytes(StandardCharsets.UTF_8);
+
+    private static final List<String> EXPECTED = List.of(
+            "endpoint|/message?sessionId=1|null",
+            "message|{\"text\":\"héllo 世界 😀\"}|7",
+            "message|first\nsecond|7",
+            "message|no-space|null");
+
+    @Test
+    void parsesWholeStream() {
+        Recorder recorder = new Recorder();
+        recorder.parser.parse(ByteBuffer.wrap(STREAM));
+
+        assertThat(recorder.events).isEqualTo(EXPECTED);
+        assertThat(recorder.parser.reconnectionTime()).isEqualTo(1500);
+        assertThat(recorder.parser.lastEventId()).isNull();
+    }
+
+    @Test
+    void parsesStreamSplitAtEveryPosition() {
+        // 切分点会落在 BOM 中、CRLF 之间、字段名中以及多字节字符的中间
+        for (int split = 0; split <= STREAM.length; split++) {
+            Recorder recorder = new Recorder();
+            recorder.parser.parse(ByteBuffer.wrap(Arrays.copyOfRange(STREAM, 0, split)));
+            recorder.parser.parse(ByteBuffer.wrap(Arrays.copyOfRange(STREAM, split, STREAM.length)));
+
+            assertThat(recorder.events).as("split at %d", split).isEqualTo(EXPECTED);
+        }
+    }
+
+    @Test
+    void parsesStreamOneByteAtATime() {
+        Recorder recorder = new Recorder();
+        for (byte b : STREAM) {
+            recorder.parser.parse(ByteBuffer.wrap(new byte[] { b }));
+        }
+
+        assertThat(recorder.events).isEqualTo(EXPECTED);
+        assertThat(recorder.parser.reconnectionTime()).isEqualTo(1500);
+    }
+
+    @Test
+    void doesNotDispatchIncompleteEvent() {
+        Recorder recorder = new Recorder();
+        recorder.parser.parse(ByteBuffer.wrap("id: 3\ndata: partial\n".getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(recorder.events).isEmpty();
+
+        recorder.parser.parse(ByteBuffer.wrap("\n".getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(recorder.events).containsExactly("message|partial|3");
+        assertThat(recorder.parser.lastEventId()).isEqualTo("3");
+    }
+
+    private static final class Recorder {
+
+        final List<String> events = new ArrayList<>();
+
+        final SseEventParser parser = new SseEventParser(
+                event -> events.add(event.type() + "|" + event.dataAsString() + "|" + event.lastEventId()));
+
+    }
+
+}
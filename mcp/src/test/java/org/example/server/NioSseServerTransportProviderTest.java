@@ -0,0 +1,198 @@
+package org.example.server;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+
+import org.example.spec.McpSchema;
+import org.example.spec.McpServerTransportProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+class NioSseServerTransportProviderTest {
+
+    private static final int TIMEOUT_MILLIS = 5000;
+
+    private NioSseServerTransportProvider provider;
+
+    @AfterEach
+    void tearDown() {
+        if (provider != null) {
+            provider.closeGracefully().block(Duration.ofSeconds(10));
+        }
+    }
+
+    @Test
+    void answersMalformedRequestLineWithBadRequest() throws IOException {
+        start(transport -> message -> Mono.empty());
+
+        assertThat(exchange("GARBAGE\r\n\r\n")).startsWith("HTTP/1.1 400");
+
+        try (SseClient client = new SseClient()) {
+            assertThat(client.endpoint()).startsWith("/message?sessionId=");
+        }
+    }
+
+    @Test
+    void answersMalformedQueryWithBadRequestAndKeepsServing() throws IOException {
+        start(transport -> message -> message.map(msg -> result((McpSchema.JSONRPCRequest) msg)));
+
+        assertThat(post("/message?sessionId=%zz", "{}")).startsWith("HTTP/1.1 400");
+        assertThat(post("/message?sessionId=%zz", "{}")).startsWith("HTTP/1.1 400");
+
+        try (SseClient client = new SseClient()) {
+            String endpoint = client.endpoint();
+            assertThat(post(endpoint, request(0, McpSchema.METHOD_PING))).startsWith("HTTP/1.1 202");
+            assertThat(client.nextData()).contains("\"id\":0");
+        }
+    }
+
+    @Test
+    void handlesRequestsOfOneSessionConcurrently() throws IOException {
+        Sinks.Empty<Void> release = Sinks.empty();
+        start(transport -> message -> message.flatMap(msg -> {
+            McpSchema.JSONRPCRequest request = (McpSchema.JSONRPCRequest) msg;
+            Mono<McpSchema.JSONRPCMessage> response = Mono.just(result(request));
+            // tools/call 在 ping 的响应发出之后才会完成，串行处理时 ping 永远得不到响应
+            return McpSchema.METHOD_TOOLS_CALL.equals(request.method()) ? release.asMono().then(response)
+                    : response;
+        }));
+
+        try (SseClient client = new SseClient()) {
+            String endpoint = client.endpoint();
+            post(endpoint, request(0, McpSchema.METHOD_INITIALIZE));
+            assertThat(client.nextData()).contains("\"id\":0");
+
+            post(endpoint, request(1, McpSchema.METHOD_TOOLS_CALL));
+            post(endpoint, request(2, McpSchema.METHOD_PING));
+            assertThat(client.nextData()).contains("\"id\":2");
+
+            release.tryEmitEmpty();
+            assertThat(client.nextData()).contains("\"id\":1");
+        }
+    }
+
+    @Test
+    void deliversCancellationWhileRequestIsPending() throws IOException {
+        Sinks.Empty<Void> cancelled = Sinks.empty();
+        start(transport -> message -> message.flatMap(msg -> {
+            if (msg instanceof McpSchema.JSONRPCNotification notification) {
+                if (McpSchema.METHOD_NOTIFICATION_CANCELLED.equals(notification.method())) {
+                    cancelled.tryEmitEmpty();
+                }
+                return Mono.empty();
+            }
+            McpSchema.JSONRPCRequest request = (McpSchema.JSONRPCRequest) msg;
+            Mono<McpSchema.JSONRPCMessage> response = Mono.just(result(request));
+            // tools/call 只有收到取消通知后才结束
+            return McpSchema.METHOD_TOOLS_CALL.equals(request.method()) ? cancelled.asMono().then(response)
+                    : response;
+        }));
+
+        try (SseClient client = new SseClient()) {
+            String endpoint = client.endpoint();
+            post(endpoint, request(0, McpSchema.METHOD_INITIALIZE));
+            assertThat(client.nextData()).contains("\"id\":0");
+
+            post(endpoint, request(1, McpSchema.METHOD_TOOLS_CALL));
+            post(endpoint, "{\"jsonrpc\":\"2.0\",\"method\":\"" + McpSchema.METHOD_NOTIFICATION_CANCELLED
+                    + "\",\"params\":{\"requestId\":1}}");
+
+            assertThat(client.nextData()).contains("\"id\":1");
+        }
+    }
+
+    private void start(McpServerTransportProvider.SessionAcceptor acceptor) {
+        provider = NioSseServerTransportProvider.builder().port(0).build();
+        provider.setSessionAcceptor(acceptor);
+        provider.start();
+    }
+
+    private static McpSchema.JSONRPCMessage result(McpSchema.JSONRPCRequest request) {
+        return new McpSchema.JSONRPCResponse(McpSchema.JSONRPC_VERSION, request.id(), Map.of(), null);
+    }
+
+    private static String request(int id, String method) {
+        return "{\"jsonrpc\":\"2.0\",\"id\":" + id + ",\"method\":\"" + method + "\"}";
+    }
+
+    private String post(String target, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        return exchange("POST " + target + " HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n"
+                + "Content-Type: application/json\r\nContent-Length: " + bytes.length + "\r\n\r\n" + body);
+    }
+
+    /**
+     * 在一个新连接上发送原始请求
+     *
+     * @return 响应的状态行
+     */
+    private String exchange(String rawRequest) throws IOException {
+        try (Socket socket = connect()) {
+            socket.getOutputStream().write(rawRequest.getBytes(StandardCharsets.UTF_8));
+            socket.getOutputStream().flush();
+            return new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))
+                .readLine();
+        }
+    }
+
+    private Socket connect() throws IOException {
+        Socket socket = new Socket("127.0.0.1", provider.localAddress().getPort());
+        socket.setSoTimeout(TIMEOUT_MILLIS);
+        return socket;
+    }
+
+    /**
+     * 读取 SSE 流中各事件的 data 行
+     */
+    private final class SseClient implements AutoCloseable {
+
+        private final Socket socket;
+
+        private final BufferedReader reader;
+
+        SseClient() throws IOException {
+            socket = connect();
+            OutputStream out = socket.getOutputStream();
+            out.write("GET /sse HTTP/1.1\r\nHost: localhost\r\nAccept: text/event-stream\r\n\r\n"
+                .getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            assertThat(reader.readLine()).startsWith("HTTP/1.1 200");
+        }
+
+        /**
+         * @return 'endpoint' 事件中的消息端点
+         */
+        String endpoint() throws IOException {
+            return nextData();
+        }
+
+        String nextData() throws IOException {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("data:")) {
+                    return line.substring("data:".length()).trim();
+                }
+            }
+            throw new IOException("SSE stream ended");
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+
+    }
+
+}
@@ -0,0 +1,117 @@
+package org.example.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class LongObjectMapTest {
+
+    /**
+     * 预期 8 个条目时表的容量为 16 个槽位
+     */
+    private static final int EXPECTED_SIZE = 8;
+
+    private static final int MASK = 15;
+
+    @Test
+    void removeFromProbeChainThatWrapsAroundTheTable() {
+        // 四个键都落在最后一个槽位，探测链从 15 绕回到 0、1、2；另外两个键落在槽位 0，排在链的末尾
+        List<Long> tail = keysWithHomeSlot(MASK, 4);
+        List<Long> head = keysWithHomeSlot(0, 2);
+        LongObjectMap<String> map = new LongObjectMap<>(EXPECTED_SIZE);
+        tail.forEach(key -> map.put(key, "v" + key));
+        head.forEach(key -> map.put(key, "v" + key));
+
+        // 删除链头后，后面绕回表头的条目必须前移，包括跨过表尾回到槽位 15
+        assertThat(map.remove(tail.get(0))).isEqualTo("v" + tail.get(0));
+        assertThat(map.get(tail.get(0))).isNull();
+        for (long key : tail.subList(1, tail.size())) {
+            assertThat(map.get(key)).isEqualTo("v" + key);
+        }
+        for (long key : head) {
+            assertThat(map.get(key)).isEqualTo("v" + key);
+        }
+
+        // 删除链中间已经绕回表头的条目
+        assertThat(map.remove(tail.get(2))).isEqualTo("v" + tail.get(2));
+        assertThat(map.get(tail.get(1))).isEqualTo("v" + tail.get(1));
+        assertThat(map.get(tail.get(3))).isEqualTo("v" + tail.get(3));
+        for (long key : head) {
+            assertThat(map.get(key)).isEqualTo("v" + key);
+        }
+        assertThat(map.size()).isEqualTo(4);
+
+        // 落在槽位 0 的键不能被移到它的起始槽位之前
+        assertThat(map.remove(tail.get(1))).isNotNull();
+        assertThat(map.remove(tail.get(3))).isNotNull();
+        for (long key : head) {
+            assertThat(map.get(key)).isEqualTo("v" + key);
+        }
+        assertThat(map.size()).isEqualTo(2);
+    }
+
+    @Test
+    void removeDoesNotMoveWrappedEntryBeforeItsHomeSlot() {
+        // 槽位 14、15 上各有一个起始于该槽位的键，槽位 0 上的键起始于 0：
+        // 删除槽位 14 后，槽位 0 的条目虽然在探测顺序上位于空槽之后，也不能移到空槽里
+        long first = keysWithHomeSlot(MASK - 1, 1).get(0);
+        long second = keysWithHomeSlot(MASK, 1).get(0);
+        long wrapped = keysWithHomeSlot(0, 1).get(0);
+        LongObjectMap<String> map = new LongObjectMap<>(EXPECTED_SIZE);
+        map.put(first, "first");
+        map.put(second, "second");
+        map.put(wrapped, "wrapped");
+
+        map.remove(first);
+
+        assertThat(map.get(second)).isEqualTo("second");
+        assertThat(map.get(wrapped)).isEqualTo("wrapped");
+        assertThat(map.remove(wrapped)).isEqualTo("wrapped");
+        assertThat(map.get(second)).isEqualTo("second");
+        assertThat(map.size()).isEqualTo(1);
+    }
+
+    @Test
+    void behavesLikeHashMapUnderRandomInsertsAndRemoves() {
+        Random random = new Random(42);
+        LongObjectMap<Long> map = new LongObjectMap<>();
+        Map<Long, Long> expected = new HashMap<>();
+        for (int i = 0; i < 200_000; i++) {
+            // 键的范围很小，反复插入删除让探测链不断变化并绕过表尾
+            long key = random.nextInt(64);
+            if (random.nextBoolean()) {
+                assertThat(map.put(key, (long) i)).isEqualTo(expected.put(key, (long) i));
+            }
+            else {
+                assertThat(map.remove(key)).isEqualTo(expected.remove(key));
+            }
+            assertThat(map.size()).isEqualTo(expected.size());
+        }
+        for (long key = 0; key < 64; key++) {
+            assertThat(map.get(key)).isEqualTo(expected.get(key));
+        }
+        assertThat(map.drain()).containsExactlyInAnyOrderElementsOf(expected.values());
+        assertThat(map.isEmpty()).isTrue();
+    }
+
+    /**
+     * 找出在 16 个槽位的表中起始槽位为 {@code slot} 的键，散列方式与 {@link LongObjectMap} 相同
+     */
+    private static List<Long> keysWithHomeSlot(int slot, int count) {
+        List<Long> keys = new ArrayList<>();
+        for (long key = 1; keys.size() < count; key++) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            if (((int) (hash ^ (hash >>> 32)) & MASK) == slot) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+
+}